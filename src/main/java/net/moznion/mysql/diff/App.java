@@ -2,7 +2,10 @@ package net.moznion.mysql.diff;
 
 import lombok.Getter;
 
+import net.moznion.mysql.diff.model.SchemaFingerprint;
 import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.TableDiff;
+import net.moznion.mysql.diff.model.TableStatistics;
 
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
@@ -12,11 +15,24 @@ import org.kohsuke.args4j.spi.StringArrayOptionHandler;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
 
 /**
  * Class for CLI application.
@@ -31,6 +47,79 @@ public class App {
   @Option(name = "-h", aliases = "--help", usage = "print usage message and exit")
   private boolean showUsage;
 
+  @Option(name = "--online-ddl", usage = "split changes by online DDL algorithm with hints")
+  private boolean onlineDdl;
+
+  @Option(name = "--with-stats", usage = "order diffs by estimated rebuild cost")
+  private boolean withStats;
+
+  @Option(name = "--advise-indexes", usage = "suggest to drop redundant indexes of new schema")
+  private boolean adviseIndexes;
+
+  @Option(name = "--osc", metaVar = "tool", usage = "generate online schema change commands")
+  private String oscTool;
+
+  @Option(name = "--osc-threshold", metaVar = "bytes",
+      usage = "size of table to use online schema change")
+  private long oscThreshold = 1L << 30;
+
+  @Option(name = "--apply", usage = "apply diffs to old database", forbids = "--dry-run")
+  private boolean apply;
+
+  @Option(name = "--dry-run", usage = "apply diffs to a scratch copy of old schema",
+      forbids = "--apply")
+  private boolean dryRun;
+
+  @Option(name = "--concurrency", metaVar = "num", usage = "number of tables applied at once")
+  private int concurrency = 4;
+
+  @Option(name = "--jdbc-dump", usage = "fetch schemas via JDBC instead of mysqldump")
+  private boolean jdbcDump;
+
+  @Option(name = "--fetch-concurrency", metaVar = "num",
+      usage = "number of connections to fetch table definitions via JDBC")
+  private int fetchConcurrency = 1;
+
+  @Option(name = "--cache-dir", metaVar = "dir", usage = "cache dumped schemas in the directory")
+  private File cacheDir;
+
+  @Option(name = "--snapshot-dir", metaVar = "dir",
+      usage = "keep snapshots of remote databases and fetch only changed tables")
+  private File snapshotDir;
+
+  @Option(name = "--offline", usage = "normalize SQL files without MySQL")
+  private boolean offline;
+
+  @Option(name = "--fingerprint", usage = "dump only tables which differ by server-side checksum",
+      forbids = {"--dry-run", "--advise-indexes"})
+  private boolean fingerprint;
+
+  @Option(name = "--max-dumps-per-host", metaVar = "num",
+      usage = "limit concurrent dumps from each remote MySQL")
+  private int maxDumpsPerHost;
+
+  @Option(name = "--include", metaVar = "patterns",
+      usage = "compare only tables which match any of globs")
+  private List<String> includes = new ArrayList<>();
+
+  @Option(name = "--exclude", metaVar = "patterns",
+      usage = "ignore tables which match any of globs")
+  private List<String> excludes = new ArrayList<>();
+
+  @Option(name = "--socket", metaVar = "path",
+      usage = "connect to local MySQL via the unix domain socket")
+  private String socketPath;
+
+  @Option(name = "--batch", metaVar = "manifest", usage = "take diffs of pairs in the manifest",
+      forbids = {"--apply", "--dry-run"})
+  private File manifest;
+
+  @Option(name = "--workers", metaVar = "num", usage = "number of manifest entries run at once")
+  private int workers = 4;
+
+  @Option(name = "--summary", metaVar = "file", usage = "write status of manifest entries")
+  private File summaryFile;
+
   @Argument(index = 0, metaVar = "arguments...", handler = StringArrayOptionHandler.class)
   private String[] arguments;
 
@@ -65,9 +154,43 @@ public class App {
    *     java -jar dbname1 dbname2
    * Take diff between dbname1 and dbname2 (both of databases on remote MySQL)
    *     java -jar '-uroot -hlocalhost dbname1' '-uroot -hlocalhost dbname2'
+   * Take diffs of pairs which are listed in manifest.tsv in a process
+   *     java -jar --batch manifest.tsv --workers 8
    * [Options]
    *     -h, --help:    Show usage
    *     -v, --version: Show version
+   *     --online-ddl:  Split changes by online DDL algorithm (INSTANT, INPLACE and COPY)
+   *                    and append ALGORITHM and LOCK hints
+   *     --with-stats:  Fetch table statistics of old_database (it must be a database),
+   *                    and order diffs by estimated rebuild cost
+   *     --advise-indexes: Suggest to drop redundant indexes of new_database
+   *     --osc tool:    Generate commands of online schema change tool
+   *                    (pt-online-schema-change or gh-ost) for large tables
+   *     --osc-threshold bytes: Size of table to use online schema change (default: 1 GiB)
+   *     --apply:       Apply diffs to old_database (it must be a database)
+   *     --dry-run:     Apply diffs to a scratch database which is loaded old schema
+   *     --concurrency num: Number of tables applied concurrently (default: 4)
+   *     --jdbc-dump:   Fetch schemas by SHOW CREATE TABLE over JDBC instead of mysqldump
+   *     --fetch-concurrency num: Connections to fetch schemas over JDBC in parallel
+   *                    (implies --jdbc-dump if greater than 1, default: 1)
+   *     --cache-dir dir: Cache dumped schemas in the directory
+   *     --snapshot-dir dir: Keep snapshots of remote databases in the directory,
+   *                    and fetch only changed tables
+   *     --offline:     Normalize SQL files without MySQL, by the rules of MySQL 5.7
+   *     --fingerprint: Compare checksums of tables computed by servers, and dump only
+   *                    different tables (both of arguments must be databases)
+   *     --max-dumps-per-host num: Limit concurrent dumps per remote MySQL, and back off
+   *                    while it is busy (default: no limit)
+   *     --include patterns: Compare only tables which match any of comma-separated globs
+   *                    (e.g. 'user_*,order_?'); it can be given repeatedly
+   *     --exclude patterns: Ignore tables which match any of comma-separated globs
+   *                    (e.g. '_archive_*'); it can be given repeatedly
+   *     --socket path: Connect to local MySQL via the unix domain socket, instead of TCP
+   *     --batch manifest: Take diffs of pairs in the manifest instead of arguments;
+   *                    each line is 'old_database&lt;TAB&gt;new_database&lt;TAB&gt;output_file'
+   *     --workers num: Number of pairs in the manifest taken concurrently (default: 4)
+   *     --summary file: Write status of each pair in the manifest to the file
+   *                    (default: manifest file name + '.summary')
    * </pre>
    * 
    * @param args Options, or target of database arguments.
@@ -96,7 +219,17 @@ public class App {
       return;
     }
 
-    List<String> coreArgs = Arrays.asList(Optional.ofNullable(args).orElse(new String[0]));
+    List<String> coreArgs =
+        Arrays.asList(Optional.ofNullable(app.arguments).orElse(new String[0]));
+    if (app.manifest != null) {
+      if (!coreArgs.isEmpty()) {
+        throw new IllegalArgumentException(
+            "--batch doesn't take databases as arguments: " + coreArgs);
+      }
+      app.runBatch();
+      return;
+    }
+
     int numOfArgs = coreArgs.size();
     if (numOfArgs != 2) {
       if (numOfArgs < 2) {
@@ -109,55 +242,546 @@ public class App {
       System.exit(1);
     }
 
-    List<List<Table>> parsed = new ArrayList<>();
+    MySqlConnectionInfo localMySqlConnectionInfo = app.buildLocalMySqlConnectionInfo();
+    TableFilter tableFilter = app.buildTableFilter();
+    SchemaDumper schemaDumper = app.buildSchemaDumper(localMySqlConnectionInfo, tableFilter);
+    DiffOutput output =
+        app.takeDiff(coreArgs, schemaDumper, localMySqlConnectionInfo, tableFilter);
+    if (output != null) {
+      System.out.println(output.text);
+    }
+  }
+
+  private MySqlConnectionInfo buildLocalMySqlConnectionInfo() {
+    return MySqlConnectionInfo.builder()
+        .socketPath(socketPath)
+        .build();
+  }
+
+  private TableFilter buildTableFilter() {
+    return TableFilter.builder()
+        .includes(splitPatterns(includes))
+        .excludes(splitPatterns(excludes))
+        .build();
+  }
+
+  private SchemaDumper buildSchemaDumper(MySqlConnectionInfo localMySqlConnectionInfo,
+      TableFilter tableFilter) throws IOException {
+    return buildSchemaDumper(localMySqlConnectionInfo, tableFilter, null, null);
+  }
+
+  private SchemaDumper buildSchemaDumper(MySqlConnectionInfo localMySqlConnectionInfo,
+      TableFilter tableFilter, DataSource localDataSource,
+      ScratchDatabasePool scratchDatabasePool) throws IOException {
+    return SchemaDumper.builder()
+        .localMySqlConnectionInfo(localMySqlConnectionInfo)
+        .localDataSource(localDataSource)
+        .scratchDatabasePool(scratchDatabasePool)
+        .fetchMode(jdbcDump || fetchConcurrency > 1
+            ? SchemaDumper.FetchMode.JDBC : SchemaDumper.FetchMode.MYSQLDUMP)
+        .fetchConcurrency(fetchConcurrency)
+        .cache(cacheDir == null ? null : SchemaCache.builder().directory(cacheDir).build())
+        .offlineNormalizer(offline ? OfflineNormalizer.builder().build() : null)
+        .hostThrottle(maxDumpsPerHost > 0
+            ? HostThrottle.builder().maxConcurrencyPerHost(maxDumpsPerHost).build() : null)
+        .tableFilter(tableFilter)
+        .build();
+  }
+
+  /**
+   * Take diff between a pair of schemas, according to options.
+   *
+   * @return Output to print, or null if diffs are applied.
+   */
+  private DiffOutput takeDiff(List<String> coreArgs, SchemaDumper schemaDumper,
+      MySqlConnectionInfo localMySqlConnectionInfo, TableFilter tableFilter)
+      throws IOException, SQLException, InterruptedException {
+    List<SchemaSource> sources = new ArrayList<>();
     for (String arg : coreArgs) {
-      String schema;
-      SchemaDumper schemaDumper = new SchemaDumper(); // TODO should be more configurable
-
-      File file = new File(arg);
-      if (file.exists()) {
-        // for file
-        schema = schemaDumper.dump(file);
-      } else if (arg.contains(" ")) {
-        // for remote server
-        RemoteDbArg remoteDbArg = new App().new RemoteDbArg();
-        CmdLineParser remoteDbArgParser = new CmdLineParser(remoteDbArg);
-        try {
-          remoteDbArgParser.parseArgument(arg.substring(1, arg.length() - 1).split(" "));
-        } catch (CmdLineException e) {
-          throw new IllegalArgumentException("Invalid remote DB argument is detected: " + arg);
-        }
+      sources.add(parseSchemaSource(arg));
+    }
 
-        if (remoteDbArg.dbName == null || remoteDbArg.dbName.isEmpty()) {
-          throw new IllegalArgumentException("Invalid remote DB argument is detected: " + arg);
+    List<List<String>> tableNamesToDump = null; // null means all tables
+    if (fingerprint) {
+      for (int i = 0; i < sources.size(); i++) {
+        if (sources.get(i).file != null) {
+          throw new IllegalArgumentException(
+              "--fingerprint requires databases as arguments: " + coreArgs.get(i));
         }
+      }
+
+      List<SchemaFingerprint> fingerprints = new ArrayList<>();
+      for (SchemaSource source : sources) {
+        fingerprints.add(source.fetchFingerprint(schemaDumper));
+      }
+      List<String> differentTables = fingerprints.get(0).findDifferentTables(fingerprints.get(1));
+      if (differentTables.isEmpty()) {
+        return new DiffOutput("", 0); // same as an empty diff
+      }
+
+      tableNamesToDump = new ArrayList<>();
+      for (SchemaFingerprint fingerprint : fingerprints) {
+        tableNamesToDump.add(differentTables.stream()
+            .filter(fingerprint.getTableChecksums()::containsKey)
+            .collect(Collectors.toList()));
+      }
+    }
+
+    List<String> schemas =
+        dumpConcurrently(sources, schemaDumper, snapshotDir, tableNamesToDump);
+    List<List<Table>> parsed = new ArrayList<>();
+    for (String schema : schemas) {
+      parsed.add(SchemaParser.parse(schema, tableFilter));
+    }
+
+    List<TableDiff> tableDiffs =
+        DiffExtractor.extractTableDiffs(parsed.get(0), parsed.get(1), tableFilter);
 
-        MySqlConnectionInfo.Builder mysqlConnectionInfoBuilder = MySqlConnectionInfo.builder();
+    SchemaSource oldSource = sources.get(0);
+    if (withStats || oscTool != null) {
+      if (oldSource.file != null) {
+        throw new IllegalArgumentException(
+            "--with-stats and --osc require a database as old_database: " + coreArgs.get(0));
+      }
+
+      List<String> tableNames = tableDiffs.stream()
+          .map(TableDiff::getTableName)
+          .collect(Collectors.toList());
+      tableDiffs = DiffExtractor.orderByRebuildCost(tableDiffs,
+          oldSource.fetchTableStatistics(schemaDumper, tableNames));
+    }
 
-        if (remoteDbArg.host != null) {
-          mysqlConnectionInfoBuilder.host(remoteDbArg.host);
+    if (apply || dryRun) {
+      if (apply && oldSource.file != null) {
+        throw new IllegalArgumentException(
+            "--apply requires a database as old_database: " + coreArgs.get(0));
+      }
+
+      MigrationApplier applier = MigrationApplier.builder()
+          .mysqlConnectionInfo(oldSource.getMysqlConnectionInfo(localMySqlConnectionInfo))
+          .concurrency(concurrency)
+          .onlineDdl(onlineDdl)
+          .progressListener(new ProgressPrinter())
+          .scratchMySqlConnectionInfo(localMySqlConnectionInfo)
+          .build();
+      if (apply) {
+        applier.apply(oldSource.dbName, tableDiffs);
+      } else {
+        applier.dryRun(schemas.get(0), tableDiffs);
+      }
+      return null;
+    }
+
+    String advice = "";
+    if (adviseIndexes) {
+      advice = RedundantIndexAdvisor.adviseAsSql(parsed.get(1));
+    }
+
+    if (oscTool != null) {
+      OnlineSchemaChangeCommandGenerator generator = OnlineSchemaChangeCommandGenerator.builder()
+          .tool(OnlineSchemaChangeCommandGenerator.Tool.fromCommandName(oscTool))
+          .thresholdBytes(oscThreshold)
+          .build();
+      return new DiffOutput(generator.render(oldSource.dbName,
+          oldSource.getMysqlConnectionInfo(localMySqlConnectionInfo), tableDiffs) + advice,
+          tableDiffs.size());
+    }
+
+    StringBuilder diffStringBuilder = new StringBuilder();
+    for (TableDiff tableDiff : tableDiffs) {
+      diffStringBuilder.append(onlineDdl ? tableDiff.toOnlineDdlSql() : tableDiff.toSql());
+    }
+    return new DiffOutput(diffStringBuilder.append(advice).toString(), tableDiffs.size());
+  }
+
+  /**
+   * Take diffs of all entries in the manifest by a pool of workers which share a SchemaDumper, and
+   * write status of each entry to the summary file. Unless --offline, the SchemaDumper shares a
+   * pool of connections and scratch databases of local MySQL among entries.
+   */
+  private void runBatch() throws IOException {
+    // takeDiff() outputs nothing for them, and applying many pairs at once is not intended
+    if (apply || dryRun) {
+      throw new IllegalArgumentException("--batch can't be used with --apply and --dry-run");
+    }
+    List<BatchEntry> entries = readManifest(manifest);
+    if (workers < 1) {
+      throw new IllegalArgumentException("--workers must be positive: " + workers);
+    }
+
+    MySqlConnectionInfo localMySqlConnectionInfo = buildLocalMySqlConnectionInfo();
+    TableFilter tableFilter = buildTableFilter();
+    SimpleConnectionPool localDataSource = null;
+    ScratchDatabasePool scratchDatabasePool = null;
+    if (!offline) {
+      // a dump holds a connection while its fetchers take their own ones
+      localDataSource = SimpleConnectionPool.builder()
+          .mysqlConnectionInfo(localMySqlConnectionInfo)
+          .maxPoolSize(workers * (Math.max(fetchConcurrency, 1) + 1))
+          .build();
+      scratchDatabasePool = ScratchDatabasePool.builder().build();
+    }
+    SchemaDumper schemaDumper = buildSchemaDumper(localMySqlConnectionInfo, tableFilter,
+        localDataSource, scratchDatabasePool);
+
+    AtomicInteger numOfFinished = new AtomicInteger();
+    ExecutorService workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable, "mysql-diff-batch");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<BatchResult> results = new ArrayList<>();
+    try {
+      List<CompletableFuture<BatchResult>> futures = new ArrayList<>();
+      for (BatchEntry entry : entries) {
+        futures.add(CompletableFuture.supplyAsync(() -> {
+          BatchResult result =
+              runBatchEntry(entry, schemaDumper, localMySqlConnectionInfo, tableFilter);
+          System.err.println("[" + numOfFinished.incrementAndGet() + "/" + entries.size() + "] "
+              + result.status + " " + entry.output);
+          return result;
+        }, workerPool));
+      }
+
+      for (CompletableFuture<BatchResult> future : futures) {
+        try {
+          results.add(future.join());
+        } catch (CompletionException e) {
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw e;
         }
+      }
+    } finally {
+      workerPool.shutdownNow();
+      try (SimpleConnectionPool pool = localDataSource) {
+        schemaDumper.clearScratchDatabases();
+      } catch (SQLException e) {
+        // they are swept as stale ones by a later run
+        System.err.println("[WARN] Failed to drop scratch databases: " + e.getMessage());
+      }
+    }
+
+    File summary =
+        Optional.ofNullable(summaryFile).orElse(new File(manifest.getPath() + ".summary"));
+    StringBuilder summaryBuilder =
+        new StringBuilder("status\ttables\tmillis\told\tnew\toutput\tmessage\n");
+    for (BatchResult result : results) {
+      summaryBuilder.append(result.toSummaryLine()).append("\n");
+    }
+    Files.write(summary.toPath(), summaryBuilder.toString().getBytes(StandardCharsets.UTF_8));
+
+    long numOfFailed = results.stream()
+        .filter(result -> result.status == BatchStatus.FAILED)
+        .count();
+    if (numOfFailed > 0) {
+      throw new IllegalStateException(numOfFailed + " of " + results.size()
+          + " entries in the manifest are failed; see " + summary);
+    }
+  }
+
+  private BatchResult runBatchEntry(BatchEntry entry, SchemaDumper schemaDumper,
+      MySqlConnectionInfo localMySqlConnectionInfo, TableFilter tableFilter) {
+    long start = System.nanoTime();
+    try {
+      // not to leave output of the previous run if this entry is failed
+      Files.deleteIfExists(entry.output.toPath());
+      DiffOutput output = takeDiff(Arrays.asList(entry.oldSchema, entry.newSchema), schemaDumper,
+          localMySqlConnectionInfo, tableFilter);
+      File directory = entry.output.getAbsoluteFile().getParentFile();
+      if (directory != null) {
+        Files.createDirectories(directory.toPath());
+      }
+      // same as output of a single pair
+      Files.write(entry.output.toPath(), (output.text + "\n").getBytes(StandardCharsets.UTF_8));
+      return new BatchResult(entry,
+          output.numOfTableDiffs == 0 ? BatchStatus.SAME : BatchStatus.DIFF,
+          output.numOfTableDiffs, System.nanoTime() - start, "");
+    } catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      return new BatchResult(entry, BatchStatus.FAILED, 0, System.nanoTime() - start,
+          e.toString());
+    }
+  }
+
+  /**
+   * Read the manifest of batch mode.
+   *
+   * <p>
+   * Each line has paths of old schema, new schema and output which are separated by tabs; schemas
+   * are given in the same form as command line arguments. Empty lines and lines which begin with
+   * <code>#</code> are ignored.
+   * </p>
+   */
+  private static List<BatchEntry> readManifest(File manifest) throws IOException {
+    List<BatchEntry> entries = new ArrayList<>();
+    List<String> lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+        continue;
+      }
 
-        if (remoteDbArg.user != null) {
-          mysqlConnectionInfoBuilder.user(remoteDbArg.user);
+      String[] fields = line.split("\t", -1);
+      if (fields.length != 3 || Arrays.stream(fields).anyMatch(field -> field.trim().isEmpty())) {
+        throw new IllegalArgumentException(new StringBuilder()
+            .append("Invalid manifest entry at line ")
+            .append(i + 1)
+            .append(" of ")
+            .append(manifest)
+            .append(" (expected: old_database<TAB>new_database<TAB>output_file): ")
+            .append(line)
+            .toString());
+      }
+      entries.add(new BatchEntry(fields[0].trim(), fields[1].trim(), new File(fields[2].trim())));
+    }
+    return entries;
+  }
+
+  private static List<String> dumpConcurrently(List<SchemaSource> sources,
+      SchemaDumper schemaDumper, File snapshotDir, List<List<String>> tableNamesToDump)
+      throws IOException, SQLException, InterruptedException {
+    ExecutorService executor = SchemaDumper.newDumpExecutor();
+    try {
+      List<CompletableFuture<String>> futures = new ArrayList<>();
+      for (int i = 0; i < sources.size(); i++) {
+        SchemaSource source = sources.get(i);
+        List<String> tableNames = tableNamesToDump == null ? null : tableNamesToDump.get(i);
+        futures.add(SchemaDumper.callAsync(() -> tableNames == null
+            ? source.dump(schemaDumper, snapshotDir)
+            : source.dumpTables(schemaDumper, tableNames), executor));
+      }
+
+      List<String> schemas = new ArrayList<>();
+      for (CompletableFuture<String> future : futures) {
+        try {
+          schemas.add(future.get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          }
+          if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+          }
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
         }
+      }
+      return schemas;
+    } finally {
+      executor.shutdownNow(); // stops the other side if one side is failed
+    }
+  }
 
-        if (remoteDbArg.pass != null) {
-          mysqlConnectionInfoBuilder.pass(remoteDbArg.pass);
+  private static List<String> splitPatterns(List<String> args) {
+    List<String> patterns = new ArrayList<>();
+    for (String arg : args) {
+      for (String pattern : arg.split(",")) {
+        if (!pattern.trim().isEmpty()) {
+          patterns.add(pattern.trim());
         }
+      }
+    }
+    return patterns;
+  }
 
-        schema =
-            schemaDumper.dumpFromRemoteDb(remoteDbArg.dbName, mysqlConnectionInfoBuilder.build());
-      } else {
-        // for local server
-        schema = schemaDumper.dumpFromLocalDb(arg);
+  private static SchemaSource parseSchemaSource(String arg) {
+    File file = new File(arg);
+    if (file.exists()) {
+      // for file
+      return new SchemaSource(file, null, null);
+    }
+
+    if (!arg.contains(" ")) {
+      // for local server
+      return new SchemaSource(null, arg, null);
+    }
+
+    // for remote server
+    RemoteDbArg remoteDbArg = new App().new RemoteDbArg();
+    CmdLineParser remoteDbArgParser = new CmdLineParser(remoteDbArg);
+    try {
+      remoteDbArgParser.parseArgument(arg.substring(1, arg.length() - 1).split(" "));
+    } catch (CmdLineException e) {
+      throw new IllegalArgumentException("Invalid remote DB argument is detected: " + arg);
+    }
+
+    if (remoteDbArg.dbName == null || remoteDbArg.dbName.isEmpty()) {
+      throw new IllegalArgumentException("Invalid remote DB argument is detected: " + arg);
+    }
+
+    MySqlConnectionInfo.Builder mysqlConnectionInfoBuilder = MySqlConnectionInfo.builder();
+
+    if (remoteDbArg.host != null) {
+      mysqlConnectionInfoBuilder.host(remoteDbArg.host);
+    }
+
+    if (remoteDbArg.user != null) {
+      mysqlConnectionInfoBuilder.user(remoteDbArg.user);
+    }
+
+    if (remoteDbArg.pass != null) {
+      mysqlConnectionInfoBuilder.pass(remoteDbArg.pass);
+    }
+
+    return new SchemaSource(null, remoteDbArg.dbName, mysqlConnectionInfoBuilder.build());
+  }
+
+  /**
+   * Source of schema which is given as a command line argument.
+   */
+  private static class SchemaSource {
+    private final File file;
+    private final String dbName;
+    private final MySqlConnectionInfo mysqlConnectionInfo; // null means local MySQL
+
+    SchemaSource(File file, String dbName, MySqlConnectionInfo mysqlConnectionInfo) {
+      this.file = file;
+      this.dbName = dbName;
+      this.mysqlConnectionInfo = mysqlConnectionInfo;
+    }
+
+    MySqlConnectionInfo getMysqlConnectionInfo(MySqlConnectionInfo localMySqlConnectionInfo) {
+      return Optional.ofNullable(mysqlConnectionInfo).orElse(localMySqlConnectionInfo);
+    }
+
+    String dump(SchemaDumper schemaDumper, File snapshotDir)
+        throws IOException, SQLException, InterruptedException {
+      if (file != null) {
+        return schemaDumper.dump(file);
+      }
+      if (mysqlConnectionInfo != null && snapshotDir != null) {
+        File snapshotFile = new File(snapshotDir, new StringBuilder()
+            .append(mysqlConnectionInfo.getHost())
+            .append("_")
+            .append(mysqlConnectionInfo.getPort())
+            .append("_")
+            .append(dbName)
+            .append(".snapshot")
+            .toString());
+        return schemaDumper.dumpFromRemoteDbIncrementally(dbName, mysqlConnectionInfo,
+            snapshotFile);
       }
+      if (mysqlConnectionInfo != null) {
+        return schemaDumper.dumpFromRemoteDb(dbName, mysqlConnectionInfo);
+      }
+      return schemaDumper.dumpFromLocalDb(dbName);
+    }
+
+    String dumpTables(SchemaDumper schemaDumper, List<String> tableNames)
+        throws IOException, SQLException, InterruptedException {
+      if (mysqlConnectionInfo != null) {
+        return schemaDumper.dumpTablesFromRemoteDb(dbName, mysqlConnectionInfo, tableNames);
+      }
+      return schemaDumper.dumpTablesFromLocalDb(dbName, tableNames);
+    }
 
-      parsed.add(SchemaParser.parse(schema));
+    SchemaFingerprint fetchFingerprint(SchemaDumper schemaDumper) throws SQLException {
+      if (mysqlConnectionInfo != null) {
+        return schemaDumper.fetchFingerprintFromRemoteDb(dbName, mysqlConnectionInfo);
+      }
+      return schemaDumper.fetchFingerprintFromLocalDb(dbName);
     }
 
-    String diff = DiffExtractor.extractDiff(parsed.get(0), parsed.get(1));
-    System.out.println(diff);
+    Map<String, TableStatistics> fetchTableStatistics(SchemaDumper schemaDumper,
+        List<String> tableNames) throws SQLException {
+      if (mysqlConnectionInfo != null) {
+        return schemaDumper.fetchTableStatisticsFromRemoteDb(dbName, mysqlConnectionInfo,
+            tableNames);
+      }
+      return schemaDumper.fetchTableStatisticsFromLocalDb(dbName, tableNames);
+    }
+  }
+
+  /**
+   * Output of a diff between a pair of schemas.
+   */
+  private static class DiffOutput {
+    private final String text;
+    private final int numOfTableDiffs;
+
+    DiffOutput(String text, int numOfTableDiffs) {
+      this.text = text;
+      this.numOfTableDiffs = numOfTableDiffs;
+    }
+  }
+
+  /**
+   * Entry of the manifest of batch mode.
+   */
+  private static class BatchEntry {
+    private final String oldSchema;
+    private final String newSchema;
+    private final File output;
+
+    BatchEntry(String oldSchema, String newSchema, File output) {
+      this.oldSchema = oldSchema;
+      this.newSchema = newSchema;
+      this.output = output;
+    }
+  }
+
+  private enum BatchStatus {
+    SAME, DIFF, FAILED
+  }
+
+  /**
+   * Result of an entry of batch mode, which is a line of the summary file.
+   */
+  private static class BatchResult {
+    private final BatchEntry entry;
+    private final BatchStatus status;
+    private final int numOfTableDiffs;
+    private final long elapsedNanos;
+    private final String message;
+
+    BatchResult(BatchEntry entry, BatchStatus status, int numOfTableDiffs, long elapsedNanos,
+        String message) {
+      this.entry = entry;
+      this.status = status;
+      this.numOfTableDiffs = numOfTableDiffs;
+      this.elapsedNanos = elapsedNanos;
+      this.message = message;
+    }
+
+    String toSummaryLine() {
+      return String.join("\t", status.name(), String.valueOf(numOfTableDiffs),
+          String.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)), entry.oldSchema,
+          entry.newSchema, entry.output.getPath(),
+          message.replaceAll("[\\t\\r\\n]+", " ")); // keep a line per entry
+    }
+  }
+
+  /**
+   * Listener which prints progress of applying to stderr.
+   */
+  private static class ProgressPrinter implements MigrationApplier.ProgressListener {
+    @Override
+    public void onFinished(String tableName, int numOfFinished, int numOfTables) {
+      System.err.println("[" + numOfFinished + "/" + numOfTables + "] " + tableName);
+    }
+
+    @Override
+    public void onFailed(String tableName, SQLException cause) {
+      System.err.println("[ERROR] " + tableName + ": " + cause.getMessage());
+    }
+
+    @Override
+    public void onSkipped(String tableName) {
+      System.err.println("[SKIPPED] " + tableName);
+    }
   }
 
   private static String getUsageMessage() {
@@ -174,8 +798,42 @@ public class App {
         + "(both of databases on remote MySQL)\n"
         + "    java -jar '-u root -h localhost dbname1' '-u root -h localhost dbname2'"
         + "\n"
+        + "* Take diffs of pairs which are listed in manifest.tsv in a process\n"
+        + "    java -jar --batch manifest.tsv --workers 8\n"
         + "[Options]\n"
         + "    -h, --help:    Show usage\n"
-        + "    -v, --version: Show version";
+        + "    -v, --version: Show version\n"
+        + "    --online-ddl:  Split changes by online DDL algorithm (INSTANT, INPLACE and COPY)\n"
+        + "                   and append ALGORITHM and LOCK hints\n"
+        + "    --with-stats:  Fetch table statistics of old_database (it must be a database),\n"
+        + "                   and order diffs by estimated rebuild cost\n"
+        + "    --advise-indexes: Suggest to drop redundant indexes of new_database\n"
+        + "    --osc tool:    Generate commands of online schema change tool\n"
+        + "                   (pt-online-schema-change or gh-ost) for large tables\n"
+        + "    --osc-threshold bytes: Size of table to use online schema change (default: 1 GiB)\n"
+        + "    --apply:       Apply diffs to old_database (it must be a database)\n"
+        + "    --dry-run:     Apply diffs to a scratch database which is loaded old schema\n"
+        + "    --concurrency num: Number of tables applied concurrently (default: 4)\n"
+        + "    --jdbc-dump:   Fetch schemas by SHOW CREATE TABLE over JDBC instead of mysqldump\n"
+        + "    --fetch-concurrency num: Connections to fetch schemas over JDBC in parallel\n"
+        + "                   (implies --jdbc-dump if greater than 1, default: 1)\n"
+        + "    --cache-dir dir: Cache dumped schemas in the directory\n"
+        + "    --snapshot-dir dir: Keep snapshots of remote databases in the directory,\n"
+        + "                   and fetch only changed tables\n"
+        + "    --offline:     Normalize SQL files without MySQL, by the rules of MySQL 5.7\n"
+        + "    --fingerprint: Compare checksums of tables computed by servers, and dump only\n"
+        + "                   different tables (both of arguments must be databases)\n"
+        + "    --max-dumps-per-host num: Limit concurrent dumps per remote MySQL, and back off\n"
+        + "                   while it is busy (default: no limit)\n"
+        + "    --include patterns: Compare only tables which match any of comma-separated globs\n"
+        + "                   (e.g. 'user_*,order_?'); it can be given repeatedly\n"
+        + "    --exclude patterns: Ignore tables which match any of comma-separated globs\n"
+        + "                   (e.g. '_archive_*'); it can be given repeatedly\n"
+        + "    --socket path: Connect to local MySQL via the unix domain socket, instead of TCP\n"
+        + "    --batch manifest: Take diffs of pairs in the manifest instead of arguments;\n"
+        + "                   each line is 'old_database<TAB>new_database<TAB>output_file'\n"
+        + "    --workers num: Number of pairs in the manifest taken concurrently (default: 4)\n"
+        + "    --summary file: Write status of each pair in the manifest to the file\n"
+        + "                   (default: manifest file name + '.summary')";
   }
 }
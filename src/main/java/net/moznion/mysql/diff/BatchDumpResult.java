@@ -0,0 +1,43 @@
+package net.moznion.mysql.diff;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of dumping many inputs at once.
+ *
+ * <p>
+ * Both of maps keep order of inputs.
+ * </p>
+ *
+ * @author moznion
+ *
+ * @param <K> Type of key of inputs.
+ */
+@Getter
+public class BatchDumpResult<K> {
+  private final Map<K, String> schemas;
+  private final Map<K, Exception> failures;
+
+  /**
+   * Instantiate BatchDumpResult.
+   *
+   * @param schemas Dumped schemas of succeeded inputs.
+   * @param failures Causes of failed inputs.
+   */
+  public BatchDumpResult(Map<K, String> schemas, Map<K, Exception> failures) {
+    this.schemas = Collections.unmodifiableMap(schemas);
+    this.failures = Collections.unmodifiableMap(failures);
+  }
+
+  /**
+   * Returns whether all of inputs are dumped.
+   *
+   * @return True if there is no failure.
+   */
+  public boolean isSucceeded() {
+    return failures.isEmpty();
+  }
+}
@@ -0,0 +1,229 @@
+package net.moznion.mysql.diff;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Reader of QUERY events in a binary log file of MySQL.
+ *
+ * <p>
+ * Only binlog format v4 (MySQL 5.0 or later) is supported. Other events (e.g. rows events) are
+ * skipped, and CRC32 checksums of events are verified if the server wrote them. An incomplete event
+ * at the end of the file, which is being written by the server, is treated as the end of the file.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class BinlogReader implements Closeable {
+  private static final byte[] MAGIC = {(byte) 0xfe, 'b', 'i', 'n'};
+  private static final int HEADER_LENGTH = 19;
+  private static final int QUERY_EVENT = 2;
+  private static final int FORMAT_DESCRIPTION_EVENT = 15;
+  private static final int SERVER_VERSION_LENGTH = 50;
+  private static final int CHECKSUM_LENGTH = 4;
+  private static final int CHECKSUM_ALG_CRC32 = 1;
+  private static final Pattern SERVER_VERSION_PATTERN =
+      Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+
+  /**
+   * QUERY event, which holds a statement executed on the server.
+   */
+  static class QueryEvent {
+    private final String database;
+    private final String sql;
+    private final int errorCode;
+
+    QueryEvent(String database, String sql, int errorCode) {
+      this.database = database;
+      this.sql = sql;
+      this.errorCode = errorCode;
+    }
+
+    /**
+     * Get the default database of the statement.
+     *
+     * @return Name of the database, or null if no database is selected.
+     */
+    String getDatabase() {
+      return database;
+    }
+
+    String getSql() {
+      return sql;
+    }
+
+    /**
+     * Get the error code of the statement on the server.
+     *
+     * @return Error code, or 0 if the statement succeeded.
+     */
+    int getErrorCode() {
+      return errorCode;
+    }
+  }
+
+  private final Path file;
+  private final InputStream in;
+  private long position;
+  private boolean hasChecksum;
+  private int queryPostHeaderLength = 13;
+
+  /**
+   * Open a binary log file.
+   *
+   * @param file Binary log file.
+   * @throws IOException Throw if failed to read the file or it is not a binary log file.
+   */
+  BinlogReader(Path file) throws IOException {
+    this.file = file;
+    in = new BufferedInputStream(Files.newInputStream(file));
+    byte[] magic = new byte[MAGIC.length];
+    if (read(magic) != magic.length || !Arrays.equals(magic, MAGIC)) {
+      in.close();
+      throw new IOException("Not a binary log file: " + file);
+    }
+    position = MAGIC.length;
+  }
+
+  /**
+   * Read the next QUERY event.
+   *
+   * @return Next QUERY event, or null if no event remains.
+   * @throws IOException Throw if failed to read the file or an event is broken.
+   */
+  QueryEvent nextQuery() throws IOException {
+    while (true) {
+      byte[] header = new byte[HEADER_LENGTH];
+      if (read(header) != header.length) {
+        return null;
+      }
+      int type = header[4] & 0xff;
+      long eventSize = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt(9)
+          & 0xffffffffL;
+      if (eventSize < HEADER_LENGTH || eventSize > Integer.MAX_VALUE) {
+        throw broken("Invalid event size: " + eventSize);
+      }
+      byte[] body = new byte[(int) eventSize - HEADER_LENGTH];
+      if (read(body) != body.length) {
+        return null;
+      }
+
+      if (type == FORMAT_DESCRIPTION_EVENT) {
+        readFormatDescription(body);
+      }
+      int bodyLength = body.length;
+      if (hasChecksum) {
+        bodyLength = verifyChecksum(header, body);
+      }
+      QueryEvent event = type == QUERY_EVENT ? readQuery(body, bodyLength) : null;
+      position += eventSize;
+      if (event != null) {
+        return event;
+      }
+    }
+  }
+
+  /**
+   * Get the position of the next event, which is the end of events which are read.
+   *
+   * @return Position in the file.
+   */
+  long getPosition() {
+    return position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private void readFormatDescription(byte[] body) throws IOException {
+    int postHeaderLengthsOffset = 2 + SERVER_VERSION_LENGTH + 4 + 1;
+    if (body.length < postHeaderLengthsOffset + QUERY_EVENT) {
+      throw broken("Invalid FORMAT_DESCRIPTION_EVENT");
+    }
+    int binlogVersion = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).getShort(0);
+    if (binlogVersion != 4) {
+      throw broken("Unsupported binlog version: " + binlogVersion);
+    }
+    queryPostHeaderLength = body[postHeaderLengthsOffset + QUERY_EVENT - 1] & 0xff;
+
+    // servers which support checksums (5.6.1 or later) append the algorithm and the checksum
+    Matcher matcher = SERVER_VERSION_PATTERN.matcher(
+        new String(body, 2, SERVER_VERSION_LENGTH, StandardCharsets.US_ASCII));
+    hasChecksum = matcher.lookingAt()
+        && Integer.parseInt(matcher.group(1)) * 10000 + Integer.parseInt(matcher.group(2)) * 100
+            + Integer.parseInt(matcher.group(3)) >= 50601
+        && (body[body.length - CHECKSUM_LENGTH - 1] & 0xff) == CHECKSUM_ALG_CRC32;
+  }
+
+  private int verifyChecksum(byte[] header, byte[] body) throws IOException {
+    int bodyLength = body.length - CHECKSUM_LENGTH;
+    if (bodyLength < 0) {
+      throw broken("Missing checksum");
+    }
+    CRC32 crc32 = new CRC32();
+    crc32.update(header);
+    crc32.update(body, 0, bodyLength);
+    long expected = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN).getInt(bodyLength)
+        & 0xffffffffL;
+    if (crc32.getValue() != expected) {
+      throw broken("Checksum mismatch");
+    }
+    return bodyLength;
+  }
+
+  private QueryEvent readQuery(byte[] body, int bodyLength) throws IOException {
+    if (bodyLength < queryPostHeaderLength || queryPostHeaderLength < 13) {
+      throw broken("Invalid QUERY_EVENT");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+    int databaseLength = body[8] & 0xff;
+    int errorCode = buffer.getShort(9) & 0xffff;
+    int statusVarsLength = buffer.getShort(11) & 0xffff;
+
+    int databaseOffset = queryPostHeaderLength + statusVarsLength;
+    int sqlOffset = databaseOffset + databaseLength + 1; // database is terminated by NUL
+    if (sqlOffset > bodyLength) {
+      throw broken("Invalid QUERY_EVENT");
+    }
+    String database = new String(body, databaseOffset, databaseLength, StandardCharsets.UTF_8);
+    String sql = new String(body, sqlOffset, bodyLength - sqlOffset, StandardCharsets.UTF_8);
+    return new QueryEvent(database.isEmpty() ? null : database, sql, errorCode);
+  }
+
+  private int read(byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      int numOfRead = in.read(bytes, offset, bytes.length - offset);
+      if (numOfRead < 0) {
+        break;
+      }
+      offset += numOfRead;
+    }
+    return offset;
+  }
+
+  private IOException broken(String message) {
+    return new IOException(new StringBuilder()
+        .append(message)
+        .append(" (file: ")
+        .append(file)
+        .append(", position: ")
+        .append(position)
+        .append(")")
+        .toString());
+  }
+}
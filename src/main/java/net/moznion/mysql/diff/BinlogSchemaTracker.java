@@ -0,0 +1,250 @@
+package net.moznion.mysql.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.TableDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Tracker of a schema which keeps a snapshot up to date by DDL in binary logs of MySQL.
+ *
+ * <p>
+ * Instead of dumping a schema from the server again, this reads binary log files on disk and
+ * applies DDL of tables in them (CREATE/ALTER/DROP/RENAME TABLE and CREATE/DROP INDEX) to a
+ * snapshot by {@link OfflineNormalizer}, so the server is never touched. DDL is always logged as a
+ * statement, so binary logs of any binlog_format can be read.
+ * </p>
+ *
+ * <p>
+ * The snapshot file holds normalized tables in the same format as JDBC fetch mode of SchemaDumper,
+ * with the position of binary logs which is applied last in the first line; each update reads only
+ * events after the position and saves the snapshot atomically.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class BinlogSchemaTracker {
+  private static final String POSITION_PREFIX = "-- Binlog position: ";
+  private static final Pattern POSITION_PATTERN =
+      Pattern.compile(Pattern.quote(POSITION_PREFIX) + "(.+):(\\d+)");
+  private static final Pattern TABLE_DDL_PATTERN = Pattern.compile(
+      "(?:\\s+|/\\*(?!!).*?\\*/|(?:#|--\\s)[^\\n]*)*"
+          + "(?:CREATE\\s+(?:TABLE|(?:UNIQUE\\s+|FULLTEXT\\s+|SPATIAL\\s+)?INDEX)"
+          + "|ALTER\\s+(?:IGNORE\\s+)?TABLE|DROP\\s+(?:TABLES?|INDEX)|RENAME\\s+TABLES?)\\b",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  // sequence numbers of binary logs get a digit longer after 999999
+  private static final Comparator<Path> BINLOG_ORDER = Comparator
+      .comparingInt((Path file) -> file.getFileName().toString().length())
+      .thenComparing(file -> file.getFileName().toString());
+
+  private final Path snapshotFile;
+  private final String database;
+  private final OfflineNormalizer offlineNormalizer;
+
+  /**
+   * Builder class of BinlogSchemaTracker.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>snapshotFile(File file) // required</li>
+   * <li>database(String database) // required</li>
+   * <li>offlineNormalizer(OfflineNormalizer normalizer) // default value: OfflineNormalizer with
+   * default settings</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private File snapshotFile;
+    private String database;
+    private OfflineNormalizer offlineNormalizer = OfflineNormalizer.builder().build();
+
+    public Builder() {}
+
+    /**
+     * Builds BinlogSchemaTracker.
+     *
+     * @return New BinlogSchemaTracker instance.
+     */
+    public BinlogSchemaTracker build() {
+      return new BinlogSchemaTracker(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of BinlogSchemaTracker.
+   *
+   * @return Builder of BinlogSchemaTracker.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private BinlogSchemaTracker(Builder builder) {
+    snapshotFile = Optional.ofNullable(builder.snapshotFile)
+        .orElseThrow(() -> new IllegalArgumentException("Missing snapshotFile"))
+        .toPath();
+    database = Optional.ofNullable(builder.database)
+        .orElseThrow(() -> new IllegalArgumentException("Missing database"));
+    offlineNormalizer = Optional.ofNullable(builder.offlineNormalizer)
+        .orElseThrow(() -> new IllegalArgumentException("Missing offlineNormalizer"));
+  }
+
+  /**
+   * Initialize the snapshot by a schema which is dumped at a position of binary logs.
+   *
+   * @param schema Dumped schema (e.g. by SchemaDumper) of the database.
+   * @param binlogFileName Name of the binary log file at the time of dump (e.g. File of SHOW MASTER
+   *        STATUS).
+   * @param position Position in the binary log file (e.g. Position of SHOW MASTER STATUS).
+   * @throws IOException Throw if failed to write the snapshot.
+   * @throws IllegalArgumentException Throw if the schema is not supported by OfflineNormalizer.
+   */
+  public void initialize(String schema, String binlogFileName, long position)
+      throws IOException {
+    Map<String, TableDefinition> tables = new TreeMap<>();
+    offlineNormalizer.apply(tables, schema, null, null);
+    save(tables, binlogFileName, position);
+  }
+
+  /**
+   * Apply DDL in binary log files to the snapshot and save it.
+   *
+   * <p>
+   * Files are read in order of the sequence number, and files and events before the position of
+   * the snapshot are skipped, so all binary log files in the directory can be passed. Statements
+   * which failed on the server are ignored.
+   * </p>
+   *
+   * @param binlogFiles Binary log files.
+   * @return Tables of the updated snapshot.
+   * @throws IOException Throw if failed to read or write files.
+   * @throws IllegalArgumentException Throw if DDL is not supported by OfflineNormalizer.
+   */
+  public List<Table> update(List<File> binlogFiles) throws IOException {
+    String snapshot = readSnapshot();
+    Matcher matcher = POSITION_PATTERN.matcher(snapshot.split("\n", 2)[0]);
+    if (!matcher.matches()) {
+      throw new IOException("Invalid snapshot file: " + snapshotFile);
+    }
+    String binlogFileName = matcher.group(1);
+    long position = Long.parseLong(matcher.group(2));
+
+    Map<String, TableDefinition> tables = new TreeMap<>();
+    offlineNormalizer.apply(tables, snapshot, null, null);
+
+    List<Path> files = binlogFiles.stream()
+        .map(File::toPath)
+        .sorted(BINLOG_ORDER)
+        .collect(Collectors.toList());
+    Path last = Paths.get(binlogFileName);
+    for (Path file : files) {
+      int order = BINLOG_ORDER.compare(file, last);
+      if (order < 0) {
+        continue;
+      }
+      long startPosition = order == 0 ? position : 0;
+      try (BinlogReader reader = new BinlogReader(file)) {
+        BinlogReader.QueryEvent event;
+        while ((event = reader.nextQuery()) != null) {
+          if (reader.getPosition() <= startPosition || event.getErrorCode() != 0
+              || !TABLE_DDL_PATTERN.matcher(event.getSql()).lookingAt()) {
+            continue;
+          }
+          try {
+            offlineNormalizer.apply(tables, event.getSql(), database, event.getDatabase());
+          } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(new StringBuilder()
+                .append("Failed to apply DDL at end_log_pos ")
+                .append(reader.getPosition())
+                .append(" of ")
+                .append(file.getFileName())
+                .append(": ")
+                .append(e.getMessage())
+                .toString(), e);
+          }
+        }
+        binlogFileName = file.getFileName().toString();
+        position = Math.max(reader.getPosition(), startPosition);
+      }
+    }
+
+    String schema = save(tables, binlogFileName, position);
+    return SchemaParser.parse(schema);
+  }
+
+  /**
+   * Get the schema of the snapshot without update.
+   *
+   * @return Schema in the same format as JDBC fetch mode of SchemaDumper.
+   * @throws IOException Throw if failed to read the snapshot.
+   */
+  public String readSchema() throws IOException {
+    return readSnapshot().split("\n", 2)[1];
+  }
+
+  private String readSnapshot() throws IOException {
+    String snapshot = new String(Files.readAllBytes(snapshotFile), StandardCharsets.UTF_8);
+    if (!snapshot.startsWith(POSITION_PREFIX) || !snapshot.contains("\n")) {
+      throw new IOException("Invalid snapshot file: " + snapshotFile);
+    }
+    return snapshot;
+  }
+
+  private String save(Map<String, TableDefinition> tables, String binlogFileName, long position)
+      throws IOException {
+    StringBuilder schemaBuilder = new StringBuilder();
+    for (TableDefinition table : tables.values()) {
+      schemaBuilder.append(offlineNormalizer.render(table)).append(";\n\n");
+    }
+    String schema = schemaBuilder.toString();
+    String snapshot = new StringBuilder()
+        .append(POSITION_PREFIX)
+        .append(binlogFileName)
+        .append(":")
+        .append(position)
+        .append("\n")
+        .append(schema)
+        .toString();
+
+    Path directory = snapshotFile.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temp = directory.resolve(snapshotFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      Files.write(temp, snapshot.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return schema;
+  }
+}
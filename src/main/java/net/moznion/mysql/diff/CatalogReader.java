@@ -0,0 +1,441 @@
+package net.moznion.mysql.diff;
+
+import net.moznion.mysql.diff.SqlTokenizer.Token;
+import net.moznion.mysql.diff.SqlTokenizer.TokenType;
+import net.moznion.mysql.diff.model.ColumnDefinition;
+import net.moznion.mysql.diff.model.ForeignKeyDefinition;
+import net.moznion.mysql.diff.model.IndexDefinition;
+import net.moznion.mysql.diff.model.IndexDefinition.IndexColumn;
+import net.moznion.mysql.diff.model.IndexDefinition.Kind;
+import net.moznion.mysql.diff.model.TableDefinition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reader of table definitions of many databases from INFORMATION_SCHEMA.
+ *
+ * <p>
+ * Each of TABLES, COLUMNS, STATISTICS and KEY_COLUMN_USAGE (with REFERENTIAL_CONSTRAINTS) is read
+ * by one set-based query for all databases, and tables are assembled in memory. Tables are
+ * rendered in the same format as {@link OfflineNormalizer}, so that MySQL 5.7 gives the same
+ * result as SHOW CREATE TABLE except for explicit USING clauses of indexes, which are not exposed
+ * by INFORMATION_SCHEMA. Partitioned tables and functional indexes are not supported.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class CatalogReader {
+  private static final Set<String> BLOB_TYPES = new HashSet<>(
+      Arrays.asList("tinytext", "text", "mediumtext", "longtext", "tinyblob", "blob",
+          "mediumblob", "longblob", "json", "geometry", "point", "linestring", "polygon",
+          "multipoint", "multilinestring", "multipolygon", "geometrycollection"));
+
+  private static final Pattern ON_UPDATE_PATTERN =
+      Pattern.compile("on update (\\S+)", Pattern.CASE_INSENSITIVE);
+
+  private static final OfflineNormalizer RENDERER = OfflineNormalizer.builder().build();
+
+  private final Connection connection;
+  private final List<String> dbNames;
+  private final int queryTimeoutSeconds;
+  private final TableFilter tableFilter;
+
+  // database name => table name => table
+  private final Map<String, Map<String, TableDefinition>> tables = new TreeMap<>();
+
+  private CatalogReader(Connection connection, Collection<String> dbNames,
+      int queryTimeoutSeconds, TableFilter tableFilter) {
+    this.connection = connection;
+    this.dbNames = new ArrayList<>(new TreeSet<>(dbNames));
+    this.queryTimeoutSeconds = queryTimeoutSeconds;
+    this.tableFilter = tableFilter;
+  }
+
+  /**
+   * Read tables of databases and render them as schemas.
+   *
+   * @param connection Connection to MySQL.
+   * @param dbNames Names of databases.
+   * @param queryTimeoutSeconds Timeout of each query, or 0 for no timeout.
+   * @param tableFilter Filter of tables, which is applied by the queries.
+   * @return Schema of each database in the same format as JDBC fetch mode of SchemaDumper, keyed
+   *         by database name. Databases which don't have tables (or don't exist) have an empty
+   *         schema.
+   * @throws SQLException Throw if failed to query, or unsupported table is found.
+   */
+  static Map<String, String> readSchemas(Connection connection, Collection<String> dbNames,
+      int queryTimeoutSeconds, TableFilter tableFilter) throws SQLException {
+    Map<String, List<TableDefinition>> definitions =
+        readDefinitions(connection, dbNames, queryTimeoutSeconds, tableFilter);
+
+    Map<String, String> schemas = new TreeMap<>();
+    for (Map.Entry<String, List<TableDefinition>> entry : definitions.entrySet()) {
+      StringBuilder schemaBuilder = new StringBuilder();
+      for (TableDefinition table : entry.getValue()) {
+        schemaBuilder.append(RENDERER.render(table)).append(";\n\n");
+      }
+      schemas.put(entry.getKey(), schemaBuilder.toString());
+    }
+    return schemas;
+  }
+
+  /**
+   * Read tables of databases.
+   *
+   * @param connection Connection to MySQL.
+   * @param dbNames Names of databases.
+   * @param queryTimeoutSeconds Timeout of each query, or 0 for no timeout.
+   * @param tableFilter Filter of tables, which is applied by the queries.
+   * @return Tables of each database in order of name, keyed by database name.
+   * @throws SQLException Throw if failed to query, or unsupported table is found.
+   */
+  static Map<String, List<TableDefinition>> readDefinitions(Connection connection,
+      Collection<String> dbNames, int queryTimeoutSeconds, TableFilter tableFilter)
+      throws SQLException {
+    CatalogReader reader =
+        new CatalogReader(connection, dbNames, queryTimeoutSeconds, tableFilter);
+
+    Map<String, List<TableDefinition>> definitions = new TreeMap<>();
+    if (reader.dbNames.isEmpty()) {
+      return definitions;
+    }
+
+    reader.readTables();
+    reader.readColumns();
+    reader.readIndexes();
+    reader.readForeignKeys();
+
+    for (String dbName : reader.dbNames) {
+      Map<String, TableDefinition> tablesInDb = reader.tables.get(dbName);
+      definitions.put(dbName, tablesInDb == null
+          ? new ArrayList<>() : new ArrayList<>(tablesInDb.values()));
+    }
+    return definitions;
+  }
+
+  private void readTables() throws SQLException {
+    String query = "SELECT t.TABLE_SCHEMA, t.TABLE_NAME, t.ENGINE, t.AUTO_INCREMENT,"
+        + " t.TABLE_COLLATION, c.CHARACTER_SET_NAME, t.CREATE_OPTIONS, t.TABLE_COMMENT"
+        + " FROM information_schema.TABLES t"
+        + " LEFT JOIN information_schema.COLLATIONS c ON c.COLLATION_NAME = t.TABLE_COLLATION"
+        + " WHERE t.TABLE_SCHEMA IN (" + placeholders() + ") AND t.TABLE_TYPE = 'BASE TABLE'"
+        + tableFilter.toSqlCondition("t.TABLE_NAME");
+    try (PreparedStatement stmt = prepare(query)) {
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        while (resultSet.next()) {
+          TableDefinition table = new TableDefinition();
+          table.setName(resultSet.getString("TABLE_NAME"));
+          table.setEngine(resultSet.getString("ENGINE"));
+          long autoIncrement = resultSet.getLong("AUTO_INCREMENT");
+          table.setAutoIncrement(resultSet.wasNull() ? null : autoIncrement);
+          table.setCollation(resultSet.getString("TABLE_COLLATION"));
+          table.setCharset(resultSet.getString("CHARACTER_SET_NAME"));
+          if (table.getCharset() == null && table.getCollation() != null) {
+            String collation = table.getCollation();
+            table.setCharset(collation.substring(0, Math.max(collation.indexOf('_'), 0)));
+          }
+          table.setComment(resultSet.getString("TABLE_COMMENT"));
+
+          String createOptions = resultSet.getString("CREATE_OPTIONS");
+          for (String option : createOptions == null ? new String[0]
+              : createOptions.trim().split("\\s+")) {
+            if (option.equalsIgnoreCase("partitioned")) {
+              throw new SQLFeatureNotSupportedException(
+                  "Partitioned table is not supported: " + table.getName());
+            }
+            int separator = option.indexOf('=');
+            if (separator > 0) {
+              table.getOptions().put(option.substring(0, separator).toUpperCase(Locale.ROOT),
+                  option.substring(separator + 1));
+            }
+          }
+
+          tables.computeIfAbsent(resultSet.getString("TABLE_SCHEMA"), key -> new TreeMap<>())
+              .put(table.getName(), table);
+        }
+      }
+    }
+  }
+
+  private void readColumns() throws SQLException {
+    // the column is absent before MySQL 5.7.6, where no column is generated
+    String generationExpressionColumn = SchemaDumper.hasGenerationExpressionColumn(connection)
+        ? " GENERATION_EXPRESSION" : " NULL AS GENERATION_EXPRESSION";
+    String query = "SELECT TABLE_SCHEMA, TABLE_NAME, COLUMN_NAME, COLUMN_DEFAULT, IS_NULLABLE,"
+        + " DATA_TYPE, COLUMN_TYPE, CHARACTER_SET_NAME, COLLATION_NAME, EXTRA, COLUMN_COMMENT,"
+        + generationExpressionColumn
+        + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA IN (" + placeholders() + ")"
+        + tableFilter.toSqlCondition("TABLE_NAME")
+        + " ORDER BY TABLE_SCHEMA, TABLE_NAME, ORDINAL_POSITION";
+    try (PreparedStatement stmt = prepare(query)) {
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        while (resultSet.next()) {
+          TableDefinition table = findTable(resultSet);
+          if (table == null) {
+            continue; // view
+          }
+
+          ColumnDefinition column = new ColumnDefinition();
+          column.setName(resultSet.getString("COLUMN_NAME"));
+          parseColumnType(column, resultSet.getString("DATA_TYPE"),
+              resultSet.getString("COLUMN_TYPE"));
+          column.setCharset(resultSet.getString("CHARACTER_SET_NAME"));
+          column.setCollation(resultSet.getString("COLLATION_NAME"));
+          column.setNullable(resultSet.getString("IS_NULLABLE").equals("YES"));
+          column.setComment(resultSet.getString("COLUMN_COMMENT"));
+
+          String extra = resultSet.getString("EXTRA");
+          extra = extra == null ? "" : extra;
+          String lowerExtra = extra.toLowerCase(Locale.ROOT);
+          column.setAutoIncrement(lowerExtra.contains("auto_increment"));
+          Matcher onUpdateMatcher = ON_UPDATE_PATTERN.matcher(extra);
+          if (onUpdateMatcher.find()) {
+            column.setOnUpdate(onUpdateMatcher.group(1));
+          }
+
+          String generationExpression = resultSet.getString("GENERATION_EXPRESSION");
+          if (lowerExtra.contains("generated") && generationExpression != null
+              && !generationExpression.isEmpty()) {
+            column.setGeneratedExpression(generationExpression);
+            column.setGeneratedStored(lowerExtra.contains("stored generated"));
+          } else {
+            column.setDefaultValue(renderDefaultValue(column,
+                resultSet.getString("COLUMN_DEFAULT"), lowerExtra.contains("default_generated")));
+          }
+
+          table.getColumns().add(column);
+        }
+      }
+    }
+  }
+
+  static void parseColumnType(ColumnDefinition column, String dataType,
+      String columnType) {
+    column.setDataType(dataType.toLowerCase(Locale.ROOT));
+
+    List<Token> tokens = SqlTokenizer.tokenizeStatements(columnType).get(0);
+    int index = 1; // skip type name
+    if (index < tokens.size() && tokens.get(index).isSymbol("(")) {
+      List<String> lengths = new ArrayList<>();
+      for (index++; index < tokens.size() && !tokens.get(index).isSymbol(")"); index++) {
+        Token token = tokens.get(index);
+        if (token.getType() == TokenType.STRING) {
+          column.getValues().add(token.getText());
+        } else if (token.getType() == TokenType.NUMBER) {
+          lengths.add(token.getText());
+        }
+      }
+      index++;
+      if (!lengths.isEmpty()) {
+        column.setLength(String.join(",", lengths));
+      }
+    }
+    for (; index < tokens.size(); index++) {
+      if (tokens.get(index).isWord("unsigned")) {
+        column.setUnsigned(true);
+      } else if (tokens.get(index).isWord("zerofill")) {
+        column.setZerofill(true);
+      }
+    }
+  }
+
+  static String renderDefaultValue(ColumnDefinition column, String defaultValue,
+      boolean isExpression) {
+    if (column.isAutoIncrement() || BLOB_TYPES.contains(column.getDataType())) {
+      return null;
+    }
+    if (defaultValue == null) {
+      return column.getNullable() ? "NULL" : null;
+    }
+    if (defaultValue.toUpperCase(Locale.ROOT).startsWith("CURRENT_TIMESTAMP")) {
+      return defaultValue;
+    }
+    if (isExpression) {
+      return "(" + defaultValue + ")"; // since MySQL 8.0.13
+    }
+    if (column.getDataType().equals("bit") && defaultValue.startsWith("b'")) {
+      return defaultValue;
+    }
+    return OfflineNormalizer.quoteString(defaultValue);
+  }
+
+  private void readIndexes() throws SQLException {
+    // Not ordered by index name; MySQL 5.7 returns indexes in order of SHOW CREATE TABLE
+    String query = "SELECT TABLE_SCHEMA, TABLE_NAME, INDEX_NAME, NON_UNIQUE, SEQ_IN_INDEX,"
+        + " COLUMN_NAME, SUB_PART, INDEX_TYPE, INDEX_COMMENT"
+        + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA IN (" + placeholders() + ")"
+        + tableFilter.toSqlCondition("TABLE_NAME");
+
+    Map<TableDefinition, Map<String, IndexDefinition>> indexesOfTables = new IdentityHashMap<>();
+    Map<IndexDefinition, Map<Integer, IndexColumn>> columnsOfIndexes = new IdentityHashMap<>();
+    try (PreparedStatement stmt = prepare(query)) {
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        while (resultSet.next()) {
+          TableDefinition table = findTable(resultSet);
+          if (table == null) {
+            continue;
+          }
+
+          String indexName = resultSet.getString("INDEX_NAME");
+          String columnName = resultSet.getString("COLUMN_NAME");
+          if (columnName == null) {
+            throw new SQLFeatureNotSupportedException(new StringBuilder()
+                .append("Functional index is not supported: ")
+                .append(table.getName())
+                .append(".")
+                .append(indexName)
+                .toString());
+          }
+
+          Map<String, IndexDefinition> indexes =
+              indexesOfTables.computeIfAbsent(table, key -> new LinkedHashMap<>());
+          IndexDefinition index = indexes.get(indexName);
+          if (index == null) {
+            index = new IndexDefinition();
+            index.setName(indexName);
+            index.setComment(resultSet.getString("INDEX_COMMENT"));
+            String indexType = resultSet.getString("INDEX_TYPE");
+            if (indexName.equals("PRIMARY")) {
+              index.setKind(Kind.PRIMARY);
+            } else if ("FULLTEXT".equalsIgnoreCase(indexType)) {
+              index.setKind(Kind.FULLTEXT);
+            } else if ("SPATIAL".equalsIgnoreCase(indexType)) {
+              index.setKind(Kind.SPATIAL);
+            } else if (resultSet.getInt("NON_UNIQUE") == 0) {
+              index.setKind(Kind.UNIQUE);
+            } else {
+              index.setKind(Kind.KEY);
+            }
+            indexes.put(indexName, index);
+          }
+
+          int subPart = resultSet.getInt("SUB_PART");
+          columnsOfIndexes.computeIfAbsent(index, key -> new TreeMap<>()).put(
+              resultSet.getInt("SEQ_IN_INDEX"),
+              new IndexColumn(columnName, resultSet.wasNull() ? null : subPart));
+        }
+      }
+    }
+
+    for (Map.Entry<TableDefinition, Map<String, IndexDefinition>> entry
+        : indexesOfTables.entrySet()) {
+      List<IndexDefinition> indexes = new ArrayList<>(entry.getValue().values());
+      for (IndexDefinition index : indexes) {
+        index.setColumns(new ArrayList<>(columnsOfIndexes.get(index).values()));
+      }
+      // Stable, so that the order by MySQL is kept in each kind
+      indexes.sort(Comparator.comparing(IndexDefinition::getKind,
+          Comparator.comparing(CatalogReader::indexRank)));
+      entry.getKey().setIndexes(indexes);
+    }
+  }
+
+  private static int indexRank(Kind kind) {
+    switch (kind) {
+      case PRIMARY:
+        return 0;
+      case UNIQUE:
+        return 1;
+      case FULLTEXT:
+        return 3;
+      default:
+        return 2;
+    }
+  }
+
+  private void readForeignKeys() throws SQLException {
+    String query = "SELECT k.TABLE_SCHEMA, k.TABLE_NAME, k.CONSTRAINT_NAME, k.COLUMN_NAME,"
+        + " k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME,"
+        + " r.UPDATE_RULE, r.DELETE_RULE"
+        + " FROM information_schema.KEY_COLUMN_USAGE k"
+        + " JOIN information_schema.REFERENTIAL_CONSTRAINTS r"
+        + " ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.TABLE_NAME = k.TABLE_NAME"
+        + " AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME"
+        + " WHERE k.TABLE_SCHEMA IN (" + placeholders() + ")"
+        + tableFilter.toSqlCondition("k.TABLE_NAME")
+        + " ORDER BY k.TABLE_SCHEMA, k.TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION";
+    try (PreparedStatement stmt = prepare(query)) {
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        ForeignKeyDefinition foreignKey = null;
+        TableDefinition tableOfForeignKey = null;
+        while (resultSet.next()) {
+          TableDefinition table = findTable(resultSet);
+          if (table == null) {
+            continue;
+          }
+
+          // Columns of a foreign key are in consecutive rows
+          String constraintName = resultSet.getString("CONSTRAINT_NAME");
+          if (table != tableOfForeignKey || !foreignKey.getName().equals(constraintName)) {
+            String dbName = resultSet.getString("TABLE_SCHEMA");
+            String referencedDbName = resultSet.getString("REFERENCED_TABLE_SCHEMA");
+
+            foreignKey = new ForeignKeyDefinition();
+            foreignKey.setName(constraintName);
+            foreignKey.setReferencedDatabase(
+                dbName.equals(referencedDbName) ? null : referencedDbName);
+            foreignKey.setReferencedTable(resultSet.getString("REFERENCED_TABLE_NAME"));
+            foreignKey.setOnDelete(referentialAction(resultSet.getString("DELETE_RULE")));
+            foreignKey.setOnUpdate(referentialAction(resultSet.getString("UPDATE_RULE")));
+            table.getForeignKeys().add(foreignKey);
+            tableOfForeignKey = table;
+          }
+          foreignKey.getColumns().add(resultSet.getString("COLUMN_NAME"));
+          foreignKey.getReferencedColumns().add(resultSet.getString("REFERENCED_COLUMN_NAME"));
+        }
+      }
+    }
+  }
+
+  private static String referentialAction(String rule) {
+    // SHOW CREATE TABLE omits RESTRICT, which is the default
+    return rule == null || rule.equals("RESTRICT") ? null : rule;
+  }
+
+  private TableDefinition findTable(ResultSet resultSet) throws SQLException {
+    Map<String, TableDefinition> tablesInDb =
+        tables.getOrDefault(resultSet.getString("TABLE_SCHEMA"), Collections.emptyMap());
+    return tablesInDb.get(resultSet.getString("TABLE_NAME"));
+  }
+
+  private String placeholders() {
+    return String.join(", ", Collections.nCopies(dbNames.size(), "?"));
+  }
+
+  private PreparedStatement prepare(String query) throws SQLException {
+    PreparedStatement stmt = connection.prepareStatement(query);
+    try {
+      stmt.setQueryTimeout(queryTimeoutSeconds);
+      int index = 1;
+      for (String dbName : dbNames) {
+        stmt.setString(index++, dbName);
+      }
+      tableFilter.bind(stmt, index);
+    } catch (SQLException | RuntimeException e) {
+      stmt.close();
+      throw e;
+    }
+    return stmt;
+  }
+}
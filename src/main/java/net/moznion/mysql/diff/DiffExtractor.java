@@ -1,16 +1,22 @@
 package net.moznion.mysql.diff;
 
+import net.moznion.mysql.diff.model.AlterChange;
+import net.moznion.mysql.diff.model.AlterChange.Kind;
 import net.moznion.mysql.diff.model.Column;
 import net.moznion.mysql.diff.model.OrdinaryKey;
 import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.TableDiff;
+import net.moznion.mysql.diff.model.TableStatistics;
 import net.moznion.mysql.diff.model.UniqueKey;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,14 +35,77 @@ public class DiffExtractor {
    * @return Diff string.
    */
   public static String extractDiff(List<Table> oldTables, List<Table> newTables) {
+    return extractDiff(oldTables, newTables, TableFilter.builder().build());
+  }
+
+  /**
+   * Extract diff of tables which are accepted by a filter between two schemas.
+   * 
+   * @param oldTables tables of old schema.
+   * @param newTables tables of new schema.
+   * @param tableFilter Filter of tables to compare.
+   * @return Diff string.
+   */
+  public static String extractDiff(List<Table> oldTables, List<Table> newTables,
+      TableFilter tableFilter) {
+    StringBuilder diffStringBuilder = new StringBuilder();
+    for (TableDiff tableDiff : extractTableDiffs(oldTables, newTables, tableFilter)) {
+      diffStringBuilder.append(tableDiff.toSql());
+    }
+    return diffStringBuilder.toString();
+  }
+
+  /**
+   * Extract diff between two schemas with online DDL hints.
+   * 
+   * <p>
+   * Changes of each table are split by algorithm (INSTANT, INPLACE and COPY) into separate
+   * statements, which are suffixed with ALGORITHM and LOCK clauses.
+   * </p>
+   * 
+   * @param oldTables tables of old schema.
+   * @param newTables tables of new schema.
+   * @return Diff string.
+   */
+  public static String extractOnlineDdlDiff(List<Table> oldTables, List<Table> newTables) {
     StringBuilder diffStringBuilder = new StringBuilder();
+    for (TableDiff tableDiff : extractTableDiffs(oldTables, newTables)) {
+      diffStringBuilder.append(tableDiff.toOnlineDdlSql());
+    }
+    return diffStringBuilder.toString();
+  }
+
+  /**
+   * Extract diff of each table between two schemas.
+   * 
+   * @param oldTables tables of old schema.
+   * @param newTables tables of new schema.
+   * @return Diffs of tables which have any change, in order of table name.
+   */
+  public static List<TableDiff> extractTableDiffs(List<Table> oldTables, List<Table> newTables) {
+    return extractTableDiffs(oldTables, newTables, TableFilter.builder().build());
+  }
+
+  /**
+   * Extract diff of each table which is accepted by a filter between two schemas.
+   * 
+   * @param oldTables tables of old schema.
+   * @param newTables tables of new schema.
+   * @param tableFilter Filter of tables to compare. Other tables are ignored in both schemas.
+   * @return Diffs of accepted tables which have any change, in order of table name.
+   */
+  public static List<TableDiff> extractTableDiffs(List<Table> oldTables, List<Table> newTables,
+      TableFilter tableFilter) {
+    List<TableDiff> tableDiffs = new ArrayList<>();
 
     List<String> newTableNames = newTables.stream()
         .map(table -> table.getTableName())
+        .filter(tableFilter::accepts)
         .sorted()
         .collect(Collectors.toList());
 
     Map<String, Table> oldTableMap = oldTables.stream()
+        .filter(table -> tableFilter.accepts(table.getTableName()))
         .collect(Collectors.toMap(Table::getTableName, t -> t));
     Map<String, Table> newTableMap = newTables.stream()
         .collect(Collectors.toMap(Table::getTableName, t -> t));
@@ -45,33 +114,47 @@ public class DiffExtractor {
       Table newTable = newTableMap.get(tableName);
       if (oldTableMap.containsKey(tableName)) {
         Table oldTable = oldTableMap.get(tableName);
-        diffStringBuilder.append(extractTableDiff(tableName, oldTable, newTable));
+        TableDiff tableDiff = extractTableDiff(tableName, oldTable, newTable);
+        if (!tableDiff.isEmpty()) {
+          tableDiffs.add(tableDiff);
+        }
       } else {
-        diffStringBuilder.append(newTable.getContent()).append(";\n\n");
+        tableDiffs.add(TableDiff.creation(newTable));
       }
     }
 
-    return diffStringBuilder.toString();
+    return tableDiffs;
   }
 
-  private static String extractTableDiff(String tableName, Table oldTable, Table newTable) {
-    List<String> changes = extractColumnDiff(oldTable, newTable);
-    changes.addAll(extractKeyDiff(oldTable, newTable));
-
-    if (changes.isEmpty()) {
-      return "";
-    }
+  /**
+   * Attach statistics to diffs and order them by estimated rebuild cost.
+   * 
+   * <p>
+   * The most expensive diff comes first. Diffs whose statistics are missing (e.g. new tables) are
+   * regarded as costless.
+   * </p>
+   * 
+   * @param tableDiffs Diffs of tables.
+   * @param statistics Statistics of tables, keyed by table name.
+   * @return Ordered diffs which are attached statistics.
+   */
+  public static List<TableDiff> orderByRebuildCost(List<TableDiff> tableDiffs,
+      Map<String, TableStatistics> statistics) {
+    return tableDiffs.stream()
+        .map(tableDiff -> Optional.ofNullable(statistics.get(tableDiff.getTableName()))
+            .map(tableDiff::withStatistics)
+            .orElse(tableDiff))
+        .sorted(Comparator.comparingLong(TableDiff::getEstimatedRebuildCost).reversed())
+        .collect(Collectors.toList());
+  }
 
-    return new StringBuilder()
-        .append("ALTER TABLE `")
-        .append(tableName)
-        .append("` ")
-        .append(String.join(", ", changes))
-        .append(";\n\n")
-        .toString();
+  private static TableDiff extractTableDiff(String tableName, Table oldTable, Table newTable) {
+    List<AlterChange> changes = extractColumnDiff(oldTable, newTable);
+    changes.addAll(extractKeyDiff(oldTable, newTable));
+    return TableDiff.alteration(newTable, changes);
   }
 
-  private static List<String> extractColumnDiff(Table oldTable, Table newTable) {
+  private static List<AlterChange> extractColumnDiff(Table oldTable, Table newTable) {
     List<Column> oldColumns = oldTable.getColumns();
     List<Column> newColumns = newTable.getColumns();
 
@@ -84,38 +167,44 @@ public class DiffExtractor {
     allColumnMap.putAll(oldColumnMap);
     allColumnMap.putAll(newColumnMap);
 
-    List<String> changes = new ArrayList<>();
+    List<AlterChange> changes = new ArrayList<>();
     for (Entry<String, Column> column : allColumnMap.entrySet()) {
       String columnName = column.getKey();
 
       if (!oldColumnMap.containsKey(columnName)) {
-        changes.add(new StringBuilder()
+        String clause = new StringBuilder()
             .append("ADD `")
             .append(columnName)
             .append("` ")
             .append(newColumnMap.get(columnName).getDefinition())
-            .toString());
+            .toString();
+        changes.add(OnlineDdlClassifier.classify(
+            Kind.ADD_COLUMN, columnName, clause, oldTable, newTable));
         continue;
       }
 
       if (!newColumnMap.containsKey(columnName)) {
-        changes.add(new StringBuilder()
+        String clause = new StringBuilder()
             .append("DROP `")
             .append(columnName)
             .append("`")
-            .toString());
+            .toString();
+        changes.add(OnlineDdlClassifier.classify(
+            Kind.DROP_COLUMN, columnName, clause, oldTable, newTable));
         continue;
       }
 
       String oldDefinition = oldColumnMap.get(columnName).getDefinition();
       String newDefinition = newColumnMap.get(columnName).getDefinition();
       if (!oldDefinition.equals(newDefinition)) {
-        changes.add(new StringBuilder()
+        String clause = new StringBuilder()
             .append("MODIFY `")
             .append(columnName)
             .append("` ")
             .append(newDefinition)
-            .toString());
+            .toString();
+        changes.add(OnlineDdlClassifier.classify(
+            Kind.MODIFY_COLUMN, columnName, clause, oldTable, newTable));
         continue;
       }
     }
@@ -123,8 +212,8 @@ public class DiffExtractor {
     return changes;
   }
 
-  private static List<String> extractKeyDiff(Table oldTable, Table newTable) {
-    List<String> changes = new ArrayList<>();
+  private static List<AlterChange> extractKeyDiff(Table oldTable, Table newTable) {
+    List<AlterChange> changes = new ArrayList<>();
 
     // For ordinary key
     changes.addAll(extractOrdinaryKeyDiff(oldTable, newTable));
@@ -135,8 +224,8 @@ public class DiffExtractor {
     return changes;
   }
 
-  private static List<String> extractOrdinaryKeyDiff(Table oldTable, Table newTable) {
-    List<String> changes = new ArrayList<>();
+  private static List<AlterChange> extractOrdinaryKeyDiff(Table oldTable, Table newTable) {
+    List<AlterChange> changes = new ArrayList<>();
 
     List<OrdinaryKey> oldKeys = oldTable.getKeys();
     List<OrdinaryKey> newKeys = newTable.getKeys();
@@ -160,14 +249,15 @@ public class DiffExtractor {
               .map(col -> col.replaceAll("[`()]", ""))
               .collect(Collectors.toList()));
 
-      changes.add(
-          new StringBuilder()
-              .append("ADD INDEX `")
-              .append(name)
-              .append("` (")
-              .append(column)
-              .append(")")
-              .toString());
+      String clause = new StringBuilder()
+          .append("ADD INDEX `")
+          .append(name)
+          .append("` (")
+          .append(column)
+          .append(")")
+          .toString();
+      changes.add(OnlineDdlClassifier.classify(
+          Kind.ADD_INDEX, name, clause, oldTable, newTable));
     }
 
     // drop key
@@ -177,19 +267,20 @@ public class DiffExtractor {
         continue;
       }
 
-      changes.add(
-          new StringBuilder()
-              .append("DROP INDEX `")
-              .append(key.getName())
-              .append("`")
-              .toString());
+      String clause = new StringBuilder()
+          .append("DROP INDEX `")
+          .append(key.getName())
+          .append("`")
+          .toString();
+      changes.add(OnlineDdlClassifier.classify(
+          Kind.DROP_INDEX, key.getName(), clause, oldTable, newTable));
     }
 
     return changes;
   }
 
-  private static List<String> extractUniqueKeyDiff(Table oldTable, Table newTable) {
-    List<String> changes = new ArrayList<>();
+  private static List<AlterChange> extractUniqueKeyDiff(Table oldTable, Table newTable) {
+    List<AlterChange> changes = new ArrayList<>();
 
     List<UniqueKey> oldKeys = oldTable.getUniqueKeys();
     List<UniqueKey> newKeys = newTable.getUniqueKeys();
@@ -213,14 +304,15 @@ public class DiffExtractor {
               .map(col -> col.replaceAll("[`()]", ""))
               .collect(Collectors.toList()));
 
-      changes.add(
-          new StringBuilder()
-              .append("ADD UNIQUE INDEX `")
-              .append(name)
-              .append("` (")
-              .append(column)
-              .append(")")
-              .toString());
+      String clause = new StringBuilder()
+          .append("ADD UNIQUE INDEX `")
+          .append(name)
+          .append("` (")
+          .append(column)
+          .append(")")
+          .toString();
+      changes.add(OnlineDdlClassifier.classify(
+          Kind.ADD_UNIQUE_INDEX, name, clause, oldTable, newTable));
     }
 
     // drop key
@@ -230,12 +322,13 @@ public class DiffExtractor {
         continue;
       }
 
-      changes.add(
-          new StringBuilder()
-              .append("DROP INDEX `")
-              .append(key.getName())
-              .append("`")
-              .toString());
+      String clause = new StringBuilder()
+          .append("DROP INDEX `")
+          .append(key.getName())
+          .append("`")
+          .toString();
+      changes.add(OnlineDdlClassifier.classify(
+          Kind.DROP_INDEX, key.getName(), clause, oldTable, newTable));
     }
 
     return changes;
@@ -0,0 +1,164 @@
+package net.moznion.mysql.diff;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle of a dump which is running in background.
+ *
+ * <p>
+ * {@link #cancel()} kills running mysqldump process and cancels running statement. The scratch
+ * database of the dump is released by the dump itself after cancellation.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+public class DumpHandle {
+  private final CompletableFuture<String> future = new CompletableFuture<>();
+
+  private volatile boolean cancelled;
+  private Thread thread;
+  private Process process;
+  private Statement statement;
+
+  DumpHandle() {}
+
+  /**
+   * Wait for the dump and returns its result.
+   *
+   * @return Result of dumping.
+   * @throws InterruptedException Throw if interrupted while waiting.
+   * @throws ExecutionException Throw if the dump is failed.
+   * @throws CancellationException Throw if the dump is cancelled.
+   */
+  public String get() throws InterruptedException, ExecutionException {
+    return future.get();
+  }
+
+  /**
+   * Wait for the dump at most given time and returns its result.
+   *
+   * <p>
+   * The dump is not cancelled on timeout.
+   * </p>
+   *
+   * @param timeout Maximum time to wait.
+   * @param unit Unit of timeout.
+   * @return Result of dumping.
+   * @throws InterruptedException Throw if interrupted while waiting.
+   * @throws ExecutionException Throw if the dump is failed.
+   * @throws TimeoutException Throw if the dump is not finished in time.
+   * @throws CancellationException Throw if the dump is cancelled.
+   */
+  public String get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return future.get(timeout, unit);
+  }
+
+  /**
+   * Returns the result of the dump as a CompletableFuture.
+   *
+   * @return Future of the result. Cancelling it does not cancel the dump; use {@link #cancel()}.
+   */
+  public CompletableFuture<String> toCompletableFuture() {
+    return future.thenApply(schema -> schema);
+  }
+
+  /**
+   * Returns whether the dump is finished, failed or cancelled.
+   *
+   * @return True if the dump is done.
+   */
+  public boolean isDone() {
+    return future.isDone();
+  }
+
+  /**
+   * Returns whether the dump is cancelled.
+   *
+   * @return True if the dump is cancelled.
+   */
+  public boolean isCancelled() {
+    return future.isCancelled();
+  }
+
+  /**
+   * Cancel the dump.
+   *
+   * @return False if the dump is already done.
+   */
+  public synchronized boolean cancel() {
+    if (future.isDone()) {
+      return false;
+    }
+
+    cancelled = true;
+    if (process != null) {
+      process.destroyForcibly();
+    }
+    if (statement != null) {
+      try {
+        statement.cancel();
+      } catch (SQLException e) {
+        // ignore; the statement may be finished
+      }
+    }
+    if (thread != null) {
+      thread.interrupt();
+    }
+    return true;
+  }
+
+  synchronized void start(Thread thread) {
+    this.thread = thread;
+    thread.start();
+  }
+
+  void complete(String schema) {
+    if (cancelled) {
+      future.cancel(false);
+      return;
+    }
+    future.complete(schema);
+  }
+
+  void fail(Throwable cause) {
+    if (cancelled) {
+      future.cancel(false);
+      return;
+    }
+    future.completeExceptionally(cause);
+  }
+
+  synchronized void attach(Process process) {
+    this.process = process;
+    if (cancelled) {
+      process.destroyForcibly();
+    }
+  }
+
+  synchronized void detach(Process process) {
+    if (this.process == process) {
+      this.process = null;
+    }
+  }
+
+  synchronized void attach(Statement statement) throws SQLException {
+    if (cancelled) {
+      throw new SQLException("Dump is cancelled");
+    }
+    this.statement = statement;
+  }
+
+  synchronized void detach(Statement statement) {
+    if (this.statement == statement) {
+      this.statement = null;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttle of concurrent accesses to each MySQL host.
+ *
+ * <p>
+ * At most maxConcurrencyPerHost dumps run against the same host and port at once. Before each
+ * dump, the load of the host is probed (at most once per probeIntervalMillis) by
+ * <code>SHOW GLOBAL STATUS LIKE 'Threads_running'</code>. If the probe takes longer than
+ * latencyThresholdMillis or Threads_running exceeds threadsRunningThreshold, the limit of the host
+ * is halved and the dump waits with exponential backoff; otherwise the limit is increased by one
+ * up to maxConcurrencyPerHost. A probe which times out by probeTimeoutMillis is also regarded as
+ * overload.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class HostThrottle {
+  private final int maxConcurrencyPerHost;
+  private final long latencyThresholdMillis;
+  private final int threadsRunningThreshold;
+  private final long probeIntervalMillis;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final long probeTimeoutMillis;
+
+  @Getter(AccessLevel.NONE)
+  private final LoadProbe loadProbe;
+  @Getter(AccessLevel.NONE)
+  private final Map<String, HostState> hostStates = new ConcurrentHashMap<>();
+
+  /**
+   * Probe of load of a host.
+   */
+  interface LoadProbe {
+    /**
+     * Probe the host.
+     *
+     * @param mysqlConnectionInfo Connection information of the host.
+     * @return Current value of Threads_running.
+     * @throws SQLException Throw if failed to probe.
+     */
+    int threadsRunning(MySqlConnectionInfo mysqlConnectionInfo) throws SQLException;
+  }
+
+  /**
+   * Permit to access a host. It must be closed after the access.
+   */
+  public static class Permit implements AutoCloseable {
+    private final HostState hostState;
+    private boolean closed;
+
+    private Permit(HostState hostState) {
+      this.hostState = hostState;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      hostState.release();
+    }
+  }
+
+  /**
+   * Builder class of HostThrottle.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>maxConcurrencyPerHost(int num) // default value: 2</li>
+   * <li>latencyThresholdMillis(long millis) // default value: 500</li>
+   * <li>threadsRunningThreshold(int num) // default value: 32</li>
+   * <li>probeIntervalMillis(long millis) // default value: 1000</li>
+   * <li>initialBackoffMillis(long millis) // default value: 200</li>
+   * <li>maxBackoffMillis(long millis) // default value: 10000</li>
+   * <li>probeTimeoutMillis(long millis) // default value: 5000</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private int maxConcurrencyPerHost = 2;
+    private long latencyThresholdMillis = 500;
+    private int threadsRunningThreshold = 32;
+    private long probeIntervalMillis = 1000;
+    private long initialBackoffMillis = 200;
+    private long maxBackoffMillis = 10_000;
+    private long probeTimeoutMillis = 5000;
+
+    public Builder() {}
+
+    /**
+     * Builds HostThrottle.
+     *
+     * @return New HostThrottle instance.
+     */
+    public HostThrottle build() {
+      return new HostThrottle(this, null);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of HostThrottle.
+   *
+   * @return Builder of HostThrottle.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  HostThrottle(Builder builder, LoadProbe loadProbe) {
+    if (builder.maxConcurrencyPerHost < 1) {
+      throw new IllegalArgumentException("maxConcurrencyPerHost must be positive");
+    }
+    if (builder.latencyThresholdMillis <= 0 || builder.threadsRunningThreshold <= 0) {
+      throw new IllegalArgumentException("Thresholds must be positive");
+    }
+    if (builder.probeIntervalMillis < 0 || builder.initialBackoffMillis <= 0
+        || builder.maxBackoffMillis < builder.initialBackoffMillis) {
+      throw new IllegalArgumentException("Invalid interval or backoff");
+    }
+    if (builder.probeTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("probeTimeoutMillis must be positive");
+    }
+    maxConcurrencyPerHost = builder.maxConcurrencyPerHost;
+    latencyThresholdMillis = builder.latencyThresholdMillis;
+    threadsRunningThreshold = builder.threadsRunningThreshold;
+    probeIntervalMillis = builder.probeIntervalMillis;
+    initialBackoffMillis = builder.initialBackoffMillis;
+    maxBackoffMillis = builder.maxBackoffMillis;
+    probeTimeoutMillis = builder.probeTimeoutMillis;
+    this.loadProbe = Optional.ofNullable(loadProbe).orElse(this::probeThreadsRunning);
+  }
+
+  /**
+   * Wait until the host can accept another access.
+   *
+   * @param mysqlConnectionInfo Connection information of the host.
+   * @return Permit of the access. Close it when the access is finished.
+   * @throws SQLException Throw if failed to probe the host.
+   * @throws InterruptedException Throw if interrupted while waiting.
+   */
+  public Permit acquire(MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException, InterruptedException {
+    HostState hostState = hostStates.computeIfAbsent(
+        mysqlConnectionInfo.getHost() + ":" + mysqlConnectionInfo.getPort(),
+        key -> new HostState());
+
+    long backoffMillis = initialBackoffMillis;
+    while (true) {
+      hostState.acquire();
+      boolean isOverloaded;
+      try {
+        isOverloaded = hostState.isOverloaded(mysqlConnectionInfo);
+      } catch (SQLException | InterruptedException | RuntimeException e) {
+        hostState.release();
+        throw e;
+      }
+      if (!isOverloaded) {
+        return new Permit(hostState);
+      }
+
+      hostState.release();
+      TimeUnit.MILLISECONDS.sleep(backoffMillis);
+      backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+    }
+  }
+
+  /**
+   * Get current limit of concurrent accesses to the host, which is adapted by its load.
+   *
+   * @param mysqlConnectionInfo Connection information of the host.
+   * @return Current limit.
+   */
+  public int getCurrentLimit(MySqlConnectionInfo mysqlConnectionInfo) {
+    HostState hostState =
+        hostStates.get(mysqlConnectionInfo.getHost() + ":" + mysqlConnectionInfo.getPort());
+    if (hostState == null) {
+      return maxConcurrencyPerHost;
+    }
+    synchronized (hostState) {
+      return hostState.limit;
+    }
+  }
+
+  private int probeThreadsRunning(MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException {
+    String jdbcUrl = mysqlConnectionInfo.getJdbcUrl();
+    jdbcUrl = new StringBuilder(jdbcUrl)
+        .append(jdbcUrl.contains("?") ? "&" : "?")
+        .append("connectTimeout=").append(probeTimeoutMillis)
+        .append("&socketTimeout=").append(probeTimeoutMillis)
+        .toString();
+    try (Connection connection = DriverManager.getConnection(jdbcUrl,
+        mysqlConnectionInfo.getUser(), mysqlConnectionInfo.getPass())) {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.setQueryTimeout((int) ((probeTimeoutMillis + 999) / 1000)); // rounded up
+        try (ResultSet resultSet =
+            stmt.executeQuery("SHOW GLOBAL STATUS LIKE 'Threads_running'")) {
+          return resultSet.next() ? resultSet.getInt(2) : 0;
+        }
+      }
+    }
+  }
+
+  private class HostState {
+    private int limit = maxConcurrencyPerHost;
+    private int inFlight;
+    private long probedAtNanos;
+    private boolean overloaded;
+    private boolean probed;
+    private boolean probing;
+
+    synchronized void acquire() throws InterruptedException {
+      while (inFlight >= limit) {
+        wait();
+      }
+      inFlight++;
+    }
+
+    synchronized void release() {
+      inFlight--;
+      notifyAll();
+    }
+
+    // Probes are serialized per host, so that a busy host is not probed by every waiter. A probe
+    // runs outside of the monitor, so that a slow probe doesn't block acquire() and release().
+    boolean isOverloaded(MySqlConnectionInfo mysqlConnectionInfo)
+        throws SQLException, InterruptedException {
+      long now;
+      synchronized (this) {
+        while (true) {
+          now = System.nanoTime();
+          if (probed && (probing
+              || now - probedAtNanos < TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis))) {
+            return overloaded; // the last result is used while another waiter probes
+          }
+          if (!probing) {
+            break;
+          }
+          wait();
+        }
+        probing = true;
+      }
+
+      Boolean isOverloaded = null; // null if the probe is failed
+      try {
+        try {
+          int threadsRunning = loadProbe.threadsRunning(mysqlConnectionInfo);
+          long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now);
+          isOverloaded = latencyMillis > latencyThresholdMillis
+              || threadsRunning > threadsRunningThreshold;
+        } catch (SQLException e) {
+          long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now);
+          if (!(e instanceof SQLTimeoutException) && latencyMillis < probeTimeoutMillis) {
+            throw e;
+          }
+          isOverloaded = true; // timed out
+        }
+      } finally {
+        synchronized (this) {
+          probing = false;
+          if (isOverloaded != null) {
+            probed = true;
+            probedAtNanos = System.nanoTime();
+            overloaded = isOverloaded;
+
+            // AIMD: halve on overload, and recover one by one
+            if (overloaded) {
+              limit = Math.max(1, limit / 2);
+            } else if (limit < maxConcurrencyPerHost) {
+              limit++;
+            }
+          }
+          notifyAll();
+        }
+      }
+      return isOverloaded;
+    }
+  }
+}
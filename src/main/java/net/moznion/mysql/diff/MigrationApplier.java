@@ -0,0 +1,396 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import net.moznion.mysql.diff.model.TableDiff;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applier which executes diffs of tables against a database.
+ *
+ * <p>
+ * Independent tables are applied concurrently up to the configured concurrency, while statements
+ * of the same table are executed serially. A table which references other tables by foreign keys
+ * (in the new schema) is applied after the referenced tables.
+ * </p>
+ *
+ * <p>
+ * When a table fails, tables which are not started yet are skipped; running ones are completed.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class MigrationApplier {
+  private final MySqlConnectionInfo mysqlConnectionInfo;
+  private final int concurrency;
+  private final boolean onlineDdl;
+  private final ProgressListener progressListener;
+  private final MySqlConnectionInfo scratchMySqlConnectionInfo;
+  private final ScratchDatabasePool scratchDatabasePool;
+
+  @Getter(AccessLevel.NONE)
+  private final StatementRunner statementRunner; // null means to run via JDBC
+
+  /**
+   * Listener of progress of applying.
+   *
+   * <p>
+   * Methods are called from worker threads.
+   * </p>
+   */
+  public interface ProgressListener {
+    /**
+     * Called when applying of a table is started.
+     *
+     * @param tableName Name of the table.
+     */
+    default void onStarted(String tableName) {}
+
+    /**
+     * Called when applying of a table is finished.
+     *
+     * @param tableName Name of the table.
+     * @param numOfFinished The number of tables which have been finished.
+     * @param numOfTables The number of all tables.
+     */
+    default void onFinished(String tableName, int numOfFinished, int numOfTables) {}
+
+    /**
+     * Called when applying of a table is failed.
+     *
+     * @param tableName Name of the table.
+     * @param cause Cause of failure.
+     */
+    default void onFailed(String tableName, SQLException cause) {}
+
+    /**
+     * Called when a table is skipped because of preceding failure.
+     *
+     * @param tableName Name of the table.
+     */
+    default void onSkipped(String tableName) {}
+  }
+
+  /**
+   * Runner of statements for a table.
+   */
+  interface StatementRunner {
+    void run(String dbName, String tableName, List<String> statements) throws SQLException;
+  }
+
+  /**
+   * Builder class of MigrationApplier.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>mysqlConnectionInfo(MySqlConnectionInfo info) // required</li>
+   * <li>concurrency(int concurrency) // default value: 4</li>
+   * <li>onlineDdl(boolean onlineDdl) // default value: false</li>
+   * <li>progressListener(ProgressListener listener) // default value: do nothing</li>
+   * <li>scratchMySqlConnectionInfo(MySqlConnectionInfo info) // default value: "-h localhost -u
+   * root"</li>
+   * <li>scratchDatabasePool(ScratchDatabasePool pool) // default value: null (create and drop a
+   * database for each dry run)</li>
+   * </ul>
+   *
+   * <p>
+   * scratchMySqlConnectionInfo is the MySQL where dry runs are done, which should be a local one
+   * rather than the MySQL of mysqlConnectionInfo.
+   * </p>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private MySqlConnectionInfo mysqlConnectionInfo;
+    private int concurrency = 4;
+    private boolean onlineDdl = false;
+    private ProgressListener progressListener = new ProgressListener() {};
+    private MySqlConnectionInfo scratchMySqlConnectionInfo = MySqlConnectionInfo.builder().build();
+    private ScratchDatabasePool scratchDatabasePool;
+
+    public Builder() {}
+
+    /**
+     * Builds MigrationApplier.
+     *
+     * @return New MigrationApplier instance.
+     */
+    public MigrationApplier build() {
+      return new MigrationApplier(this, null);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of MigrationApplier.
+   *
+   * @return Builder of MigrationApplier.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  MigrationApplier(Builder builder, StatementRunner statementRunner) {
+    mysqlConnectionInfo = Optional.ofNullable(builder.mysqlConnectionInfo)
+        .orElseThrow(() -> new IllegalArgumentException("Missing mysqlConnectionInfo"));
+    if (builder.concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+    concurrency = builder.concurrency;
+    onlineDdl = builder.onlineDdl;
+    progressListener = Optional.ofNullable(builder.progressListener)
+        .orElseThrow(() -> new IllegalArgumentException("Missing progressListener"));
+    scratchMySqlConnectionInfo = Optional.ofNullable(builder.scratchMySqlConnectionInfo)
+        .orElseThrow(() -> new IllegalArgumentException("Missing scratchMySqlConnectionInfo"));
+    scratchDatabasePool = builder.scratchDatabasePool;
+    this.statementRunner = statementRunner;
+  }
+
+  /**
+   * Apply diffs to a database.
+   *
+   * @param dbName Name of the database to be altered.
+   * @param tableDiffs Diffs of tables.
+   * @throws SQLException Throw if any statement is failed. Other failures are suppressed.
+   * @throws InterruptedException Throw if interrupted while waiting.
+   */
+  public void apply(String dbName, List<TableDiff> tableDiffs)
+      throws SQLException, InterruptedException {
+    apply(mysqlConnectionInfo, dbName, tableDiffs);
+  }
+
+  private void apply(MySqlConnectionInfo connectionInfo, String dbName,
+      List<TableDiff> tableDiffs) throws SQLException, InterruptedException {
+    StatementRunner runner = Optional.ofNullable(statementRunner)
+        .orElse((db, tableName, statements) -> runStatementsViaJdbc(connectionInfo, db,
+            statements));
+    List<TableDiff> orderedTableDiffs = sortTopologically(tableDiffs);
+
+    int numOfTables = orderedTableDiffs.size();
+    AtomicInteger numOfFinished = new AtomicInteger();
+    AtomicBoolean failed = new AtomicBoolean();
+    List<SQLException> failures = new ArrayList<>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    try {
+      Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+      for (TableDiff tableDiff : orderedTableDiffs) {
+        String tableName = tableDiff.getTableName();
+        CompletableFuture<?>[] dependencies = tableDiff.getReferencedTableNames().stream()
+            .filter(futures::containsKey)
+            .map(futures::get)
+            .toArray(CompletableFuture<?>[]::new);
+
+        CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+            .handleAsync((result, dependencyFailure) -> {
+              if (dependencyFailure != null || failed.get()) {
+                progressListener.onSkipped(tableName);
+                throw new CompletionException(new SQLException("Skipped: " + tableName));
+              }
+
+              progressListener.onStarted(tableName);
+              try {
+                runner.run(dbName, tableName, tableDiff.getStatements(onlineDdl));
+              } catch (SQLException e) {
+                failed.set(true);
+                synchronized (failures) {
+                  failures.add(e);
+                }
+                progressListener.onFailed(tableName, e);
+                throw new CompletionException(e);
+              }
+              progressListener.onFinished(tableName, numOfFinished.incrementAndGet(),
+                  numOfTables);
+              return null;
+            }, executor);
+        futures.put(tableName, future);
+      }
+
+      try {
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).get();
+      } catch (ExecutionException e) {
+        // SQLExceptions are collected as failures; others are unexpected
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    if (!failures.isEmpty()) {
+      SQLException first = failures.get(0);
+      for (SQLException rest : failures.subList(1, failures.size())) {
+        first.addSuppressed(rest);
+      }
+      throw first;
+    }
+  }
+
+  /**
+   * Apply diffs to a scratch database which is loaded given schema, and drop it.
+   *
+   * <p>
+   * This is for checking that diffs can be applied without touching the real database. The
+   * scratch database is created on the MySQL of scratchMySqlConnectionInfo (or acquired from
+   * scratchDatabasePool), and the schema is loaded statement by statement.
+   * </p>
+   *
+   * @param schema Current schema of the database to be altered (e.g. result of SchemaDumper).
+   * @param tableDiffs Diffs of tables.
+   * @throws SQLException Throw if any statement is failed.
+   * @throws InterruptedException Throw if interrupted while waiting.
+   */
+  public void dryRun(String schema, List<TableDiff> tableDiffs)
+      throws SQLException, InterruptedException {
+    try (Connection connection = getConnection(scratchMySqlConnectionInfo)) {
+      String tempDbName = acquireScratchDatabase(connection);
+      try {
+        connection.setCatalog(tempDbName);
+        loadSchema(connection, schema);
+
+        apply(scratchMySqlConnectionInfo, tempDbName, tableDiffs);
+      } finally {
+        releaseScratchDatabase(connection, tempDbName);
+      }
+    }
+  }
+
+  private static void loadSchema(Connection connection, String schema) throws SQLException {
+    SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(schema));
+    try (Statement stmt = connection.createStatement()) {
+      // tables are dumped in order of names, not of references
+      stmt.execute("SET SESSION foreign_key_checks = 0");
+      SqlStatementSplitter.Statement statement;
+      while ((statement = splitter.next()) != null) {
+        try {
+          stmt.execute(statement.getSql());
+        } catch (SQLException e) {
+          throw new SQLException(new StringBuilder()
+              .append("Failed to load the statement at line ")
+              .append(statement.getLineNumber())
+              .append(": ")
+              .append(e.getMessage())
+              .toString(), e.getSQLState(), e.getErrorCode(), e);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      throw new SQLSyntaxErrorException(e.getMessage(), "42000", e);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // never happens with StringReader
+    }
+  }
+
+  private String acquireScratchDatabase(Connection connection) throws SQLException {
+    if (scratchDatabasePool != null) {
+      return scratchDatabasePool.acquire(connection);
+    }
+
+    String tempDbName = new StringBuilder()
+        .append("tmp_")
+        .append(UUID.randomUUID().toString().replaceAll("-", ""))
+        .toString();
+    try (Statement stmt = connection.createStatement()) {
+      stmt.executeUpdate("CREATE DATABASE " + tempDbName);
+    }
+    return tempDbName;
+  }
+
+  private void releaseScratchDatabase(Connection connection, String tempDbName)
+      throws SQLException {
+    if (scratchDatabasePool != null) {
+      scratchDatabasePool.release(connection, tempDbName);
+      return;
+    }
+
+    try (Statement stmt = connection.createStatement()) {
+      stmt.executeUpdate("DROP DATABASE " + tempDbName);
+    }
+  }
+
+  private List<TableDiff> sortTopologically(List<TableDiff> tableDiffs) {
+    Map<String, TableDiff> tableDiffMap = new LinkedHashMap<>();
+    for (TableDiff tableDiff : tableDiffs) {
+      tableDiffMap.put(tableDiff.getTableName(), tableDiff);
+    }
+
+    List<TableDiff> sorted = new ArrayList<>();
+    Map<String, Boolean> visited = new HashMap<>(); // false: visiting, true: visited
+    for (TableDiff tableDiff : tableDiffs) {
+      visit(tableDiff, tableDiffMap, visited, sorted);
+    }
+    return sorted;
+  }
+
+  private void visit(TableDiff tableDiff, Map<String, TableDiff> tableDiffMap,
+      Map<String, Boolean> visited, List<TableDiff> sorted) {
+    String tableName = tableDiff.getTableName();
+    Boolean state = visited.get(tableName);
+    if (state != null) {
+      if (!state) {
+        throw new IllegalArgumentException(
+            "Circular foreign key dependency is detected at `" + tableName + "`");
+      }
+      return;
+    }
+
+    visited.put(tableName, false);
+    for (String referencedTableName : tableDiff.getReferencedTableNames()) {
+      TableDiff referenced = tableDiffMap.get(referencedTableName);
+      if (referenced != null) {
+        visit(referenced, tableDiffMap, visited, sorted);
+      }
+    }
+    visited.put(tableName, true);
+    sorted.add(tableDiff);
+  }
+
+  private static void runStatementsViaJdbc(MySqlConnectionInfo connectionInfo, String dbName,
+      List<String> statements) throws SQLException {
+    try (Connection connection = getConnection(connectionInfo)) {
+      connection.setCatalog(dbName);
+      for (String statement : statements) {
+        try (Statement stmt = connection.createStatement()) {
+          stmt.execute(statement);
+        }
+      }
+    }
+  }
+
+  private static Connection getConnection(MySqlConnectionInfo connectionInfo)
+      throws SQLException {
+    return DriverManager.getConnection(connectionInfo.getJdbcUrl(), connectionInfo.getUser(),
+        connectionInfo.getPass());
+  }
+}
@@ -4,9 +4,10 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,9 +18,14 @@ import java.util.List;
  */
 @Getter
 public class MySqlConnectionInfo {
+  private static final String UNIX_SOCKET_FACTORY =
+      "org.newsclub.net.mysql.AFUNIXDatabaseSocketFactoryCJ";
+
   private final String host;
+  private final int port;
   private final String user;
   private final String pass;
+  private final String socketPath;
   private final String jdbcUrl;
 
   /**
@@ -33,7 +39,13 @@ public class MySqlConnectionInfo {
    * <li>port(int portNumber) // default value: 3306</li>
    * <li>user(String userName) // default value: "root"</li>
    * <li>host(String password) // default value: ""</li>
+   * <li>socketPath(String path) // default value: null (connect via TCP)</li>
    * </ul>
+   *
+   * <p>
+   * If socketPath is set, both of JDBC and mysqldump connect via the unix domain socket, and host
+   * and port are ignored. JDBC uses the socket factory of junixsocket.
+   * </p>
    */
   @Accessors(fluent = true)
   public static class Builder {
@@ -45,8 +57,10 @@ public class MySqlConnectionInfo {
     private String user = "root";
     @Setter
     private String pass = "";
+    @Setter
+    private String socketPath;
 
-    private List<String> properties = new ArrayList<>(Arrays.asList("allowMultiQueries=true"));
+    private List<String> properties = new ArrayList<>();
 
     /**
      * Add a property.
@@ -104,15 +118,32 @@ public class MySqlConnectionInfo {
 
   private MySqlConnectionInfo(Builder builder) {
     host = builder.host;
+    port = builder.port;
     user = builder.user;
     pass = builder.pass;
-    jdbcUrl = new StringBuilder()
+    socketPath = builder.socketPath;
+
+    List<String> properties = new ArrayList<>(builder.properties);
+    if (socketPath != null) {
+      properties.add("socketFactory=" + UNIX_SOCKET_FACTORY);
+      properties.add("junixsocket.file=" + encode(socketPath));
+    }
+    StringBuilder jdbcUrlBuilder = new StringBuilder()
         .append("jdbc:mysql://")
         .append(builder.host)
         .append(":")
-        .append(builder.port)
-        .append("?")
-        .append(String.join("&", builder.properties))
-        .toString();
+        .append(builder.port);
+    if (!properties.isEmpty()) {
+      jdbcUrlBuilder.append("?").append(String.join("&", properties));
+    }
+    jdbcUrl = jdbcUrlBuilder.toString();
+  }
+
+  private static String encode(String value) {
+    try {
+      return URLEncoder.encode(value, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e); // UTF-8 is always supported
+    }
   }
 }
@@ -0,0 +1,1990 @@
+package net.moznion.mysql.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import net.moznion.mysql.diff.SqlTokenizer.Token;
+import net.moznion.mysql.diff.SqlTokenizer.TokenType;
+import net.moznion.mysql.diff.model.ColumnDefinition;
+import net.moznion.mysql.diff.model.ForeignKeyDefinition;
+import net.moznion.mysql.diff.model.IndexDefinition;
+import net.moznion.mysql.diff.model.IndexDefinition.IndexColumn;
+import net.moznion.mysql.diff.model.IndexDefinition.Kind;
+import net.moznion.mysql.diff.model.TableDefinition;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Normalizer of CREATE TABLE statements which works without MySQL server.
+ *
+ * <p>
+ * This applies canonicalization rules of MySQL 5.7 (type aliases, default display widths, implicit
+ * NULL/NOT NULL and DEFAULT, charsets and collations, key naming and ordering, foreign key naming
+ * and so on) and renders tables in the same format as SHOW CREATE TABLE, so that the result can be
+ * diffed with the result of {@link SchemaDumper} in milliseconds.
+ * </p>
+ *
+ * <p>
+ * Only DDL which defines tables is supported (CREATE/ALTER/DROP/RENAME TABLE and CREATE/DROP
+ * INDEX); statements which do not change tables (e.g. SET, INSERT, CREATE VIEW) are ignored and
+ * other DDL (e.g. partitioning, ALTER TABLE ... CONVERT TO) is rejected by
+ * IllegalArgumentException.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class OfflineNormalizer {
+  private static final Set<String> INTEGER_TYPES = new HashSet<>(
+      Arrays.asList("tinyint", "smallint", "mediumint", "int", "bigint"));
+  private static final Set<String> NUMERIC_TYPES = new HashSet<>(
+      Arrays.asList("tinyint", "smallint", "mediumint", "int", "bigint", "decimal", "float",
+          "double", "bit"));
+  private static final Set<String> STRING_TYPES = new HashSet<>(
+      Arrays.asList("char", "varchar", "tinytext", "text", "mediumtext", "longtext", "enum",
+          "set"));
+  private static final Set<String> BLOB_TYPES = new HashSet<>(
+      Arrays.asList("tinytext", "text", "mediumtext", "longtext", "tinyblob", "blob",
+          "mediumblob", "longblob"));
+  private static final Set<String> TEMPORAL_TYPES = new HashSet<>(
+      Arrays.asList("time", "datetime", "timestamp"));
+  private static final Set<String> OTHER_TYPES = new HashSet<>(
+      Arrays.asList("binary", "varbinary", "tinyblob", "blob", "mediumblob", "longblob", "date",
+          "year", "json", "geometry", "point", "linestring", "polygon", "multipoint",
+          "multilinestring", "multipolygon", "geometrycollection"));
+
+  private static final Map<String, String> TYPE_ALIASES = new HashMap<>();
+  private static final Map<String, Integer> DISPLAY_WIDTHS = new HashMap<>();
+  private static final Map<String, String> ENGINE_NAMES = new HashMap<>();
+  private static final Map<String, String> DEFAULT_COLLATIONS = new HashMap<>();
+  private static final Map<String, Integer> MAX_BYTES_PER_CHAR = new HashMap<>();
+  private static final List<String> ORDERED_TABLE_OPTIONS = Arrays.asList("MIN_ROWS", "MAX_ROWS",
+      "AVG_ROW_LENGTH", "PACK_KEYS", "STATS_PERSISTENT", "STATS_AUTO_RECALC",
+      "STATS_SAMPLE_PAGES", "CHECKSUM", "DELAY_KEY_WRITE", "ROW_FORMAT", "KEY_BLOCK_SIZE",
+      "COMPRESSION", "ENCRYPTION");
+  private static final Set<String> IGNORED_STATEMENTS = new HashSet<>(
+      Arrays.asList("SET", "USE", "LOCK", "UNLOCK", "INSERT", "REPLACE", "DELETE", "UPDATE",
+          "TRUNCATE", "SELECT", "START", "BEGIN", "COMMIT", "ROLLBACK", "SAVEPOINT", "ANALYZE",
+          "OPTIMIZE", "FLUSH", "GRANT", "REVOKE", "DO"));
+
+  static {
+    TYPE_ALIASES.put("integer", "int");
+    TYPE_ALIASES.put("int1", "tinyint");
+    TYPE_ALIASES.put("int2", "smallint");
+    TYPE_ALIASES.put("int3", "mediumint");
+    TYPE_ALIASES.put("middleint", "mediumint");
+    TYPE_ALIASES.put("int4", "int");
+    TYPE_ALIASES.put("int8", "bigint");
+    TYPE_ALIASES.put("dec", "decimal");
+    TYPE_ALIASES.put("numeric", "decimal");
+    TYPE_ALIASES.put("fixed", "decimal");
+    TYPE_ALIASES.put("real", "double");
+    TYPE_ALIASES.put("float4", "float");
+    TYPE_ALIASES.put("float8", "double");
+
+    DISPLAY_WIDTHS.put("tinyint", 4);
+    DISPLAY_WIDTHS.put("smallint", 6);
+    DISPLAY_WIDTHS.put("mediumint", 9);
+    DISPLAY_WIDTHS.put("int", 11);
+    DISPLAY_WIDTHS.put("bigint", 20);
+
+    for (String engine : new String[] {"InnoDB", "MyISAM", "MEMORY", "CSV", "ARCHIVE",
+        "BLACKHOLE", "MRG_MYISAM", "FEDERATED", "ndbcluster"}) {
+      ENGINE_NAMES.put(engine.toLowerCase(Locale.ROOT), engine);
+    }
+    ENGINE_NAMES.put("heap", "MEMORY");
+    ENGINE_NAMES.put("merge", "MRG_MYISAM");
+    ENGINE_NAMES.put("ndb", "ndbcluster");
+
+    DEFAULT_COLLATIONS.put("big5", "big5_chinese_ci");
+    DEFAULT_COLLATIONS.put("binary", "binary");
+    DEFAULT_COLLATIONS.put("cp932", "cp932_japanese_ci");
+    DEFAULT_COLLATIONS.put("euckr", "euckr_korean_ci");
+    DEFAULT_COLLATIONS.put("eucjpms", "eucjpms_japanese_ci");
+    DEFAULT_COLLATIONS.put("gb2312", "gb2312_chinese_ci");
+    DEFAULT_COLLATIONS.put("gbk", "gbk_chinese_ci");
+    DEFAULT_COLLATIONS.put("latin1", "latin1_swedish_ci");
+    DEFAULT_COLLATIONS.put("sjis", "sjis_japanese_ci");
+    DEFAULT_COLLATIONS.put("ujis", "ujis_japanese_ci");
+
+    for (String charset : new String[] {"armscii8", "ascii", "binary", "cp1250", "cp1251",
+        "cp1256", "cp1257", "cp850", "cp852", "cp866", "dec8", "geostd8", "greek", "hebrew",
+        "hp8", "keybcs2", "koi8r", "koi8u", "latin1", "latin2", "latin5", "latin7", "macce",
+        "macroman", "swe7", "tis620"}) {
+      MAX_BYTES_PER_CHAR.put(charset, 1);
+    }
+    for (String charset : new String[] {"big5", "cp932", "euckr", "gb2312", "gbk", "sjis",
+        "ucs2"}) {
+      MAX_BYTES_PER_CHAR.put(charset, 2);
+    }
+    MAX_BYTES_PER_CHAR.put("eucjpms", 3);
+    MAX_BYTES_PER_CHAR.put("ujis", 3);
+    MAX_BYTES_PER_CHAR.put("utf8", 3);
+  }
+
+  private final String defaultCharset;
+  private final String defaultEngine;
+  private final boolean explicitDefaultsForTimestamp;
+
+  /**
+   * Builder class of OfflineNormalizer.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>defaultCharset(String charset) // default value: "latin1"</li>
+   * <li>defaultEngine(String engine) // default value: "InnoDB"</li>
+   * <li>explicitDefaultsForTimestamp(boolean enabled) // default value: false</li>
+   * </ul>
+   *
+   * <p>
+   * These correspond to character_set_server, default_storage_engine and
+   * explicit_defaults_for_timestamp of the server which is emulated.
+   * </p>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private String defaultCharset = "latin1";
+    private String defaultEngine = "InnoDB";
+    private boolean explicitDefaultsForTimestamp = false;
+
+    public Builder() {}
+
+    /**
+     * Builds OfflineNormalizer.
+     *
+     * @return New OfflineNormalizer instance.
+     */
+    public OfflineNormalizer build() {
+      return new OfflineNormalizer(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of OfflineNormalizer.
+   *
+   * @return Builder of OfflineNormalizer.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private OfflineNormalizer(Builder builder) {
+    if (builder.defaultCharset == null) {
+      throw new IllegalArgumentException("defaultCharset must not be null");
+    }
+    if (builder.defaultEngine == null) {
+      throw new IllegalArgumentException("defaultEngine must not be null");
+    }
+    defaultCharset = canonicalCharset(builder.defaultCharset);
+    defaultEngine = canonicalEngine(builder.defaultEngine);
+    explicitDefaultsForTimestamp = builder.explicitDefaultsForTimestamp;
+  }
+
+  /**
+   * Normalize SQL and render it in the same format as JDBC fetch mode of SchemaDumper.
+   *
+   * @param sql SQL which defines tables.
+   * @return Result of SHOW CREATE TABLE of each table, in order of name.
+   * @throws IllegalArgumentException Throw if SQL is malformed or not supported.
+   */
+  public String normalize(String sql) {
+    return normalize(sql, TableFilter.builder().build());
+  }
+
+  /**
+   * Normalize SQL and render tables which are accepted by a filter.
+   *
+   * @param sql SQL which defines tables.
+   * @param tableFilter Filter of tables to render.
+   * @return Result of SHOW CREATE TABLE of each accepted table, in order of name.
+   * @throws IllegalArgumentException Throw if SQL is malformed or not supported.
+   */
+  public String normalize(String sql, TableFilter tableFilter) {
+    StringBuilder schemaBuilder = new StringBuilder();
+    for (TableDefinition table : parse(sql)) {
+      if (tableFilter.accepts(table.getName())) {
+        schemaBuilder.append(render(table)).append(";\n\n");
+      }
+    }
+    return schemaBuilder.toString();
+  }
+
+  /**
+   * Parse SQL into normalized table definitions.
+   *
+   * @param sql SQL which defines tables.
+   * @return Normalized tables, in order of name.
+   * @throws IllegalArgumentException Throw if SQL is malformed or not supported.
+   */
+  public List<TableDefinition> parse(String sql) {
+    Map<String, TableDefinition> tables = new TreeMap<>();
+    for (List<Token> statement : SqlTokenizer.tokenizeStatements(sql)) {
+      new StatementParser(statement).apply(tables);
+    }
+    return new ArrayList<>(tables.values());
+  }
+
+  /**
+   * Apply DDL to normalized tables of a database in place.
+   *
+   * <p>
+   * Statements on tables of other databases are ignored. Each statement is applied atomically;
+   * tables are not changed by a statement which throws.
+   * </p>
+   *
+   * @param tables Normalized tables of the database, keyed by name.
+   * @param sql SQL which defines tables.
+   * @param database Name of the database.
+   * @param defaultDatabase Default database of SQL (i.e. selected by USE), or null.
+   * @throws IllegalArgumentException Throw if SQL is malformed or not supported.
+   */
+  void apply(Map<String, TableDefinition> tables, String sql, String database,
+      String defaultDatabase) {
+    for (List<Token> statement : SqlTokenizer.tokenizeStatements(sql)) {
+      new StatementParser(statement, database, defaultDatabase).apply(tables);
+    }
+  }
+
+  /**
+   * Render a normalized table as the result of SHOW CREATE TABLE.
+   *
+   * @param table Normalized table.
+   * @return CREATE TABLE statement without trailing semicolon.
+   */
+  public String render(TableDefinition table) {
+    List<String> lines = new ArrayList<>();
+    for (ColumnDefinition column : table.getColumns()) {
+      lines.add(renderColumn(column, table));
+    }
+    for (IndexDefinition index : table.getIndexes()) {
+      lines.add(renderIndex(index));
+    }
+    for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+      lines.add(renderForeignKey(foreignKey));
+    }
+
+    StringBuilder createTableBuilder = new StringBuilder()
+        .append("CREATE TABLE ")
+        .append(quoteIdentifier(table.getName()))
+        .append(" (\n  ")
+        .append(String.join(",\n  ", lines))
+        .append("\n) ENGINE=")
+        .append(table.getEngine());
+    if (table.getAutoIncrement() != null && table.getAutoIncrement() > 1) {
+      createTableBuilder.append(" AUTO_INCREMENT=").append(table.getAutoIncrement());
+    }
+    createTableBuilder.append(" DEFAULT CHARSET=").append(table.getCharset());
+    if (!table.getCollation().equals(defaultCollation(table.getCharset()))) {
+      createTableBuilder.append(" COLLATE=").append(table.getCollation());
+    }
+    for (String option : ORDERED_TABLE_OPTIONS) {
+      String value = table.getOptions().get(option);
+      if (value != null) {
+        createTableBuilder.append(' ').append(option).append('=').append(value);
+      }
+    }
+    if (table.getComment() != null && !table.getComment().isEmpty()) {
+      createTableBuilder.append(" COMMENT=").append(quoteString(table.getComment()));
+    }
+    return createTableBuilder.toString();
+  }
+
+  /**
+   * Apply canonicalization rules to a table in place.
+   *
+   * <p>
+   * This is idempotent, so it can be applied again after the table is altered.
+   * </p>
+   *
+   * @param table Table to normalize.
+   * @throws IllegalArgumentException Throw if the table is invalid.
+   */
+  void canonicalize(TableDefinition table) {
+    table.setEngine(canonicalEngine(table.getEngine() == null
+        ? defaultEngine : table.getEngine()));
+    resolveTableCharset(table);
+
+    for (IndexDefinition index : table.getIndexes()) {
+      if (index.getKind() != Kind.PRIMARY) {
+        continue;
+      }
+      for (IndexColumn indexColumn : index.getColumns()) {
+        ColumnDefinition column = findColumn(table, indexColumn.getName());
+        if (Boolean.TRUE.equals(column.getNullable())) {
+          throw new IllegalArgumentException(
+              "All parts of a PRIMARY KEY must be NOT NULL: " + column.getName());
+        }
+        column.setNullable(false);
+      }
+    }
+
+    boolean isFirstTimestamp = true;
+    for (ColumnDefinition column : table.getColumns()) {
+      canonicalizeColumn(column, table, isFirstTimestamp);
+      if (column.getDataType().equals("timestamp")) {
+        isFirstTimestamp = false;
+      }
+    }
+
+    canonicalizeIndexes(table);
+    canonicalizeForeignKeys(table);
+  }
+
+  private void resolveTableCharset(TableDefinition table) {
+    String charset = table.getCharset();
+    String collation = table.getCollation();
+    if (charset == null) {
+      charset = collation == null ? defaultCharset : charsetOf(collation);
+    }
+    if (collation == null) {
+      collation = defaultCollation(charset);
+    }
+    checkCollation(charset, collation);
+    table.setCharset(charset);
+    table.setCollation(collation);
+  }
+
+  private void canonicalizeColumn(ColumnDefinition column, TableDefinition table,
+      boolean isFirstTimestamp) {
+    String type = column.getDataType();
+    if (column.isZerofill()) {
+      column.setUnsigned(true);
+    }
+
+    if (INTEGER_TYPES.contains(type) && column.getLength() == null) {
+      int width = DISPLAY_WIDTHS.get(type);
+      if (column.isUnsigned() && !type.equals("bigint")) {
+        width--;
+      }
+      column.setLength(String.valueOf(width));
+    } else if (type.equals("decimal")) {
+      if (column.getLength() == null) {
+        column.setLength("10,0");
+      } else if (!column.getLength().contains(",")) {
+        column.setLength(column.getLength() + ",0");
+      }
+    } else if (type.equals("bit") || type.equals("char") || type.equals("binary")) {
+      if (column.getLength() == null) {
+        column.setLength("1");
+      }
+    } else if (type.equals("year")) {
+      column.setLength("4");
+    } else if (TEMPORAL_TYPES.contains(type) && "0".equals(column.getLength())) {
+      column.setLength(null);
+    }
+    if (!NUMERIC_TYPES.contains(type) || type.equals("bit")) {
+      column.setUnsigned(false);
+      column.setZerofill(false);
+    }
+
+    if (STRING_TYPES.contains(type)) {
+      String charset = column.getCharset();
+      String collation = column.getCollation();
+      if (charset == null && collation == null) {
+        charset = table.getCharset();
+        collation = column.isBinary() ? charset + "_bin" : table.getCollation();
+      } else if (charset == null) {
+        charset = charsetOf(collation);
+      } else if (collation == null) {
+        collation = column.isBinary() ? charset + "_bin" : defaultCollation(charset);
+      }
+      checkCollation(charset, collation);
+      column.setCharset(charset);
+      column.setCollation(collation);
+      if (column.getLength() != null && type.endsWith("text")) {
+        long bytes = Long.parseLong(column.getLength()) * maxBytesPerChar(charset);
+        column.setDataType(textTypeOf(bytes, "text"));
+        column.setLength(null);
+      }
+    } else {
+      column.setCharset(null);
+      column.setCollation(null);
+      if (column.getLength() != null && type.endsWith("blob")) {
+        column.setDataType(textTypeOf(Long.parseLong(column.getLength()), "blob"));
+        column.setLength(null);
+      }
+    }
+    column.setBinary(false);
+    type = column.getDataType();
+
+    if (type.equals("timestamp") && !explicitDefaultsForTimestamp
+        && column.getNullable() == null) {
+      column.setNullable(false);
+      if (isFirstTimestamp && column.getDefaultValue() == null && column.getOnUpdate() == null) {
+        column.setDefaultValue(currentTimestamp(column.getLength()));
+        column.setOnUpdate(currentTimestamp(column.getLength()));
+      } else if (column.getDefaultValue() == null) {
+        column.setDefaultValue(zeroTimestamp(column.getLength()));
+      }
+    }
+    if (column.getNullable() == null) {
+      column.setNullable(true);
+    }
+
+    if (column.isAutoIncrement() || column.getGeneratedExpression() != null) {
+      return;
+    }
+    String defaultValue = column.getDefaultValue();
+    if (BLOB_TYPES.contains(type)) {
+      if (defaultValue != null && !defaultValue.equals("NULL")) {
+        throw new IllegalArgumentException(
+            "BLOB, TEXT, GEOMETRY or JSON column can't have a default value: "
+                + column.getName());
+      }
+      column.setDefaultValue(null);
+      return;
+    }
+    if (defaultValue == null) {
+      if (column.getNullable()) {
+        column.setDefaultValue("NULL");
+      }
+      return;
+    }
+    if (defaultValue.equals("NULL") && !column.getNullable()) {
+      throw new IllegalArgumentException("Invalid default value for " + column.getName());
+    }
+    column.setDefaultValue(canonicalDefaultValue(column, defaultValue));
+  }
+
+  private static String canonicalDefaultValue(ColumnDefinition column, String defaultValue) {
+    if (defaultValue.equals("NULL") || defaultValue.startsWith("CURRENT_TIMESTAMP")
+        || defaultValue.startsWith("(")) {
+      return defaultValue;
+    }
+
+    String type = column.getDataType();
+    boolean isQuoted = defaultValue.startsWith("'");
+    String literal = isQuoted ? defaultValue.substring(1, defaultValue.length() - 1) : defaultValue;
+    if (type.equals("bit")) {
+      BigInteger value;
+      if (literal.startsWith("b'")) {
+        value = new BigInteger(literal.substring(2, literal.length() - 1), 2);
+      } else {
+        value = parseNumber(literal).toBigInteger();
+      }
+      return "b'" + value.toString(2) + "'";
+    }
+    if (!isQuoted && literal.startsWith("b'")) {
+      literal = new BigInteger(literal.substring(2, literal.length() - 1), 2).toString();
+    }
+
+    if (NUMERIC_TYPES.contains(type) && isNumber(literal)) {
+      BigDecimal value = parseNumber(literal);
+      if (INTEGER_TYPES.contains(type)) {
+        literal = value.setScale(0, RoundingMode.HALF_UP).toPlainString();
+      } else if (type.equals("decimal")) {
+        int scale = Integer.parseInt(column.getLength().split(",")[1]);
+        literal = value.setScale(scale, RoundingMode.HALF_UP).toPlainString();
+      } else {
+        literal = BigDecimal.valueOf(value.doubleValue()).stripTrailingZeros().toPlainString();
+      }
+      return quoteString(literal);
+    }
+    return isQuoted ? defaultValue : quoteString(literal);
+  }
+
+  private static boolean isNumber(String literal) {
+    try {
+      parseNumber(literal);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private static BigDecimal parseNumber(String literal) {
+    String trimmed = literal.trim();
+    if (trimmed.toLowerCase(Locale.ROOT).startsWith("0x")) {
+      return new BigDecimal(new BigInteger(trimmed.substring(2), 16));
+    }
+    return new BigDecimal(trimmed);
+  }
+
+  private static String currentTimestamp(String fsp) {
+    return fsp == null ? "CURRENT_TIMESTAMP" : "CURRENT_TIMESTAMP(" + fsp + ")";
+  }
+
+  private static String zeroTimestamp(String fsp) {
+    StringBuilder zeroBuilder = new StringBuilder("'0000-00-00 00:00:00");
+    if (fsp != null) {
+      zeroBuilder.append('.');
+      for (int i = 0; i < Integer.parseInt(fsp); i++) {
+        zeroBuilder.append('0');
+      }
+    }
+    return zeroBuilder.append('\'').toString();
+  }
+
+  private static String textTypeOf(long bytes, String suffix) {
+    if (bytes < 256) {
+      return "tiny" + suffix;
+    }
+    if (bytes < 65536) {
+      return suffix;
+    }
+    if (bytes < 16777216) {
+      return "medium" + suffix;
+    }
+    return "long" + suffix;
+  }
+
+  private void canonicalizeIndexes(TableDefinition table) {
+    // drop indexes for foreign keys which are covered by other indexes, like MySQL does
+    List<IndexDefinition> indexes = new ArrayList<>(table.getIndexes());
+    Set<IndexDefinition> ignored = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = 0; i < indexes.size(); i++) {
+      IndexDefinition index = indexes.get(i);
+      for (int j = 0; j < i; j++) {
+        IndexDefinition other = indexes.get(j);
+        if (ignored.contains(other) || !isGeneratedPrefix(index, other)) {
+          continue;
+        }
+        if (!other.isGenerated()
+            || (index.isGenerated() && index.getColumns().size() < other.getColumns().size())) {
+          ignored.add(index);
+        } else {
+          ignored.add(other);
+        }
+        break;
+      }
+    }
+    indexes.removeIf(ignored::contains);
+
+    Set<String> names = new HashSet<>();
+    for (IndexDefinition index : indexes) {
+      if (index.getKind() == Kind.PRIMARY) {
+        if (names.contains("primary")) {
+          throw new IllegalArgumentException("Multiple primary key defined");
+        }
+        index.setName("PRIMARY");
+      } else if (index.getName() == null || index.getName().isEmpty()) {
+        index.setName(uniqueIndexName(index.getColumns().get(0).getName(), names));
+      } else if (index.getName().equalsIgnoreCase("PRIMARY")) {
+        throw new IllegalArgumentException("Incorrect index name: " + index.getName());
+      }
+      if (!names.add(index.getName().toLowerCase(Locale.ROOT))) {
+        throw new IllegalArgumentException("Duplicate key name: " + index.getName());
+      }
+      for (IndexColumn indexColumn : index.getColumns()) {
+        findColumn(table, indexColumn.getName());
+      }
+    }
+
+    // same order as sort_keys() of MySQL; List#sort is stable, so declared order is kept
+    indexes.sort(Comparator.comparingInt((IndexDefinition index) -> indexRank(index, table)));
+    table.setIndexes(indexes);
+  }
+
+  private static boolean isGeneratedPrefix(IndexDefinition index, IndexDefinition other) {
+    IndexDefinition shorter;
+    IndexDefinition longer;
+    if (index.isGenerated()) {
+      boolean swap = other.isGenerated() && index.getColumns().size() > other.getColumns().size();
+      shorter = swap ? other : index;
+      longer = swap ? index : other;
+    } else if (other.isGenerated()) {
+      shorter = other;
+      longer = index;
+    } else {
+      return false;
+    }
+
+    if (shorter.getColumns().size() > longer.getColumns().size()) {
+      return false;
+    }
+    for (int i = 0; i < shorter.getColumns().size(); i++) {
+      IndexColumn column = shorter.getColumns().get(i);
+      IndexColumn otherColumn = longer.getColumns().get(i);
+      if (!column.getName().equalsIgnoreCase(otherColumn.getName())
+          || !String.valueOf(column.getLength()).equals(String.valueOf(otherColumn.getLength()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String uniqueIndexName(String columnName, Set<String> names) {
+    String lowerName = columnName.toLowerCase(Locale.ROOT);
+    if (!names.contains(lowerName) && !lowerName.equals("primary")) {
+      return columnName;
+    }
+    for (int i = 2; i < 100; i++) {
+      String candidate = columnName + "_" + i;
+      if (!names.contains(candidate.toLowerCase(Locale.ROOT))) {
+        return candidate;
+      }
+    }
+    throw new IllegalArgumentException("Too many keys on column: " + columnName);
+  }
+
+  private static int indexRank(IndexDefinition index, TableDefinition table) {
+    if (index.getKind() == Kind.PRIMARY) {
+      return 0;
+    }
+    if (index.getKind() == Kind.UNIQUE) {
+      boolean hasNullablePart = index.getColumns().stream()
+          .anyMatch(indexColumn -> findColumn(table, indexColumn.getName()).getNullable());
+      boolean hasPrefixPart = index.getColumns().stream()
+          .anyMatch(indexColumn -> indexColumn.getLength() != null);
+      return (hasNullablePart ? 3 : 1) + (hasPrefixPart ? 1 : 0);
+    }
+    return index.getKind() == Kind.FULLTEXT ? 6 : 5;
+  }
+
+  private static void canonicalizeForeignKeys(TableDefinition table) {
+    Set<String> names = new HashSet<>();
+    for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+      if (foreignKey.getName() != null
+          && !names.add(foreignKey.getName().toLowerCase(Locale.ROOT))) {
+        throw new IllegalArgumentException("Duplicate foreign key name: " + foreignKey.getName());
+      }
+    }
+
+    int sequence = 0;
+    for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+      if (foreignKey.getName() == null) {
+        String name;
+        do {
+          name = table.getName() + "_ibfk_" + ++sequence;
+        } while (!names.add(name.toLowerCase(Locale.ROOT)));
+        foreignKey.setName(name);
+      }
+      if ("RESTRICT".equals(foreignKey.getOnDelete())) {
+        foreignKey.setOnDelete(null);
+      }
+      if ("RESTRICT".equals(foreignKey.getOnUpdate())) {
+        foreignKey.setOnUpdate(null);
+      }
+      for (String columnName : foreignKey.getColumns()) {
+        findColumn(table, columnName);
+      }
+      if (foreignKey.getColumns().size() != foreignKey.getReferencedColumns().size()) {
+        throw new IllegalArgumentException(
+            "Incorrect foreign key definition: " + foreignKey.getName());
+      }
+    }
+
+    // InnoDB lists foreign keys in order of name
+    table.getForeignKeys().sort(Comparator.comparing(ForeignKeyDefinition::getName));
+  }
+
+  private static ColumnDefinition findColumn(TableDefinition table, String columnName) {
+    return table.findColumn(columnName)
+        .orElseThrow(() -> new IllegalArgumentException(new StringBuilder()
+            .append("Key column '")
+            .append(columnName)
+            .append("' doesn't exist in table ")
+            .append(table.getName())
+            .toString()));
+  }
+
+  private static String renderColumn(ColumnDefinition column, TableDefinition table) {
+    String type = column.getDataType();
+    StringBuilder columnBuilder = new StringBuilder()
+        .append(quoteIdentifier(column.getName()))
+        .append(' ')
+        .append(type);
+    if (type.equals("enum") || type.equals("set")) {
+      columnBuilder.append('(')
+          .append(column.getValues().stream()
+              .map(OfflineNormalizer::quoteString)
+              .collect(Collectors.joining(",")))
+          .append(')');
+    } else if (column.getLength() != null) {
+      columnBuilder.append('(').append(column.getLength()).append(')');
+    }
+    if (column.isUnsigned()) {
+      columnBuilder.append(" unsigned");
+    }
+    if (column.isZerofill()) {
+      columnBuilder.append(" zerofill");
+    }
+    if (column.getCharset() != null) {
+      if (!column.getCharset().equals(table.getCharset())) {
+        columnBuilder.append(" CHARACTER SET ").append(column.getCharset());
+      }
+      if (!column.getCollation().equals(defaultCollation(column.getCharset()))) {
+        columnBuilder.append(" COLLATE ").append(column.getCollation());
+      }
+    }
+    if (column.getGeneratedExpression() != null) {
+      columnBuilder.append(" GENERATED ALWAYS AS (")
+          .append(column.getGeneratedExpression())
+          .append(column.isGeneratedStored() ? ") STORED" : ") VIRTUAL");
+    }
+    if (!column.getNullable()) {
+      columnBuilder.append(" NOT NULL");
+    } else if (type.equals("timestamp")) {
+      columnBuilder.append(" NULL");
+    }
+    if (column.getGeneratedExpression() == null) {
+      if (column.getDefaultValue() != null) {
+        columnBuilder.append(" DEFAULT ").append(column.getDefaultValue());
+      }
+      if (column.getOnUpdate() != null) {
+        columnBuilder.append(" ON UPDATE ").append(column.getOnUpdate());
+      }
+    }
+    if (column.isAutoIncrement()) {
+      columnBuilder.append(" AUTO_INCREMENT");
+    }
+    if (column.getComment() != null && !column.getComment().isEmpty()) {
+      columnBuilder.append(" COMMENT ").append(quoteString(column.getComment()));
+    }
+    return columnBuilder.toString();
+  }
+
+  private static String renderIndex(IndexDefinition index) {
+    StringBuilder indexBuilder = new StringBuilder();
+    switch (index.getKind()) {
+      case PRIMARY:
+        indexBuilder.append("PRIMARY KEY ");
+        break;
+      case UNIQUE:
+        indexBuilder.append("UNIQUE KEY ");
+        break;
+      case FULLTEXT:
+        indexBuilder.append("FULLTEXT KEY ");
+        break;
+      case SPATIAL:
+        indexBuilder.append("SPATIAL KEY ");
+        break;
+      default:
+        indexBuilder.append("KEY ");
+        break;
+    }
+    if (index.getKind() != Kind.PRIMARY) {
+      indexBuilder.append(quoteIdentifier(index.getName())).append(' ');
+    }
+    indexBuilder.append('(')
+        .append(index.getColumns().stream()
+            .map(column -> column.getLength() == null
+                ? quoteIdentifier(column.getName())
+                : quoteIdentifier(column.getName()) + "(" + column.getLength() + ")")
+            .collect(Collectors.joining(",")))
+        .append(')');
+    if (index.getIndexType() != null) {
+      indexBuilder.append(" USING ").append(index.getIndexType());
+    }
+    if (index.getComment() != null && !index.getComment().isEmpty()) {
+      indexBuilder.append(" COMMENT ").append(quoteString(index.getComment()));
+    }
+    return indexBuilder.toString();
+  }
+
+  private static String renderForeignKey(ForeignKeyDefinition foreignKey) {
+    StringBuilder foreignKeyBuilder = new StringBuilder()
+        .append("CONSTRAINT ")
+        .append(quoteIdentifier(foreignKey.getName()))
+        .append(" FOREIGN KEY (")
+        .append(foreignKey.getColumns().stream()
+            .map(OfflineNormalizer::quoteIdentifier)
+            .collect(Collectors.joining(", ")))
+        .append(") REFERENCES ");
+    if (foreignKey.getReferencedDatabase() != null) {
+      foreignKeyBuilder.append(quoteIdentifier(foreignKey.getReferencedDatabase())).append('.');
+    }
+    foreignKeyBuilder.append(quoteIdentifier(foreignKey.getReferencedTable()))
+        .append(" (")
+        .append(foreignKey.getReferencedColumns().stream()
+            .map(OfflineNormalizer::quoteIdentifier)
+            .collect(Collectors.joining(", ")))
+        .append(')');
+    if (foreignKey.getOnDelete() != null) {
+      foreignKeyBuilder.append(" ON DELETE ").append(foreignKey.getOnDelete());
+    }
+    if (foreignKey.getOnUpdate() != null) {
+      foreignKeyBuilder.append(" ON UPDATE ").append(foreignKey.getOnUpdate());
+    }
+    return foreignKeyBuilder.toString();
+  }
+
+  private static String quoteIdentifier(String identifier) {
+    return "`" + identifier.replace("`", "``") + "`";
+  }
+
+  static String quoteString(String value) {
+    StringBuilder quotedBuilder = new StringBuilder("'");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '\0':
+          quotedBuilder.append("\\0");
+          break;
+        case '\n':
+          quotedBuilder.append("\\n");
+          break;
+        case '\r':
+          quotedBuilder.append("\\r");
+          break;
+        case '\032':
+          quotedBuilder.append("\\Z");
+          break;
+        case '\\':
+          quotedBuilder.append("\\\\");
+          break;
+        case '\'':
+          quotedBuilder.append("''");
+          break;
+        default:
+          quotedBuilder.append(c);
+          break;
+      }
+    }
+    return quotedBuilder.append('\'').toString();
+  }
+
+  private static String canonicalEngine(String engine) {
+    String canonical = ENGINE_NAMES.get(engine.toLowerCase(Locale.ROOT));
+    return canonical == null ? engine : canonical;
+  }
+
+  private static String canonicalCharset(String charset) {
+    String lower = charset.toLowerCase(Locale.ROOT);
+    return lower.equals("utf8mb3") ? "utf8" : lower;
+  }
+
+  private static String canonicalCollation(String collation) {
+    String lower = collation.toLowerCase(Locale.ROOT);
+    return lower.startsWith("utf8mb3_") ? "utf8_" + lower.substring("utf8mb3_".length()) : lower;
+  }
+
+  private static String charsetOf(String collation) {
+    int separator = collation.indexOf('_');
+    return separator < 0 ? collation : collation.substring(0, separator);
+  }
+
+  private static String defaultCollation(String charset) {
+    String collation = DEFAULT_COLLATIONS.get(charset);
+    return collation == null ? charset + "_general_ci" : collation;
+  }
+
+  private static void checkCollation(String charset, String collation) {
+    if (!charsetOf(collation).equals(charset)) {
+      throw new IllegalArgumentException(new StringBuilder()
+          .append("COLLATION '")
+          .append(collation)
+          .append("' is not valid for CHARACTER SET '")
+          .append(charset)
+          .append("'")
+          .toString());
+    }
+  }
+
+  private static int maxBytesPerChar(String charset) {
+    Integer bytes = MAX_BYTES_PER_CHAR.get(charset);
+    return bytes == null ? 4 : bytes;
+  }
+
+  /**
+   * Parser of a statement.
+   */
+  private class StatementParser {
+    private final List<Token> tokens;
+    private final String database;
+    private final String defaultDatabase;
+    private int position;
+    private String lastDatabase;
+
+    StatementParser(List<Token> tokens) {
+      this(tokens, null, null);
+    }
+
+    StatementParser(List<Token> tokens, String database, String defaultDatabase) {
+      this.tokens = tokens;
+      this.database = database;
+      this.defaultDatabase = defaultDatabase;
+    }
+
+    void apply(Map<String, TableDefinition> tables) {
+      Token head = tokens.get(0);
+      if (acceptWord("CREATE")) {
+        if (acceptWord("TEMPORARY")) {
+          return; // not a part of schema
+        }
+        if (acceptWord("TABLE")) {
+          createTable(tables);
+          return;
+        }
+        Kind kind = Kind.KEY;
+        if (acceptWord("UNIQUE")) {
+          kind = Kind.UNIQUE;
+        } else if (acceptWord("FULLTEXT")) {
+          kind = Kind.FULLTEXT;
+        } else if (acceptWord("SPATIAL")) {
+          kind = Kind.SPATIAL;
+        }
+        if (acceptWord("INDEX")) {
+          createIndex(tables, kind);
+          return;
+        }
+        if (kind != Kind.KEY) {
+          throw unsupported(head);
+        }
+        return; // e.g. CREATE DATABASE, CREATE VIEW, CREATE TRIGGER
+      }
+      if (acceptWord("DROP")) {
+        if (acceptWord("TEMPORARY")) {
+          return; // not a part of schema
+        }
+        if (acceptWord("TABLE") || acceptWord("TABLES")) {
+          dropTable(tables);
+          return;
+        }
+        if (acceptWord("INDEX")) {
+          dropIndex(tables);
+          return;
+        }
+        return; // e.g. DROP DATABASE, DROP VIEW
+      }
+      if (acceptWord("ALTER")) {
+        acceptWord("IGNORE");
+        if (acceptWord("TABLE")) {
+          alterTable(tables);
+        }
+        return; // e.g. ALTER DATABASE, ALTER VIEW
+      }
+      if (acceptWord("RENAME")) {
+        if (acceptWord("TABLE") || acceptWord("TABLES")) {
+          renameTables(tables);
+        }
+        return; // e.g. RENAME USER
+      }
+      if (head.getType() == TokenType.WORD
+          && IGNORED_STATEMENTS.contains(head.getText().toUpperCase(Locale.ROOT))) {
+        return;
+      }
+      throw unsupported(head);
+    }
+
+    private void createTable(Map<String, TableDefinition> tables) {
+      boolean ifNotExists = acceptWord("IF");
+      if (ifNotExists) {
+        expectWord("NOT");
+        expectWord("EXISTS");
+      }
+      String name = readName();
+      if (!isInDatabase()) {
+        return;
+      }
+
+      TableDefinition table;
+      if (acceptWord("LIKE") || (peekSymbol("(") && peekWord(1, "LIKE") && acceptSymbol("(")
+          && acceptWord("LIKE"))) {
+        String sourceName = readName();
+        acceptSymbol(")");
+        TableDefinition source = tables.get(sourceName);
+        if (source == null) {
+          throw new IllegalArgumentException("Table doesn't exist: " + sourceName);
+        }
+        table = source.copy();
+        table.setName(name);
+        table.getForeignKeys().clear(); // not copied by CREATE TABLE ... LIKE
+      } else {
+        table = new TableDefinition();
+        table.setName(name);
+        expectSymbol("(");
+        do {
+          parseTableElement(table);
+        } while (acceptSymbol(","));
+        expectSymbol(")");
+        parseTableOptions(table);
+      }
+      if (!atEnd()) {
+        throw new IllegalArgumentException(new StringBuilder()
+            .append("Unsupported clause of CREATE TABLE ")
+            .append(name)
+            .append(": ")
+            .append(peek())
+            .toString());
+      }
+
+      if (tables.containsKey(name)) {
+        if (ifNotExists) {
+          return;
+        }
+        throw new IllegalArgumentException("Table already exists: " + name);
+      }
+      canonicalize(table);
+      tables.put(name, table);
+    }
+
+    private void dropTable(Map<String, TableDefinition> tables) {
+      boolean ifExists = acceptWord("IF");
+      if (ifExists) {
+        expectWord("EXISTS");
+      }
+      List<String> names = new ArrayList<>();
+      do {
+        String name = readName();
+        if (isInDatabase()) {
+          if (!tables.containsKey(name) && !ifExists) {
+            throw new IllegalArgumentException("Unknown table: " + name);
+          }
+          names.add(name);
+        }
+      } while (acceptSymbol(","));
+      names.forEach(tables::remove);
+    }
+
+    private void createIndex(Map<String, TableDefinition> tables, Kind kind) {
+      IndexDefinition index = new IndexDefinition();
+      index.setKind(kind);
+      index.setName(readIdentifier());
+      parseIndexOptions(index);
+      expectWord("ON");
+      String name = readName();
+      if (!isInDatabase()) {
+        return;
+      }
+      parseIndexColumns(index);
+      parseIndexOptions(index);
+      skipAlgorithmAndLock();
+      if (!atEnd()) {
+        throw unexpected();
+      }
+
+      TableDefinition table = copyTable(tables, name);
+      table.getIndexes().add(index);
+      canonicalize(table);
+      tables.put(name, table);
+    }
+
+    private void dropIndex(Map<String, TableDefinition> tables) {
+      String indexName = readIdentifier();
+      expectWord("ON");
+      String name = readName();
+      if (!isInDatabase()) {
+        return;
+      }
+      skipAlgorithmAndLock();
+      if (!atEnd()) {
+        throw unexpected();
+      }
+
+      TableDefinition table = copyTable(tables, name);
+      table.getIndexes().remove(findIndex(table, indexName));
+      canonicalize(table);
+      tables.put(name, table);
+    }
+
+    private void alterTable(Map<String, TableDefinition> tables) {
+      String name = readName();
+      if (!isInDatabase()) {
+        return;
+      }
+
+      TableDefinition table = copyTable(tables, name);
+      String charset = table.getCharset();
+      String collation = table.getCollation();
+      String newName = name;
+      boolean isMovedOut = false;
+      while (!atEnd()) {
+        if (acceptWord("ADD")) {
+          addToTable(table);
+        } else if (acceptWord("DROP")) {
+          dropFromTable(table);
+        } else if (acceptWord("MODIFY")) {
+          acceptWord("COLUMN");
+          ColumnDefinition column = parseColumn(table);
+          replaceColumn(table, findExistingColumn(table, column.getName()), column);
+        } else if (acceptWord("CHANGE")) {
+          acceptWord("COLUMN");
+          ColumnDefinition oldColumn = findExistingColumn(table, readIdentifier());
+          replaceColumn(table, oldColumn, parseColumn(table));
+        } else if (acceptWord("ALTER")) {
+          if (acceptIndexKeyword()) {
+            findIndex(table, readIdentifier());
+            if (!acceptWord("VISIBLE")) {
+              expectWord("INVISIBLE"); // visibility of indexes is not kept
+            }
+          } else {
+            acceptWord("COLUMN");
+            ColumnDefinition column = findExistingColumn(table, readIdentifier());
+            if (acceptWord("SET")) {
+              expectWord("DEFAULT");
+              column.setDefaultValue(readDefaultValue());
+            } else {
+              expectWord("DROP");
+              expectWord("DEFAULT");
+              column.setDefaultValue(null);
+            }
+          }
+        } else if (acceptWord("RENAME")) {
+          if (acceptIndexKeyword()) {
+            IndexDefinition index = findIndex(table, readIdentifier());
+            expectWord("TO");
+            index.setName(readIdentifier());
+          } else if (acceptWord("COLUMN")) {
+            ColumnDefinition column = findExistingColumn(table, readIdentifier());
+            expectWord("TO");
+            renameColumn(table, column, readIdentifier());
+          } else {
+            if (!acceptWord("TO")) {
+              acceptWord("AS");
+            }
+            newName = readName();
+            isMovedOut = !isInDatabase();
+          }
+        } else if (acceptWord("DISABLE") || acceptWord("ENABLE")) {
+          expectWord("KEYS"); // emitted by mysqldump around INSERT
+        } else if (!acceptWord("FORCE") && !skipAlgorithmAndLock()) {
+          do {
+            parseTableOption(table);
+          } while (!atEnd() && !peekSymbol(","));
+        }
+        if (!atEnd()) {
+          expectSymbol(",");
+        }
+      }
+
+      // changing only one of them resets the other, like MySQL does
+      if (!table.getCharset().equals(charset) && table.getCollation().equals(collation)) {
+        table.setCollation(null);
+      } else if (table.getCharset().equals(charset) && !table.getCollation().equals(collation)) {
+        table.setCharset(null);
+      }
+
+      if (isMovedOut) {
+        tables.remove(name);
+        return;
+      }
+      if (!newName.equals(name)) {
+        if (tables.containsKey(newName)) {
+          throw new IllegalArgumentException("Table already exists: " + newName);
+        }
+        renameTable(table, newName);
+      }
+      canonicalize(table);
+      tables.remove(name);
+      tables.put(newName, table);
+      if (!newName.equals(name)) {
+        renameReferences(tables, name, newName);
+      }
+    }
+
+    private void addToTable(TableDefinition table) {
+      if (!acceptWord("COLUMN") && (peekWord("CONSTRAINT") || peekWord("PRIMARY")
+          || peekWord("UNIQUE") || peekWord("KEY") || peekWord("INDEX") || peekWord("FULLTEXT")
+          || peekWord("SPATIAL") || peekWord("FOREIGN") || peekWord("CHECK"))) {
+        parseTableElement(table);
+        return;
+      }
+      if (acceptSymbol("(")) {
+        do {
+          parseTableElement(table);
+        } while (acceptSymbol(","));
+        expectSymbol(")");
+        return;
+      }
+
+      ColumnDefinition column = parseColumn(table);
+      if (table.findColumn(column.getName()).isPresent()) {
+        throw new IllegalArgumentException("Duplicate column name: " + column.getName());
+      }
+      table.getColumns().add(readColumnPosition(table, table.getColumns().size()), column);
+    }
+
+    private void dropFromTable(TableDefinition table) {
+      if (acceptWord("PRIMARY")) {
+        expectWord("KEY");
+        table.getIndexes().remove(findIndex(table, "PRIMARY"));
+      } else if (acceptIndexKeyword()) {
+        table.getIndexes().remove(findIndex(table, readIdentifier()));
+      } else if (acceptWord("FOREIGN")) {
+        expectWord("KEY");
+        String foreignKeyName = readIdentifier();
+        ForeignKeyDefinition foreignKey = table.getForeignKeys().stream()
+            .filter(candidate -> candidate.getName().equalsIgnoreCase(foreignKeyName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException(new StringBuilder()
+                .append("Foreign key '")
+                .append(foreignKeyName)
+                .append("' doesn't exist in table ")
+                .append(table.getName())
+                .toString()));
+        table.getForeignKeys().remove(foreignKey);
+
+        // the index for the foreign key is kept as an ordinary index
+        for (IndexDefinition index : table.getIndexes()) {
+          List<String> columnNames = index.getColumns().stream()
+              .map(indexColumn -> indexColumn.getName().toLowerCase(Locale.ROOT))
+              .collect(Collectors.toList());
+          if (index.isGenerated() && columnNames.equals(foreignKey.getColumns().stream()
+              .map(columnName -> columnName.toLowerCase(Locale.ROOT))
+              .collect(Collectors.toList()))) {
+            index.setGenerated(false);
+          }
+        }
+      } else if (acceptWord("CHECK") || acceptWord("CONSTRAINT")) {
+        readIdentifier(); // CHECK constraints are ignored
+      } else {
+        acceptWord("COLUMN");
+        ColumnDefinition column = findExistingColumn(table, readIdentifier());
+        if (table.getColumns().size() == 1) {
+          throw new IllegalArgumentException(
+              "You can't delete all columns with ALTER TABLE; use DROP TABLE instead");
+        }
+        table.getColumns().remove(column);
+
+        // the column is removed from indexes and an index which has no column is dropped
+        for (IndexDefinition index : table.getIndexes()) {
+          index.getColumns().removeIf(
+              indexColumn -> indexColumn.getName().equalsIgnoreCase(column.getName()));
+        }
+        table.getIndexes().removeIf(index -> index.getColumns().isEmpty());
+      }
+    }
+
+    private void replaceColumn(TableDefinition table, ColumnDefinition oldColumn,
+        ColumnDefinition column) {
+      int index = table.getColumns().indexOf(oldColumn);
+      table.getColumns().remove(index);
+      renameColumn(table, oldColumn, column.getName());
+      table.getColumns().add(readColumnPosition(table, index), column);
+    }
+
+    private void renameColumn(TableDefinition table, ColumnDefinition column, String newName) {
+      String oldName = column.getName();
+      if (!oldName.equalsIgnoreCase(newName) && table.findColumn(newName).isPresent()) {
+        throw new IllegalArgumentException("Duplicate column name: " + newName);
+      }
+      column.setName(newName);
+
+      for (IndexDefinition index : table.getIndexes()) {
+        index.setColumns(index.getColumns().stream()
+            .map(indexColumn -> indexColumn.getName().equalsIgnoreCase(oldName)
+                ? new IndexColumn(newName, indexColumn.getLength()) : indexColumn)
+            .collect(Collectors.toList()));
+      }
+      for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+        foreignKey.setColumns(foreignKey.getColumns().stream()
+            .map(columnName -> columnName.equalsIgnoreCase(oldName) ? newName : columnName)
+            .collect(Collectors.toList()));
+      }
+    }
+
+    private int readColumnPosition(TableDefinition table, int defaultPosition) {
+      if (acceptWord("FIRST")) {
+        return 0;
+      }
+      if (acceptWord("AFTER")) {
+        return table.getColumns().indexOf(findExistingColumn(table, readIdentifier())) + 1;
+      }
+      return defaultPosition;
+    }
+
+    private void renameTables(Map<String, TableDefinition> tables) {
+      // all pairs are renamed or nothing is renamed
+      Map<String, TableDefinition> renamed = new TreeMap<>(tables);
+      do {
+        String name = readName();
+        boolean isFromDatabase = isInDatabase();
+        expectWord("TO");
+        String newName = readName();
+        boolean isToDatabase = isInDatabase();
+
+        if (isFromDatabase) {
+          TableDefinition table = copyTable(renamed, name);
+          renamed.remove(name);
+          if (isToDatabase) {
+            if (renamed.containsKey(newName)) {
+              throw new IllegalArgumentException("Table already exists: " + newName);
+            }
+            renameTable(table, newName);
+            renamed.put(newName, table);
+            renameReferences(renamed, name, newName);
+          }
+        } else if (isToDatabase) {
+          throw new IllegalArgumentException(
+              "Definition of table moved from other database is unknown: " + newName);
+        }
+      } while (acceptSymbol(","));
+      if (!atEnd()) {
+        throw unexpected();
+      }
+
+      tables.clear();
+      tables.putAll(renamed);
+    }
+
+    private void renameTable(TableDefinition table, String newName) {
+      // generated names of foreign keys follow the table, like MySQL does
+      String prefix = table.getName() + "_ibfk_";
+      for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+        if (foreignKey.getName() != null && foreignKey.getName().startsWith(prefix)) {
+          foreignKey.setName(newName + "_ibfk_" + foreignKey.getName().substring(prefix.length()));
+        }
+      }
+      table.setName(newName);
+    }
+
+    private void renameReferences(Map<String, TableDefinition> tables, String oldName,
+        String newName) {
+      for (Map.Entry<String, TableDefinition> entry : tables.entrySet()) {
+        if (entry.getValue().getForeignKeys().stream()
+            .noneMatch(foreignKey -> isReferring(foreignKey, oldName))) {
+          continue;
+        }
+        TableDefinition table = entry.getValue().copy();
+        for (ForeignKeyDefinition foreignKey : table.getForeignKeys()) {
+          if (isReferring(foreignKey, oldName)) {
+            foreignKey.setReferencedTable(newName);
+          }
+        }
+        entry.setValue(table);
+      }
+    }
+
+    private boolean isReferring(ForeignKeyDefinition foreignKey, String tableName) {
+      return foreignKey.getReferencedDatabase() == null
+          && foreignKey.getReferencedTable().equals(tableName);
+    }
+
+    private boolean skipAlgorithmAndLock() {
+      boolean isSkipped = false;
+      while (acceptWord("ALGORITHM") || acceptWord("LOCK")) {
+        acceptSymbol("=");
+        readIdentifier();
+        isSkipped = true;
+      }
+      return isSkipped;
+    }
+
+    private TableDefinition copyTable(Map<String, TableDefinition> tables, String name) {
+      TableDefinition table = tables.get(name);
+      if (table == null) {
+        throw new IllegalArgumentException("Table doesn't exist: " + name);
+      }
+      return table.copy();
+    }
+
+    private ColumnDefinition findExistingColumn(TableDefinition table, String columnName) {
+      return table.findColumn(columnName)
+          .orElseThrow(() -> new IllegalArgumentException(new StringBuilder()
+              .append("Unknown column '")
+              .append(columnName)
+              .append("' in table ")
+              .append(table.getName())
+              .toString()));
+    }
+
+    private IndexDefinition findIndex(TableDefinition table, String indexName) {
+      return table.getIndexes().stream()
+          .filter(index -> index.getName().equalsIgnoreCase(indexName))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException(new StringBuilder()
+              .append("Key '")
+              .append(indexName)
+              .append("' doesn't exist in table ")
+              .append(table.getName())
+              .toString()));
+    }
+
+    private void parseTableElement(TableDefinition table) {
+      if (acceptWord("CONSTRAINT")) {
+        String symbol = null;
+        if (!peekWord("PRIMARY") && !peekWord("UNIQUE") && !peekWord("FOREIGN")
+            && !peekWord("CHECK")) {
+          symbol = readIdentifier();
+        }
+        if (acceptWord("PRIMARY")) {
+          expectWord("KEY");
+          parseIndex(table, Kind.PRIMARY, null);
+        } else if (acceptWord("UNIQUE")) {
+          acceptIndexKeyword();
+          parseIndex(table, Kind.UNIQUE, symbol);
+        } else if (acceptWord("FOREIGN")) {
+          parseForeignKey(table, symbol);
+        } else {
+          expectWord("CHECK");
+          skipParenthesized(); // ignored by MySQL 5.7
+        }
+      } else if (acceptWord("PRIMARY")) {
+        expectWord("KEY");
+        parseIndex(table, Kind.PRIMARY, null);
+      } else if (acceptWord("UNIQUE")) {
+        acceptIndexKeyword();
+        parseIndex(table, Kind.UNIQUE, null);
+      } else if (acceptIndexKeyword()) {
+        parseIndex(table, Kind.KEY, null);
+      } else if (acceptWord("FULLTEXT")) {
+        acceptIndexKeyword();
+        parseIndex(table, Kind.FULLTEXT, null);
+      } else if (acceptWord("SPATIAL")) {
+        acceptIndexKeyword();
+        parseIndex(table, Kind.SPATIAL, null);
+      } else if (acceptWord("FOREIGN")) {
+        parseForeignKey(table, null);
+      } else if (acceptWord("CHECK")) {
+        skipParenthesized();
+      } else {
+        ColumnDefinition column = parseColumn(table);
+        if (table.findColumn(column.getName()).isPresent()) {
+          throw new IllegalArgumentException("Duplicate column name: " + column.getName());
+        }
+        table.getColumns().add(column);
+      }
+    }
+
+    private boolean acceptIndexKeyword() {
+      return acceptWord("KEY") || acceptWord("INDEX");
+    }
+
+    private void parseIndex(TableDefinition table, Kind kind, String defaultName) {
+      IndexDefinition index = new IndexDefinition();
+      index.setKind(kind);
+      index.setName(defaultName);
+      if (kind != Kind.PRIMARY && !peekSymbol("(") && !peekWord("USING")) {
+        index.setName(readIdentifier());
+      }
+      parseIndexOptions(index);
+      parseIndexColumns(index);
+      parseIndexOptions(index);
+      table.getIndexes().add(index);
+    }
+
+    private void parseIndexColumns(IndexDefinition index) {
+      expectSymbol("(");
+      do {
+        String columnName = readIdentifier();
+        Integer length = null;
+        if (acceptSymbol("(")) {
+          length = Integer.parseInt(expect(TokenType.NUMBER).getText());
+          expectSymbol(")");
+        }
+        if (!acceptWord("ASC")) {
+          acceptWord("DESC");
+        }
+        index.getColumns().add(new IndexColumn(columnName, length));
+      } while (acceptSymbol(","));
+      expectSymbol(")");
+    }
+
+    private void parseIndexOptions(IndexDefinition index) {
+      while (true) {
+        if (acceptWord("USING")) {
+          index.setIndexType(readIdentifier().toUpperCase(Locale.ROOT));
+        } else if (acceptWord("COMMENT")) {
+          index.setComment(expect(TokenType.STRING).getText());
+        } else if (acceptWord("KEY_BLOCK_SIZE")) {
+          acceptSymbol("=");
+          expect(TokenType.NUMBER);
+        } else if (acceptWord("WITH")) {
+          expectWord("PARSER");
+          readIdentifier();
+        } else if (!acceptWord("VISIBLE") && !acceptWord("INVISIBLE")) {
+          return;
+        }
+      }
+    }
+
+    private void parseForeignKey(TableDefinition table, String symbol) {
+      expectWord("KEY");
+      ForeignKeyDefinition foreignKey = new ForeignKeyDefinition();
+      foreignKey.setName(symbol);
+      if (!peekSymbol("(")) {
+        foreignKey.setIndexName(readIdentifier());
+      }
+      foreignKey.setColumns(readColumnNames());
+
+      expectWord("REFERENCES");
+      String referenced = readIdentifier();
+      if (acceptSymbol(".")) {
+        foreignKey.setReferencedDatabase(referenced);
+        referenced = readIdentifier();
+      }
+      foreignKey.setReferencedTable(referenced);
+      foreignKey.setReferencedColumns(readColumnNames());
+      parseReferentialActions(foreignKey);
+      table.getForeignKeys().add(foreignKey);
+
+      // InnoDB requires an index for a foreign key; it is dropped if other index covers it
+      IndexDefinition index = new IndexDefinition();
+      index.setKind(Kind.KEY);
+      index.setName(symbol != null ? symbol : foreignKey.getIndexName());
+      index.setGenerated(true);
+      for (String columnName : foreignKey.getColumns()) {
+        index.getColumns().add(new IndexColumn(columnName, null));
+      }
+      table.getIndexes().add(index);
+    }
+
+    private void parseReferentialActions(ForeignKeyDefinition foreignKey) {
+      while (true) {
+        if (acceptWord("MATCH")) {
+          readIdentifier();
+        } else if (acceptWord("ON")) {
+          boolean isDelete = acceptWord("DELETE");
+          if (!isDelete) {
+            expectWord("UPDATE");
+          }
+          String action;
+          if (acceptWord("SET")) {
+            action = "SET " + readIdentifier().toUpperCase(Locale.ROOT);
+          } else if (acceptWord("NO")) {
+            expectWord("ACTION");
+            action = "NO ACTION";
+          } else {
+            action = readIdentifier().toUpperCase(Locale.ROOT);
+          }
+          if (isDelete) {
+            foreignKey.setOnDelete(action);
+          } else {
+            foreignKey.setOnUpdate(action);
+          }
+        } else {
+          return;
+        }
+      }
+    }
+
+    private List<String> readColumnNames() {
+      List<String> columnNames = new ArrayList<>();
+      expectSymbol("(");
+      do {
+        columnNames.add(readIdentifier());
+        if (acceptSymbol("(")) {
+          expect(TokenType.NUMBER);
+          expectSymbol(")");
+        }
+        if (!acceptWord("ASC")) {
+          acceptWord("DESC");
+        }
+      } while (acceptSymbol(","));
+      expectSymbol(")");
+      return columnNames;
+    }
+
+    private ColumnDefinition parseColumn(TableDefinition table) {
+      ColumnDefinition column = new ColumnDefinition();
+      column.setName(readIdentifier());
+      parseDataType(column, table);
+
+      while (!atEnd() && !peekSymbol(",") && !peekSymbol(")") && !peekWord("FIRST")
+          && !peekWord("AFTER")) {
+        if (acceptWord("UNSIGNED")) {
+          column.setUnsigned(true);
+        } else if (acceptWord("SIGNED")) {
+          column.setUnsigned(false);
+        } else if (acceptWord("ZEROFILL")) {
+          column.setZerofill(true);
+        } else if (acceptCharsetKeyword()) {
+          column.setCharset(canonicalCharset(readIdentifier()));
+        } else if (acceptWord("COLLATE")) {
+          column.setCollation(canonicalCollation(readIdentifier()));
+        } else if (acceptWord("BINARY")) {
+          column.setBinary(true);
+        } else if (acceptWord("ASCII")) {
+          column.setCharset("latin1");
+        } else if (acceptWord("UNICODE")) {
+          column.setCharset("ucs2");
+        } else if (acceptWord("NOT")) {
+          expectWord("NULL");
+          column.setNullable(false);
+        } else if (acceptWord("NULL")) {
+          column.setNullable(true);
+        } else if (acceptWord("DEFAULT")) {
+          column.setDefaultValue(readDefaultValue());
+        } else if (acceptWord("ON")) {
+          expectWord("UPDATE");
+          column.setOnUpdate(readDefaultValue());
+          if (!column.getOnUpdate().startsWith("CURRENT_TIMESTAMP")) {
+            throw new IllegalArgumentException("Invalid ON UPDATE clause for " + column.getName());
+          }
+        } else if (acceptWord("AUTO_INCREMENT")) {
+          column.setAutoIncrement(true);
+        } else if (acceptWord("UNIQUE")) {
+          acceptWord("KEY");
+          addColumnIndex(table, column, Kind.UNIQUE);
+        } else if (acceptWord("PRIMARY")) {
+          expectWord("KEY");
+          addColumnIndex(table, column, Kind.PRIMARY);
+        } else if (acceptWord("KEY")) {
+          addColumnIndex(table, column, Kind.PRIMARY);
+        } else if (acceptWord("COMMENT")) {
+          column.setComment(expect(TokenType.STRING).getText());
+        } else if (acceptWord("COLUMN_FORMAT") || acceptWord("STORAGE")) {
+          readIdentifier();
+        } else if (acceptWord("GENERATED")) {
+          expectWord("ALWAYS");
+          expectWord("AS");
+          parseGeneratedColumn(column);
+        } else if (acceptWord("AS")) {
+          parseGeneratedColumn(column);
+        } else if (acceptWord("REFERENCES")) {
+          // column-level REFERENCES is parsed but ignored by MySQL
+          readName();
+          readColumnNames();
+          parseReferentialActions(new ForeignKeyDefinition());
+        } else if (acceptWord("CHECK")) {
+          skipParenthesized();
+        } else {
+          throw unexpected();
+        }
+      }
+      return column;
+    }
+
+    private boolean acceptCharsetKeyword() {
+      if (acceptWord("CHARSET")) {
+        return true;
+      }
+      if ((peekWord("CHARACTER") || peekWord("CHAR")) && peekWord(1, "SET")) {
+        position += 2;
+        return true;
+      }
+      return false;
+    }
+
+    private void addColumnIndex(TableDefinition table, ColumnDefinition column, Kind kind) {
+      IndexDefinition index = new IndexDefinition();
+      index.setKind(kind);
+      index.getColumns().add(new IndexColumn(column.getName(), null));
+      table.getIndexes().add(index);
+    }
+
+    private void parseGeneratedColumn(ColumnDefinition column) {
+      int start = position;
+      skipParenthesized();
+      column.setGeneratedExpression(tokens.subList(start + 1, position - 1).stream()
+          .map(Token::toString)
+          .collect(Collectors.joining(" "))
+          .replace("( ", "(")
+          .replace(" )", ")")
+          .replace(" ,", ","));
+      if (acceptWord("STORED") || acceptWord("PERSISTENT")) {
+        column.setGeneratedStored(true);
+      } else {
+        acceptWord("VIRTUAL");
+      }
+    }
+
+    private void parseDataType(ColumnDefinition column, TableDefinition table) {
+      String type = expect(TokenType.WORD).getText().toLowerCase(Locale.ROOT);
+      if (type.equals("national")) {
+        column.setCharset("utf8");
+        type = expect(TokenType.WORD).getText().toLowerCase(Locale.ROOT);
+      }
+      switch (type) {
+        case "nchar":
+          column.setCharset("utf8");
+          type = acceptWord("VARCHAR") || acceptWord("VARYING") ? "varchar" : "char";
+          break;
+        case "nvarchar":
+          column.setCharset("utf8");
+          type = "varchar";
+          break;
+        case "character":
+        case "char":
+          type = acceptWord("VARYING") ? "varchar" : "char";
+          break;
+        case "long":
+          if (acceptWord("VARBINARY")) {
+            type = "mediumblob";
+          } else {
+            acceptWord("VARCHAR");
+            type = "mediumtext";
+          }
+          break;
+        case "double":
+          acceptWord("PRECISION");
+          break;
+        case "bool":
+        case "boolean":
+          type = "tinyint";
+          column.setLength("1");
+          break;
+        case "serial":
+          type = "bigint";
+          column.setUnsigned(true);
+          column.setNullable(false);
+          column.setAutoIncrement(true);
+          addColumnIndex(table, column, Kind.UNIQUE);
+          break;
+        default:
+          type = TYPE_ALIASES.getOrDefault(type, type);
+          break;
+      }
+      if (!NUMERIC_TYPES.contains(type) && !STRING_TYPES.contains(type)
+          && !TEMPORAL_TYPES.contains(type) && !OTHER_TYPES.contains(type)) {
+        throw new IllegalArgumentException(new StringBuilder()
+            .append("Unknown data type of column ")
+            .append(column.getName())
+            .append(": ")
+            .append(type)
+            .toString());
+      }
+      column.setDataType(type);
+
+      if (!acceptSymbol("(")) {
+        return;
+      }
+      if (type.equals("enum") || type.equals("set")) {
+        do {
+          column.getValues().add(expect(TokenType.STRING).getText());
+        } while (acceptSymbol(","));
+      } else {
+        String length = expect(TokenType.NUMBER).getText();
+        if (acceptSymbol(",")) {
+          length += "," + expect(TokenType.NUMBER).getText();
+        }
+        column.setLength(length);
+      }
+      expectSymbol(")");
+
+      if (type.equals("float") && column.getLength() != null
+          && !column.getLength().contains(",")) {
+        // FLOAT(p) chooses single or double precision
+        column.setDataType(Integer.parseInt(column.getLength()) > 24 ? "double" : "float");
+        column.setLength(null);
+      }
+    }
+
+    private String readDefaultValue() {
+      Token token = next();
+      if (token.isSymbol("-") || token.isSymbol("+")) {
+        String number = expect(TokenType.NUMBER).getText();
+        return token.isSymbol("-") ? "-" + number : number;
+      }
+      if (token.isSymbol("(")) {
+        position--;
+        int start = position;
+        skipParenthesized();
+        return tokens.subList(start, position).stream()
+            .map(Token::toString)
+            .collect(Collectors.joining(" "))
+            .replace("( ", "(")
+            .replace(" )", ")");
+      }
+      switch (token.getType()) {
+        case NUMBER:
+          return token.getText();
+        case STRING:
+          return quoteString(token.getText());
+        case BIT_STRING:
+          return "b'" + token.getText() + "'";
+        case HEX_STRING:
+          return "0x" + token.getText();
+        default:
+          break;
+      }
+      if (token.isWord("NULL")) {
+        return "NULL";
+      }
+      if (token.isWord("TRUE")) {
+        return "1";
+      }
+      if (token.isWord("FALSE")) {
+        return "0";
+      }
+      if (token.isWord("CURRENT_TIMESTAMP") || token.isWord("NOW")
+          || token.isWord("LOCALTIME") || token.isWord("LOCALTIMESTAMP")) {
+        String fsp = null;
+        if (acceptSymbol("(")) {
+          if (!peekSymbol(")")) {
+            fsp = expect(TokenType.NUMBER).getText();
+          }
+          expectSymbol(")");
+        }
+        return currentTimestamp(fsp == null || fsp.equals("0") ? null : fsp);
+      }
+      throw new IllegalArgumentException("Unsupported default value: " + token);
+    }
+
+    private void parseTableOptions(TableDefinition table) {
+      while (!atEnd()) {
+        acceptSymbol(",");
+        parseTableOption(table);
+      }
+    }
+
+    private void parseTableOption(TableDefinition table) {
+      if (acceptWord("DEFAULT")) {
+        if (!peekWord("CHARSET") && !peekWord("CHARACTER") && !peekWord("CHAR")
+            && !peekWord("COLLATE")) {
+          throw unexpected();
+        }
+      }
+
+      if (acceptWord("ENGINE") || acceptWord("TYPE")) {
+        acceptSymbol("=");
+        table.setEngine(readIdentifier());
+      } else if (acceptWord("AUTO_INCREMENT")) {
+        acceptSymbol("=");
+        table.setAutoIncrement(Long.parseLong(expect(TokenType.NUMBER).getText()));
+      } else if (acceptCharsetKeyword()) {
+        acceptSymbol("=");
+        table.setCharset(canonicalCharset(readIdentifier()));
+      } else if (acceptWord("COLLATE")) {
+        acceptSymbol("=");
+        table.setCollation(canonicalCollation(readIdentifier()));
+      } else if (acceptWord("COMMENT")) {
+        acceptSymbol("=");
+        table.setComment(expect(TokenType.STRING).getText());
+      } else if (peek().getType() == TokenType.WORD
+          && ORDERED_TABLE_OPTIONS.contains(peek().getText().toUpperCase(Locale.ROOT))) {
+        String option = next().getText().toUpperCase(Locale.ROOT);
+        acceptSymbol("=");
+        Token value = next();
+        table.getOptions().put(option, value.getType() == TokenType.STRING
+            ? quoteString(value.getText()) : value.getText().toUpperCase(Locale.ROOT));
+      } else if (peekWord("PARTITION")) {
+        throw new IllegalArgumentException(
+            "Partitioning is not supported: " + table.getName());
+      } else {
+        throw new IllegalArgumentException(new StringBuilder()
+            .append("Unsupported table option of ")
+            .append(table.getName())
+            .append(": ")
+            .append(peek())
+            .toString());
+      }
+    }
+
+    private void skipParenthesized() {
+      expectSymbol("(");
+      int depth = 1;
+      while (depth > 0) {
+        Token token = next();
+        if (token.isSymbol("(")) {
+          depth++;
+        } else if (token.isSymbol(")")) {
+          depth--;
+        }
+      }
+    }
+
+    private String readName() {
+      String name = readIdentifier();
+      lastDatabase = defaultDatabase;
+      if (acceptSymbol(".")) {
+        lastDatabase = name;
+        name = readIdentifier();
+      }
+      return name;
+    }
+
+    /**
+     * Check whether the table which is read last by {@link #readName()} belongs to the database.
+     */
+    private boolean isInDatabase() {
+      return database == null || database.equals(lastDatabase);
+    }
+
+    private String readIdentifier() {
+      Token token = next();
+      if (!token.isIdentifier()) {
+        position--;
+        throw unexpected();
+      }
+      return token.getText();
+    }
+
+    private Token expect(TokenType type) {
+      Token token = next();
+      if (token.getType() != type) {
+        position--;
+        throw unexpected();
+      }
+      return token;
+    }
+
+    private void expectWord(String keyword) {
+      if (!acceptWord(keyword)) {
+        throw unexpected();
+      }
+    }
+
+    private void expectSymbol(String symbol) {
+      if (!acceptSymbol(symbol)) {
+        throw unexpected();
+      }
+    }
+
+    private boolean acceptWord(String keyword) {
+      if (peekWord(keyword)) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean acceptSymbol(String symbol) {
+      if (peekSymbol(symbol)) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean peekWord(String keyword) {
+      return peekWord(0, keyword);
+    }
+
+    private boolean peekWord(int offset, String keyword) {
+      return position + offset < tokens.size() && tokens.get(position + offset).isWord(keyword);
+    }
+
+    private boolean peekSymbol(String symbol) {
+      return !atEnd() && tokens.get(position).isSymbol(symbol);
+    }
+
+    private Token peek() {
+      if (atEnd()) {
+        throw new IllegalArgumentException("Unexpected end of statement");
+      }
+      return tokens.get(position);
+    }
+
+    private Token next() {
+      Token token = peek();
+      position++;
+      return token;
+    }
+
+    private boolean atEnd() {
+      return position >= tokens.size();
+    }
+
+    private IllegalArgumentException unexpected() {
+      if (atEnd()) {
+        return new IllegalArgumentException("Unexpected end of statement");
+      }
+      return new IllegalArgumentException(new StringBuilder()
+          .append("Unexpected token: ")
+          .append(tokens.get(position))
+          .append(" (near: ")
+          .append(tokens.subList(Math.max(0, position - 5), position).stream()
+              .map(Token::toString)
+              .collect(Collectors.joining(" ")))
+          .append(")")
+          .toString());
+    }
+
+    private IllegalArgumentException unsupported(Token head) {
+      return new IllegalArgumentException(
+          "Unsupported statement for offline normalization: " + head.getText().toUpperCase(
+              Locale.ROOT) + " " + (tokens.size() > 1 ? tokens.get(1).getText() : ""));
+    }
+  }
+}
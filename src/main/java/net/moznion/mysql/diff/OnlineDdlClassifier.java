@@ -0,0 +1,313 @@
+package net.moznion.mysql.diff;
+
+import net.moznion.mysql.diff.model.AlterAlgorithm;
+import net.moznion.mysql.diff.model.AlterChange;
+import net.moznion.mysql.diff.model.AlterChange.Kind;
+import net.moznion.mysql.diff.model.Column;
+import net.moznion.mysql.diff.model.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifier of changes according to online DDL rules of MySQL 8.0.
+ *
+ * <p>
+ * Classification is conservative; it chooses an algorithm which is accepted by every 8.0 release.
+ * For example, dropping a column is classified as INPLACE even though 8.0.29 or later can do it
+ * instantly.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class OnlineDdlClassifier {
+  private static final Pattern TYPE_PATTERN = Pattern.compile(
+      "^(\\w+)(?:\\(((?:'(?:[^'\\\\]|\\\\.|'')*'|[^)'])*)\\))?((?:\\s+(?:unsigned|zerofill))*)",
+      Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern STRING_LITERAL_PATTERN = Pattern.compile(
+      "'(?:[^'\\\\]|\\\\.|'')*'");
+
+  private static final Pattern ENUM_MEMBER_PATTERN = Pattern.compile(
+      "'((?:[^'\\\\]|\\\\.|'')*)'");
+
+  private static final Pattern DEFAULT_PATTERN = Pattern.compile(
+      "\\s+DEFAULT\\s+(?:'(?:[^'\\\\]|\\\\.|'')*'|\\([^)]*\\)|\\S+)", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern COMMENT_PATTERN = Pattern.compile(
+      "\\s+COMMENT\\s+'(?:[^'\\\\]|\\\\.|'')*'", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern NOT_NULL_PATTERN = Pattern.compile(
+      "\\s+NOT NULL\\b", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern CHARSET_PATTERN = Pattern.compile(
+      "(?:CHARACTER SET|CHARSET)[\\s=]+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern TABLE_CHARSET_PATTERN = Pattern.compile(
+      "DEFAULT CHARSET=(\\w+)");
+
+  private static final Pattern STORED_GENERATED_PATTERN = Pattern.compile(
+      "\\bAS\\s*\\(.*\\)\\s*STORED\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private static final Pattern AUTO_INCREMENT_PATTERN = Pattern.compile(
+      "\\bAUTO_INCREMENT\\b", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern FULLTEXT_INDEX_PATTERN = Pattern.compile(
+      "^\\s*FULLTEXT\\s+(?:KEY|INDEX)\\b", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
+  private static final Pattern COMPRESSED_ROW_FORMAT_PATTERN = Pattern.compile(
+      "\\bROW_FORMAT=COMPRESSED\\b", Pattern.CASE_INSENSITIVE);
+
+  private static final int MAX_BYTES_OF_ONE_BYTE_LENGTH_PREFIX = 255;
+
+  /**
+   * Classify a change.
+   *
+   * @param kind Kind of change.
+   * @param name Name of the column or the index which is changed.
+   * @param clause Clause for ALTER TABLE statement.
+   * @param oldTable Table of old schema.
+   * @param newTable Table of new schema.
+   * @return Classified change.
+   */
+  static AlterChange classify(Kind kind, String name, String clause, Table oldTable,
+      Table newTable) {
+    switch (kind) {
+      case ADD_COLUMN:
+        return classifyColumnAddition(name, clause, findDefinition(newTable, name),
+            oldTable, newTable);
+      case DROP_COLUMN:
+        return new AlterChange(kind, name, clause, AlterAlgorithm.INPLACE, true, true);
+      case MODIFY_COLUMN:
+        return classifyColumnModification(name, clause,
+            findDefinition(oldTable, name), findDefinition(newTable, name),
+            bytesPerCharacter(oldTable), bytesPerCharacter(newTable));
+      case ADD_INDEX:
+      case ADD_UNIQUE_INDEX:
+      case DROP_INDEX:
+        return new AlterChange(kind, name, clause, AlterAlgorithm.INPLACE, false, true);
+      default:
+        throw new IllegalArgumentException("Unknown kind of change: " + kind);
+    }
+  }
+
+  private static AlterChange classifyColumnAddition(String name, String clause,
+      String definition, Table oldTable, Table newTable) {
+    String unquoted = STRING_LITERAL_PATTERN.matcher(definition).replaceAll("''");
+
+    if (STORED_GENERATED_PATTERN.matcher(unquoted).find()) {
+      return new AlterChange(Kind.ADD_COLUMN, name, clause, AlterAlgorithm.COPY, true, false);
+    }
+
+    if (AUTO_INCREMENT_PATTERN.matcher(unquoted).find()) {
+      return new AlterChange(Kind.ADD_COLUMN, name, clause, AlterAlgorithm.INPLACE, true, false);
+    }
+
+    // INSTANT is rejected for tables which have FULLTEXT indexes, and rebuilding them in place
+    // doesn't permit concurrent DML
+    if (hasFulltextIndex(oldTable) || hasFulltextIndex(newTable)) {
+      return new AlterChange(Kind.ADD_COLUMN, name, clause, AlterAlgorithm.INPLACE, true, false);
+    }
+
+    // INSTANT is rejected for compressed tables too
+    if (COMPRESSED_ROW_FORMAT_PATTERN.matcher(tableOptions(oldTable)).find()) {
+      return new AlterChange(Kind.ADD_COLUMN, name, clause, AlterAlgorithm.INPLACE, true, true);
+    }
+
+    // DiffExtractor doesn't specify the position, so the column is always added as the last one
+    return new AlterChange(Kind.ADD_COLUMN, name, clause, AlterAlgorithm.INSTANT, false, true);
+  }
+
+  private static AlterChange classifyColumnModification(String name, String clause,
+      String oldDefinition, String newDefinition, int oldBytesPerCharacter,
+      int newBytesPerCharacter) {
+    ColumnDefinition oldColumn = new ColumnDefinition(oldDefinition, oldBytesPerCharacter);
+    ColumnDefinition newColumn = new ColumnDefinition(newDefinition, newBytesPerCharacter);
+
+    if (!oldColumn.attributes.equalsIgnoreCase(newColumn.attributes)) {
+      // e.g. changing character set, collation or AUTO_INCREMENT
+      return copy(name, clause);
+    }
+
+    boolean nullabilityChanged = oldColumn.notNull != newColumn.notNull;
+
+    AlterAlgorithm algorithm;
+    if (oldColumn.type.equalsIgnoreCase(newColumn.type)) {
+      if (!oldColumn.comment.equals(newColumn.comment)) {
+        algorithm = AlterAlgorithm.INPLACE;
+      } else {
+        // only DEFAULT or nullability is changed
+        algorithm = AlterAlgorithm.INSTANT;
+      }
+    } else if (isExtendingVarcharInPlace(oldColumn, newColumn)) {
+      algorithm = AlterAlgorithm.INPLACE;
+    } else if (isAppendingMembers(oldColumn, newColumn)) {
+      algorithm = AlterAlgorithm.INSTANT;
+    } else {
+      return copy(name, clause);
+    }
+
+    if (nullabilityChanged) {
+      return new AlterChange(Kind.MODIFY_COLUMN, name, clause, AlterAlgorithm.INPLACE, true, true);
+    }
+    return new AlterChange(Kind.MODIFY_COLUMN, name, clause, algorithm, false, true);
+  }
+
+  private static AlterChange copy(String name, String clause) {
+    return new AlterChange(Kind.MODIFY_COLUMN, name, clause, AlterAlgorithm.COPY, true, false);
+  }
+
+  private static boolean isExtendingVarcharInPlace(ColumnDefinition oldColumn,
+      ColumnDefinition newColumn) {
+    if (!oldColumn.typeName.equals("varchar") || !newColumn.typeName.equals("varchar")
+        || !oldColumn.modifiers.equals(newColumn.modifiers)) {
+      return false;
+    }
+
+    int oldLength;
+    int newLength;
+    try {
+      oldLength = Integer.parseInt(oldColumn.typeArguments.trim());
+      newLength = Integer.parseInt(newColumn.typeArguments.trim());
+    } catch (NumberFormatException e) {
+      return false;
+    }
+
+    if (newLength < oldLength) {
+      return false;
+    }
+
+    // The number of length bytes of VARCHAR must not be changed
+    boolean oldHasOneBytePrefix =
+        oldLength * oldColumn.bytesPerCharacter <= MAX_BYTES_OF_ONE_BYTE_LENGTH_PREFIX;
+    boolean newHasOneBytePrefix =
+        newLength * newColumn.bytesPerCharacter <= MAX_BYTES_OF_ONE_BYTE_LENGTH_PREFIX;
+    return oldHasOneBytePrefix == newHasOneBytePrefix;
+  }
+
+  private static boolean isAppendingMembers(ColumnDefinition oldColumn,
+      ColumnDefinition newColumn) {
+    String typeName = oldColumn.typeName;
+    if (!(typeName.equals("enum") || typeName.equals("set"))
+        || !typeName.equals(newColumn.typeName)) {
+      return false;
+    }
+
+    List<String> oldMembers = extractMembers(oldColumn.typeArguments);
+    List<String> newMembers = extractMembers(newColumn.typeArguments);
+    if (newMembers.size() < oldMembers.size()
+        || !newMembers.subList(0, oldMembers.size()).equals(oldMembers)) {
+      return false;
+    }
+
+    // The storage size must not be changed
+    if (typeName.equals("enum")) {
+      return (oldMembers.size() <= 255) == (newMembers.size() <= 255);
+    }
+    return setStorageBytes(oldMembers.size()) == setStorageBytes(newMembers.size());
+  }
+
+  private static int setStorageBytes(int numOfMembers) {
+    int bytes = (numOfMembers + 7) / 8;
+    return bytes > 4 ? 8 : bytes;
+  }
+
+  private static List<String> extractMembers(String typeArguments) {
+    List<String> members = new ArrayList<>();
+    Matcher memberMatcher = ENUM_MEMBER_PATTERN.matcher(typeArguments);
+    while (memberMatcher.find()) {
+      members.add(memberMatcher.group(1));
+    }
+    return members;
+  }
+
+  private static boolean hasFulltextIndex(Table table) {
+    return FULLTEXT_INDEX_PATTERN.matcher(table.getContent()).find();
+  }
+
+  private static String tableOptions(Table table) {
+    String content = table.getContent();
+    return content.substring(Math.max(content.lastIndexOf(')'), 0));
+  }
+
+  private static String findDefinition(Table table, String columnName) {
+    return table.getColumns().stream()
+        .filter(column -> column.getName().equals(columnName))
+        .map(Column::getDefinition)
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException(
+            "Missing column `" + columnName + "` in table `" + table.getTableName() + "`"));
+  }
+
+  private static int bytesPerCharacter(Table table) {
+    Matcher charsetMatcher = TABLE_CHARSET_PATTERN.matcher(table.getContent());
+    if (!charsetMatcher.find()) {
+      return bytesPerCharacter(Optional.empty());
+    }
+    return bytesPerCharacter(Optional.of(charsetMatcher.group(1)));
+  }
+
+  private static int bytesPerCharacter(Optional<String> charset) {
+    switch (charset.orElse("").toLowerCase(Locale.ROOT)) {
+      case "latin1":
+      case "ascii":
+      case "binary":
+        return 1;
+      case "utf8":
+      case "utf8mb3":
+        return 3;
+      default:
+        // assume the widest one
+        return 4;
+    }
+  }
+
+  /**
+   * Decomposed column definition which is dumped by MySQL.
+   */
+  private static class ColumnDefinition {
+    private final String type;
+    private final String typeName;
+    private final String typeArguments;
+    private final String modifiers;
+    private final boolean notNull;
+    private final String comment;
+    private final String attributes;
+    private final int bytesPerCharacter;
+
+    ColumnDefinition(String definition, int tableBytesPerCharacter) {
+      Matcher typeMatcher = TYPE_PATTERN.matcher(definition);
+      if (!typeMatcher.find()) {
+        throw new IllegalArgumentException("Invalid column definition: " + definition);
+      }
+      type = typeMatcher.group();
+      typeName = typeMatcher.group(1).toLowerCase(Locale.ROOT);
+      typeArguments = Optional.ofNullable(typeMatcher.group(2)).orElse("");
+      modifiers = typeMatcher.group(3).trim().toLowerCase(Locale.ROOT);
+
+      String rest = definition.substring(typeMatcher.end());
+
+      Matcher commentMatcher = COMMENT_PATTERN.matcher(rest);
+      comment = commentMatcher.find() ? commentMatcher.group().trim() : "";
+      rest = commentMatcher.replaceAll("");
+      rest = DEFAULT_PATTERN.matcher(rest).replaceAll("");
+
+      Matcher notNullMatcher = NOT_NULL_PATTERN.matcher(rest);
+      notNull = notNullMatcher.find();
+      rest = notNullMatcher.replaceAll("");
+      attributes = rest.replaceAll("\\s+NULL\\b", "").trim();
+
+      Matcher charsetMatcher = CHARSET_PATTERN.matcher(attributes);
+      if (charsetMatcher.find()) {
+        bytesPerCharacter = bytesPerCharacter(Optional.of(charsetMatcher.group(1)));
+      } else {
+        bytesPerCharacter = tableBytesPerCharacter;
+      }
+    }
+  }
+}
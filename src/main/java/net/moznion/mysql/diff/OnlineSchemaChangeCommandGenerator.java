@@ -0,0 +1,276 @@
+package net.moznion.mysql.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import net.moznion.mysql.diff.model.AlterAlgorithm;
+import net.moznion.mysql.diff.model.AlterChange;
+import net.moznion.mysql.diff.model.TableDiff;
+import net.moznion.mysql.diff.model.TableStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Generator of online schema change commands (pt-online-schema-change or gh-ost) for large
+ * tables.
+ *
+ * <p>
+ * Generation works offline; it only needs diffs which are attached statistics (see
+ * {@link DiffExtractor#orderByRebuildCost}). Tables whose DATA_LENGTH + INDEX_LENGTH is less than
+ * the threshold, or whose statistics are missing, keep plain ALTER statements.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class OnlineSchemaChangeCommandGenerator {
+  /**
+   * Tool for online schema change.
+   */
+  public enum Tool {
+    PT_ONLINE_SCHEMA_CHANGE("pt-online-schema-change"), GH_OST("gh-ost");
+
+    @Getter
+    private final String commandName;
+
+    private Tool(String commandName) {
+      this.commandName = commandName;
+    }
+
+    /**
+     * Returns the tool which has given command name.
+     *
+     * @param commandName Command name of the tool (e.g. "gh-ost").
+     * @return Tool.
+     */
+    public static Tool fromCommandName(String commandName) {
+      return Arrays.stream(values())
+          .filter(tool -> tool.commandName.equals(commandName))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException(
+              "Unknown online schema change tool: " + commandName));
+    }
+  }
+
+  private final Tool tool;
+  private final String toolPath;
+  private final long thresholdBytes;
+  private final String maxLoad;
+  private final String criticalLoad;
+  private final int maxLagSeconds;
+  private final double chunkTime;
+  private final int chunkSize;
+  private final List<String> extraOptions;
+
+  /**
+   * Builder class of OnlineSchemaChangeCommandGenerator.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>tool(Tool tool) // default value: Tool.PT_ONLINE_SCHEMA_CHANGE</li>
+   * <li>toolPath(String path) // default value: command name of the tool</li>
+   * <li>thresholdBytes(long bytes) // default value: 1 GiB</li>
+   * <li>maxLoad(String condition) // default value: "Threads_running=25"</li>
+   * <li>criticalLoad(String condition) // default value: "Threads_running=50"</li>
+   * <li>maxLagSeconds(int seconds) // default value: 1</li>
+   * <li>chunkTime(double seconds) // for pt-online-schema-change, default value: 0.5</li>
+   * <li>chunkSize(int rows) // for gh-ost, default value: 1000</li>
+   * <li>extraOptions(List&lt;String&gt; options) // default value: empty</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private Tool tool = Tool.PT_ONLINE_SCHEMA_CHANGE;
+    private String toolPath;
+    private long thresholdBytes = 1L << 30;
+    private String maxLoad = "Threads_running=25";
+    private String criticalLoad = "Threads_running=50";
+    private int maxLagSeconds = 1;
+    private double chunkTime = 0.5;
+    private int chunkSize = 1000;
+    private List<String> extraOptions = new ArrayList<>();
+
+    public Builder() {}
+
+    /**
+     * Builds OnlineSchemaChangeCommandGenerator.
+     *
+     * @return New OnlineSchemaChangeCommandGenerator instance.
+     */
+    public OnlineSchemaChangeCommandGenerator build() {
+      return new OnlineSchemaChangeCommandGenerator(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of OnlineSchemaChangeCommandGenerator.
+   *
+   * @return Builder of OnlineSchemaChangeCommandGenerator.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private OnlineSchemaChangeCommandGenerator(Builder builder) {
+    tool = Optional.ofNullable(builder.tool)
+        .orElseThrow(() -> new IllegalArgumentException("Missing tool"));
+    toolPath = Optional.ofNullable(builder.toolPath).orElse(tool.getCommandName());
+    thresholdBytes = builder.thresholdBytes;
+    maxLoad = builder.maxLoad;
+    criticalLoad = builder.criticalLoad;
+    maxLagSeconds = builder.maxLagSeconds;
+    chunkTime = builder.chunkTime;
+    chunkSize = builder.chunkSize;
+    extraOptions = new ArrayList<>(builder.extraOptions);
+  }
+
+  /**
+   * Returns whether online schema change should be used for given diff.
+   *
+   * @param tableDiff Diff of a table.
+   * @return True if the table is large and the diff needs more than instant changes.
+   */
+  public boolean isTarget(TableDiff tableDiff) {
+    TableStatistics statistics = tableDiff.getStatistics();
+    if (tableDiff.isCreation() || statistics == null) {
+      return false;
+    }
+
+    if (statistics.getDataLength() + statistics.getIndexLength() < thresholdBytes) {
+      return false;
+    }
+
+    return !extractNonInstantChanges(tableDiff).isEmpty();
+  }
+
+  /**
+   * Render diffs as SQL; large tables get online schema change commands as comments.
+   *
+   * <p>
+   * For a large table, instant changes are still rendered as a plain ALTER statement with
+   * ALGORITHM=INSTANT, and only the rest is passed to the tool.
+   * </p>
+   *
+   * @param dbName Name of the database to be altered.
+   * @param mysqlConnectionInfo Connection information of MySQL to be altered.
+   * @param tableDiffs Diffs of tables.
+   * @return SQL string.
+   */
+  public String render(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      List<TableDiff> tableDiffs) {
+    StringBuilder sqlBuilder = new StringBuilder();
+
+    for (TableDiff tableDiff : tableDiffs) {
+      if (!isTarget(tableDiff)) {
+        sqlBuilder.append(tableDiff.toSql());
+        continue;
+      }
+
+      List<AlterChange> instantChanges = tableDiff.getChanges().stream()
+          .filter(change -> change.getAlgorithm() == AlterAlgorithm.INSTANT)
+          .collect(Collectors.toList());
+      if (!instantChanges.isEmpty()) {
+        sqlBuilder.append(TableDiff.alteration(tableDiff.getTableName(), instantChanges)
+            .toOnlineDdlSql());
+      }
+
+      sqlBuilder
+          .append("-- `")
+          .append(tableDiff.getTableName())
+          .append("` is larger than ")
+          .append(thresholdBytes)
+          .append(" bytes; run ")
+          .append(tool.getCommandName())
+          .append(" instead of ALTER TABLE\n")
+          .append("-- ")
+          .append(generateCommand(dbName, mysqlConnectionInfo, tableDiff))
+          .append("\n\n");
+    }
+
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Generate a command which applies non-instant changes of given diff.
+   *
+   * <p>
+   * Password is never embedded into the command; the tool asks it when it is not empty.
+   * </p>
+   *
+   * @param dbName Name of the database to be altered.
+   * @param mysqlConnectionInfo Connection information of MySQL to be altered.
+   * @param tableDiff Diff of a table.
+   * @return Command line string.
+   */
+  public String generateCommand(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      TableDiff tableDiff) {
+    if (tableDiff.isCreation()) {
+      throw new IllegalArgumentException(
+          "Online schema change cannot create a table: " + tableDiff.getTableName());
+    }
+
+    String alter = String.join(", ", extractNonInstantChanges(tableDiff).stream()
+        .map(AlterChange::getClause)
+        .collect(Collectors.toList()));
+
+    List<String> command = new ArrayList<>();
+    command.add(toolPath);
+
+    if (tool == Tool.PT_ONLINE_SCHEMA_CHANGE) {
+      command.add("--alter " + quote(alter));
+      command.add("--max-load " + quote(maxLoad));
+      command.add("--critical-load " + quote(criticalLoad));
+      command.add("--max-lag " + maxLagSeconds);
+      command.add("--chunk-time " + chunkTime);
+      if (!mysqlConnectionInfo.getPass().isEmpty()) {
+        command.add("--ask-pass");
+      }
+      command.addAll(extraOptions);
+      command.add("--execute");
+      command.add(quote(new StringBuilder()
+          .append("h=").append(mysqlConnectionInfo.getHost())
+          .append(",P=").append(mysqlConnectionInfo.getPort())
+          .append(",u=").append(mysqlConnectionInfo.getUser())
+          .append(",D=").append(dbName)
+          .append(",t=").append(tableDiff.getTableName())
+          .toString()));
+    } else {
+      command.add("--host=" + quote(mysqlConnectionInfo.getHost()));
+      command.add("--port=" + mysqlConnectionInfo.getPort());
+      command.add("--user=" + quote(mysqlConnectionInfo.getUser()));
+      if (!mysqlConnectionInfo.getPass().isEmpty()) {
+        command.add("--ask-pass");
+      }
+      command.add("--database=" + quote(dbName));
+      command.add("--table=" + quote(tableDiff.getTableName()));
+      command.add("--alter=" + quote(alter));
+      command.add("--max-load=" + quote(maxLoad));
+      command.add("--critical-load=" + quote(criticalLoad));
+      command.add("--max-lag-millis=" + maxLagSeconds * 1000);
+      command.add("--chunk-size=" + chunkSize);
+      command.addAll(extraOptions);
+      command.add("--execute");
+    }
+
+    return String.join(" ", command);
+  }
+
+  private static List<AlterChange> extractNonInstantChanges(TableDiff tableDiff) {
+    return tableDiff.getChanges().stream()
+        .filter(change -> change.getAlgorithm() != AlterAlgorithm.INSTANT)
+        .collect(Collectors.toList());
+  }
+
+  private static String quote(String argument) {
+    return "'" + argument.replace("'", "'\\''") + "'";
+  }
+}
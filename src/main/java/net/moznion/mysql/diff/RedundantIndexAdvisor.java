@@ -0,0 +1,187 @@
+package net.moznion.mysql.diff;
+
+import net.moznion.mysql.diff.model.OrdinaryKey;
+import net.moznion.mysql.diff.model.RedundantIndex;
+import net.moznion.mysql.diff.model.RedundantIndex.Reason;
+import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.UniqueKey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Advisor which finds redundant indexes in tables.
+ *
+ * <p>
+ * An index is redundant if another index has exactly the same columns, or if it is not unique and
+ * its columns are a left-prefix of another index (including the primary key). e.g. KEY(a) is
+ * redundant when KEY(a, b) exists.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+public class RedundantIndexAdvisor {
+  private static final String PRIMARY = "PRIMARY";
+
+  private static final Pattern INDEX_COLUMN_PATTERN = Pattern.compile(
+      "`((?:[^`]|``)*)`(\\(\\d+\\))?(\\s+(?:ASC|DESC))?", Pattern.CASE_INSENSITIVE);
+
+  /**
+   * Find redundant indexes in given tables.
+   *
+   * @param tables Tables to be analyzed.
+   * @return Redundant indexes, in order of table and declaration.
+   */
+  public static List<RedundantIndex> advise(List<Table> tables) {
+    List<RedundantIndex> redundantIndexes = new ArrayList<>();
+    for (Table table : tables) {
+      redundantIndexes.addAll(advise(table));
+    }
+    return redundantIndexes;
+  }
+
+  /**
+   * Render statements which drop redundant indexes of given tables.
+   *
+   * @param tables Tables to be analyzed.
+   * @return SQL string.
+   */
+  public static String adviseAsSql(List<Table> tables) {
+    StringBuilder sqlBuilder = new StringBuilder();
+    for (RedundantIndex redundantIndex : advise(tables)) {
+      sqlBuilder.append(redundantIndex.toSql());
+    }
+    return sqlBuilder.toString();
+  }
+
+  private static List<RedundantIndex> advise(Table table) {
+    List<Index> indexes = new ArrayList<>();
+    for (String primaryKey : table.getPrimaryKeys()) {
+      indexes.add(new Index(PRIMARY, primaryKey, 0, indexes.size()));
+    }
+    for (UniqueKey uniqueKey : table.getUniqueKeys()) {
+      indexes.add(new Index(uniqueKey.getName(), uniqueKey.getColumn(), 1, indexes.size()));
+    }
+    for (OrdinaryKey key : table.getKeys()) {
+      indexes.add(new Index(key.getName(), key.getColumn(), 2, indexes.size()));
+    }
+
+    // columns which cannot be parsed (e.g. functional key parts) are not analyzed
+    indexes.removeIf(index -> index.columns.isEmpty());
+
+    PrefixTrie trie = new PrefixTrie();
+    for (Index index : indexes) {
+      trie.insert(index);
+    }
+
+    List<RedundantIndex> redundantIndexes = new ArrayList<>();
+    for (Index index : indexes) {
+      PrefixTrie.Node node = trie.find(index);
+
+      // The most preferred index (primary, unique, then former one) is kept among duplicates
+      Index keeper = node.terminals.stream()
+          .min(Comparator.comparingInt((Index i) -> i.rank).thenComparingInt(i -> i.position))
+          .get();
+      if (keeper != index) {
+        redundantIndexes.add(new RedundantIndex(
+            table.getTableName(), index.name, keeper.name, Reason.DUPLICATE));
+        continue;
+      }
+
+      // Unique index is necessary for its constraint even if it is a left-prefix
+      if (index.rank < 2) {
+        continue;
+      }
+
+      Optional<Index> covering = node.findDescendantTerminal();
+      if (covering.isPresent()) {
+        redundantIndexes.add(new RedundantIndex(
+            table.getTableName(), index.name, covering.get().name, Reason.LEFT_PREFIX));
+      }
+    }
+
+    return redundantIndexes;
+  }
+
+  private static List<String> parseColumns(String columns) {
+    List<String> parsed = new ArrayList<>();
+    Matcher columnMatcher = INDEX_COLUMN_PATTERN.matcher(columns);
+    while (columnMatcher.find()) {
+      parsed.add(new StringBuilder()
+          .append(columnMatcher.group(1))
+          .append(Optional.ofNullable(columnMatcher.group(2)).orElse(""))
+          .append(Optional.ofNullable(columnMatcher.group(3)).orElse("").toUpperCase(Locale.ROOT))
+          .toString());
+    }
+    return parsed;
+  }
+
+  /**
+   * Index of a table.
+   */
+  private static class Index {
+    private final String name;
+    private final List<String> columns;
+    private final int rank; // 0: primary key, 1: unique key, 2: ordinary key
+    private final int position;
+
+    Index(String name, String columns, int rank, int position) {
+      this.name = name;
+      this.columns = parseColumns(columns);
+      this.rank = rank;
+      this.position = position;
+    }
+  }
+
+  /**
+   * Trie of index columns; each path from the root represents a left-prefix of indexes.
+   */
+  private static class PrefixTrie {
+    private final Node root = new Node();
+
+    /**
+     * Node of trie.
+     */
+    private static class Node {
+      private final Map<String, Node> children = new LinkedHashMap<>();
+      private final List<Index> terminals = new ArrayList<>();
+
+      Optional<Index> findDescendantTerminal() {
+        for (Node child : children.values()) {
+          if (!child.terminals.isEmpty()) {
+            return Optional.of(child.terminals.get(0));
+          }
+          Optional<Index> found = child.findDescendantTerminal();
+          if (found.isPresent()) {
+            return found;
+          }
+        }
+        return Optional.empty();
+      }
+    }
+
+    void insert(Index index) {
+      Node node = root;
+      for (String column : index.columns) {
+        node = node.children.computeIfAbsent(column, c -> new Node());
+      }
+      node.terminals.add(index);
+    }
+
+    Node find(Index index) {
+      Node node = root;
+      for (String column : index.columns) {
+        node = node.children.get(column);
+      }
+      return node;
+    }
+  }
+}
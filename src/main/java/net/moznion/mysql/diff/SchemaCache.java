@@ -0,0 +1,266 @@
+package net.moznion.mysql.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed cache of dumped schemas on disk.
+ *
+ * <p>
+ * Entries are keyed by SHA-256 of input SQL, version of MySQL server, version of this library and
+ * the way of dumping, so they never become stale; they are only evicted by size. Last modified
+ * time of an entry is updated on a hit, and least recently used entries are evicted when total
+ * size of the cache exceeds maxSizeBytes.
+ * </p>
+ *
+ * <p>
+ * The directory can be shared by processes. Entries are written into a temporary file and moved
+ * atomically, and eviction is serialized by a file lock. Entries are plain text of schemas, so
+ * nothing but SQL is read from the directory.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class SchemaCache {
+  private static final String SCHEMA_SUFFIX = ".sql";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String LOCK_FILE_NAME = ".lock";
+  private static final long ORPHAN_TEMP_FILE_AGE_MILLIS = 60 * 60 * 1000;
+
+  // FileLock is held per JVM, so threads are serialized by this
+  private static final Object EVICTION_LOCK = new Object();
+
+  private final Path directory;
+  private final long maxSizeBytes;
+
+  /**
+   * Builder class of SchemaCache.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>directory(File directory) // required</li>
+   * <li>maxSizeBytes(long bytes) // default value: 256 MiB</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private File directory;
+    private long maxSizeBytes = 256L * 1024 * 1024;
+
+    public Builder() {}
+
+    /**
+     * Builds SchemaCache.
+     *
+     * @return New SchemaCache instance.
+     * @throws IOException Throw if failed to create the directory.
+     */
+    public SchemaCache build() throws IOException {
+      return new SchemaCache(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of SchemaCache.
+   *
+   * @return Builder of SchemaCache.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private SchemaCache(Builder builder) throws IOException {
+    directory = Optional.ofNullable(builder.directory)
+        .orElseThrow(() -> new IllegalArgumentException("Missing directory"))
+        .toPath();
+    if (builder.maxSizeBytes < 0) {
+      throw new IllegalArgumentException("maxSizeBytes must not be negative");
+    }
+    maxSizeBytes = builder.maxSizeBytes;
+    Files.createDirectories(directory);
+  }
+
+  /**
+   * Compute a key of cache.
+   *
+   * @param sql Input SQL.
+   * @param serverVersion Version of MySQL server which normalizes the SQL.
+   * @param variant Anything else which affects the result (e.g. the way of dumping).
+   * @return Key of cache (hex string).
+   */
+  public static String computeKey(String sql, String serverVersion, String variant) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e); // SHA-256 is always supported
+    }
+
+    String toolVersion =
+        Optional.ofNullable(SchemaCache.class.getPackage().getImplementationVersion())
+            .orElse("unknown");
+    for (String part : new String[] {toolVersion, serverVersion, variant, sql}) {
+      digest.update(part.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+
+    StringBuilder keyBuilder = new StringBuilder();
+    for (byte b : digest.digest()) {
+      keyBuilder.append(String.format("%02x", b & 0xff));
+    }
+    return keyBuilder.toString();
+  }
+
+  /**
+   * Get a dumped schema.
+   *
+   * @param key Key of cache.
+   * @return Dumped schema, or empty if missed.
+   */
+  public Optional<String> getSchema(String key) {
+    return read(key + SCHEMA_SUFFIX)
+        .map(bytes -> new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Put a dumped schema.
+   *
+   * @param key Key of cache.
+   * @param schema Dumped schema.
+   * @throws IOException Throw if failed to write.
+   */
+  public void putSchema(String key, String schema) throws IOException {
+    write(key + SCHEMA_SUFFIX, schema.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Evict least recently used entries until total size fits in maxSizeBytes.
+   *
+   * @throws IOException Throw if failed to list or lock the directory.
+   */
+  public void evict() throws IOException {
+    synchronized (EVICTION_LOCK) {
+      evictWithFileLock();
+    }
+  }
+
+  private void evictWithFileLock() throws IOException {
+    try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      try (FileLock lock = lockChannel.lock()) {
+        List<Entry> entries = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+          for (Path path : stream) {
+            String fileName = path.getFileName().toString();
+            if (fileName.endsWith(TEMP_SUFFIX)) {
+              deleteIfOrphan(path);
+              continue;
+            }
+            if (!fileName.endsWith(SCHEMA_SUFFIX)) {
+              continue;
+            }
+            try {
+              Entry entry = new Entry(path, Files.size(path),
+                  Files.getLastModifiedTime(path).toMillis());
+              entries.add(entry);
+              totalSize += entry.size;
+            } catch (NoSuchFileException e) {
+              // removed by another process
+            }
+          }
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsedMillis));
+        for (Entry entry : entries) {
+          if (totalSize <= maxSizeBytes) {
+            break;
+          }
+          Files.deleteIfExists(entry.path);
+          totalSize -= entry.size;
+        }
+      }
+    }
+  }
+
+  private static void deleteIfOrphan(Path tempFile) throws IOException {
+    // left behind by a killed process
+    try {
+      long age = System.currentTimeMillis() - Files.getLastModifiedTime(tempFile).toMillis();
+      if (age > ORPHAN_TEMP_FILE_AGE_MILLIS) {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (NoSuchFileException e) {
+      // moved or removed by another process
+    }
+  }
+
+  private Optional<byte[]> read(String fileName) {
+    Path path = directory.resolve(fileName);
+    try {
+      byte[] bytes = Files.readAllBytes(path);
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      return Optional.of(bytes);
+    } catch (IOException e) {
+      // missed, or evicted by another process while reading
+      return Optional.empty();
+    }
+  }
+
+  private void write(String fileName, byte[] bytes) throws IOException {
+    Path temp = directory.resolve(fileName + "." + UUID.randomUUID() + TEMP_SUFFIX);
+    try {
+      Files.write(temp, bytes);
+      try {
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    evict();
+  }
+
+  /**
+   * File of cache entry.
+   */
+  private static class Entry {
+    private final Path path;
+    private final long size;
+    private final long lastUsedMillis;
+
+    Entry(Path path, long size, long lastUsedMillis) {
+      this.path = path;
+      this.size = size;
+      this.lastUsedMillis = lastUsedMillis;
+    }
+  }
+}
@@ -1,22 +1,63 @@
 package net.moznion.mysql.diff;
 
-import java.io.BufferedReader;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import net.moznion.mysql.diff.model.SchemaFingerprint;
+import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.TableStatistics;
+
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
 
 /**
  * Dumper for SQL table definition.
@@ -25,29 +66,308 @@ import java.util.UUID;
  *
  */
 public class SchemaDumper {
-  private static final String LINE_SEPARATOR = System.lineSeparator();
-
   private final MySqlConnectionInfo localMySqlConnectionInfo;
   private final String mysqldumpPath;
+  @Getter
+  private final FetchMode fetchMode;
+  private final DataSource localDataSource;
+  private final ScratchDatabasePool scratchDatabasePool;
+  @Getter
+  private final int batchConcurrency;
+  @Getter
+  private final int fetchConcurrency;
+  @Getter
+  private final long mysqldumpTimeoutMillis;
+  @Getter
+  private final int queryTimeoutSeconds;
+  @Getter
+  private final SchemaCache cache;
+  @Getter
+  private final OfflineNormalizer offlineNormalizer;
+  @Getter
+  private final RemoteNormalization remoteNormalization;
+  @Getter
+  private final HostThrottle hostThrottle;
+  @Getter
+  private final ScratchServerBalancer scratchServerBalancer;
+  @Getter
+  private final int statementBatchSize;
+  @Getter
+  private final TableFilter tableFilter;
+
+  // QUOTE() distinguishes NULL from 'NULL', and the database name itself is excluded from
+  // references to the same database, so that checksums are comparable between databases.
+  private static final String FINGERPRINT_QUERY = new StringBuilder()
+      .append("SELECT t.TABLE_NAME, MD5(CONCAT_WS('\\n',")
+      .append(" QUOTE(t.ENGINE), QUOTE(t.TABLE_COLLATION), QUOTE(t.CREATE_OPTIONS),")
+      .append(" QUOTE(t.TABLE_COMMENT),")
+      .append(" IFNULL((SELECT GROUP_CONCAT(CONCAT_WS(',', QUOTE(c.COLUMN_NAME),")
+      .append(" QUOTE(c.COLUMN_TYPE), QUOTE(c.COLUMN_DEFAULT), QUOTE(c.IS_NULLABLE),")
+      .append(" QUOTE(c.CHARACTER_SET_NAME), QUOTE(c.COLLATION_NAME), QUOTE(c.EXTRA),")
+      .append(" QUOTE(c.COLUMN_COMMENT), QUOTE(%s))")
+      .append(" ORDER BY c.ORDINAL_POSITION SEPARATOR ';')")
+      .append(" FROM information_schema.COLUMNS c")
+      .append(" WHERE c.TABLE_SCHEMA = t.TABLE_SCHEMA AND c.TABLE_NAME = t.TABLE_NAME), ''),")
+      .append(" IFNULL((SELECT GROUP_CONCAT(CONCAT_WS(',', QUOTE(s.INDEX_NAME),")
+      .append(" s.SEQ_IN_INDEX, QUOTE(s.COLUMN_NAME), QUOTE(s.SUB_PART), s.NON_UNIQUE,")
+      .append(" QUOTE(s.INDEX_TYPE), QUOTE(s.INDEX_COMMENT))")
+      .append(" ORDER BY s.INDEX_NAME, s.SEQ_IN_INDEX SEPARATOR ';')")
+      .append(" FROM information_schema.STATISTICS s")
+      .append(" WHERE s.TABLE_SCHEMA = t.TABLE_SCHEMA AND s.TABLE_NAME = t.TABLE_NAME), ''),")
+      .append(" IFNULL((SELECT GROUP_CONCAT(CONCAT_WS(',', QUOTE(k.CONSTRAINT_NAME),")
+      .append(" k.ORDINAL_POSITION, QUOTE(k.COLUMN_NAME),")
+      .append(" QUOTE(IF(k.REFERENCED_TABLE_SCHEMA = k.TABLE_SCHEMA, '',")
+      .append(" k.REFERENCED_TABLE_SCHEMA)),")
+      .append(" QUOTE(k.REFERENCED_TABLE_NAME), QUOTE(k.REFERENCED_COLUMN_NAME),")
+      .append(" QUOTE(r.UPDATE_RULE), QUOTE(r.DELETE_RULE))")
+      .append(" ORDER BY k.CONSTRAINT_NAME, k.ORDINAL_POSITION SEPARATOR ';')")
+      .append(" FROM information_schema.KEY_COLUMN_USAGE k")
+      .append(" JOIN information_schema.REFERENTIAL_CONSTRAINTS r")
+      .append(" ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.TABLE_NAME = k.TABLE_NAME")
+      .append(" AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME")
+      .append(" WHERE k.TABLE_SCHEMA = t.TABLE_SCHEMA AND k.TABLE_NAME = t.TABLE_NAME), '')))")
+      .append(" FROM information_schema.TABLES t")
+      .append(" WHERE t.TABLE_SCHEMA = ? AND t.TABLE_TYPE = 'BASE TABLE'")
+      .toString();
+
+  private static final Pattern SERVER_VERSION_PATTERN = Pattern.compile("^\\d+\\.\\d+\\.\\d+");
+
+  private volatile String localServerVersion;
+
+  // Versions of remote servers keyed by "host:port", for IF_VERSION_DIFFERS
+  private final Map<String, String> remoteServerVersions = new ConcurrentHashMap<>();
 
   /**
-   * Instantiate SchemaDumper.
+   * Way to fetch schema from a database.
+   */
+  public enum FetchMode {
+    /**
+     * Run mysqldump command as a subprocess.
+     */
+    MYSQLDUMP,
+    /**
+     * Issue SHOW CREATE TABLE for each table over JDBC connections (fetchConcurrency of them).
+     * mysqldump command is not necessary.
+     */
+    JDBC;
+  }
+
+  /**
+   * Policy to normalize schemas which are fetched from remote databases by local MySQL.
+   */
+  public enum RemoteNormalization {
+    /**
+     * Always load remote schema into local MySQL and dump it again.
+     */
+    ALWAYS,
+    /**
+     * Skip normalization if remote MySQL is the same flavor and version (major.minor.patch) as
+     * local MySQL, since SHOW CREATE TABLE of them is already the same. The version of each
+     * remote host is fetched once, along with its first dump.
+     */
+    IF_VERSION_DIFFERS,
+    /**
+     * Never normalize; use remote schema as it is.
+     */
+    NEVER;
+  }
+
+  /**
+   * Builder class of SchemaDumper.
    * 
-   * @param localMySqlConnectionInfo Connection information of MySQL which is on your local
-   *        environment.
-   * @param mysqldumpPath Path for mysqldump command.
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>localMySqlConnectionInfo(MySqlConnectionInfo info) // default value: "-h localhost -u
+   * root"</li>
+   * <li>mysqldumpPath(String path) // default value: "mysqldump"</li>
+   * <li>fetchMode(FetchMode mode) // default value: MYSQLDUMP</li>
+   * <li>localDataSource(DataSource dataSource) // default value: null (connect each time)</li>
+   * <li>scratchDatabasePool(ScratchDatabasePool pool) // default value: null (create and drop a
+   * database for each dump)</li>
+   * <li>batchConcurrency(int num) // default value: 4</li>
+   * <li>fetchConcurrency(int num) // default value: 1</li>
+   * <li>mysqldumpTimeoutMillis(long millis) // default value: 0 (no timeout)</li>
+   * <li>queryTimeoutSeconds(int seconds) // default value: 0 (no timeout)</li>
+   * <li>cache(SchemaCache cache) // default value: null (no cache)</li>
+   * <li>offlineNormalizer(OfflineNormalizer normalizer) // default value: null (use local
+   * MySQL)</li>
+   * <li>remoteNormalization(RemoteNormalization policy) // default value: IF_VERSION_DIFFERS</li>
+   * <li>hostThrottle(HostThrottle throttle) // default value: null (no limit)</li>
+   * <li>scratchServerBalancer(ScratchServerBalancer balancer) // default value: null (use local
+   * MySQL)</li>
+   * <li>statementBatchSize(int size) // default value: 100</li>
+   * <li>tableFilter(TableFilter filter) // default value: all tables</li>
+   * </ul>
+   *
+   * <p>
+   * localDataSource is used instead of connecting to local MySQL for each dump, e.g.
+   * {@link SimpleConnectionPool} or any pool. It must connect to the same MySQL as
+   * localMySqlConnectionInfo, which is still used for mysqldump command.
+   * </p>
+   *
+   * <p>
+   * fetchConcurrency is the number of connections to fetch SHOW CREATE TABLE in parallel, for
+   * FetchMode.JDBC. Note that a dump holds one connection and borrows fetchConcurrency - 1 more
+   * connections from localDataSource.
+   * </p>
+   *
+   * <p>
+   * If offlineNormalizer is set, dumping from SQL is done by it without local MySQL. Dumping from
+   * databases is not affected.
+   * </p>
+   *
+   * <p>
+   * hostThrottle limits concurrent accesses to each remote MySQL, including ones by other
+   * SchemaDumpers which share it. Local MySQL is not throttled.
+   * </p>
+   *
+   * <p>
+   * If scratchServerBalancer is set, SQL is loaded into its servers instead of local MySQL.
+   * Dumping from local databases still uses localMySqlConnectionInfo. It can't be used with
+   * scratchDatabasePool, which holds databases of a single server.
+   * </p>
+   *
+   * <p>
+   * SQL is split into statements and executed by batches of statementBatchSize statements, so that
+   * a SQL file is loaded without reading it entirely when neither cache nor offlineNormalizer is
+   * set. A failure is reported with the line number of the failed statement. Connections to the
+   * scratch server should not set allowMultiQueries or rewriteBatchedStatements; with them,
+   * Connector/J sends a batch as one multi-statement query and the failed statement is unknown.
+   * </p>
+   *
+   * <p>
+   * tableFilter is applied before tables are transferred; queries of INFORMATION_SCHEMA are
+   * filtered, and accepted tables are given to mysqldump and SHOW CREATE TABLE explicitly. SQL is
+   * still loaded entirely, since excluded tables may be referenced by others.
+   * </p>
    */
-  public SchemaDumper(MySqlConnectionInfo localMySqlConnectionInfo, String mysqldumpPath) {
-    if (localMySqlConnectionInfo == null) {
+  @Accessors(fluent = true)
+  public static class Builder {
+    @Setter
+    private MySqlConnectionInfo localMySqlConnectionInfo = MySqlConnectionInfo.builder().build();
+    @Setter
+    private String mysqldumpPath = "mysqldump";
+    @Setter
+    private FetchMode fetchMode = FetchMode.MYSQLDUMP;
+    @Setter
+    private DataSource localDataSource;
+    @Setter
+    private ScratchDatabasePool scratchDatabasePool;
+    @Setter
+    private int batchConcurrency = 4;
+    @Setter
+    private int fetchConcurrency = 1;
+    @Setter
+    private long mysqldumpTimeoutMillis = 0;
+    @Setter
+    private int queryTimeoutSeconds = 0;
+    @Setter
+    private SchemaCache cache;
+    @Setter
+    private OfflineNormalizer offlineNormalizer;
+    @Setter
+    private RemoteNormalization remoteNormalization = RemoteNormalization.IF_VERSION_DIFFERS;
+    @Setter
+    private HostThrottle hostThrottle;
+    @Setter
+    private ScratchServerBalancer scratchServerBalancer;
+    @Setter
+    private int statementBatchSize = 100;
+    @Setter
+    private TableFilter tableFilter = TableFilter.builder().build();
+
+    /**
+     * Builds SchemaDumper.
+     * 
+     * @return New SchemaDumper instance.
+     */
+    public SchemaDumper build() {
+      return new SchemaDumper(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of SchemaDumper.
+   * 
+   * @return Builder of SchemaDumper.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private SchemaDumper(Builder builder) {
+    if (builder.localMySqlConnectionInfo == null) {
       throw new IllegalArgumentException("mysqlConnectionInfo must not be null");
     }
 
-    if (mysqldumpPath == null) {
+    if (builder.mysqldumpPath == null) {
       throw new IllegalArgumentException("mysqldumpPath must not be null");
     }
 
-    this.localMySqlConnectionInfo = localMySqlConnectionInfo;
-    this.mysqldumpPath = mysqldumpPath;
+    if (builder.fetchMode == null) {
+      throw new IllegalArgumentException("fetchMode must not be null");
+    }
+
+    if (builder.remoteNormalization == null) {
+      throw new IllegalArgumentException("remoteNormalization must not be null");
+    }
+
+    localMySqlConnectionInfo = builder.localMySqlConnectionInfo;
+    mysqldumpPath = builder.mysqldumpPath;
+    fetchMode = builder.fetchMode;
+    localDataSource = builder.localDataSource;
+    if (builder.batchConcurrency < 1) {
+      throw new IllegalArgumentException("batchConcurrency must be positive");
+    }
+
+    if (builder.fetchConcurrency < 1) {
+      throw new IllegalArgumentException("fetchConcurrency must be positive");
+    }
+
+    if (builder.mysqldumpTimeoutMillis < 0 || builder.queryTimeoutSeconds < 0) {
+      throw new IllegalArgumentException("timeout must not be negative");
+    }
+
+    scratchDatabasePool = builder.scratchDatabasePool;
+    batchConcurrency = builder.batchConcurrency;
+    fetchConcurrency = builder.fetchConcurrency;
+    mysqldumpTimeoutMillis = builder.mysqldumpTimeoutMillis;
+    queryTimeoutSeconds = builder.queryTimeoutSeconds;
+    cache = builder.cache;
+    offlineNormalizer = builder.offlineNormalizer;
+    remoteNormalization = builder.remoteNormalization;
+    hostThrottle = builder.hostThrottle;
+
+    if (builder.scratchServerBalancer != null && builder.scratchDatabasePool != null) {
+      throw new IllegalArgumentException(
+          "scratchServerBalancer can't be used with scratchDatabasePool");
+    }
+    scratchServerBalancer = builder.scratchServerBalancer;
+
+    if (builder.statementBatchSize < 1) {
+      throw new IllegalArgumentException("statementBatchSize must be positive");
+    }
+    statementBatchSize = builder.statementBatchSize;
+
+    if (builder.tableFilter == null) {
+      throw new IllegalArgumentException("tableFilter must not be null");
+    }
+    tableFilter = builder.tableFilter;
+  }
+
+  /**
+   * Instantiate SchemaDumper.
+   * 
+   * @param localMySqlConnectionInfo Connection information of MySQL which is on your local
+   *        environment.
+   * @param mysqldumpPath Path for mysqldump command.
+   */
+  public SchemaDumper(MySqlConnectionInfo localMySqlConnectionInfo, String mysqldumpPath) {
+    this(builder()
+        .localMySqlConnectionInfo(localMySqlConnectionInfo)
+        .mysqldumpPath(mysqldumpPath));
   }
 
   /**
@@ -99,37 +419,310 @@ public class SchemaDumper {
    * @throws InterruptedException Throw if mysqldump command is failed.
    */
   public String dump(String sql) throws SQLException, IOException, InterruptedException {
-    String tempDbName = new StringBuilder()
-        .append("tmp_")
-        .append(UUID.randomUUID().toString().replaceAll("-", ""))
-        .toString();
+    return dump(sql, null);
+  }
 
-    String mysqlUrl = localMySqlConnectionInfo.getJdbcUrl();
-    String mysqlUser = localMySqlConnectionInfo.getUser();
-    String mysqlPass = localMySqlConnectionInfo.getPass();
-    try (Connection connection = DriverManager.getConnection(mysqlUrl, mysqlUser, mysqlPass)) {
-      try (Statement stmt = connection.createStatement()) {
-        stmt.executeUpdate("CREATE DATABASE " + tempDbName);
+  /**
+   * Dump schema from SQL string in background.
+   * 
+   * @param sql SQL string which is a target to dump.
+   * @return Handle of the dump, which can be cancelled.
+   */
+  public DumpHandle dumpAsync(String sql) {
+    DumpHandle handle = new DumpHandle();
+    Thread thread = new Thread(() -> {
+      try {
+        handle.complete(dump(sql, handle));
+      } catch (Throwable e) {
+        handle.fail(e);
+      }
+    }, "mysql-diff-dump");
+    thread.setDaemon(true);
+    handle.start(thread);
+    return handle;
+  }
+
+  /**
+   * Dump schema from SQL string on given executor.
+   * 
+   * @param sql SQL string which is a target to dump.
+   * @param executor Executor to run dumping (e.g. {@link #newDumpExecutor()}).
+   * @return Future of the result. It is completed exceptionally by the same exception as
+   *         {@link #dump(String)}. Cancelling it does not cancel the dump; use
+   *         {@link #dumpAsync(String)} for a cancellable dump.
+   */
+  public CompletableFuture<String> dumpFuture(String sql, Executor executor) {
+    return callAsync(() -> dump(sql), executor);
+  }
+
+  /**
+   * Dump schema from SQL string and parse it.
+   * 
+   * <p>
+   * If cache is configured, a hit skips dumping; the cached schema is parsed again, which is much
+   * cheaper than dumping.
+   * </p>
+   * 
+   * @param sql SQL string which is a target to dump.
+   * @return Parsed tables.
+   * @throws SQLException Throw if invalid SQL is given.
+   * @throws IOException Throw if mysqldump command is failed.
+   * @throws InterruptedException Throw if mysqldump command is failed.
+   */
+  public List<Table> dumpAndParse(String sql)
+      throws SQLException, IOException, InterruptedException {
+    return SchemaParser.parse(dump(sql));
+  }
+
+  private String dump(String sql, DumpHandle handle)
+      throws SQLException, IOException, InterruptedException {
+    if (cache == null) {
+      return dumpWithoutCache(sql, handle);
+    }
+
+    String key = computeCacheKey(sql);
+    Optional<String> cachedSchema = cache.getSchema(key);
+    if (cachedSchema.isPresent()) {
+      return cachedSchema.get();
+    }
+
+    String schema = dumpWithoutCache(sql, handle);
+    cache.putSchema(key, schema);
+    return schema;
+  }
+
+  private String computeCacheKey(String sql) throws SQLException {
+    if (offlineNormalizer != null) {
+      return SchemaCache.computeKey(sql, "offline", new StringBuilder()
+          .append("OFFLINE:")
+          .append(offlineNormalizer.getDefaultCharset())
+          .append(":")
+          .append(offlineNormalizer.getDefaultEngine())
+          .append(":")
+          .append(offlineNormalizer.isExplicitDefaultsForTimestamp())
+          .append(":")
+          .append(tableFilter)
+          .toString());
+    }
+
+    // mysqldump adds its header; JDBC does not
+    return SchemaCache.computeKey(sql, getLocalServerVersion(), new StringBuilder()
+        .append(fetchMode.name())
+        .append(":")
+        .append(tableFilter)
+        .toString());
+  }
+
+  // Version of the server which normalizes schemas
+  private String getLocalServerVersion() throws SQLException {
+    if (localServerVersion == null) {
+      if (scratchServerBalancer != null) {
+        try (ScratchServerBalancer.Lease lease = scratchServerBalancer.acquire()) {
+          Connection connection;
+          try {
+            connection = getConnection(lease.getMysqlConnectionInfo());
+          } catch (SQLException e) {
+            lease.markFailed();
+            throw e;
+          }
+          try {
+            localServerVersion = fetchServerVersion(connection);
+          } finally {
+            connection.close();
+          }
+        }
+      } else {
+        try (Connection connection = getLocalConnection()) {
+          localServerVersion = fetchServerVersion(connection);
+        }
+      }
+    }
+    return localServerVersion;
+  }
+
+  private static String fetchServerVersion(Connection connection) throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery("SELECT VERSION()")) {
+        resultSet.next();
+        return resultSet.getString(1);
+      }
+    }
+  }
+
+  private String dumpWithoutCache(String sql, DumpHandle handle)
+      throws SQLException, IOException, InterruptedException {
+    if (offlineNormalizer != null) {
+      return offlineNormalizer.normalize(sql, tableFilter);
+    }
+
+    return dumpOnServer(new StringReader(sql), handle);
+  }
+
+  private String dumpOnServer(Reader sqlReader, DumpHandle handle)
+      throws SQLException, IOException, InterruptedException {
+    if (scratchServerBalancer != null) {
+      return dumpOnBalancedServer(sqlReader, handle);
+    }
+
+    try (Connection connection = getLocalConnection()) {
+      return dumpOnScratchServer(connection, localMySqlConnectionInfo, sqlReader, handle);
+    }
+  }
+
+  // sqlReader is consumed only by a server which is connected successfully
+  private String dumpOnBalancedServer(Reader sqlReader, DumpHandle handle)
+      throws SQLException, IOException, InterruptedException {
+    SQLException connectionFailure = null;
+    // Try each server at most once when connecting fails
+    for (int i = 0; i < scratchServerBalancer.getServers().size(); i++) {
+      ScratchServerBalancer.Lease lease;
+      try {
+        lease = scratchServerBalancer.acquire();
+      } catch (SQLException e) {
+        if (connectionFailure != null) {
+          e.addSuppressed(connectionFailure);
+        }
+        throw e;
       }
 
+      try {
+        MySqlConnectionInfo mysqlConnectionInfo = lease.getMysqlConnectionInfo();
+        Connection connection;
+        try {
+          connection = getConnection(mysqlConnectionInfo);
+        } catch (SQLException e) {
+          lease.markFailed();
+          if (connectionFailure != null) {
+            e.addSuppressed(connectionFailure);
+          }
+          connectionFailure = e;
+          continue;
+        }
+
+        try {
+          return dumpOnScratchServer(connection, mysqlConnectionInfo, sqlReader, handle);
+        } catch (SQLException e) {
+          String sqlState = e.getSQLState();
+          if (sqlState != null && sqlState.startsWith("08")) { // connection exception
+            lease.markFailed();
+          }
+          throw e;
+        } finally {
+          connection.close();
+        }
+      } finally {
+        lease.close();
+      }
+    }
+    throw connectionFailure;
+  }
+
+  private String dumpOnScratchServer(Connection connection,
+      MySqlConnectionInfo mysqlConnectionInfo, Reader sqlReader, DumpHandle handle)
+      throws SQLException, IOException, InterruptedException {
+    String tempDbName = acquireScratchDatabase(connection);
+    try {
       try (Statement stmt = connection.createStatement()) {
-        stmt.execute(new StringBuilder()
-            .append("USE ")
-            .append(tempDbName)
-            .append("; ")
-            .append(sql)
-            .toString());
+        stmt.setQueryTimeout(queryTimeoutSeconds);
+        if (handle != null) {
+          handle.attach(stmt);
+        }
+        try {
+          stmt.execute("USE " + tempDbName);
+          executeStatements(stmt, sqlReader);
+        } finally {
+          if (handle != null) {
+            handle.detach(stmt);
+          }
+        }
       }
 
-      return fetchSchemaViaMysqldump(tempDbName);
-    } catch (Exception e) {
-      throw e;
+      if (fetchMode == FetchMode.JDBC) {
+        return fetchSchemaViaJdbc(connection, mysqlConnectionInfo, tempDbName);
+      }
+      if (tableFilter.acceptsAll()) {
+        return fetchSchemaViaMysqldump(tempDbName, mysqlConnectionInfo, handle);
+      }
+      List<String> tableNames = listTables(connection, tempDbName);
+      if (tableNames.isEmpty()) {
+        return ""; // mysqldump dumps all tables if no table is given
+      }
+      return fetchSchemaViaMysqldump(tempDbName, mysqlConnectionInfo, tableNames, handle);
     } finally {
-      try (Connection connection = DriverManager.getConnection(mysqlUrl, mysqlUser, mysqlPass)) {
-        try (Statement stmt = connection.createStatement()) {
-          stmt.executeUpdate("DROP DATABASE " + tempDbName);
+      releaseScratchDatabase(connection, tempDbName);
+    }
+  }
+
+  private void executeStatements(Statement stmt, Reader sqlReader)
+      throws SQLException, IOException {
+    SqlStatementSplitter splitter = new SqlStatementSplitter(sqlReader);
+    List<SqlStatementSplitter.Statement> batch = new ArrayList<>();
+    while (true) {
+      SqlStatementSplitter.Statement statement;
+      try {
+        statement = splitter.next();
+      } catch (IllegalArgumentException e) {
+        throw new SQLSyntaxErrorException(e.getMessage(), "42000", e);
+      }
+
+      if (statement != null) {
+        stmt.addBatch(statement.getSql());
+        batch.add(statement);
+        if (batch.size() < statementBatchSize) {
+          continue;
         }
       }
+      if (!batch.isEmpty()) {
+        executeBatch(stmt, batch);
+        batch.clear();
+      }
+      if (statement == null) {
+        return;
+      }
+    }
+  }
+
+  private static void executeBatch(Statement stmt, List<SqlStatementSplitter.Statement> batch)
+      throws SQLException {
+    try {
+      stmt.executeBatch();
+    } catch (BatchUpdateException e) {
+      // A driver either stops at the failed statement or marks it as EXECUTE_FAILED
+      int[] updateCounts = Optional.ofNullable(e.getUpdateCounts()).orElse(new int[0]);
+      int failedIndex = updateCounts.length;
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+          failedIndex = i;
+          break;
+        }
+      }
+      SqlStatementSplitter.Statement failed = batch.get(Math.min(failedIndex, batch.size() - 1));
+      throw new SQLException(new StringBuilder()
+          .append("Failed to execute the statement at line ")
+          .append(failed.getLineNumber())
+          .append(": ")
+          .append(e.getMessage())
+          .toString(), e.getSQLState(), e.getErrorCode(), e);
+    } finally {
+      stmt.clearBatch();
+    }
+  }
+
+  /**
+   * Drop idle scratch databases of scratchDatabasePool.
+   * 
+   * <p>
+   * This does nothing if scratchDatabasePool is not configured.
+   * </p>
+   * 
+   * @throws SQLException Throw if failed to drop a database.
+   */
+  public void clearScratchDatabases() throws SQLException {
+    if (scratchDatabasePool == null) {
+      return;
+    }
+    try (Connection connection = getLocalConnection()) {
+      scratchDatabasePool.clear(connection);
     }
   }
 
@@ -145,6 +738,12 @@ public class SchemaDumper {
    */
   public String dump(File sqlFile, Charset charset)
       throws IOException, SQLException, InterruptedException {
+    if (cache == null && offlineNormalizer == null) {
+      try (Reader sqlReader = Files.newBufferedReader(sqlFile.toPath(), charset)) {
+        return dumpOnServer(sqlReader, null);
+      }
+    }
+
     String sqlString =
         new String(Files.readAllBytes(Paths.get(sqlFile.getAbsolutePath())), charset);
     return dump(sqlString);
@@ -163,6 +762,58 @@ public class SchemaDumper {
     return dump(sqlFile, StandardCharsets.UTF_8);
   }
 
+  /**
+   * Dump schemas from many SQL strings concurrently.
+   * 
+   * <p>
+   * Each SQL is loaded into its own scratch database, by batchConcurrency workers. Failure of an
+   * input does not abort others; it is reported in the result.
+   * </p>
+   * 
+   * @param sqls SQL strings which are targets to dump, keyed by arbitrary keys.
+   * @param <K> Type of keys.
+   * @return Result of dumping, keyed by the same keys.
+   * @throws InterruptedException Throw if interrupted while waiting; running dumps are cancelled.
+   */
+  public <K> BatchDumpResult<K> dumpAll(Map<K, String> sqls) throws InterruptedException {
+    Map<K, Callable<String>> tasks = new LinkedHashMap<>();
+    for (Map.Entry<K, String> entry : sqls.entrySet()) {
+      String sql = entry.getValue();
+      tasks.put(entry.getKey(), () -> dump(sql));
+    }
+    return runAll(tasks);
+  }
+
+  /**
+   * Dump schemas from many SQL files concurrently.
+   * 
+   * @param sqlFiles SQL files.
+   * @param charset Character set of SQL files.
+   * @return Result of dumping, keyed by the files.
+   * @throws InterruptedException Throw if interrupted while waiting; running dumps are cancelled.
+   * @see #dumpAll(Map)
+   */
+  public BatchDumpResult<File> dumpAll(Collection<File> sqlFiles, Charset charset)
+      throws InterruptedException {
+    Map<File, Callable<String>> tasks = new LinkedHashMap<>();
+    for (File sqlFile : sqlFiles) {
+      tasks.put(sqlFile, () -> dump(sqlFile, charset));
+    }
+    return runAll(tasks);
+  }
+
+  /**
+   * Dump schemas from many SQL files which are written by UTF-8 concurrently.
+   * 
+   * @param sqlFiles SQL files (written by UTF-8).
+   * @return Result of dumping, keyed by the files.
+   * @throws InterruptedException Throw if interrupted while waiting; running dumps are cancelled.
+   * @see #dumpAll(Map)
+   */
+  public BatchDumpResult<File> dumpAll(Collection<File> sqlFiles) throws InterruptedException {
+    return dumpAll(sqlFiles, StandardCharsets.UTF_8);
+  }
+
   /**
    * Dump schema from DB name which is in local MySQL.
    * 
@@ -174,12 +825,16 @@ public class SchemaDumper {
    */
   public String dumpFromLocalDb(String dbName)
       throws IOException, InterruptedException, SQLException {
-    return fetchSchemaViaMysqldump(dbName);
+    return fetchSchema(dbName, localMySqlConnectionInfo);
   }
 
   /**
    * Dump schema from DB name which is in remote MySQL.
    * 
+   * <p>
+   * The schema is normalized by local MySQL according to remoteNormalization.
+   * </p>
+   * 
    * @param dbName DB name which is in remote MySQL.
    * @param mysqlConnectionInfo Connection information of remote MySQL.
    * @return Result of dumping.
@@ -189,60 +844,922 @@ public class SchemaDumper {
    */
   public String dumpFromRemoteDb(String dbName, MySqlConnectionInfo mysqlConnectionInfo)
       throws IOException, InterruptedException, SQLException {
-    String schema = fetchSchemaViaMysqldump(dbName, mysqlConnectionInfo);
-    return dump(schema);
+    String schema;
+    try (HostThrottle.Permit permit = acquireHostPermit(mysqlConnectionInfo)) {
+      prefetchRemoteServerVersion(mysqlConnectionInfo, null);
+      schema = fetchSchema(dbName, mysqlConnectionInfo);
+    }
+    return normalizeRemoteSchema(schema, mysqlConnectionInfo);
   }
 
-  private String fetchSchemaViaMysqldump(String dbName, MySqlConnectionInfo mysqlConnectionInfo)
-      throws IOException, InterruptedException {
+  /**
+   * Dump schema of given tables from DB name which is in local MySQL.
+   * 
+   * @param dbName DB name which is in local MySQL.
+   * @param tableNames Names of tables to dump. They must exist.
+   * @return Result of dumping. It is empty if no table is given.
+   * @throws SQLException Throw if invalid SQL is given.
+   * @throws IOException Throw if mysqldump command is failed.
+   * @throws InterruptedException Throw if mysqldump command is failed.
+   */
+  public String dumpTablesFromLocalDb(String dbName, Collection<String> tableNames)
+      throws IOException, InterruptedException, SQLException {
+    return fetchSchema(dbName, localMySqlConnectionInfo, tableNames);
+  }
+
+  /**
+   * Dump schema of given tables from DB name which is in remote MySQL.
+   * 
+   * <p>
+   * This is useful to dump only tables which differ by {@link SchemaFingerprint}.
+   * </p>
+   * 
+   * @param dbName DB name which is in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @param tableNames Names of tables to dump. They must exist.
+   * @return Result of dumping. It is empty if no table is given.
+   * @throws SQLException Throw if invalid SQL is given.
+   * @throws IOException Throw if mysqldump command is failed.
+   * @throws InterruptedException Throw if mysqldump command is failed.
+   */
+  public String dumpTablesFromRemoteDb(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      Collection<String> tableNames) throws IOException, InterruptedException, SQLException {
+    if (tableNames.isEmpty()) {
+      return "";
+    }
     String schema;
+    try (HostThrottle.Permit permit = acquireHostPermit(mysqlConnectionInfo)) {
+      prefetchRemoteServerVersion(mysqlConnectionInfo, null);
+      schema = fetchSchema(dbName, mysqlConnectionInfo, tableNames);
+    }
+    return normalizeRemoteSchema(schema, mysqlConnectionInfo);
+  }
+
+  /**
+   * Dump schema from DB name which is in local MySQL on given executor.
+   * 
+   * @param dbName DB name which is in local MySQL.
+   * @param executor Executor to run dumping (e.g. {@link #newDumpExecutor()}).
+   * @return Future of the result. It is completed exceptionally by the same exception as
+   *         {@link #dumpFromLocalDb(String)}. Cancelling it does not cancel the dump.
+   */
+  public CompletableFuture<String> dumpFromLocalDbFuture(String dbName, Executor executor) {
+    return callAsync(() -> dumpFromLocalDb(dbName), executor);
+  }
+
+  /**
+   * Dump schema from DB name which is in remote MySQL on given executor.
+   * 
+   * @param dbName DB name which is in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @param executor Executor to run dumping (e.g. {@link #newDumpExecutor()}).
+   * @return Future of the result. It is completed exceptionally by the same exception as
+   *         {@link #dumpFromRemoteDb(String, MySqlConnectionInfo)}. Cancelling it does not
+   *         cancel the dump.
+   */
+  public CompletableFuture<String> dumpFromRemoteDbFuture(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo, Executor executor) {
+    return callAsync(() -> dumpFromRemoteDb(dbName, mysqlConnectionInfo), executor);
+  }
+
+  /**
+   * Create an executor which is suitable for dumping.
+   * 
+   * <p>
+   * Dumping mostly waits for MySQL and mysqldump, so this returns an executor which starts a
+   * virtual thread for each task on Java 21 or later, or an unbounded pool of daemon threads on
+   * older Java. Caller should shut it down.
+   * </p>
+   * 
+   * @return New executor.
+   */
+  public static ExecutorService newDumpExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+      // before Java 21, or preview feature is not enabled
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mysql-diff-dump");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  static <T> CompletableFuture<T> callAsync(Callable<T> task, Executor executor) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(task.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Dump schema from DB name which is in remote MySQL, fetching only changed tables.
+   * 
+   * <p>
+   * A signature of each table is computed from INFORMATION_SCHEMA (TABLES, COLUMNS, STATISTICS,
+   * KEY_COLUMN_USAGE and REFERENTIAL_CONSTRAINTS), and SHOW CREATE TABLE is issued only for tables
+   * whose signature differs from the snapshot of the previous run. The snapshot is updated with
+   * them, and the merged schema is normalized by local MySQL as {@link #dumpFromRemoteDb}.
+   * </p>
+   * 
+   * @param dbName DB name which is in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @param snapshotFile File to keep the snapshot. It is created if not exists.
+   * @return Result of dumping.
+   * @throws SQLException Throw if failed to query remote MySQL or invalid SQL is given.
+   * @throws IOException Throw if failed to read or write the snapshot.
+   * @throws InterruptedException Throw if mysqldump command is failed.
+   */
+  public String dumpFromRemoteDbIncrementally(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo, File snapshotFile)
+      throws SQLException, IOException, InterruptedException {
+    SchemaSnapshot snapshot = SchemaSnapshot.load(snapshotFile.toPath());
+
+    Map<String, String> fetchedCreateTables = new HashMap<>();
+    Map<String, String> signatures;
+    try (HostThrottle.Permit permit = acquireHostPermit(mysqlConnectionInfo);
+        Connection connection = getConnection(mysqlConnectionInfo)) {
+      prefetchRemoteServerVersion(mysqlConnectionInfo, connection);
+      // Signatures are taken before DDL; a table altered in between is fetched again next time
+      signatures = fetchTableSignatures(connection, dbName, tableFilter);
+
+      List<String> changedTables = snapshot.findChangedTables(signatures);
+      String[] createTables = new String[changedTables.size()];
+      fetchCreateTables(connection, dbName, changedTables, createTables, new AtomicInteger());
+      for (int i = 0; i < createTables.length; i++) {
+        fetchedCreateTables.put(changedTables.get(i), createTables[i]);
+      }
+    }
+
+    SchemaSnapshot updated = snapshot.update(signatures, fetchedCreateTables);
+    updated.save(snapshotFile.toPath());
+    return normalizeRemoteSchema(updated.toSchema(), mysqlConnectionInfo);
+  }
+
+  private String normalizeRemoteSchema(String schema, MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException, IOException, InterruptedException {
+    switch (remoteNormalization) {
+      case NEVER:
+        return schema;
+      case IF_VERSION_DIFFERS:
+        if (offlineNormalizer != null) {
+          break; // it emulates a specific version, and it is fast anyway
+        }
+        String remoteServerVersion = remoteServerVersions.get(toHostKey(mysqlConnectionInfo));
+        if (remoteServerVersion == null) {
+          try (HostThrottle.Permit permit = acquireHostPermit(mysqlConnectionInfo)) {
+            prefetchRemoteServerVersion(mysqlConnectionInfo, null);
+          }
+          remoteServerVersion = remoteServerVersions.get(toHostKey(mysqlConnectionInfo));
+        }
+        if (isSameServerVersion(remoteServerVersion, getLocalServerVersion())) {
+          return schema;
+        }
+        break;
+      default:
+        break;
+    }
+    return dump(schema);
+  }
+
+  // Call this while holding the permit of the host, so that the version is fetched in the same
+  // access as the dump. The connection is opened only if given one is null.
+  private void prefetchRemoteServerVersion(MySqlConnectionInfo mysqlConnectionInfo,
+      Connection connection) throws SQLException {
+    if (remoteNormalization != RemoteNormalization.IF_VERSION_DIFFERS
+        || offlineNormalizer != null) {
+      return;
+    }
+    String hostKey = toHostKey(mysqlConnectionInfo);
+    if (remoteServerVersions.containsKey(hostKey)) {
+      return;
+    }
+    if (connection != null) {
+      remoteServerVersions.put(hostKey, fetchServerVersion(connection));
+      return;
+    }
+    try (Connection newConnection = getConnection(mysqlConnectionInfo)) {
+      remoteServerVersions.put(hostKey, fetchServerVersion(newConnection));
+    }
+  }
+
+  private static String toHostKey(MySqlConnectionInfo mysqlConnectionInfo) {
+    return mysqlConnectionInfo.getHost() + ":" + mysqlConnectionInfo.getPort();
+  }
+
+  /**
+   * Compare versions of MySQL servers by flavor (MySQL or MariaDB) and major.minor.patch.
+   * 
+   * @param version1 Result of SELECT VERSION() (e.g. "5.7.44-log").
+   * @param version2 Result of SELECT VERSION().
+   * @return True if both of them are the same.
+   */
+  static boolean isSameServerVersion(String version1, String version2) {
+    Matcher matcher1 = SERVER_VERSION_PATTERN.matcher(version1);
+    Matcher matcher2 = SERVER_VERSION_PATTERN.matcher(version2);
+    if (!matcher1.find() || !matcher2.find()) {
+      return false;
+    }
+    boolean isMariaDb1 = version1.toLowerCase(Locale.ROOT).contains("mariadb");
+    boolean isMariaDb2 = version2.toLowerCase(Locale.ROOT).contains("mariadb");
+    return matcher1.group().equals(matcher2.group()) && isMariaDb1 == isMariaDb2;
+  }
+
+  /**
+   * Read tables of many DBs which are in local MySQL at once.
+   * 
+   * @param dbNames DB names which are in local MySQL.
+   * @return Tables of each DB, keyed by DB name.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA, or unsupported table is
+   *         found.
+   */
+  public Map<String, List<Table>> fetchTablesFromLocalDbs(Collection<String> dbNames)
+      throws SQLException {
+    return fetchTablesFromDbs(dbNames, localMySqlConnectionInfo);
+  }
+
+  /**
+   * Read tables of many DBs which are in remote MySQL at once.
+   * 
+   * <p>
+   * Instead of running mysqldump for each DB, INFORMATION_SCHEMA is read by a few set-based
+   * queries for all of DBs over one connection, and tables are built in memory. They are rendered
+   * in the same format as {@link OfflineNormalizer}, which is the same as SHOW CREATE TABLE of
+   * MySQL 5.7 except for explicit USING clauses of indexes. So compare the result with other
+   * results of this method or {@link OfflineNormalizer}, rather than results of mysqldump.
+   * Partitioned tables and functional indexes are not supported.
+   * </p>
+   * 
+   * @param dbNames DB names which are in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @return Tables of each DB, keyed by DB name. DBs which don't exist have no tables.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA, or unsupported table is
+   *         found.
+   */
+  public Map<String, List<Table>> fetchTablesFromRemoteDbs(Collection<String> dbNames,
+      MySqlConnectionInfo mysqlConnectionInfo) throws SQLException {
+    try (HostThrottle.Permit permit = acquireHostPermitOrThrow(mysqlConnectionInfo)) {
+      return fetchTablesFromDbs(dbNames, mysqlConnectionInfo);
+    }
+  }
+
+  private Map<String, List<Table>> fetchTablesFromDbs(Collection<String> dbNames,
+      MySqlConnectionInfo mysqlConnectionInfo) throws SQLException {
+    Map<String, String> schemas;
+    try (Connection connection = getConnection(mysqlConnectionInfo)) {
+      schemas = CatalogReader.readSchemas(connection, dbNames, queryTimeoutSeconds, tableFilter);
+    }
+
+    Map<String, List<Table>> tables = new TreeMap<>();
+    for (Map.Entry<String, String> entry : schemas.entrySet()) {
+      tables.put(entry.getKey(), SchemaParser.parse(entry.getValue()));
+    }
+    return tables;
+  }
+
+  /**
+   * Compute fingerprint of DB which is in local MySQL.
+   * 
+   * @param dbName DB name which is in local MySQL.
+   * @return Fingerprint of the schema.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA.
+   */
+  public SchemaFingerprint fetchFingerprintFromLocalDb(String dbName) throws SQLException {
+    return fetchFingerprint(dbName, localMySqlConnectionInfo);
+  }
+
+  /**
+   * Compute fingerprint of DB which is in remote MySQL.
+   * 
+   * <p>
+   * Checksums of tables are computed on the server by a single aggregate query over
+   * INFORMATION_SCHEMA (TABLES, COLUMNS, STATISTICS, KEY_COLUMN_USAGE and
+   * REFERENTIAL_CONSTRAINTS), so only a checksum per table is transferred. Compare them with
+   * another fingerprint to find whether dumping is necessary, and which tables to dump by
+   * {@link #dumpTablesFromRemoteDb(String, MySqlConnectionInfo, Collection)}.
+   * </p>
+   * 
+   * @param dbName DB name which is in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @return Fingerprint of the schema.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA.
+   */
+  public SchemaFingerprint fetchFingerprintFromRemoteDb(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo) throws SQLException {
+    try (HostThrottle.Permit permit = acquireHostPermitOrThrow(mysqlConnectionInfo)) {
+      return fetchFingerprint(dbName, mysqlConnectionInfo);
+    }
+  }
+
+  private SchemaFingerprint fetchFingerprint(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo) throws SQLException {
+    try (Connection connection = getConnection(mysqlConnectionInfo)) {
+      // Default value (1024) is too short for wide tables.
+      // It is restored because the connection may be pooled.
+      long groupConcatMaxLen;
+      try (Statement stmt = connection.createStatement()) {
+        try (ResultSet resultSet =
+            stmt.executeQuery("SELECT @@SESSION.group_concat_max_len")) {
+          resultSet.next();
+          groupConcatMaxLen = resultSet.getLong(1);
+        }
+        stmt.execute("SET SESSION group_concat_max_len = 4294967295");
+      }
+
+      try {
+        Map<String, String> tableChecksums = new TreeMap<>();
+        // The column is absent before MySQL 5.7.6, where no column is generated; it is empty for
+        // other columns, so checksums are still comparable with newer servers
+        String query = String.format(FINGERPRINT_QUERY,
+            hasGenerationExpressionColumn(connection) ? "c.GENERATION_EXPRESSION" : "''");
+        try (PreparedStatement stmt = connection.prepareStatement(
+            query + tableFilter.toSqlCondition("t.TABLE_NAME"))) {
+          stmt.setQueryTimeout(queryTimeoutSeconds);
+          stmt.setString(1, dbName);
+          tableFilter.bind(stmt, 2);
+          try (ResultSet resultSet = stmt.executeQuery()) {
+            while (resultSet.next()) {
+              tableChecksums.put(resultSet.getString(1), resultSet.getString(2));
+            }
+          }
+
+          for (SQLWarning warning = stmt.getWarnings(); warning != null;
+              warning = warning.getNextWarning()) {
+            if (warning.getErrorCode() == 1260) { // ER_CUT_VALUE_GROUP_CONCAT
+              throw new SQLException("Definition of a table is too long to compute checksum: "
+                  + warning.getMessage());
+            }
+          }
+        }
+        return new SchemaFingerprint(tableChecksums);
+      } finally {
+        try (PreparedStatement stmt =
+            connection.prepareStatement("SET SESSION group_concat_max_len = ?")) {
+          // a string is rejected for an integer variable (error 1232)
+          stmt.setLong(1, groupConcatMaxLen);
+          stmt.execute();
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetch statistics of tables from DB which is in local MySQL.
+   * 
+   * @param dbName DB name which is in local MySQL.
+   * @param tableNames Names of tables to fetch statistics.
+   * @return Statistics of tables, keyed by table name. Missing tables are not contained.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA.
+   */
+  public Map<String, TableStatistics> fetchTableStatisticsFromLocalDb(String dbName,
+      Collection<String> tableNames) throws SQLException {
+    return fetchTableStatistics(dbName, localMySqlConnectionInfo, tableNames);
+  }
+
+  /**
+   * Fetch statistics of tables from DB which is in remote MySQL.
+   * 
+   * <p>
+   * TABLE_ROWS, DATA_LENGTH and INDEX_LENGTH are read from INFORMATION_SCHEMA.TABLES. Note that
+   * MySQL 8.0 caches them for information_schema_stats_expiry seconds.
+   * </p>
+   * 
+   * @param dbName DB name which is in remote MySQL.
+   * @param mysqlConnectionInfo Connection information of remote MySQL.
+   * @param tableNames Names of tables to fetch statistics.
+   * @return Statistics of tables, keyed by table name. Missing tables are not contained.
+   * @throws SQLException Throw if failed to query INFORMATION_SCHEMA.
+   */
+  public Map<String, TableStatistics> fetchTableStatisticsFromRemoteDb(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo, Collection<String> tableNames)
+      throws SQLException {
+    try (HostThrottle.Permit permit = acquireHostPermitOrThrow(mysqlConnectionInfo)) {
+      return fetchTableStatistics(dbName, mysqlConnectionInfo, tableNames);
+    }
+  }
+
+  private Map<String, TableStatistics> fetchTableStatistics(String dbName,
+      MySqlConnectionInfo mysqlConnectionInfo, Collection<String> tableNames)
+      throws SQLException {
+    Map<String, TableStatistics> statistics = new HashMap<>();
+    if (tableNames.isEmpty()) {
+      return statistics;
+    }
+
+    String query = new StringBuilder()
+        .append("SELECT TABLE_NAME, TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH")
+        .append(" FROM information_schema.TABLES")
+        .append(" WHERE TABLE_SCHEMA = ? AND TABLE_NAME IN (")
+        .append(String.join(", ", Collections.nCopies(tableNames.size(), "?")))
+        .append(")")
+        .toString();
+
+    try (Connection connection = getConnection(mysqlConnectionInfo)) {
+      try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        int index = 1;
+        stmt.setString(index++, dbName);
+        for (String tableName : tableNames) {
+          stmt.setString(index++, tableName);
+        }
+
+        try (ResultSet resultSet = stmt.executeQuery()) {
+          while (resultSet.next()) {
+            String tableName = resultSet.getString("TABLE_NAME");
+            statistics.put(tableName, new TableStatistics(
+                tableName,
+                resultSet.getLong("TABLE_ROWS"),
+                resultSet.getLong("DATA_LENGTH"),
+                resultSet.getLong("INDEX_LENGTH")));
+          }
+        }
+      }
+    }
+
+    return statistics;
+  }
+
+  private String fetchSchemaViaMysqldump(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      DumpHandle handle) throws IOException, InterruptedException {
+    return fetchSchemaViaMysqldump(dbName, mysqlConnectionInfo, null, handle);
+  }
+
+  private String fetchSchemaViaMysqldump(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      Collection<String> tableNames, DumpHandle handle) throws IOException, InterruptedException {
     List<String> mysqldumpCommand = new ArrayList<>(Arrays.asList(
         mysqldumpPath,
         "--no-data=true",
         dbName));
+    if (tableNames != null) {
+      mysqldumpCommand.addAll(new TreeSet<>(tableNames));
+    }
 
     String mysqlUser = mysqlConnectionInfo.getUser();
     if (!mysqlUser.isEmpty()) {
       mysqldumpCommand.add(new StringBuilder().append("-u").append(mysqlUser).toString());
     }
 
-    String mysqlHost = mysqlConnectionInfo.getHost();
-    if (!mysqlHost.isEmpty()) {
-      mysqldumpCommand.add(new StringBuilder().append("-h").append(mysqlHost).toString());
+    String socketPath = mysqlConnectionInfo.getSocketPath();
+    if (socketPath != null) {
+      mysqldumpCommand.add("--protocol=SOCKET");
+      mysqldumpCommand.add(new StringBuilder().append("--socket=").append(socketPath).toString());
+    } else {
+      String mysqlHost = mysqlConnectionInfo.getHost();
+      if (!mysqlHost.isEmpty()) {
+        mysqldumpCommand.add(new StringBuilder().append("-h").append(mysqlHost).toString());
+      }
+
+      int mysqlPort = mysqlConnectionInfo.getPort();
+      if (mysqlPort != 3306) {
+        // Otherwise "localhost" means the default unix socket, and the port is ignored
+        mysqldumpCommand.add("--protocol=TCP");
+        mysqldumpCommand.add(new StringBuilder().append("-P").append(mysqlPort).toString());
+      }
     }
 
     ProcessBuilder processBuilder = new ProcessBuilder(mysqldumpCommand);
 
     Process process = processBuilder.start();
-    try (InputStream inputStream = process.getInputStream()) {
-      StringBuilder stdoutStringBuilder = new StringBuilder();
-      try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream))) {
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-          stdoutStringBuilder.append(line).append(LINE_SEPARATOR);
-        }
-      }
-      schema = stdoutStringBuilder.toString();
+    if (handle != null) {
+      handle.attach(process);
     }
+    try {
+      process.getOutputStream().close();
 
-    if (process.waitFor() != 0) {
-      throw new RuntimeException(
-          new StringBuilder()
-              .append("Failed to execute `mysqldump` command.\n")
-              .append("[command] >>>\n")
+      // Both of them must be drained, otherwise the process blocks when a pipe is full
+      CompletableFuture<String> stdout = drain(process.getInputStream());
+      CompletableFuture<String> stderr = drain(process.getErrorStream());
+
+      if (mysqldumpTimeoutMillis > 0) {
+        if (!process.waitFor(mysqldumpTimeoutMillis, TimeUnit.MILLISECONDS)) {
+          throw new IOException(new StringBuilder()
+              .append("`mysqldump` command timed out in ")
+              .append(mysqldumpTimeoutMillis)
+              .append(" ms: ")
               .append(String.join(" ", mysqldumpCommand))
-              .append("\n<<<\n")
-              .append("[output] >>>\n")
-              .append(schema)
-              .append("\n<<<\n")
               .toString());
+        }
+      } else {
+        process.waitFor();
+      }
+
+      String schema = awaitDrained(stdout);
+      if (process.exitValue() != 0) {
+        throw new RuntimeException(
+            new StringBuilder()
+                .append("Failed to execute `mysqldump` command.\n")
+                .append("[command] >>>\n")
+                .append(String.join(" ", mysqldumpCommand))
+                .append("\n<<<\n")
+                .append("[output] >>>\n")
+                .append(schema)
+                .append("\n<<<\n")
+                .append("[error] >>>\n")
+                .append(awaitDrained(stderr))
+                .append("\n<<<\n")
+                .toString());
+      }
+
+      return schema;
+    } finally {
+      if (handle != null) {
+        handle.detach(process);
+      }
+      process.destroyForcibly();
     }
+  }
 
-    return schema;
+  private static CompletableFuture<String> drain(InputStream inputStream) {
+    CompletableFuture<String> drained = new CompletableFuture<>();
+    Thread thread = new Thread(() -> {
+      StringBuilder stringBuilder = new StringBuilder();
+      char[] buffer = new char[8192];
+      try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+          stringBuilder.append(buffer, 0, read);
+        }
+        drained.complete(stringBuilder.toString());
+      } catch (IOException e) {
+        drained.completeExceptionally(e);
+      }
+    }, "mysql-diff-mysqldump-drainer");
+    thread.setDaemon(true);
+    thread.start();
+    return drained;
+  }
+
+  private static String awaitDrained(CompletableFuture<String> drained)
+      throws IOException, InterruptedException {
+    try {
+      return drained.get();
+    } catch (ExecutionException e) {
+      throw (IOException) e.getCause();
+    }
   }
 
-  private String fetchSchemaViaMysqldump(String dbName)
+  private String fetchSchema(String dbName, MySqlConnectionInfo mysqlConnectionInfo)
       throws IOException, InterruptedException, SQLException {
-    return fetchSchemaViaMysqldump(dbName, localMySqlConnectionInfo);
+    return fetchSchema(dbName, mysqlConnectionInfo, null);
+  }
+
+  // tableNames == null means all tables which are accepted by tableFilter
+  private String fetchSchema(String dbName, MySqlConnectionInfo mysqlConnectionInfo,
+      Collection<String> tableNames) throws IOException, InterruptedException, SQLException {
+    if (tableNames != null) {
+      tableNames = tableFilter.filter(tableNames);
+      if (tableNames.isEmpty()) {
+        return ""; // mysqldump dumps all tables if no table is given
+      }
+    }
+    if (fetchMode == FetchMode.JDBC) {
+      try (Connection connection = getConnection(mysqlConnectionInfo)) {
+        return fetchSchemaViaJdbc(connection, mysqlConnectionInfo, dbName, tableNames);
+      }
+    }
+
+    if (tableNames == null && !tableFilter.acceptsAll()) {
+      // mysqldump doesn't take patterns of table names
+      try (Connection connection = getConnection(mysqlConnectionInfo)) {
+        tableNames = listTables(connection, dbName);
+      }
+      if (tableNames.isEmpty()) {
+        return "";
+      }
+    }
+    return fetchSchemaViaMysqldump(dbName, mysqlConnectionInfo, tableNames, null);
+  }
+
+  // Names of base tables which are accepted by tableFilter
+  private List<String> listTables(Connection connection, String dbName) throws SQLException {
+    List<String> tableNames = new ArrayList<>();
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery(new StringBuilder()
+          .append("SHOW FULL TABLES FROM ")
+          .append(quoteIdentifier(dbName))
+          .append(" WHERE Table_type = 'BASE TABLE'")
+          .toString())) {
+        while (resultSet.next()) {
+          tableNames.add(resultSet.getString(1));
+        }
+      }
+    }
+    return tableFilter.filter(tableNames);
+  }
+
+  private String fetchSchemaViaJdbc(Connection connection, MySqlConnectionInfo mysqlConnectionInfo,
+      String dbName) throws SQLException, InterruptedException {
+    return fetchSchemaViaJdbc(connection, mysqlConnectionInfo, dbName, null);
+  }
+
+  private String fetchSchemaViaJdbc(Connection connection, MySqlConnectionInfo mysqlConnectionInfo,
+      String dbName, Collection<String> givenTableNames)
+      throws SQLException, InterruptedException {
+    List<String> tableNames = givenTableNames != null
+        ? tableFilter.filter(givenTableNames) : listTables(connection, dbName);
+    Collections.sort(tableNames);
+
+    // Each worker takes the next table; results are placed by index to keep the order
+    String[] createTables = new String[tableNames.size()];
+    AtomicInteger cursor = new AtomicInteger();
+    int numOfWorkers = Math.min(fetchConcurrency, tableNames.size());
+    if (numOfWorkers <= 1) {
+      fetchCreateTables(connection, dbName, tableNames, createTables, cursor);
+    } else {
+      ExecutorService executor = Executors.newFixedThreadPool(numOfWorkers - 1);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < numOfWorkers; i++) {
+          futures.add(executor.submit(() -> {
+            try (Connection workerConnection = getConnection(mysqlConnectionInfo)) {
+              fetchCreateTables(workerConnection, dbName, tableNames, createTables, cursor);
+            } catch (SQLException | RuntimeException e) {
+              cursor.set(tableNames.size()); // stop other workers
+              throw e;
+            }
+            return null;
+          }));
+        }
+
+        // The given connection works as one of workers
+        try {
+          fetchCreateTables(connection, dbName, tableNames, createTables, cursor);
+        } catch (SQLException | RuntimeException e) {
+          cursor.set(tableNames.size());
+          throw e;
+        }
+
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+              throw (SQLException) cause;
+            }
+            if (cause instanceof Error) {
+              throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+          }
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    StringBuilder schemaBuilder = new StringBuilder();
+    for (String createTable : createTables) {
+      schemaBuilder.append(createTable).append(";\n\n");
+    }
+    return schemaBuilder.toString();
+  }
+
+  private void fetchCreateTables(Connection connection, String dbName, List<String> tableNames,
+      String[] createTables, AtomicInteger cursor) throws SQLException {
+    String quotedDbName = quoteIdentifier(dbName);
+
+    // Same as mysqldump; SHOW CREATE TABLE depends on them.
+    // They are restored because the connection may be pooled.
+    String sqlMode;
+    boolean sqlQuoteShowCreate;
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery(
+          "SELECT @@SESSION.sql_mode, @@SESSION.sql_quote_show_create")) {
+        resultSet.next();
+        sqlMode = resultSet.getString(1);
+        sqlQuoteShowCreate = resultSet.getBoolean(2);
+      }
+      stmt.execute("SET SESSION sql_mode = '', SESSION sql_quote_show_create = 1");
+    }
+
+    try {
+      int index;
+      while ((index = cursor.getAndIncrement()) < tableNames.size()) {
+        try (Statement stmt = connection.createStatement()) {
+          stmt.setQueryTimeout(queryTimeoutSeconds);
+          try (ResultSet resultSet = stmt.executeQuery(new StringBuilder()
+              .append("SHOW CREATE TABLE ")
+              .append(quotedDbName)
+              .append(".")
+              .append(quoteIdentifier(tableNames.get(index)))
+              .toString())) {
+            if (resultSet.next()) {
+              createTables[index] = resultSet.getString(2);
+            }
+          }
+        }
+      }
+    } finally {
+      // a string is rejected for a boolean variable, so it is given as a literal
+      try (PreparedStatement stmt = connection.prepareStatement(
+          "SET SESSION sql_mode = ?, SESSION sql_quote_show_create = "
+              + (sqlQuoteShowCreate ? "ON" : "OFF"))) {
+        stmt.setString(1, sqlMode);
+        stmt.execute();
+      }
+    }
+  }
+
+  private static Map<String, String> fetchTableSignatures(Connection connection, String dbName,
+      TableFilter tableFilter) throws SQLException {
+    String condition = tableFilter.toSqlCondition("TABLE_NAME");
+    // the column is absent before MySQL 5.7.6, where no column is generated
+    String generationExpression =
+        hasGenerationExpressionColumn(connection) ? " GENERATION_EXPRESSION" : " NULL";
+    String[] queries = new String[] {
+        "SELECT TABLE_NAME, CREATE_TIME, ENGINE, TABLE_COLLATION, CREATE_OPTIONS, TABLE_COMMENT"
+            + " FROM information_schema.TABLES"
+            + " WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'" + condition,
+        "SELECT TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, COLUMN_DEFAULT, IS_NULLABLE,"
+            + " COLUMN_TYPE, CHARACTER_SET_NAME, COLLATION_NAME, EXTRA, COLUMN_COMMENT,"
+            + generationExpression
+            + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ?" + condition
+            + " ORDER BY TABLE_NAME, ORDINAL_POSITION",
+        "SELECT TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME, SUB_PART, NON_UNIQUE,"
+            + " INDEX_TYPE, INDEX_COMMENT"
+            + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ?" + condition
+            + " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX",
+        "SELECT TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION, COLUMN_NAME,"
+            + " REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME"
+            + " FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = ?" + condition
+            + " ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION",
+        "SELECT TABLE_NAME, CONSTRAINT_NAME, UPDATE_RULE, DELETE_RULE"
+            + " FROM information_schema.REFERENTIAL_CONSTRAINTS WHERE CONSTRAINT_SCHEMA = ?"
+            + condition
+            + " ORDER BY TABLE_NAME, CONSTRAINT_NAME"};
+
+    Map<String, MessageDigest> digests = new TreeMap<>();
+    for (int i = 0; i < queries.length; i++) {
+      try (PreparedStatement stmt = connection.prepareStatement(queries[i])) {
+        stmt.setString(1, dbName);
+        tableFilter.bind(stmt, 2);
+        try (ResultSet resultSet = stmt.executeQuery()) {
+          int numOfColumns = resultSet.getMetaData().getColumnCount();
+          while (resultSet.next()) {
+            String tableName = resultSet.getString(1);
+            MessageDigest digest;
+            if (i == 0) {
+              digest = newSha256();
+              digests.put(tableName, digest);
+            } else {
+              digest = digests.get(tableName);
+              if (digest == null) {
+                continue; // not a base table
+              }
+            }
+
+            digest.update((byte) i);
+            for (int column = 2; column <= numOfColumns; column++) {
+              String value = resultSet.getString(column);
+              if (value == null) {
+                digest.update((byte) 1);
+              } else {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    Map<String, String> signatures = new TreeMap<>();
+    for (Map.Entry<String, MessageDigest> entry : digests.entrySet()) {
+      StringBuilder signatureBuilder = new StringBuilder();
+      for (byte b : entry.getValue().digest()) {
+        signatureBuilder.append(String.format("%02x", b & 0xff));
+      }
+      signatures.put(entry.getKey(), signatureBuilder.toString());
+    }
+    return signatures;
+  }
+
+  /**
+   * Check whether INFORMATION_SCHEMA.COLUMNS has GENERATION_EXPRESSION, which is added by MySQL
+   * 5.7.6.
+   */
+  static boolean hasGenerationExpressionColumn(Connection connection) throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery(
+          "SHOW COLUMNS FROM information_schema.COLUMNS LIKE 'GENERATION_EXPRESSION'")) {
+        return resultSet.next();
+      }
+    }
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e); // SHA-256 is always supported
+    }
+  }
+
+  private <K> BatchDumpResult<K> runAll(Map<K, Callable<String>> tasks)
+      throws InterruptedException {
+    Map<K, String> schemas = new LinkedHashMap<>();
+    Map<K, Exception> failures = new LinkedHashMap<>();
+    if (tasks.isEmpty()) {
+      return new BatchDumpResult<>(schemas, failures);
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(batchConcurrency, tasks.size()));
+    try {
+      Map<K, Future<String>> futures = new LinkedHashMap<>();
+      for (Map.Entry<K, Callable<String>> entry : tasks.entrySet()) {
+        futures.put(entry.getKey(), executor.submit(entry.getValue()));
+      }
+
+      for (Map.Entry<K, Future<String>> entry : futures.entrySet()) {
+        try {
+          schemas.put(entry.getKey(), entry.getValue().get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          failures.put(entry.getKey(), (Exception) cause);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return new BatchDumpResult<>(schemas, failures);
+  }
+
+  private String acquireScratchDatabase(Connection connection) throws SQLException {
+    if (scratchDatabasePool != null) {
+      return scratchDatabasePool.acquire(connection);
+    }
+
+    String tempDbName = new StringBuilder()
+        .append("tmp_")
+        .append(UUID.randomUUID().toString().replaceAll("-", ""))
+        .toString();
+    try (Statement stmt = connection.createStatement()) {
+      stmt.executeUpdate("CREATE DATABASE " + tempDbName);
+    }
+    return tempDbName;
+  }
+
+  private void releaseScratchDatabase(Connection connection, String tempDbName)
+      throws SQLException {
+    if (scratchDatabasePool != null) {
+      scratchDatabasePool.release(connection, tempDbName);
+      return;
+    }
+
+    try (Statement stmt = connection.createStatement()) {
+      stmt.executeUpdate("DROP DATABASE " + tempDbName);
+    }
+  }
+
+  // null is ignored by try-with-resources
+  private HostThrottle.Permit acquireHostPermit(MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException, InterruptedException {
+    return hostThrottle == null ? null : hostThrottle.acquire(mysqlConnectionInfo);
+  }
+
+  private HostThrottle.Permit acquireHostPermitOrThrow(MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException {
+    try {
+      return acquireHostPermit(mysqlConnectionInfo);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for " + mysqlConnectionInfo.getHost(), e);
+    }
+  }
+
+  private Connection getLocalConnection() throws SQLException {
+    return getConnection(localMySqlConnectionInfo);
+  }
+
+  private Connection getConnection(MySqlConnectionInfo mysqlConnectionInfo) throws SQLException {
+    if (localDataSource != null && mysqlConnectionInfo == localMySqlConnectionInfo) {
+      return localDataSource.getConnection();
+    }
+    return DriverManager.getConnection(mysqlConnectionInfo.getJdbcUrl(),
+        mysqlConnectionInfo.getUser(), mysqlConnectionInfo.getPass());
+  }
+
+  private static String quoteIdentifier(String identifier) {
+    return new StringBuilder()
+        .append("`")
+        .append(identifier.replace("`", "``"))
+        .append("`")
+        .toString();
   }
 }
@@ -41,6 +41,21 @@ public class SchemaParser {
    * @return Table definition of given schema.
    */
   public static List<Table> parse(String schema) {
+    return parse(schema, TableFilter.builder().build());
+  }
+
+  /**
+   * Parse and output table definition of tables which are accepted by a filter.
+   * 
+   * <p>
+   * Blocks of other tables are skipped without parsing their lines.
+   * </p>
+   * 
+   * @param schema Schema which is generated by SchemaDumper.
+   * @param tableFilter Filter of tables to parse.
+   * @return Table definition of accepted tables.
+   */
+  public static List<Table> parse(String schema, TableFilter tableFilter) {
     Matcher blockMatcher = TABLA_BLOCK_PATTERN.matcher(schema);
 
     List<Table> tables = new ArrayList<>();
@@ -53,6 +68,9 @@ public class SchemaParser {
         continue;
       }
       String tableName = tableNameMatcher.group(1);
+      if (!tableFilter.accepts(tableName)) {
+        continue;
+      }
 
       List<String> primaryKeys = new ArrayList<>();
       List<UniqueKey> uniqueKeys = new ArrayList<>();
@@ -0,0 +1,190 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Snapshot of a database which is kept between incremental dumps.
+ *
+ * <p>
+ * It holds a signature of catalog metadata and the result of SHOW CREATE TABLE for each table.
+ * The file is plain SQL; each CREATE TABLE statement is preceded by a comment line which has the
+ * signature, the length of the statement and the name of the table, so that statements are read
+ * back exactly as they are.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class SchemaSnapshot {
+  private static final String HEADER = "-- Schema snapshot\n";
+  private static final String TABLE_PREFIX = "-- Table: ";
+  private static final String TABLE_SUFFIX = ";\n\n";
+
+  private final TreeMap<String, String> signatures;
+  private final TreeMap<String, String> createTables;
+
+  SchemaSnapshot() {
+    this(new TreeMap<>(), new TreeMap<>());
+  }
+
+  private SchemaSnapshot(TreeMap<String, String> signatures,
+      TreeMap<String, String> createTables) {
+    this.signatures = signatures;
+    this.createTables = createTables;
+  }
+
+  /**
+   * Load a snapshot from a file.
+   *
+   * @param file Snapshot file.
+   * @return Loaded snapshot, or empty snapshot if the file does not exist or is broken.
+   */
+  static SchemaSnapshot load(Path file) {
+    if (!Files.exists(file)) {
+      return new SchemaSnapshot();
+    }
+
+    try {
+      return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      // everything is fetched again
+      return new SchemaSnapshot();
+    }
+  }
+
+  private static SchemaSnapshot parse(String text) {
+    if (!text.startsWith(HEADER)) {
+      throw new IllegalArgumentException("Not a schema snapshot");
+    }
+
+    TreeMap<String, String> signatures = new TreeMap<>();
+    TreeMap<String, String> createTables = new TreeMap<>();
+    int position = HEADER.length();
+    while (position < text.length()) {
+      int endOfLine = text.indexOf('\n', position);
+      if (!text.startsWith(TABLE_PREFIX, position) || endOfLine < 0) {
+        throw new IllegalArgumentException("Invalid line at " + position);
+      }
+      // signature, length and name; the name is the last since it may contain spaces
+      String[] fields =
+          text.substring(position + TABLE_PREFIX.length(), endOfLine).split(" ", 3);
+      if (fields.length != 3) {
+        throw new IllegalArgumentException("Invalid line at " + position);
+      }
+      int start = endOfLine + 1;
+      int end = start + Integer.parseInt(fields[1]);
+      if (!text.startsWith(TABLE_SUFFIX, end)) {
+        throw new IllegalArgumentException("Invalid statement at " + start);
+      }
+      signatures.put(fields[2], fields[0]);
+      createTables.put(fields[2], text.substring(start, end));
+      position = end + TABLE_SUFFIX.length();
+    }
+    return new SchemaSnapshot(signatures, createTables);
+  }
+
+  /**
+   * Save this snapshot into a file atomically.
+   *
+   * @param file Snapshot file.
+   * @throws IOException Throw if failed to write.
+   */
+  void save(Path file) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temp = directory.resolve(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      StringBuilder textBuilder = new StringBuilder(HEADER);
+      for (Map.Entry<String, String> entry : createTables.entrySet()) {
+        textBuilder.append(TABLE_PREFIX)
+            .append(signatures.get(entry.getKey()))
+            .append(" ")
+            .append(entry.getValue().length())
+            .append(" ")
+            .append(entry.getKey())
+            .append("\n")
+            .append(entry.getValue())
+            .append(TABLE_SUFFIX);
+      }
+      Files.write(temp, textBuilder.toString().getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Find tables whose signature is different from this snapshot.
+   *
+   * @param currentSignatures Current signatures of tables.
+   * @return Names of new or changed tables, in order of name.
+   */
+  List<String> findChangedTables(Map<String, String> currentSignatures) {
+    List<String> changedTables = new ArrayList<>();
+    for (Map.Entry<String, String> entry : new TreeMap<>(currentSignatures).entrySet()) {
+      String tableName = entry.getKey();
+      if (!entry.getValue().equals(signatures.get(tableName))
+          || !createTables.containsKey(tableName)) {
+        changedTables.add(tableName);
+      }
+    }
+    return changedTables;
+  }
+
+  /**
+   * Create a new snapshot which reflects current state.
+   *
+   * <p>
+   * Tables which are not in currentSignatures are removed.
+   * </p>
+   *
+   * @param currentSignatures Current signatures of all tables.
+   * @param fetchedCreateTables Result of SHOW CREATE TABLE of changed tables.
+   * @return New snapshot.
+   */
+  SchemaSnapshot update(Map<String, String> currentSignatures,
+      Map<String, String> fetchedCreateTables) {
+    TreeMap<String, String> newCreateTables = new TreeMap<>();
+    for (String tableName : currentSignatures.keySet()) {
+      String createTable = fetchedCreateTables.containsKey(tableName)
+          ? fetchedCreateTables.get(tableName) : createTables.get(tableName);
+      if (createTable == null) {
+        throw new IllegalArgumentException("Missing definition of table: " + tableName);
+      }
+      newCreateTables.put(tableName, createTable);
+    }
+    return new SchemaSnapshot(new TreeMap<>(currentSignatures), newCreateTables);
+  }
+
+  /**
+   * Render the snapshot as a schema, in the same format as JDBC fetch mode of SchemaDumper.
+   *
+   * @return Schema string.
+   */
+  String toSchema() {
+    StringBuilder schemaBuilder = new StringBuilder();
+    for (String createTable : createTables.values()) {
+      schemaBuilder.append(createTable).append(";\n\n");
+    }
+    return schemaBuilder.toString();
+  }
+
+  Map<String, String> getSignatures() {
+    return Collections.unmodifiableMap(signatures);
+  }
+}
@@ -0,0 +1,341 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pool of scratch databases which are used to load SQL for dumping.
+ *
+ * <p>
+ * A released scratch database is emptied by dropping its tables and reused, instead of creating
+ * and dropping a database for each dump. Names of scratch databases embed the creation time
+ * (tmp_&lt;epoch seconds&gt;_&lt;random&gt;), so that databases which are left behind by a killed
+ * process can be found and swept.
+ * </p>
+ *
+ * <p>
+ * Methods take a connection of the MySQL where scratch databases live, and do not close it.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class ScratchDatabasePool {
+  private static final Pattern SCRATCH_DB_NAME_PATTERN = Pattern.compile("tmp_(\\d+)_[0-9a-f]+");
+
+  // Name which has been used by SchemaDumper without this pool (tmp_<uuid>)
+  private static final Pattern LEGACY_SCRATCH_DB_NAME_PATTERN =
+      Pattern.compile("tmp_[0-9a-f]{32}");
+
+  private final int maxIdle;
+  private final long staleThresholdSeconds;
+  private final boolean sweepOnFirstAcquire;
+
+  @Getter(AccessLevel.NONE)
+  private final Deque<String> idleDbNames = new ArrayDeque<>();
+  @Getter(AccessLevel.NONE)
+  private final Set<String> ownedDbNames = new HashSet<>();
+  @Getter(AccessLevel.NONE)
+  private boolean swept;
+
+  /**
+   * Builder class of ScratchDatabasePool.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>maxIdle(int num) // default value: 4</li>
+   * <li>staleThresholdSeconds(long seconds) // default value: 86400</li>
+   * <li>sweepOnFirstAcquire(boolean sweep) // default value: true</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private int maxIdle = 4;
+    private long staleThresholdSeconds = 24 * 60 * 60;
+    private boolean sweepOnFirstAcquire = true;
+
+    public Builder() {}
+
+    /**
+     * Builds ScratchDatabasePool.
+     *
+     * @return New ScratchDatabasePool instance.
+     */
+    public ScratchDatabasePool build() {
+      return new ScratchDatabasePool(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of ScratchDatabasePool.
+   *
+   * @return Builder of ScratchDatabasePool.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private ScratchDatabasePool(Builder builder) {
+    if (builder.maxIdle < 0) {
+      throw new IllegalArgumentException("maxIdle must not be negative");
+    }
+    if (builder.staleThresholdSeconds < 0) {
+      throw new IllegalArgumentException("staleThresholdSeconds must not be negative");
+    }
+    maxIdle = builder.maxIdle;
+    staleThresholdSeconds = builder.staleThresholdSeconds;
+    sweepOnFirstAcquire = builder.sweepOnFirstAcquire;
+  }
+
+  /**
+   * Acquire an empty scratch database.
+   *
+   * <p>
+   * Stale scratch databases are swept at first, if sweepOnFirstAcquire is enabled.
+   * </p>
+   *
+   * @param connection Connection of MySQL.
+   * @return Name of the scratch database.
+   * @throws SQLException Throw if failed to create the database.
+   */
+  public String acquire(Connection connection) throws SQLException {
+    boolean shouldSweep;
+    String dbName;
+    synchronized (this) {
+      shouldSweep = sweepOnFirstAcquire && !swept;
+      swept = true;
+      dbName = idleDbNames.pollFirst();
+      if (dbName == null) {
+        dbName = generateDbName();
+        ownedDbNames.add(dbName);
+      }
+    }
+
+    if (shouldSweep) {
+      sweep(connection);
+    }
+
+    try (Statement stmt = connection.createStatement()) {
+      // The database may be swept by another process while it is idle
+      stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + dbName);
+    } catch (SQLException e) {
+      synchronized (this) {
+        ownedDbNames.remove(dbName);
+      }
+      throw e;
+    }
+    return dbName;
+  }
+
+  /**
+   * Release a scratch database to the pool.
+   *
+   * <p>
+   * Tables and views of the database are dropped. If the database has objects which are not
+   * dropped with tables (e.g. stored routines), or the pool is full, the database itself is
+   * dropped.
+   * </p>
+   *
+   * @param connection Connection of MySQL.
+   * @param dbName Name of the scratch database which is acquired from this pool.
+   * @throws SQLException Throw if failed to empty or drop the database.
+   */
+  public void release(Connection connection, String dbName) throws SQLException {
+    synchronized (this) {
+      if (!ownedDbNames.contains(dbName)) {
+        throw new IllegalArgumentException("Not a scratch database of this pool: " + dbName);
+      }
+    }
+
+    boolean reusable;
+    synchronized (this) {
+      reusable = idleDbNames.size() < maxIdle;
+    }
+    if (reusable && !hasRoutinesOrEvents(connection, dbName)) {
+      try {
+        emptyDatabase(connection, dbName);
+        synchronized (this) {
+          idleDbNames.addFirst(dbName);
+        }
+        return;
+      } catch (SQLException e) {
+        // fall through to drop the database
+      }
+    }
+
+    synchronized (this) {
+      ownedDbNames.remove(dbName);
+    }
+    dropDatabase(connection, dbName);
+  }
+
+  /**
+   * Drop all of idle scratch databases.
+   *
+   * @param connection Connection of MySQL.
+   * @throws SQLException Throw if failed to drop a database.
+   */
+  public void clear(Connection connection) throws SQLException {
+    List<String> dbNames;
+    synchronized (this) {
+      dbNames = new ArrayList<>(idleDbNames);
+      idleDbNames.clear();
+      ownedDbNames.removeAll(dbNames);
+    }
+    for (String dbName : dbNames) {
+      dropDatabase(connection, dbName);
+    }
+  }
+
+  /**
+   * Drop scratch databases which have not been used for staleThresholdSeconds.
+   *
+   * <p>
+   * Last use of a database is the latest of the time in its name and creation time of its
+   * tables. Databases of this pool, and ones which do not look like scratch databases are never
+   * dropped.
+   * </p>
+   *
+   * @param connection Connection of MySQL.
+   * @return Names of dropped databases.
+   * @throws SQLException Throw if failed to query or drop databases.
+   */
+  public List<String> sweep(Connection connection) throws SQLException {
+    long now;
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery("SELECT UNIX_TIMESTAMP()")) {
+        resultSet.next();
+        now = resultSet.getLong(1);
+      }
+    }
+
+    List<String> staleDbNames = new ArrayList<>();
+    String query = "SELECT s.SCHEMA_NAME, UNIX_TIMESTAMP(MAX(t.CREATE_TIME))"
+        + " FROM information_schema.SCHEMATA s"
+        + " LEFT JOIN information_schema.TABLES t ON t.TABLE_SCHEMA = s.SCHEMA_NAME"
+        + " WHERE s.SCHEMA_NAME LIKE 'tmp!_%' ESCAPE '!'"
+        + " GROUP BY s.SCHEMA_NAME";
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery(query)) {
+        while (resultSet.next()) {
+          String dbName = resultSet.getString(1);
+          long lastTableCreated = resultSet.getLong(2);
+          if (resultSet.wasNull()) {
+            lastTableCreated = -1;
+          }
+
+          long lastUsed;
+          Matcher scratchDbNameMatcher = SCRATCH_DB_NAME_PATTERN.matcher(dbName);
+          if (scratchDbNameMatcher.matches()) {
+            lastUsed = Math.max(Long.parseLong(scratchDbNameMatcher.group(1)), lastTableCreated);
+          } else if (LEGACY_SCRATCH_DB_NAME_PATTERN.matcher(dbName).matches()) {
+            // An empty one may be just created by a running dump
+            lastUsed = lastTableCreated < 0 ? now : lastTableCreated;
+          } else {
+            continue;
+          }
+
+          if (now - lastUsed >= staleThresholdSeconds) {
+            staleDbNames.add(dbName);
+          }
+        }
+      }
+    }
+
+    synchronized (this) {
+      staleDbNames.removeAll(ownedDbNames);
+    }
+    for (String dbName : staleDbNames) {
+      dropDatabase(connection, dbName);
+    }
+    return staleDbNames;
+  }
+
+  private static String generateDbName() {
+    return new StringBuilder()
+        .append("tmp_")
+        .append(System.currentTimeMillis() / 1000)
+        .append("_")
+        .append(UUID.randomUUID().toString().replaceAll("-", "").substring(0, 16))
+        .toString();
+  }
+
+  private static boolean hasRoutinesOrEvents(Connection connection, String dbName)
+      throws SQLException {
+    String query = "SELECT"
+        + " (SELECT COUNT(*) FROM information_schema.ROUTINES WHERE ROUTINE_SCHEMA = ?)"
+        + " + (SELECT COUNT(*) FROM information_schema.EVENTS WHERE EVENT_SCHEMA = ?)";
+    try (PreparedStatement stmt = connection.prepareStatement(query)) {
+      stmt.setString(1, dbName);
+      stmt.setString(2, dbName);
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        resultSet.next();
+        return resultSet.getLong(1) > 0;
+      }
+    }
+  }
+
+  private static void emptyDatabase(Connection connection, String dbName) throws SQLException {
+    List<String> tableNames = new ArrayList<>();
+    List<String> viewNames = new ArrayList<>();
+    try (Statement stmt = connection.createStatement()) {
+      try (ResultSet resultSet = stmt.executeQuery("SHOW FULL TABLES FROM " + dbName)) {
+        while (resultSet.next()) {
+          String name = dbName + ".`" + resultSet.getString(1).replace("`", "``") + "`";
+          if ("VIEW".equals(resultSet.getString(2))) {
+            viewNames.add(name);
+          } else {
+            tableNames.add(name);
+          }
+        }
+      }
+    }
+
+    try (Statement stmt = connection.createStatement()) {
+      if (!viewNames.isEmpty()) {
+        stmt.executeUpdate("DROP VIEW IF EXISTS " + String.join(", ", viewNames));
+      }
+      if (!tableNames.isEmpty()) {
+        boolean foreignKeyChecks;
+        try (ResultSet resultSet = stmt.executeQuery("SELECT @@SESSION.foreign_key_checks")) {
+          resultSet.next();
+          foreignKeyChecks = resultSet.getBoolean(1);
+        }
+
+        stmt.execute("SET SESSION foreign_key_checks = 0");
+        try {
+          stmt.executeUpdate("DROP TABLE IF EXISTS " + String.join(", ", tableNames));
+        } finally {
+          stmt.execute("SET SESSION foreign_key_checks = " + (foreignKeyChecks ? 1 : 0));
+        }
+      }
+    }
+  }
+
+  private static void dropDatabase(Connection connection, String dbName) throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.executeUpdate("DROP DATABASE IF EXISTS " + dbName);
+    }
+  }
+}
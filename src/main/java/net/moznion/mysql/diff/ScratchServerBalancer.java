@@ -0,0 +1,248 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balancer of scratch MySQL servers which load SQL for dumping.
+ *
+ * <p>
+ * Each dump is assigned to the healthy server which has the fewest dumps in flight; ties are
+ * broken by the least recently assigned one. A server which failed to connect is taken out of
+ * rotation, and checked again by connecting to it after healthCheckIntervalMillis. All servers
+ * should run the same version of MySQL, since results of dumping are compared with each other.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class ScratchServerBalancer {
+  private final List<MySqlConnectionInfo> servers;
+  private final long healthCheckIntervalMillis;
+
+  @Getter(AccessLevel.NONE)
+  private final HealthCheck healthCheck;
+  @Getter(AccessLevel.NONE)
+  private final List<ServerState> serverStates = new ArrayList<>();
+  @Getter(AccessLevel.NONE)
+  private long numOfAssignments;
+
+  /**
+   * Check of health of a server.
+   */
+  interface HealthCheck {
+    void check(MySqlConnectionInfo mysqlConnectionInfo) throws SQLException;
+  }
+
+  /**
+   * Assignment of a dump to a server. It must be closed after the dump.
+   */
+  public class Lease implements AutoCloseable {
+    private final ServerState serverState;
+    private boolean closed;
+
+    private Lease(ServerState serverState) {
+      this.serverState = serverState;
+    }
+
+    /**
+     * Get the assigned server.
+     *
+     * @return Connection information of the server.
+     */
+    public MySqlConnectionInfo getMysqlConnectionInfo() {
+      return serverState.mysqlConnectionInfo;
+    }
+
+    /**
+     * Take the assigned server out of rotation until it passes a health check.
+     */
+    public void markFailed() {
+      synchronized (ScratchServerBalancer.this) {
+        serverState.healthy = false;
+        serverState.nextCheckAtNanos =
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(healthCheckIntervalMillis);
+      }
+    }
+
+    @Override
+    public void close() {
+      synchronized (ScratchServerBalancer.this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        serverState.inFlight--;
+      }
+    }
+  }
+
+  /**
+   * Builder class of ScratchServerBalancer.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>servers(List&lt;MySqlConnectionInfo&gt; servers) // required</li>
+   * <li>healthCheckIntervalMillis(long millis) // default value: 10000</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private List<MySqlConnectionInfo> servers;
+    private long healthCheckIntervalMillis = 10_000;
+
+    public Builder() {}
+
+    /**
+     * Builds ScratchServerBalancer.
+     *
+     * @return New ScratchServerBalancer instance.
+     */
+    public ScratchServerBalancer build() {
+      return new ScratchServerBalancer(this, null);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of ScratchServerBalancer.
+   *
+   * @return Builder of ScratchServerBalancer.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  ScratchServerBalancer(Builder builder, HealthCheck healthCheck) {
+    if (builder.servers == null || builder.servers.isEmpty()) {
+      throw new IllegalArgumentException("Missing servers");
+    }
+    if (builder.healthCheckIntervalMillis < 0) {
+      throw new IllegalArgumentException("healthCheckIntervalMillis must not be negative");
+    }
+    servers = Collections.unmodifiableList(new ArrayList<>(builder.servers));
+    healthCheckIntervalMillis = builder.healthCheckIntervalMillis;
+    this.healthCheck = Optional.ofNullable(healthCheck)
+        .orElse(ScratchServerBalancer::checkConnection);
+    for (MySqlConnectionInfo server : servers) {
+      serverStates.add(new ServerState(server));
+    }
+  }
+
+  /**
+   * Assign a dump to the least loaded healthy server.
+   *
+   * @return Lease of the server. Close it when the dump is finished.
+   * @throws SQLException Throw if no server is healthy.
+   */
+  public Lease acquire() throws SQLException {
+    checkFailedServers();
+
+    synchronized (this) {
+      ServerState selected = null;
+      for (ServerState serverState : serverStates) {
+        if (!serverState.healthy) {
+          continue;
+        }
+        if (selected == null || serverState.inFlight < selected.inFlight
+            || (serverState.inFlight == selected.inFlight
+                && serverState.assignedAt < selected.assignedAt)) {
+          selected = serverState;
+        }
+      }
+      if (selected == null) {
+        throw new SQLTransientConnectionException("No healthy scratch server is available");
+      }
+
+      selected.inFlight++;
+      selected.assignedAt = ++numOfAssignments;
+      return new Lease(selected);
+    }
+  }
+
+  /**
+   * Get servers which are in rotation.
+   *
+   * @return Healthy servers.
+   */
+  public synchronized List<MySqlConnectionInfo> getHealthyServers() {
+    List<MySqlConnectionInfo> healthyServers = new ArrayList<>();
+    for (ServerState serverState : serverStates) {
+      if (serverState.healthy) {
+        healthyServers.add(serverState.mysqlConnectionInfo);
+      }
+    }
+    return healthyServers;
+  }
+
+  // Checks run outside of the lock, so that a hung server does not block others
+  private void checkFailedServers() {
+    List<ServerState> dueServers = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      for (ServerState serverState : serverStates) {
+        if (!serverState.healthy && !serverState.checking
+            && now - serverState.nextCheckAtNanos >= 0) {
+          serverState.checking = true;
+          dueServers.add(serverState);
+        }
+      }
+    }
+
+    for (ServerState serverState : dueServers) {
+      boolean healthy;
+      try {
+        healthCheck.check(serverState.mysqlConnectionInfo);
+        healthy = true;
+      } catch (SQLException e) {
+        healthy = false;
+      }
+      synchronized (this) {
+        serverState.checking = false;
+        serverState.healthy = healthy;
+        if (!healthy) {
+          serverState.nextCheckAtNanos =
+              System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(healthCheckIntervalMillis);
+        }
+      }
+    }
+  }
+
+  private static void checkConnection(MySqlConnectionInfo mysqlConnectionInfo)
+      throws SQLException {
+    try (Connection connection = DriverManager.getConnection(mysqlConnectionInfo.getJdbcUrl(),
+        mysqlConnectionInfo.getUser(), mysqlConnectionInfo.getPass())) {
+      if (!connection.isValid(5)) {
+        throw new SQLTransientConnectionException("Invalid connection");
+      }
+    }
+  }
+
+  private static class ServerState {
+    private final MySqlConnectionInfo mysqlConnectionInfo;
+    private boolean healthy = true;
+    private boolean checking;
+    private long nextCheckAtNanos;
+    private int inFlight;
+    private long assignedAt;
+
+    ServerState(MySqlConnectionInfo mysqlConnectionInfo) {
+      this.mysqlConnectionInfo = mysqlConnectionInfo;
+    }
+  }
+}
@@ -0,0 +1,349 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Simple pool of JDBC connections for MySQL.
+ *
+ * <p>
+ * Connections obtained from this pool are returned to the pool by {@link Connection#close()}.
+ * Idle connections which have not been used for idleTimeoutMillis are closed, when connections
+ * are borrowed or returned.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class SimpleConnectionPool implements DataSource, AutoCloseable {
+  private final MySqlConnectionInfo mysqlConnectionInfo;
+  private final int maxPoolSize;
+  private final long idleTimeoutMillis;
+  private final long connectionTimeoutMillis;
+
+  @Getter(AccessLevel.NONE)
+  private final ConnectionFactory connectionFactory;
+  @Getter(AccessLevel.NONE)
+  private final Semaphore permits;
+  @Getter(AccessLevel.NONE)
+  private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();
+  @Getter(AccessLevel.NONE)
+  private boolean closed;
+
+  /**
+   * Factory of physical connections.
+   */
+  interface ConnectionFactory {
+    Connection create() throws SQLException;
+  }
+
+  /**
+   * Builder class of SimpleConnectionPool.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>mysqlConnectionInfo(MySqlConnectionInfo info) // required</li>
+   * <li>maxPoolSize(int size) // default value: 4</li>
+   * <li>idleTimeoutMillis(long millis) // default value: 60000</li>
+   * <li>connectionTimeoutMillis(long millis) // default value: 30000</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private MySqlConnectionInfo mysqlConnectionInfo;
+    private int maxPoolSize = 4;
+    private long idleTimeoutMillis = 60_000;
+    private long connectionTimeoutMillis = 30_000;
+
+    public Builder() {}
+
+    /**
+     * Builds SimpleConnectionPool.
+     *
+     * @return New SimpleConnectionPool instance.
+     */
+    public SimpleConnectionPool build() {
+      return new SimpleConnectionPool(this, null);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of SimpleConnectionPool.
+   *
+   * @return Builder of SimpleConnectionPool.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  SimpleConnectionPool(Builder builder, ConnectionFactory connectionFactory) {
+    mysqlConnectionInfo = Optional.ofNullable(builder.mysqlConnectionInfo)
+        .orElseThrow(() -> new IllegalArgumentException("Missing mysqlConnectionInfo"));
+    if (builder.maxPoolSize < 1) {
+      throw new IllegalArgumentException("maxPoolSize must be positive");
+    }
+    maxPoolSize = builder.maxPoolSize;
+    idleTimeoutMillis = builder.idleTimeoutMillis;
+    connectionTimeoutMillis = builder.connectionTimeoutMillis;
+    permits = new Semaphore(maxPoolSize, true);
+    this.connectionFactory = Optional.ofNullable(connectionFactory)
+        .orElse(() -> DriverManager.getConnection(mysqlConnectionInfo.getJdbcUrl(),
+            mysqlConnectionInfo.getUser(), mysqlConnectionInfo.getPass()));
+  }
+
+  /**
+   * Borrow a connection from the pool.
+   *
+   * <p>
+   * This method blocks while maxPoolSize connections are borrowed.
+   * </p>
+   *
+   * @return Connection which is returned to the pool on close.
+   * @throws SQLException Throw if failed to connect, or timed out to wait for a connection.
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    try {
+      if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new SQLException(
+            "Timed out to wait for a connection (maxPoolSize=" + maxPoolSize + ")");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a connection", e);
+    }
+
+    try {
+      Connection physical = pollIdleConnection();
+      if (physical == null) {
+        physical = connectionFactory.create();
+      }
+      return wrap(physical);
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    throw new SQLFeatureNotSupportedException("Use getConnection() instead");
+  }
+
+  /**
+   * Close all of idle connections and reject further borrowing.
+   *
+   * <p>
+   * Borrowed connections are closed when they are returned.
+   * </p>
+   */
+  @Override
+  public void close() {
+    List<Connection> evicted = new ArrayList<>();
+    synchronized (idleConnections) {
+      closed = true;
+      for (IdleConnection idle : idleConnections) {
+        evicted.add(idle.connection);
+      }
+      idleConnections.clear();
+    }
+    closeQuietly(evicted);
+  }
+
+  /**
+   * Returns the number of idle connections in the pool.
+   *
+   * @return The number of idle connections.
+   */
+  public int getNumOfIdleConnections() {
+    synchronized (idleConnections) {
+      return idleConnections.size();
+    }
+  }
+
+  private Connection pollIdleConnection() throws SQLException {
+    List<Connection> evicted = new ArrayList<>();
+    Connection found = null;
+    synchronized (idleConnections) {
+      if (closed) {
+        throw new SQLException("Connection pool is already closed");
+      }
+
+      evictExpiredConnections(evicted);
+      while (found == null && !idleConnections.isEmpty()) {
+        // The most recently used one is taken to let others be expired
+        Connection connection = idleConnections.pollFirst().connection;
+        if (connection.isClosed()) {
+          continue;
+        }
+        found = connection;
+      }
+    }
+    closeQuietly(evicted);
+    return found;
+  }
+
+  private void release(Connection physical) {
+    List<Connection> evicted = new ArrayList<>();
+    try {
+      if (physical.isClosed()) {
+        return;
+      }
+      if (!physical.getAutoCommit()) {
+        physical.rollback();
+        physical.setAutoCommit(true);
+      }
+
+      synchronized (idleConnections) {
+        if (closed) {
+          evicted.add(physical);
+        } else {
+          idleConnections.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+          evictExpiredConnections(evicted);
+        }
+      }
+    } catch (SQLException e) {
+      evicted.add(physical);
+    } finally {
+      closeQuietly(evicted);
+      permits.release();
+    }
+  }
+
+  private void evictExpiredConnections(List<Connection> evicted) {
+    long deadline = System.currentTimeMillis() - idleTimeoutMillis;
+    Iterator<IdleConnection> iterator = idleConnections.descendingIterator();
+    while (iterator.hasNext()) {
+      IdleConnection idle = iterator.next();
+      if (idle.lastUsedMillis > deadline) {
+        break;
+      }
+      evicted.add(idle.connection);
+      iterator.remove();
+    }
+  }
+
+  private static void closeQuietly(List<Connection> connections) {
+    for (Connection connection : connections) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        // ignore; the connection is discarded anyway
+      }
+    }
+  }
+
+  private Connection wrap(Connection physical) {
+    boolean[] returned = new boolean[1];
+    return (Connection) Proxy.newProxyInstance(
+        SimpleConnectionPool.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              synchronized (returned) {
+                if (!returned[0]) {
+                  returned[0] = true;
+                  release(physical);
+                }
+              }
+              return null;
+            case "isClosed":
+              synchronized (returned) {
+                return returned[0] || physical.isClosed();
+              }
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return "Pooled " + physical;
+            default:
+              break;
+          }
+
+          synchronized (returned) {
+            if (returned[0]) {
+              throw new SQLException("Connection is already returned to the pool");
+            }
+          }
+          try {
+            return method.invoke(physical, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {}
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {}
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return 0;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException("Not a wrapper for " + iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(this);
+  }
+
+  /**
+   * Connection which is idle in the pool.
+   */
+  private static class IdleConnection {
+    private final Connection connection;
+    private final long lastUsedMillis;
+
+    IdleConnection(Connection connection, long lastUsedMillis) {
+      this.connection = connection;
+      this.lastUsedMillis = lastUsedMillis;
+    }
+  }
+}
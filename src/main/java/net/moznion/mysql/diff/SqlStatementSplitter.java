@@ -0,0 +1,263 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming splitter of SQL in MySQL dialect into statements.
+ *
+ * <p>
+ * Unlike {@link SqlTokenizer}, this reads SQL from a reader incrementally and keeps the text of
+ * each statement as it is, so that a large SQL file can be executed statement by statement without
+ * loading it entirely. Delimiters in quoted strings, quoted identifiers and comments are ignored,
+ * and the delimiter can be changed by DELIMITER command like mysql client. Executable comments
+ * (e.g. <code>/*!40101 ... *&#47;</code>) are kept in statements and never split; other comments
+ * before a statement are dropped.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class SqlStatementSplitter {
+  /**
+   * Statement which is split from SQL.
+   */
+  static class Statement {
+    private final String sql;
+    private final int lineNumber;
+
+    Statement(String sql, int lineNumber) {
+      this.sql = sql;
+      this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Get text of the statement, without the delimiter.
+     *
+     * @return SQL of the statement.
+     */
+    String getSql() {
+      return sql;
+    }
+
+    /**
+     * Get the line number where the statement begins.
+     *
+     * @return Line number (1-origin).
+     */
+    int getLineNumber() {
+      return lineNumber;
+    }
+  }
+
+  private final Reader reader;
+  private char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private boolean eof;
+  private int lineNumber = 1;
+  private boolean atLineStart = true;
+  private String delimiter = ";";
+
+  SqlStatementSplitter(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Read the next statement.
+   *
+   * @return Next statement, or null if no statement remains. Empty statements are omitted.
+   * @throws IOException Throw if failed to read SQL.
+   * @throws IllegalArgumentException Throw if SQL is malformed (e.g. unterminated string).
+   */
+  Statement next() throws IOException {
+    StringBuilder sqlBuilder = null;
+    int startLineNumber = 0;
+    while (true) {
+      int c = peek(0);
+      if (c < 0) {
+        break;
+      }
+
+      if (Character.isWhitespace(c)) {
+        append(sqlBuilder, consume());
+        if (c == '\n') {
+          atLineStart = true;
+        }
+        continue;
+      }
+      if (sqlBuilder == null && atLineStart && readDelimiterCommand()) {
+        continue;
+      }
+      atLineStart = false;
+
+      if (c == '#' || isDashDashComment()) {
+        while (peek(0) >= 0 && peek(0) != '\n') {
+          append(sqlBuilder, consume());
+        }
+        continue;
+      }
+      if (startsWith("/*") && !startsWith("/*!") && !startsWith("/*M!")) {
+        copyComment(sqlBuilder, false);
+        continue;
+      }
+      if (startsWith(delimiter)) {
+        position += delimiter.length();
+        if (sqlBuilder != null) {
+          return new Statement(trimTrailingSpaces(sqlBuilder), startLineNumber);
+        }
+        continue;
+      }
+
+      if (sqlBuilder == null) {
+        sqlBuilder = new StringBuilder();
+        startLineNumber = lineNumber;
+      }
+      if (startsWith("/*")) {
+        copyComment(sqlBuilder, true);
+      } else if (c == '\'' || c == '"' || c == '`') {
+        copyQuoted(sqlBuilder, (char) c);
+      } else {
+        sqlBuilder.append(consume());
+      }
+    }
+
+    if (sqlBuilder == null) {
+      return null;
+    }
+    return new Statement(trimTrailingSpaces(sqlBuilder), startLineNumber);
+  }
+
+  private boolean readDelimiterCommand() throws IOException {
+    String keyword = "DELIMITER";
+    for (int i = 0; i < keyword.length(); i++) {
+      int c = peek(i);
+      if (c < 0 || Character.toUpperCase((char) c) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    int next = peek(keyword.length());
+    if (next != ' ' && next != '\t') {
+      return false;
+    }
+
+    int commandLineNumber = lineNumber;
+    position += keyword.length();
+    StringBuilder delimiterBuilder = new StringBuilder();
+    while (peek(0) >= 0 && peek(0) != '\n') {
+      delimiterBuilder.append(consume());
+    }
+    String newDelimiter = delimiterBuilder.toString().trim();
+    if (newDelimiter.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Missing delimiter of DELIMITER command at line " + commandLineNumber);
+    }
+    delimiter = newDelimiter;
+    return true;
+  }
+
+  private boolean isDashDashComment() throws IOException {
+    if (!startsWith("--")) {
+      return false;
+    }
+    int c = peek(2);
+    return c < 0 || Character.isWhitespace(c);
+  }
+
+  private void copyComment(StringBuilder sqlBuilder, boolean isExecutable) throws IOException {
+    int startLineNumber = lineNumber;
+    append(sqlBuilder, consume());
+    append(sqlBuilder, consume());
+    while (peek(0) >= 0) {
+      int c = peek(0);
+      if (startsWith("*/")) {
+        append(sqlBuilder, consume());
+        append(sqlBuilder, consume());
+        return;
+      }
+      if (isExecutable && (c == '\'' || c == '"' || c == '`')) {
+        copyQuoted(sqlBuilder, (char) c);
+      } else {
+        append(sqlBuilder, consume());
+      }
+    }
+    throw new IllegalArgumentException("Unterminated comment at line " + startLineNumber);
+  }
+
+  private void copyQuoted(StringBuilder sqlBuilder, char quote) throws IOException {
+    int startLineNumber = lineNumber;
+    sqlBuilder.append(consume());
+    while (peek(0) >= 0) {
+      char c = consume();
+      sqlBuilder.append(c);
+      if (c == quote) {
+        if (peek(0) == quote) {
+          sqlBuilder.append(consume());
+          continue;
+        }
+        return;
+      }
+      if (c == '\\' && quote != '`' && peek(0) >= 0) {
+        sqlBuilder.append(consume());
+      }
+    }
+    throw new IllegalArgumentException(
+        "Unterminated quoted string: " + quote + " at line " + startLineNumber);
+  }
+
+  private static void append(StringBuilder sqlBuilder, char c) {
+    if (sqlBuilder != null) {
+      sqlBuilder.append(c);
+    }
+  }
+
+  private static String trimTrailingSpaces(StringBuilder sqlBuilder) {
+    int end = sqlBuilder.length();
+    while (end > 0 && Character.isWhitespace(sqlBuilder.charAt(end - 1))) {
+      end--;
+    }
+    return sqlBuilder.substring(0, end);
+  }
+
+  private boolean startsWith(String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      if (peek(i) != text.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private char consume() throws IOException {
+    char c = (char) peek(0);
+    position++;
+    if (c == '\n') {
+      lineNumber++;
+    }
+    return c;
+  }
+
+  private int peek(int offset) throws IOException {
+    while (position + offset >= limit) {
+      if (eof) {
+        return -1;
+      }
+      if (position > 0) {
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+      }
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2); // only for an extremely long delimiter
+      }
+      int numOfRead = reader.read(buffer, limit, buffer.length - limit);
+      if (numOfRead < 0) {
+        eof = true;
+      } else {
+        limit += numOfRead;
+      }
+    }
+    return buffer[position + offset];
+  }
+}
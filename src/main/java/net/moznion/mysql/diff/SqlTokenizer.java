@@ -0,0 +1,319 @@
+package net.moznion.mysql.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tokenizer of SQL in MySQL dialect.
+ *
+ * <p>
+ * Comments are skipped, while contents of executable comments
+ * (e.g. <code>/*!40101 ... *&#47;</code>) are tokenized as ordinary SQL. Statements are separated
+ * by the delimiter, which can be changed by DELIMITER command like mysql client.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+class SqlTokenizer {
+  enum TokenType {
+    WORD, QUOTED_IDENTIFIER, STRING, NUMBER, HEX_STRING, BIT_STRING, SYMBOL;
+  }
+
+  /**
+   * Token of SQL. Text of quoted identifiers and strings is unquoted and unescaped.
+   */
+  static class Token {
+    private final TokenType type;
+    private final String text;
+
+    Token(TokenType type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+
+    TokenType getType() {
+      return type;
+    }
+
+    String getText() {
+      return text;
+    }
+
+    boolean isWord(String keyword) {
+      return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+    }
+
+    boolean isSymbol(String symbol) {
+      return type == TokenType.SYMBOL && text.equals(symbol);
+    }
+
+    boolean isIdentifier() {
+      return type == TokenType.WORD || type == TokenType.QUOTED_IDENTIFIER;
+    }
+
+    @Override
+    public String toString() {
+      switch (type) {
+        case QUOTED_IDENTIFIER:
+          return "`" + text.replace("`", "``") + "`";
+        case STRING:
+          return "'" + text.replace("\\", "\\\\").replace("'", "''") + "'";
+        case HEX_STRING:
+          return "x'" + text + "'";
+        case BIT_STRING:
+          return "b'" + text + "'";
+        default:
+          return text;
+      }
+    }
+  }
+
+  private static final String[] MULTI_CHAR_SYMBOLS = {
+      "<=>", "<=", ">=", "<>", "!=", "||", "&&", ":=", "<<", ">>", "->>", "->"};
+
+  private final String sql;
+  private int position;
+  private String delimiter = ";";
+  private boolean inExecutableComment;
+
+  private SqlTokenizer(String sql) {
+    this.sql = sql;
+  }
+
+  /**
+   * Tokenize SQL and split it into statements.
+   *
+   * @param sql SQL to tokenize.
+   * @return Tokens of each statement. Empty statements are omitted.
+   * @throws IllegalArgumentException Throw if SQL is malformed (e.g. unterminated string).
+   */
+  static List<List<Token>> tokenizeStatements(String sql) {
+    return new SqlTokenizer(sql).readStatements();
+  }
+
+  private List<List<Token>> readStatements() {
+    List<List<Token>> statements = new ArrayList<>();
+    List<Token> tokens = new ArrayList<>();
+    while (true) {
+      skipSpacesAndComments();
+      if (position >= sql.length()) {
+        break;
+      }
+
+      if (!inExecutableComment && isAtLineStart() && readDelimiterCommand()) {
+        continue;
+      }
+      if (sql.startsWith(delimiter, position)) {
+        position += delimiter.length();
+        if (!tokens.isEmpty()) {
+          statements.add(tokens);
+          tokens = new ArrayList<>();
+        }
+        continue;
+      }
+      tokens.add(readToken());
+    }
+    if (!tokens.isEmpty()) {
+      statements.add(tokens);
+    }
+    return statements;
+  }
+
+  private boolean isAtLineStart() {
+    for (int i = position - 1; i >= 0; i--) {
+      char c = sql.charAt(i);
+      if (c == '\n') {
+        return true;
+      }
+      if (!Character.isWhitespace(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean readDelimiterCommand() {
+    String keyword = "DELIMITER";
+    int end = position + keyword.length();
+    if (end >= sql.length() || !sql.regionMatches(true, position, keyword, 0, keyword.length())
+        || (sql.charAt(end) != ' ' && sql.charAt(end) != '\t')) {
+      return false;
+    }
+
+    int lineEnd = sql.indexOf('\n', end);
+    if (lineEnd < 0) {
+      lineEnd = sql.length();
+    }
+    String newDelimiter = sql.substring(end, lineEnd).trim();
+    if (newDelimiter.isEmpty()) {
+      throw new IllegalArgumentException("Missing delimiter of DELIMITER command");
+    }
+    delimiter = newDelimiter;
+    position = lineEnd;
+    return true;
+  }
+
+  private void skipSpacesAndComments() {
+    while (position < sql.length()) {
+      char c = sql.charAt(position);
+      if (Character.isWhitespace(c)) {
+        position++;
+      } else if (c == '#' || isDashDashComment()) {
+        int lineEnd = sql.indexOf('\n', position);
+        position = lineEnd < 0 ? sql.length() : lineEnd + 1;
+      } else if (sql.startsWith("/*!", position) || sql.startsWith("/*M!", position)) {
+        position = sql.indexOf('!', position) + 1;
+        while (position < sql.length() && Character.isDigit(sql.charAt(position))) {
+          position++;
+        }
+        inExecutableComment = true;
+      } else if (sql.startsWith("/*", position)) {
+        int end = sql.indexOf("*/", position + 2);
+        if (end < 0) {
+          throw new IllegalArgumentException("Unterminated comment");
+        }
+        position = end + 2;
+      } else if (inExecutableComment && sql.startsWith("*/", position)) {
+        position += 2;
+        inExecutableComment = false;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private boolean isDashDashComment() {
+    return sql.startsWith("--", position)
+        && (position + 2 == sql.length() || Character.isWhitespace(sql.charAt(position + 2)));
+  }
+
+  private Token readToken() {
+    char c = sql.charAt(position);
+    if (c == '`') {
+      return new Token(TokenType.QUOTED_IDENTIFIER, readQuoted('`'));
+    }
+    if (c == '\'' || c == '"') {
+      return new Token(TokenType.STRING, readQuoted(c));
+    }
+    if ((c == 'x' || c == 'X' || c == 'b' || c == 'B') && position + 1 < sql.length()
+        && sql.charAt(position + 1) == '\'') {
+      position++;
+      String value = readQuoted('\'');
+      return new Token(c == 'x' || c == 'X' ? TokenType.HEX_STRING : TokenType.BIT_STRING,
+          value);
+    }
+    boolean isFraction = c == '.' && position + 1 < sql.length()
+        && Character.isDigit(sql.charAt(position + 1));
+    if (Character.isDigit(c) || isFraction) {
+      Token number = readNumber();
+      if (number != null) {
+        return number;
+      }
+    }
+    if (isWordChar(c)) {
+      int start = position;
+      while (position < sql.length() && isWordChar(sql.charAt(position))) {
+        position++;
+      }
+      String word = sql.substring(start, position);
+      if (word.startsWith("_") && position < sql.length()
+          && (sql.charAt(position) == '\'' || sql.charAt(position) == '"')) {
+        // charset introducer (e.g. _utf8'foo')
+        return readToken();
+      }
+      return new Token(TokenType.WORD, word);
+    }
+
+    for (String symbol : MULTI_CHAR_SYMBOLS) {
+      if (sql.startsWith(symbol, position)) {
+        position += symbol.length();
+        return new Token(TokenType.SYMBOL, symbol);
+      }
+    }
+    position++;
+    return new Token(TokenType.SYMBOL, String.valueOf(c));
+  }
+
+  private Token readNumber() {
+    int start = position;
+    if (sql.startsWith("0x", position) || sql.startsWith("0b", position)) {
+      position += 2;
+    }
+    while (position < sql.length()) {
+      char c = sql.charAt(position);
+      if (Character.isLetterOrDigit(c) || c == '.') {
+        position++;
+      } else if ((c == '+' || c == '-')
+          && Character.toLowerCase(sql.charAt(position - 1)) == 'e') {
+        position++;
+      } else {
+        break;
+      }
+    }
+
+    String text = sql.substring(start, position);
+    String lower = text.toLowerCase(Locale.ROOT);
+    if (lower.matches("[0-9]*\\.?[0-9]+(e[+-]?[0-9]+)?|[0-9]+\\.|0x[0-9a-f]+|0b[01]+")) {
+      return new Token(TokenType.NUMBER, text);
+    }
+
+    // identifier which begins with digits (e.g. 1st_column)
+    position = start;
+    return null;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c > 0x7f;
+  }
+
+  private String readQuoted(char quote) {
+    StringBuilder valueBuilder = new StringBuilder();
+    position++;
+    while (position < sql.length()) {
+      char c = sql.charAt(position++);
+      if (c == quote) {
+        if (position < sql.length() && sql.charAt(position) == quote) {
+          valueBuilder.append(quote);
+          position++;
+          continue;
+        }
+        return valueBuilder.toString();
+      }
+      if (c == '\\' && quote != '`' && position < sql.length()) {
+        char escaped = sql.charAt(position++);
+        switch (escaped) {
+          case '0':
+            valueBuilder.append('\0');
+            break;
+          case 'b':
+            valueBuilder.append('\b');
+            break;
+          case 'n':
+            valueBuilder.append('\n');
+            break;
+          case 'r':
+            valueBuilder.append('\r');
+            break;
+          case 't':
+            valueBuilder.append('\t');
+            break;
+          case 'Z':
+            valueBuilder.append('\032');
+            break;
+          case '%':
+          case '_':
+            valueBuilder.append('\\').append(escaped);
+            break;
+          default:
+            valueBuilder.append(escaped);
+            break;
+        }
+        continue;
+      }
+      valueBuilder.append(c);
+    }
+    throw new IllegalArgumentException("Unterminated quoted string: " + quote);
+  }
+}
@@ -0,0 +1,218 @@
+package net.moznion.mysql.diff;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Filter of tables by name.
+ *
+ * <p>
+ * Patterns are globs; <code>*</code> matches any characters and <code>?</code> matches a single
+ * character. They are matched case-sensitively against whole table names (e.g.
+ * <code>_archive_*</code>). A table is accepted if it matches any of includes (or includes are
+ * empty), and it matches none of excludes.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class TableFilter {
+  private final List<String> includes;
+  private final List<String> excludes;
+
+  @Getter(AccessLevel.NONE)
+  private final List<Pattern> includePatterns;
+  @Getter(AccessLevel.NONE)
+  private final List<Pattern> excludePatterns;
+
+  /**
+   * Builder class of TableFilter.
+   *
+   * <p>
+   * This class provides following setters;
+   * </p>
+   * <ul>
+   * <li>includes(List&lt;String&gt; patterns) // default value: empty (all tables)</li>
+   * <li>excludes(List&lt;String&gt; patterns) // default value: empty (no table)</li>
+   * </ul>
+   */
+  @Setter
+  @Accessors(fluent = true)
+  public static class Builder {
+    private List<String> includes = Collections.emptyList();
+    private List<String> excludes = Collections.emptyList();
+
+    public Builder() {}
+
+    /**
+     * Builds TableFilter.
+     *
+     * @return New TableFilter instance.
+     */
+    public TableFilter build() {
+      return new TableFilter(this);
+    }
+  }
+
+  /**
+   * Dispenses a new builder of TableFilter.
+   *
+   * @return Builder of TableFilter.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private TableFilter(Builder builder) {
+    if (builder.includes == null || builder.excludes == null) {
+      throw new IllegalArgumentException("includes and excludes must not be null");
+    }
+    includes = Collections.unmodifiableList(new ArrayList<>(builder.includes));
+    excludes = Collections.unmodifiableList(new ArrayList<>(builder.excludes));
+    includePatterns = compile(includes);
+    excludePatterns = compile(excludes);
+  }
+
+  /**
+   * Check whether a table is accepted.
+   *
+   * @param tableName Name of the table.
+   * @return True if the table is accepted.
+   */
+  public boolean accepts(String tableName) {
+    if (!includePatterns.isEmpty()
+        && includePatterns.stream().noneMatch(pattern -> pattern.matcher(tableName).matches())) {
+      return false;
+    }
+    return excludePatterns.stream().noneMatch(pattern -> pattern.matcher(tableName).matches());
+  }
+
+  /**
+   * Check whether all tables are accepted.
+   *
+   * @return True if neither includes nor excludes are given.
+   */
+  public boolean acceptsAll() {
+    return includes.isEmpty() && excludes.isEmpty();
+  }
+
+  /**
+   * Filter table names.
+   *
+   * @param tableNames Names of tables.
+   * @return Accepted names in the given order.
+   */
+  public List<String> filter(Collection<String> tableNames) {
+    return tableNames.stream()
+        .filter(this::accepts)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Build a condition of a WHERE clause which gives the same result as this filter.
+   *
+   * @param column Column of table names (e.g. "t.TABLE_NAME").
+   * @return Condition which begins with " AND ", or an empty string if all tables are accepted.
+   *         Bind its parameters by {@link #bind(PreparedStatement, int)}.
+   */
+  String toSqlCondition(String column) {
+    // Columns of INFORMATION_SCHEMA are case-insensitive by default
+    String like = new StringBuilder()
+        .append("CONVERT(")
+        .append(column)
+        .append(" USING utf8mb4) COLLATE utf8mb4_bin LIKE ? ESCAPE '|'")
+        .toString();
+
+    StringBuilder conditionBuilder = new StringBuilder();
+    if (!includes.isEmpty()) {
+      conditionBuilder.append(" AND (")
+          .append(String.join(" OR ", Collections.nCopies(includes.size(), like)))
+          .append(")");
+    }
+    if (!excludes.isEmpty()) {
+      conditionBuilder.append(" AND NOT (")
+          .append(String.join(" OR ", Collections.nCopies(excludes.size(), like)))
+          .append(")");
+    }
+    return conditionBuilder.toString();
+  }
+
+  /**
+   * Bind parameters of the condition which is built by {@link #toSqlCondition(String)}.
+   *
+   * @param stmt Statement to bind.
+   * @param index Index of the first parameter of the condition.
+   * @return Index of the next parameter.
+   * @throws SQLException Throw if failed to bind.
+   */
+  int bind(PreparedStatement stmt, int index) throws SQLException {
+    for (String pattern : includes) {
+      stmt.setString(index++, toLikePattern(pattern));
+    }
+    for (String pattern : excludes) {
+      stmt.setString(index++, toLikePattern(pattern));
+    }
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder()
+        .append("includes=")
+        .append(includes)
+        .append(", excludes=")
+        .append(excludes)
+        .toString();
+  }
+
+  private static List<Pattern> compile(List<String> globs) {
+    List<Pattern> patterns = new ArrayList<>();
+    for (String glob : globs) {
+      if (glob == null || glob.isEmpty()) {
+        throw new IllegalArgumentException("Pattern of table names must not be empty");
+      }
+
+      StringBuilder regexBuilder = new StringBuilder();
+      for (char c : glob.toCharArray()) {
+        if (c == '*') {
+          regexBuilder.append(".*");
+        } else if (c == '?') {
+          regexBuilder.append('.');
+        } else {
+          regexBuilder.append(Pattern.quote(String.valueOf(c)));
+        }
+      }
+      patterns.add(Pattern.compile(regexBuilder.toString(), Pattern.DOTALL));
+    }
+    return Collections.unmodifiableList(patterns);
+  }
+
+  static String toLikePattern(String glob) {
+    StringBuilder likeBuilder = new StringBuilder();
+    for (char c : glob.toCharArray()) {
+      if (c == '*') {
+        likeBuilder.append('%');
+      } else if (c == '?') {
+        likeBuilder.append('_');
+      } else {
+        if (c == '%' || c == '_' || c == '|') {
+          likeBuilder.append('|');
+        }
+        likeBuilder.append(c);
+      }
+    }
+    return likeBuilder.toString();
+  }
+}
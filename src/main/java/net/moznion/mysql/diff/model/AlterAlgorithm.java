@@ -0,0 +1,26 @@
+package net.moznion.mysql.diff.model;
+
+/**
+ * Algorithm of online DDL which MySQL 8 uses to apply an alteration.
+ *
+ * <p>
+ * Constants are declared in order of cost, so they can be compared by {@link #compareTo}.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+public enum AlterAlgorithm {
+  /**
+   * Only metadata in the data dictionary is modified.
+   */
+  INSTANT,
+  /**
+   * The table is altered without copying rows (but it may be rebuilt in place).
+   */
+  INPLACE,
+  /**
+   * The table is copied row by row into a new table; concurrent DML is not permitted.
+   */
+  COPY;
+}
@@ -0,0 +1,69 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+
+/**
+ * A change in the ALTER TABLE statement of a table, with its online DDL classification.
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class AlterChange {
+  /**
+   * Kind of change.
+   */
+  public enum Kind {
+    ADD_COLUMN, DROP_COLUMN, MODIFY_COLUMN, ADD_INDEX, ADD_UNIQUE_INDEX, DROP_INDEX;
+  }
+
+  private final Kind kind;
+  private final String name;
+  private final String clause;
+  private final AlterAlgorithm algorithm;
+  private final boolean rebuildingTable;
+  private final boolean concurrentDmlPermitted;
+
+  /**
+   * Instantiate AlterChange.
+   *
+   * @param kind Kind of change.
+   * @param name Name of the column or the index which is changed.
+   * @param clause Clause for ALTER TABLE statement (e.g. "ADD `name` varchar(32) NOT NULL").
+   * @param algorithm The cheapest algorithm which can apply this change.
+   * @param rebuildingTable Whether this change rebuilds the table.
+   * @param concurrentDmlPermitted Whether concurrent DML is permitted while applying.
+   */
+  public AlterChange(Kind kind, String name, String clause, AlterAlgorithm algorithm,
+      boolean rebuildingTable, boolean concurrentDmlPermitted) {
+    this.kind = kind;
+    this.name = name;
+    this.clause = clause;
+    this.algorithm = algorithm;
+    this.rebuildingTable = rebuildingTable;
+    this.concurrentDmlPermitted = concurrentDmlPermitted;
+  }
+
+  /**
+   * Estimate cost to apply this change, as the number of bytes which are rewritten or scanned.
+   *
+   * @param statistics Statistics of the table.
+   * @return Estimated cost.
+   */
+  public long estimateCost(TableStatistics statistics) {
+    if (algorithm == AlterAlgorithm.INSTANT) {
+      return 0;
+    }
+
+    if (rebuildingTable) {
+      return statistics.getDataLength() + statistics.getIndexLength();
+    }
+
+    if (kind == Kind.ADD_INDEX || kind == Kind.ADD_UNIQUE_INDEX) {
+      // to build an index, all of rows are scanned
+      return statistics.getDataLength();
+    }
+
+    return 0;
+  }
+}
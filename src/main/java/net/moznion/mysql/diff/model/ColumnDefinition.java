@@ -0,0 +1,80 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definition of a column, which is a part of {@link TableDefinition}.
+ *
+ * <p>
+ * Values are as written in SQL until they are normalized by OfflineNormalizer.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+@Setter
+public class ColumnDefinition {
+  private String name;
+  /**
+   * Lower-cased name of data type without aliases (e.g. "int", "varchar").
+   */
+  private String dataType;
+  /**
+   * Length, display width or precision (e.g. "11", "10,2"), or null if not specified.
+   */
+  private String length;
+  /**
+   * Members of ENUM or SET.
+   */
+  private List<String> values = new ArrayList<>();
+  private boolean unsigned;
+  private boolean zerofill;
+  private boolean binary;
+  private String charset;
+  private String collation;
+  /**
+   * Null if neither NULL nor NOT NULL is specified.
+   */
+  private Boolean nullable;
+  /**
+   * Rendered DEFAULT clause value (e.g. "'0'", "NULL", "CURRENT_TIMESTAMP"), or null if no
+   * default.
+   */
+  private String defaultValue;
+  private String onUpdate;
+  private boolean autoIncrement;
+  private String comment;
+  private String generatedExpression;
+  private boolean generatedStored;
+
+  /**
+   * Returns a deep copy of this column.
+   *
+   * @return Copied column.
+   */
+  public ColumnDefinition copy() {
+    ColumnDefinition copied = new ColumnDefinition();
+    copied.name = name;
+    copied.dataType = dataType;
+    copied.length = length;
+    copied.values = new ArrayList<>(values);
+    copied.unsigned = unsigned;
+    copied.zerofill = zerofill;
+    copied.binary = binary;
+    copied.charset = charset;
+    copied.collation = collation;
+    copied.nullable = nullable;
+    copied.defaultValue = defaultValue;
+    copied.onUpdate = onUpdate;
+    copied.autoIncrement = autoIncrement;
+    copied.comment = comment;
+    copied.generatedExpression = generatedExpression;
+    copied.generatedStored = generatedStored;
+    return copied;
+  }
+}
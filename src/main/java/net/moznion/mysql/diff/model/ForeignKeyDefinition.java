@@ -0,0 +1,56 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definition of a foreign key, which is a part of {@link TableDefinition}.
+ *
+ * @author moznion
+ *
+ */
+@Getter
+@Setter
+public class ForeignKeyDefinition {
+  /**
+   * Null if not named yet.
+   */
+  private String name;
+  /**
+   * Name of index which is specified after FOREIGN KEY, or null.
+   */
+  private String indexName;
+  private List<String> columns = new ArrayList<>();
+  /**
+   * Database of referenced table, or null if it is the same database.
+   */
+  private String referencedDatabase;
+  private String referencedTable;
+  private List<String> referencedColumns = new ArrayList<>();
+  /**
+   * Upper-cased referential action (e.g. "CASCADE"), or null.
+   */
+  private String onDelete;
+  private String onUpdate;
+
+  /**
+   * Returns a copy of this foreign key.
+   *
+   * @return Copied foreign key.
+   */
+  public ForeignKeyDefinition copy() {
+    ForeignKeyDefinition copied = new ForeignKeyDefinition();
+    copied.name = name;
+    copied.indexName = indexName;
+    copied.columns = new ArrayList<>(columns);
+    copied.referencedDatabase = referencedDatabase;
+    copied.referencedTable = referencedTable;
+    copied.referencedColumns = new ArrayList<>(referencedColumns);
+    copied.onDelete = onDelete;
+    copied.onUpdate = onUpdate;
+    return copied;
+  }
+}
@@ -0,0 +1,76 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Definition of an index, which is a part of {@link TableDefinition}.
+ *
+ * @author moznion
+ *
+ */
+@Getter
+@Setter
+public class IndexDefinition {
+  /**
+   * Kind of index.
+   */
+  public enum Kind {
+    PRIMARY, UNIQUE, KEY, FULLTEXT, SPATIAL;
+  }
+
+  /**
+   * Column of an index.
+   */
+  @Getter
+  public static class IndexColumn {
+    private final String name;
+    private final Integer length;
+
+    /**
+     * Instantiate IndexColumn.
+     *
+     * @param name Name of the column.
+     * @param length Length of prefix, or null.
+     */
+    public IndexColumn(String name, Integer length) {
+      this.name = name;
+      this.length = length;
+    }
+  }
+
+  private Kind kind;
+  /**
+   * Null if not named yet.
+   */
+  private String name;
+  private List<IndexColumn> columns = new ArrayList<>();
+  /**
+   * BTREE or HASH if USING is specified.
+   */
+  private String indexType;
+  private String comment;
+  /**
+   * True if the index is generated for a foreign key.
+   */
+  private boolean generated;
+
+  /**
+   * Returns a copy of this index.
+   *
+   * @return Copied index.
+   */
+  public IndexDefinition copy() {
+    IndexDefinition copied = new IndexDefinition();
+    copied.kind = kind;
+    copied.name = name;
+    copied.columns = new ArrayList<>(columns);
+    copied.indexType = indexType;
+    copied.comment = comment;
+    copied.generated = generated;
+    return copied;
+  }
+}
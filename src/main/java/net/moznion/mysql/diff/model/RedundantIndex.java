@@ -0,0 +1,66 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+
+/**
+ * An index which is made redundant by another index of the same table.
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class RedundantIndex {
+  /**
+   * Reason of redundancy.
+   */
+  public enum Reason {
+    /**
+     * The index has exactly the same columns as another index.
+     */
+    DUPLICATE,
+    /**
+     * Columns of the index are a left-prefix of columns of another index.
+     */
+    LEFT_PREFIX;
+  }
+
+  private final String tableName;
+  private final String indexName;
+  private final String coveringIndexName;
+  private final Reason reason;
+
+  /**
+   * Instantiate RedundantIndex.
+   *
+   * @param tableName Name of the table.
+   * @param indexName Name of the redundant index.
+   * @param coveringIndexName Name of the index which covers the redundant index ("PRIMARY" for
+   *        the primary key).
+   * @param reason Reason of redundancy.
+   */
+  public RedundantIndex(String tableName, String indexName, String coveringIndexName,
+      Reason reason) {
+    this.tableName = tableName;
+    this.indexName = indexName;
+    this.coveringIndexName = coveringIndexName;
+    this.reason = reason;
+  }
+
+  /**
+   * Render a statement which drops the redundant index.
+   *
+   * @return SQL string.
+   */
+  public String toSql() {
+    return new StringBuilder()
+        .append("ALTER TABLE `")
+        .append(tableName)
+        .append("` DROP INDEX `")
+        .append(indexName)
+        .append("`; -- ")
+        .append(reason == Reason.DUPLICATE ? "duplicate of `" : "left-prefix of `")
+        .append(coveringIndexName)
+        .append("`\n")
+        .toString();
+  }
+}
@@ -0,0 +1,89 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Fingerprint of a database schema which is computed by MySQL server.
+ *
+ * <p>
+ * It consists of a checksum of each table, and a digest of the whole database which is derived
+ * from them. Checksums don't depend on server local values (e.g. CREATE_TIME and AUTO_INCREMENT)
+ * and the database name, so they can be compared between different servers and databases.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class SchemaFingerprint {
+  private final Map<String, String> tableChecksums;
+  private final String digest;
+
+  /**
+   * Instantiate SchemaFingerprint.
+   *
+   * @param tableChecksums Checksum of each table, keyed by table name.
+   */
+  public SchemaFingerprint(Map<String, String> tableChecksums) {
+    this.tableChecksums = Collections.unmodifiableMap(new TreeMap<>(tableChecksums));
+
+    MessageDigest md5;
+    try {
+      md5 = MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e); // MD5 is always supported
+    }
+    for (Map.Entry<String, String> entry : this.tableChecksums.entrySet()) {
+      md5.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+      md5.update((byte) 0);
+      md5.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+      md5.update((byte) 0);
+    }
+
+    StringBuilder digestBuilder = new StringBuilder();
+    for (byte b : md5.digest()) {
+      digestBuilder.append(String.format("%02x", b & 0xff));
+    }
+    digest = digestBuilder.toString();
+  }
+
+  /**
+   * Check whether the schema is the same as another one.
+   *
+   * @param digest Digest of another fingerprint (e.g. stored one by previous run).
+   * @return True if the digest is the same.
+   */
+  public boolean matches(String digest) {
+    return this.digest.equals(digest);
+  }
+
+  /**
+   * Find tables which differ from another fingerprint.
+   *
+   * @param other Fingerprint to compare with.
+   * @return Names of tables which are changed, or exist only in either of them, in order of name.
+   */
+  public List<String> findDifferentTables(SchemaFingerprint other) {
+    TreeSet<String> tableNames = new TreeSet<>(tableChecksums.keySet());
+    tableNames.addAll(other.tableChecksums.keySet());
+
+    List<String> differentTables = new ArrayList<>();
+    for (String tableName : tableNames) {
+      String checksum = tableChecksums.get(tableName);
+      if (checksum == null || !checksum.equals(other.tableChecksums.get(tableName))) {
+        differentTables.add(tableName);
+      }
+    }
+    return differentTables;
+  }
+}
@@ -0,0 +1,77 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Structured definition of a table, which is built from CREATE TABLE statement.
+ *
+ * <p>
+ * Unlike {@link Table}, this keeps each attribute separately, so that it can be normalized and
+ * altered without MySQL server.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+@Setter
+public class TableDefinition {
+  private String name;
+  private List<ColumnDefinition> columns = new ArrayList<>();
+  private List<IndexDefinition> indexes = new ArrayList<>();
+  private List<ForeignKeyDefinition> foreignKeys = new ArrayList<>();
+  private String engine;
+  private String charset;
+  private String collation;
+  private Long autoIncrement;
+  private String comment;
+  /**
+   * Other table options, keyed by upper-cased name (e.g. "ROW_FORMAT").
+   */
+  private Map<String, String> options = new LinkedHashMap<>();
+
+  /**
+   * Find a column by name (case-insensitive).
+   *
+   * @param columnName Name of the column.
+   * @return Found column.
+   */
+  public Optional<ColumnDefinition> findColumn(String columnName) {
+    return columns.stream()
+        .filter(column -> column.getName().equalsIgnoreCase(columnName))
+        .findFirst();
+  }
+
+  /**
+   * Returns a deep copy of this table.
+   *
+   * @return Copied table.
+   */
+  public TableDefinition copy() {
+    TableDefinition copied = new TableDefinition();
+    copied.name = name;
+    for (ColumnDefinition column : columns) {
+      copied.columns.add(column.copy());
+    }
+    for (IndexDefinition index : indexes) {
+      copied.indexes.add(index.copy());
+    }
+    for (ForeignKeyDefinition foreignKey : foreignKeys) {
+      copied.foreignKeys.add(foreignKey.copy());
+    }
+    copied.engine = engine;
+    copied.charset = charset;
+    copied.collation = collation;
+    copied.autoIncrement = autoIncrement;
+    copied.comment = comment;
+    copied.options = new LinkedHashMap<>(options);
+    return copied;
+  }
+}
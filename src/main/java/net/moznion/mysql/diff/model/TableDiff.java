@@ -0,0 +1,266 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Diff of a table between two schemas.
+ *
+ * <p>
+ * A diff is either a creation of a new table or a list of changes for an existing table.
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class TableDiff {
+  private static final Pattern REFERENCES_PATTERN = Pattern.compile(
+      "REFERENCES\\s+(?:`(?:[^`]|``)*`\\.)?`((?:[^`]|``)*)`");
+
+  private final String tableName;
+  private final List<AlterChange> changes;
+  private final String createStatement;
+  private final TableStatistics statistics;
+  private final Set<String> referencedTableNames;
+
+  private TableDiff(String tableName, List<AlterChange> changes, String createStatement,
+      TableStatistics statistics, Set<String> referencedTableNames) {
+    this.tableName = tableName;
+    this.changes = Collections.unmodifiableList(changes);
+    this.createStatement = createStatement;
+    this.statistics = statistics;
+    this.referencedTableNames = Collections.unmodifiableSet(referencedTableNames);
+  }
+
+  /**
+   * Create a diff which alters an existing table.
+   *
+   * @param tableName Name of the table.
+   * @param changes Changes of the table.
+   * @return New TableDiff instance.
+   */
+  public static TableDiff alteration(String tableName, List<AlterChange> changes) {
+    return new TableDiff(tableName, new ArrayList<>(changes), null, null, new LinkedHashSet<>());
+  }
+
+  /**
+   * Create a diff which alters an existing table into given new table.
+   *
+   * @param newTable The table of new schema.
+   * @param changes Changes of the table.
+   * @return New TableDiff instance.
+   */
+  public static TableDiff alteration(Table newTable, List<AlterChange> changes) {
+    return new TableDiff(newTable.getTableName(), new ArrayList<>(changes), null, null,
+        extractReferencedTableNames(newTable));
+  }
+
+  /**
+   * Create a diff which creates a new table.
+   *
+   * @param table The new table.
+   * @return New TableDiff instance.
+   */
+  public static TableDiff creation(Table table) {
+    return new TableDiff(table.getTableName(), new ArrayList<>(), table.getContent(), null,
+        extractReferencedTableNames(table));
+  }
+
+  /**
+   * Returns a copy of this diff which is attached statistics of the table.
+   *
+   * <p>
+   * Rendered SQL of the returned diff is prefixed with a comment of estimated rebuild cost.
+   * </p>
+   *
+   * @param statistics Statistics of the table.
+   * @return New TableDiff instance.
+   */
+  public TableDiff withStatistics(TableStatistics statistics) {
+    return new TableDiff(tableName, changes, createStatement, statistics, referencedTableNames);
+  }
+
+  /**
+   * Estimate cost to apply this diff, as the number of bytes which are rewritten or scanned.
+   *
+   * <p>
+   * Changes of a table are applied at once, so the cost of the most expensive change is taken.
+   * The cost is 0 if this diff creates a new table or no statistics are attached.
+   * </p>
+   *
+   * @return Estimated cost.
+   */
+  public long getEstimatedRebuildCost() {
+    if (statistics == null) {
+      return 0;
+    }
+
+    return changes.stream()
+        .mapToLong(change -> change.estimateCost(statistics))
+        .max()
+        .orElse(0);
+  }
+
+  /**
+   * Returns whether this diff creates a new table.
+   *
+   * @return True if this diff creates a new table.
+   */
+  public boolean isCreation() {
+    return createStatement != null;
+  }
+
+  /**
+   * Returns whether this diff has nothing to apply.
+   *
+   * @return True if there is nothing to apply.
+   */
+  public boolean isEmpty() {
+    return !isCreation() && changes.isEmpty();
+  }
+
+  /**
+   * Returns statements to apply this diff, without terminators.
+   *
+   * @param onlineDdl If true, changes are split by {@link AlterAlgorithm} with online DDL hints
+   *        (see {@link #toOnlineDdlSql()}).
+   * @return Statements which should be executed in order.
+   */
+  public List<String> getStatements(boolean onlineDdl) {
+    List<String> statements = new ArrayList<>();
+    if (isCreation()) {
+      statements.add(createStatement);
+      return statements;
+    }
+    if (changes.isEmpty()) {
+      return statements;
+    }
+
+    if (!onlineDdl) {
+      statements.add(alterTablePrefix() + String.join(", ", changes.stream()
+          .map(AlterChange::getClause)
+          .collect(Collectors.toList())));
+      return statements;
+    }
+
+    for (AlterAlgorithm algorithm : AlterAlgorithm.values()) {
+      List<AlterChange> group = changes.stream()
+          .filter(change -> change.getAlgorithm() == algorithm)
+          .collect(Collectors.toList());
+      if (group.isEmpty()) {
+        continue;
+      }
+
+      StringBuilder statementBuilder = new StringBuilder(alterTablePrefix());
+      for (AlterChange change : group) {
+        statementBuilder.append(change.getClause()).append(", ");
+      }
+      statementBuilder.append("ALGORITHM=").append(algorithm.name());
+
+      // LOCK clause cannot be combined with ALGORITHM=INSTANT
+      if (algorithm == AlterAlgorithm.INPLACE) {
+        boolean concurrentDmlPermitted = group.stream()
+            .allMatch(AlterChange::isConcurrentDmlPermitted);
+        statementBuilder.append(concurrentDmlPermitted ? ", LOCK=NONE" : ", LOCK=SHARED");
+      } else if (algorithm == AlterAlgorithm.COPY) {
+        statementBuilder.append(", LOCK=SHARED");
+      }
+      statements.add(statementBuilder.toString());
+    }
+
+    return statements;
+  }
+
+  /**
+   * Render this diff as a single statement which includes all of changes.
+   *
+   * @return SQL string.
+   */
+  public String toSql() {
+    if (isCreation()) {
+      return createStatement + ";\n\n";
+    }
+    if (changes.isEmpty()) {
+      return "";
+    }
+
+    return new StringBuilder()
+        .append(costComment())
+        .append(getStatements(false).get(0))
+        .append(";\n\n")
+        .toString();
+  }
+
+  /**
+   * Render this diff with online DDL hints.
+   *
+   * <p>
+   * Changes are split into one statement per {@link AlterAlgorithm}, in order of cost, and each
+   * statement is suffixed with ALGORITHM and LOCK clauses. So cheap changes can be applied
+   * without waiting for a table rebuild.
+   * </p>
+   *
+   * @return SQL string.
+   */
+  public String toOnlineDdlSql() {
+    if (isCreation()) {
+      return createStatement + ";\n\n";
+    }
+    if (changes.isEmpty()) {
+      return "";
+    }
+
+    StringBuilder sqlBuilder = new StringBuilder(costComment());
+    for (String statement : getStatements(true)) {
+      sqlBuilder.append(statement).append(";\n");
+    }
+    return sqlBuilder.append("\n").toString();
+  }
+
+  private String costComment() {
+    if (statistics == null) {
+      return "";
+    }
+
+    return new StringBuilder()
+        .append("-- estimated rebuild cost: ")
+        .append(getEstimatedRebuildCost())
+        .append(" bytes (TABLE_ROWS=")
+        .append(statistics.getTableRows())
+        .append(", DATA_LENGTH=")
+        .append(statistics.getDataLength())
+        .append(", INDEX_LENGTH=")
+        .append(statistics.getIndexLength())
+        .append(")\n")
+        .toString();
+  }
+
+  private String alterTablePrefix() {
+    return new StringBuilder()
+        .append("ALTER TABLE `")
+        .append(tableName)
+        .append("` ")
+        .toString();
+  }
+
+  private static Set<String> extractReferencedTableNames(Table table) {
+    Set<String> referencedTableNames = new LinkedHashSet<>();
+    Matcher referencesMatcher = REFERENCES_PATTERN.matcher(table.getContent());
+    while (referencesMatcher.find()) {
+      String referencedTableName = referencesMatcher.group(1).replace("``", "`");
+      if (!referencedTableName.equals(table.getTableName())) {
+        referencedTableNames.add(referencedTableName);
+      }
+    }
+    return referencedTableNames;
+  }
+}
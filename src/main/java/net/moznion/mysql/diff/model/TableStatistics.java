@@ -0,0 +1,36 @@
+package net.moznion.mysql.diff.model;
+
+import lombok.Getter;
+
+/**
+ * Statistics of a table which are fetched from INFORMATION_SCHEMA.TABLES.
+ *
+ * <p>
+ * These values are estimates by storage engine (e.g. TABLE_ROWS of InnoDB).
+ * </p>
+ *
+ * @author moznion
+ *
+ */
+@Getter
+public class TableStatistics {
+  private final String tableName;
+  private final long tableRows;
+  private final long dataLength;
+  private final long indexLength;
+
+  /**
+   * Instantiate TableStatistics.
+   *
+   * @param tableName Name of the table.
+   * @param tableRows TABLE_ROWS of the table.
+   * @param dataLength DATA_LENGTH of the table.
+   * @param indexLength INDEX_LENGTH of the table.
+   */
+  public TableStatistics(String tableName, long tableRows, long dataLength, long indexLength) {
+    this.tableName = tableName;
+    this.tableRows = tableRows;
+    this.dataLength = dataLength;
+    this.indexLength = indexLength;
+  }
+}
@@ -10,16 +10,22 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 public class AppTest {
@@ -77,9 +83,43 @@ public class AppTest {
         + "(both of databases on remote MySQL)\n"
         + "    java -jar '-u root -h localhost dbname1' '-u root -h localhost dbname2'"
         + "\n"
+        + "* Take diffs of pairs which are listed in manifest.tsv in a process\n"
+        + "    java -jar --batch manifest.tsv --workers 8\n"
         + "[Options]\n"
         + "    -h, --help:    Show usage\n"
-        + "    -v, --version: Show version\n";
+        + "    -v, --version: Show version\n"
+        + "    --online-ddl:  Split changes by online DDL algorithm (INSTANT, INPLACE and COPY)\n"
+        + "                   and append ALGORITHM and LOCK hints\n"
+        + "    --with-stats:  Fetch table statistics of old_database (it must be a database),\n"
+        + "                   and order diffs by estimated rebuild cost\n"
+        + "    --advise-indexes: Suggest to drop redundant indexes of new_database\n"
+        + "    --osc tool:    Generate commands of online schema change tool\n"
+        + "                   (pt-online-schema-change or gh-ost) for large tables\n"
+        + "    --osc-threshold bytes: Size of table to use online schema change (default: 1 GiB)\n"
+        + "    --apply:       Apply diffs to old_database (it must be a database)\n"
+        + "    --dry-run:     Apply diffs to a scratch database which is loaded old schema\n"
+        + "    --concurrency num: Number of tables applied concurrently (default: 4)\n"
+        + "    --jdbc-dump:   Fetch schemas by SHOW CREATE TABLE over JDBC instead of mysqldump\n"
+        + "    --fetch-concurrency num: Connections to fetch schemas over JDBC in parallel\n"
+        + "                   (implies --jdbc-dump if greater than 1, default: 1)\n"
+        + "    --cache-dir dir: Cache dumped schemas in the directory\n"
+        + "    --snapshot-dir dir: Keep snapshots of remote databases in the directory,\n"
+        + "                   and fetch only changed tables\n"
+        + "    --offline:     Normalize SQL files without MySQL, by the rules of MySQL 5.7\n"
+        + "    --fingerprint: Compare checksums of tables computed by servers, and dump only\n"
+        + "                   different tables (both of arguments must be databases)\n"
+        + "    --max-dumps-per-host num: Limit concurrent dumps per remote MySQL, and back off\n"
+        + "                   while it is busy (default: no limit)\n"
+        + "    --include patterns: Compare only tables which match any of comma-separated globs\n"
+        + "                   (e.g. 'user_*,order_?'); it can be given repeatedly\n"
+        + "    --exclude patterns: Ignore tables which match any of comma-separated globs\n"
+        + "                   (e.g. '_archive_*'); it can be given repeatedly\n"
+        + "    --socket path: Connect to local MySQL via the unix domain socket, instead of TCP\n"
+        + "    --batch manifest: Take diffs of pairs in the manifest instead of arguments;\n"
+        + "                   each line is 'old_database<TAB>new_database<TAB>output_file'\n"
+        + "    --workers num: Number of pairs in the manifest taken concurrently (default: 4)\n"
+        + "    --summary file: Write status of each pair in the manifest to the file\n"
+        + "                   (default: manifest file name + '.summary')\n";
 
     System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
     assertEquals(expectedUsageString, usageString);
@@ -123,6 +163,169 @@ public class AppTest {
     sqlFile2.delete();
   }
 
+  @Test
+  public void shouldTakeDiffBetweenFilesOffline()
+      throws IOException, SQLException, InterruptedException {
+    File sqlFile1 = File.createTempFile("tempsql1", ".sql");
+    File sqlFile2 = File.createTempFile("tempsql2", ".sql");
+
+    try (BufferedWriter bufferedWriter =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile1),
+            Charset.forName("UTF-8")))) {
+      bufferedWriter.write(SQL_FOR_TEST);
+    }
+    try (BufferedWriter bufferedWriter =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile2),
+            Charset.forName("UTF-8")))) {
+      bufferedWriter.write("CREATE TABLE sample (id INTEGER(10) NOT NULL AUTO_INCREMENT, "
+          + "name VARCHAR(32), PRIMARY KEY (id)) DEFAULT CHARSET=utf8;\n");
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(baos));
+    try {
+      App.main(new String[] {"--offline", sqlFile1.getAbsolutePath(),
+          sqlFile2.getAbsolutePath()});
+    } finally {
+      System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+      sqlFile1.delete();
+      sqlFile2.delete();
+    }
+
+    assertEquals("ALTER TABLE `sample` ADD `name` varchar(32) DEFAULT NULL;\n\n\n",
+        baos.toString());
+  }
+
+  @Test
+  public void shouldTakeDiffOfFilteredTablesOffline()
+      throws IOException, SQLException, InterruptedException {
+    File sqlFile1 = File.createTempFile("tempsql1", ".sql");
+    File sqlFile2 = File.createTempFile("tempsql2", ".sql");
+
+    try (BufferedWriter bufferedWriter =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile1),
+            Charset.forName("UTF-8")))) {
+      bufferedWriter.write(SQL_FOR_TEST);
+    }
+    try (BufferedWriter bufferedWriter =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(sqlFile2),
+            Charset.forName("UTF-8")))) {
+      bufferedWriter.write("CREATE TABLE sample (id INTEGER(10) NOT NULL AUTO_INCREMENT, "
+          + "name VARCHAR(32), PRIMARY KEY (id)) DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE sample_archive_2019 (id INTEGER(10)) DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE other (id INTEGER(10)) DEFAULT CHARSET=utf8;\n");
+    }
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(baos));
+    try {
+      App.main(new String[] {"--offline", "--include", "sample*", "--exclude", "*_archive_*",
+          sqlFile1.getAbsolutePath(), sqlFile2.getAbsolutePath()});
+    } finally {
+      System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
+      sqlFile1.delete();
+      sqlFile2.delete();
+    }
+
+    assertEquals("ALTER TABLE `sample` ADD `name` varchar(32) DEFAULT NULL;\n\n\n",
+        baos.toString());
+  }
+
+  @Test
+  public void shouldTakeDiffsOfManifestInBatch() throws IOException, SQLException,
+      InterruptedException {
+    File directory = Files.createTempDirectory("batch").toFile();
+    File oldSql = new File(directory, "old.sql");
+    File newSql = new File(directory, "new.sql");
+    File brokenSql = new File(directory, "broken.sql");
+    Files.write(oldSql.toPath(), SQL_FOR_TEST.getBytes(StandardCharsets.UTF_8));
+    Files.write(newSql.toPath(), ("CREATE TABLE sample (id INTEGER(10) NOT NULL AUTO_INCREMENT, "
+        + "name VARCHAR(32), PRIMARY KEY (id)) DEFAULT CHARSET=utf8;\n")
+            .getBytes(StandardCharsets.UTF_8));
+    Files.write(brokenSql.toPath(), "CREATE TABLE".getBytes(StandardCharsets.UTF_8));
+
+    File changed = new File(directory, "out/changed.sql");
+    File unchanged = new File(directory, "out/unchanged.sql");
+    File failed = new File(directory, "out/failed.sql");
+    File manifest = new File(directory, "manifest.tsv");
+    Files.write(manifest.toPath(), Arrays.asList(
+        "# old\tnew\toutput",
+        oldSql + "\t" + newSql + "\t" + changed,
+        "",
+        oldSql + "\t" + oldSql + "\t" + unchanged,
+        oldSql + "\t" + brokenSql + "\t" + failed), StandardCharsets.UTF_8);
+
+    try {
+      App.main(new String[] {"--offline", "--batch", manifest.getPath(), "--workers", "2"});
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage().startsWith("1 of 3 entries"));
+    }
+
+    assertEquals("ALTER TABLE `sample` ADD `name` varchar(32) DEFAULT NULL;\n\n\n",
+        new String(Files.readAllBytes(changed.toPath()), StandardCharsets.UTF_8));
+    assertEquals("\n",
+        new String(Files.readAllBytes(unchanged.toPath()), StandardCharsets.UTF_8));
+    assertTrue(!failed.exists());
+
+    List<String> summary = Files.readAllLines(new File(directory, "manifest.tsv.summary").toPath(),
+        StandardCharsets.UTF_8);
+    assertEquals(4, summary.size());
+    assertEquals("status\ttables\tmillis\told\tnew\toutput\tmessage", summary.get(0));
+    assertTrue(summary.get(1).matches("DIFF\t1\t\\d+\t" + Pattern.quote(oldSql + "\t" + newSql
+        + "\t" + changed) + "\t"));
+    assertTrue(summary.get(2).matches("SAME\t0\t\\d+\t" + Pattern.quote(oldSql + "\t" + oldSql
+        + "\t" + unchanged) + "\t"));
+    assertTrue(summary.get(3).startsWith("FAILED\t0\t"));
+    assertTrue(summary.get(3).contains("IllegalArgumentException"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectMalformedManifest()
+      throws IOException, SQLException, InterruptedException {
+    File manifest = File.createTempFile("manifest", ".tsv");
+    try {
+      Files.write(manifest.toPath(), "old.sql new.sql out.sql\n".getBytes(StandardCharsets.UTF_8));
+      App.main(new String[] {"--offline", "--batch", manifest.getAbsolutePath()});
+    } finally {
+      manifest.delete();
+    }
+  }
+
+  @Test
+  public void shouldRejectApplyingInBatch() throws IOException, SQLException,
+      InterruptedException {
+    File directory = Files.createTempDirectory("batch").toFile();
+    File sqlFile = new File(directory, "schema.sql");
+    Files.write(sqlFile.toPath(),
+        "CREATE TABLE `a` (`id` int);\n".getBytes(StandardCharsets.UTF_8));
+    File output = new File(directory, "out.sql");
+    File manifest = new File(directory, "manifest.tsv");
+    Files.write(manifest.toPath(), (sqlFile + "\t" + sqlFile + "\t" + output + "\n")
+        .getBytes(StandardCharsets.UTF_8));
+
+    for (String option : Arrays.asList("--apply", "--dry-run")) {
+      try {
+        App.main(new String[] {"--offline", option, "--batch", manifest.getPath()});
+        fail();
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage().contains(option));
+      }
+    }
+    assertFalse(output.exists());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectFilesWithFingerprint()
+      throws IOException, SQLException, InterruptedException {
+    File sqlFile = File.createTempFile("tempsql", ".sql");
+    try {
+      App.main(new String[] {"--fingerprint", sqlFile.getAbsolutePath(), "dbname"});
+    } finally {
+      sqlFile.delete();
+    }
+  }
+
   @Test
   @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
       value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
@@ -149,7 +352,8 @@ public class AppTest {
           stmt.executeUpdate("CREATE DATABASE " + dbName);
         }
         try (Statement stmt = connection.createStatement()) {
-          stmt.executeUpdate("USE " + dbName + "; " + SQL_FOR_TEST);
+          stmt.execute("USE " + dbName);
+          stmt.executeUpdate(SQL_FOR_TEST);
         }
       }
 
@@ -202,7 +406,8 @@ public class AppTest {
           stmt.executeUpdate("CREATE DATABASE " + dbName);
         }
         try (Statement stmt = connection.createStatement()) {
-          stmt.executeUpdate("USE " + dbName + "; " + SQL_FOR_TEST);
+          stmt.execute("USE " + dbName);
+          stmt.executeUpdate(SQL_FOR_TEST);
         }
       }
 
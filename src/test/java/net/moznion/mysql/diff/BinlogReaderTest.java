@@ -0,0 +1,104 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BinlogReaderTest {
+  private static Path fixture(String name) throws URISyntaxException {
+    return Paths.get(BinlogReaderTest.class.getResource("/binlog/" + name).toURI());
+  }
+
+  private static List<String> readQueries(Path file) throws IOException {
+    List<String> queries = new ArrayList<>();
+    try (BinlogReader reader = new BinlogReader(file)) {
+      BinlogReader.QueryEvent event;
+      while ((event = reader.nextQuery()) != null) {
+        queries.add(event.getDatabase() + ": " + event.getSql());
+      }
+    }
+    return queries;
+  }
+
+  @Test
+  public void shouldReadQueryEventsWithChecksum() throws IOException, URISyntaxException {
+    try (BinlogReader reader = new BinlogReader(fixture("mysql-bin.000001"))) {
+      BinlogReader.QueryEvent event = reader.nextQuery();
+      assertEquals("app", event.getDatabase());
+      assertEquals("BEGIN", event.getSql());
+
+      event = reader.nextQuery(); // rows events are skipped
+      assertEquals("app", event.getDatabase());
+      assertEquals("ALTER TABLE `users` ADD COLUMN `email` varchar(255) NOT NULL AFTER `name`, "
+          + "ADD UNIQUE KEY `uniq_email` (`email`), ALGORITHM=INPLACE, LOCK=NONE", event.getSql());
+      assertEquals(0, event.getErrorCode());
+      assertEquals(560, reader.getPosition());
+
+      BinlogReader.QueryEvent last = null;
+      while ((event = reader.nextQuery()) != null) {
+        last = event;
+      }
+      assertEquals(1050, last.getErrorCode());
+      assertEquals(Files.size(fixture("mysql-bin.000001")), reader.getPosition());
+    }
+  }
+
+  @Test
+  public void shouldReadQueryEventsWithoutChecksum() throws IOException, URISyntaxException {
+    assertEquals(Arrays.asList("null: CREATE DATABASE `app`", "app: CREATE TABLE `t` (`id` int)"),
+        readQueries(fixture("mysql55-bin.000001")));
+  }
+
+  @Test
+  public void shouldStopAtIncompleteEvent() throws IOException, URISyntaxException {
+    byte[] bytes = Files.readAllBytes(fixture("mysql-bin.000001"));
+    Path file = Files.createTempFile("mysql-bin", ".000001");
+    try {
+      Files.write(file, Arrays.copyOf(bytes, 600));
+      try (BinlogReader reader = new BinlogReader(file)) {
+        reader.nextQuery();
+        reader.nextQuery();
+        assertNull(reader.nextQuery());
+        assertEquals(560, reader.getPosition());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void shouldThrowIOExceptionForBrokenFile() throws IOException, URISyntaxException {
+    byte[] bytes = Files.readAllBytes(fixture("mysql-bin.000001"));
+    bytes[500] ^= 1;
+    Path file = Files.createTempFile("mysql-bin", ".000001");
+    try {
+      Files.write(file, bytes);
+      try {
+        readQueries(file);
+        fail();
+      } catch (IOException e) {
+        // ok
+      }
+
+      Files.write(file, "CREATE TABLE t (id int);".getBytes("UTF-8"));
+      try {
+        readQueries(file);
+        fail();
+      } catch (IOException e) {
+        // ok
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
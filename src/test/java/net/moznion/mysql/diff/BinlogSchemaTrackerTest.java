@@ -0,0 +1,126 @@
+package net.moznion.mysql.diff;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.moznion.mysql.diff.model.Table;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinlogSchemaTrackerTest {
+  private File snapshotFile;
+  private BinlogSchemaTracker tracker;
+
+  @Before
+  public void setUp() throws IOException {
+    snapshotFile = File.createTempFile("schema", ".snapshot.sql");
+    tracker = BinlogSchemaTracker.builder()
+        .snapshotFile(snapshotFile)
+        .database("app")
+        .build();
+  }
+
+  @After
+  public void tearDown() {
+    snapshotFile.delete();
+  }
+
+  private static File fixture(String name) throws URISyntaxException {
+    return new File(BinlogSchemaTrackerTest.class.getResource("/binlog/" + name).toURI());
+  }
+
+  private static String readFixture(String name) throws IOException, URISyntaxException {
+    return new String(Files.readAllBytes(fixture(name).toPath()), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void shouldApplyDdlInBinlogs() throws IOException, URISyntaxException {
+    tracker.initialize(readFixture("initial.sql"), "mysql-bin.000001", 4);
+    List<Table> tables = tracker.update(
+        Arrays.asList(fixture("mysql-bin.000002"), fixture("mysql-bin.000001")));
+
+    String expected = readFixture("expected.sql");
+    assertEquals(expected, tracker.readSchema());
+    assertEquals(Arrays.asList("articles", "comments", "users"),
+        tables.stream().map(Table::getTableName).collect(Collectors.toList()));
+    assertEquals("", DiffExtractor.extractDiff(SchemaParser.parse(expected), tables));
+
+    String snapshot = new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.UTF_8);
+    assertTrue(snapshot.startsWith("-- Binlog position: mysql-bin.000002:"
+        + fixture("mysql-bin.000002").length() + "\n"));
+  }
+
+  @Test
+  public void shouldReadOnlyNewEvents() throws IOException, URISyntaxException {
+    tracker.initialize(readFixture("initial.sql"), "mysql-bin.000001", 4);
+    tracker.update(Collections.singletonList(fixture("mysql-bin.000001")));
+    assertTrue(tracker.readSchema().contains("CREATE TABLE `comments`"));
+
+    // CREATE TABLE `comments` is not applied twice
+    List<File> binlogFiles =
+        Arrays.asList(fixture("mysql-bin.000001"), fixture("mysql-bin.000002"));
+    tracker.update(binlogFiles);
+    tracker.update(binlogFiles);
+    assertEquals(readFixture("expected.sql"), tracker.readSchema());
+  }
+
+  @Test
+  public void shouldSkipBinlogsBeforeSnapshot() throws IOException, URISyntaxException {
+    tracker.initialize(readFixture("expected.sql"), "mysql-bin.000003", 4);
+    tracker.update(Arrays.asList(fixture("mysql-bin.000001"), fixture("mysql-bin.000002")));
+    assertEquals(readFixture("expected.sql"), tracker.readSchema());
+  }
+
+  @Test
+  public void shouldThrowIllegalArgumentExceptionForInconsistentSnapshot()
+      throws IOException, URISyntaxException {
+    tracker.initialize("", "mysql-bin.000001", 4);
+    try {
+      tracker.update(Collections.singletonList(fixture("mysql-bin.000001")));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ALTER TABLE `users` is applied to the missing table
+      assertTrue(e.getMessage().contains("end_log_pos 560 of mysql-bin.000001"));
+    }
+    assertEquals("", tracker.readSchema()); // not saved
+
+    Path file = snapshotFile.toPath();
+    Files.write(file, Collections.singletonList("CREATE TABLE t (id int);"));
+    try {
+      tracker.update(Collections.singletonList(fixture("mysql-bin.000001")));
+      fail();
+    } catch (IOException e) {
+      // ok
+    }
+  }
+
+  @Test
+  public void shouldThrowIllegalArgumentException() {
+    try {
+      BinlogSchemaTracker.builder().database("app").build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+
+    try {
+      BinlogSchemaTracker.builder().snapshotFile(Paths.get("snapshot.sql").toFile()).build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+  }
+}
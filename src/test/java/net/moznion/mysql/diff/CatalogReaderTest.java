@@ -0,0 +1,144 @@
+package net.moznion.mysql.diff;
+
+import com.mysql.cj.jdbc.exceptions.CommunicationsException;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import net.moznion.mysql.diff.model.Column;
+import net.moznion.mysql.diff.model.ColumnDefinition;
+import net.moznion.mysql.diff.model.Table;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class CatalogReaderTest {
+  private static final String SQL_FOR_TEST = "CREATE TABLE `sample` (\n"
+      + "  `id` int(10) unsigned NOT NULL AUTO_INCREMENT,\n"
+      + "  `name` varchar(32) NOT NULL DEFAULT '',\n"
+      + "  `kind` enum('a','b''c') DEFAULT NULL,\n"
+      + "  PRIMARY KEY (`id`),\n"
+      + "  UNIQUE KEY `name` (`name`),\n"
+      + "  KEY `kind` (`kind`,`name`(8))\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  @Test
+  public void shouldParseColumnType() {
+    ColumnDefinition column = new ColumnDefinition();
+    CatalogReader.parseColumnType(column, "int", "int(10) unsigned zerofill");
+    assertEquals("int", column.getDataType());
+    assertEquals("10", column.getLength());
+    assertTrue(column.isUnsigned());
+    assertTrue(column.isZerofill());
+
+    column = new ColumnDefinition();
+    CatalogReader.parseColumnType(column, "decimal", "decimal(10,2)");
+    assertEquals("10,2", column.getLength());
+    assertTrue(!column.isUnsigned());
+
+    column = new ColumnDefinition();
+    CatalogReader.parseColumnType(column, "enum", "enum('a','b''c',')')");
+    assertNull(column.getLength());
+    assertEquals(Arrays.asList("a", "b'c", ")"), column.getValues());
+
+    column = new ColumnDefinition();
+    CatalogReader.parseColumnType(column, "json", "json");
+    assertEquals("json", column.getDataType());
+    assertNull(column.getLength());
+  }
+
+  @Test
+  public void shouldRenderDefaultValue() {
+    ColumnDefinition column = new ColumnDefinition();
+    column.setDataType("varchar");
+    column.setNullable(true);
+    assertEquals("NULL", CatalogReader.renderDefaultValue(column, null, false));
+    assertEquals("'it''s'", CatalogReader.renderDefaultValue(column, "it's", false));
+    assertEquals("(uuid())", CatalogReader.renderDefaultValue(column, "uuid()", true));
+
+    column.setNullable(false);
+    assertNull(CatalogReader.renderDefaultValue(column, null, false));
+
+    column.setDataType("timestamp");
+    assertEquals("CURRENT_TIMESTAMP(3)",
+        CatalogReader.renderDefaultValue(column, "CURRENT_TIMESTAMP(3)", true));
+
+    column.setDataType("bit");
+    assertEquals("b'101'", CatalogReader.renderDefaultValue(column, "b'101'", false));
+
+    column.setDataType("text");
+    column.setNullable(true);
+    assertNull(CatalogReader.renderDefaultValue(column, null, false));
+  }
+
+  @Test
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
+  public void shouldReadTablesOfDatabasesAtOnce()
+      throws SQLException, IOException, InterruptedException {
+    MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder().build();
+    String tempDbName1 = "tmp_" + UUID.randomUUID().toString().replaceAll("-", "");
+    String tempDbName2 = "tmp_" + UUID.randomUUID().toString().replaceAll("-", "");
+    String mysqlUrl = connInfo.getJdbcUrl();
+    String user = connInfo.getUser();
+    String pass = connInfo.getPass();
+
+    SchemaDumper schemaDumper = SchemaDumper.builder()
+        .fetchMode(SchemaDumper.FetchMode.JDBC)
+        .build();
+    try (Connection connection = DriverManager.getConnection(mysqlUrl, user, pass)) {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.executeUpdate("CREATE DATABASE " + tempDbName1);
+      }
+      try (Statement stmt = connection.createStatement()) {
+        stmt.executeUpdate("CREATE DATABASE " + tempDbName2);
+      }
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute("USE " + tempDbName1);
+        stmt.executeUpdate(SQL_FOR_TEST);
+      }
+
+      Map<String, List<Table>> tables = schemaDumper.fetchTablesFromRemoteDbs(
+          Arrays.asList(tempDbName1, tempDbName2, "missing_" + tempDbName1), connInfo);
+      assertEquals(3, tables.size());
+      assertEquals(Collections.emptyList(), tables.get(tempDbName2));
+      assertEquals(Collections.emptyList(), tables.get("missing_" + tempDbName1));
+
+      List<Table> expected = SchemaParser.parse(schemaDumper.dumpFromLocalDb(tempDbName1));
+      List<Table> actual = tables.get(tempDbName1);
+      assertEquals(1, actual.size());
+      assertEquals(expected.get(0).getTableName(), actual.get(0).getTableName());
+      assertEquals(expected.get(0).getPrimaryKeys(), actual.get(0).getPrimaryKeys());
+      assertEquals(columnNamesOf(expected.get(0)), columnNamesOf(actual.get(0)));
+      assertEquals(expected.get(0).getUniqueKeys().size(), actual.get(0).getUniqueKeys().size());
+      assertEquals(expected.get(0).getKeys().get(0).getColumn(),
+          actual.get(0).getKeys().get(0).getColumn());
+    } catch (CommunicationsException e) {
+      assumeTrue("MySQL maybe not launched", false);
+    } finally {
+      try (Connection connectionToTeardown = DriverManager.getConnection(mysqlUrl, user, pass)) {
+        for (String dbName : Arrays.asList(tempDbName1, tempDbName2)) {
+          try (Statement stmt = connectionToTeardown.createStatement()) {
+            stmt.executeUpdate("DROP DATABASE IF EXISTS " + dbName);
+          }
+        }
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+  }
+
+  private static List<String> columnNamesOf(Table table) {
+    return table.getColumns().stream().map(Column::getName).collect(Collectors.toList());
+  }
+}
@@ -1,5 +1,6 @@
 package net.moznion.mysql.diff;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -66,4 +67,21 @@ public class ConnectionInfoTest {
       assertTrue(false);
     }
   }
+
+  @Test
+  public void shouldNotEnableMultiStatementsByDefault() {
+    assertEquals("jdbc:mysql://localhost:3306",
+        MySqlConnectionInfo.builder().build().getJdbcUrl());
+  }
+
+  @Test
+  public void shouldConnectViaUnixSocket() {
+    MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder()
+        .socketPath("/tmp/my sql.sock")
+        .build();
+    assertEquals("/tmp/my sql.sock", connInfo.getSocketPath());
+    assertEquals("jdbc:mysql://localhost:3306"
+        + "?socketFactory=org.newsclub.net.mysql.AFUNIXDatabaseSocketFactoryCJ"
+        + "&junixsocket.file=%2Ftmp%2Fmy+sql.sock", connInfo.getJdbcUrl());
+  }
 }
@@ -4,11 +4,17 @@ import com.mysql.cj.jdbc.exceptions.CommunicationsException;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import net.moznion.mysql.diff.model.AlterAlgorithm;
+import net.moznion.mysql.diff.model.AlterChange;
 import net.moznion.mysql.diff.model.Table;
+import net.moznion.mysql.diff.model.TableDiff;
+import net.moznion.mysql.diff.model.TableStatistics;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
@@ -154,4 +160,170 @@ public class DiffExtractorTest {
       }
     }
   }
+
+  public static class ForOnlineDdl {
+    private static final String OLD_SCHEMA = "CREATE TABLE `sample` (\n"
+        + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+        + "  `title` varchar(16) NOT NULL,\n"
+        + "  `status` enum('draft','published') NOT NULL,\n"
+        + "  `score` int(10) NOT NULL DEFAULT '0',\n"
+        + "  `body` varchar(64) DEFAULT NULL,\n"
+        + "  `created_on` int(10) unsigned NOT NULL,\n"
+        + "  PRIMARY KEY (`id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+    private static final String NEW_SCHEMA = "CREATE TABLE `sample` (\n"
+        + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+        + "  `title` varchar(32) NOT NULL,\n"
+        + "  `status` enum('draft','published','archived') NOT NULL,\n"
+        + "  `score` int(10) NOT NULL DEFAULT '1',\n"
+        + "  `body` text,\n"
+        + "  `created_on` int(10) unsigned NOT NULL,\n"
+        + "  `note` varchar(64) DEFAULT NULL,\n"
+        + "  PRIMARY KEY (`id`),\n"
+        + "  KEY `created_on` (`created_on`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+    @Test
+    public void shouldClassifyChangesByAlgorithm() {
+      List<TableDiff> tableDiffs = DiffExtractor.extractTableDiffs(
+          SchemaParser.parse(OLD_SCHEMA), SchemaParser.parse(NEW_SCHEMA));
+      assertEquals(1, tableDiffs.size());
+
+      Map<String, AlterAlgorithm> got = tableDiffs.get(0).getChanges().stream()
+          .collect(Collectors.toMap(AlterChange::getName, AlterChange::getAlgorithm));
+      Map<String, AlterAlgorithm> expected = new HashMap<>();
+      expected.put("title", AlterAlgorithm.INPLACE);
+      expected.put("status", AlterAlgorithm.INSTANT);
+      expected.put("score", AlterAlgorithm.INSTANT);
+      expected.put("body", AlterAlgorithm.COPY);
+      expected.put("note", AlterAlgorithm.INSTANT);
+      expected.put("created_on", AlterAlgorithm.INPLACE);
+      assertEquals(expected, got);
+    }
+
+    @Test
+    public void shouldClassifyVarcharExtensionOverLengthPrefixAsCopy() {
+      String oldSchema = "CREATE TABLE `sample` (\n"
+          + "  `title` varchar(63) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;\n";
+      String newSchema = "CREATE TABLE `sample` (\n"
+          + "  `title` varchar(64) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;\n";
+
+      List<TableDiff> tableDiffs = DiffExtractor.extractTableDiffs(
+          SchemaParser.parse(oldSchema), SchemaParser.parse(newSchema));
+      AlterChange change = tableDiffs.get(0).getChanges().get(0);
+      assertEquals(AlterAlgorithm.COPY, change.getAlgorithm());
+      assertTrue(change.isRebuildingTable());
+    }
+
+    @Test
+    public void shouldClassifyColumnAdditionWhichCannotBeInstantAsInplace() {
+      String oldSchema = "CREATE TABLE `fulltext` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `body` text,\n"
+          + "  FULLTEXT KEY `body` (`body`)\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `compressed` (\n"
+          + "  `id` int(10) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;\n";
+      String newSchema = "CREATE TABLE `fulltext` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `body` text,\n"
+          + "  `note` varchar(64) DEFAULT NULL,\n"
+          + "  FULLTEXT KEY `body` (`body`)\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `compressed` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `note` varchar(64) DEFAULT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8 ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8;\n";
+
+      String diff = DiffExtractor.extractOnlineDdlDiff(
+          SchemaParser.parse(oldSchema), SchemaParser.parse(newSchema));
+      List<String> got = Arrays.asList(diff.split("\n"));
+      List<String> expected = Arrays.asList(
+          "ALTER TABLE `compressed` ADD `note` varchar(64) DEFAULT NULL, ALGORITHM=INPLACE, "
+              + "LOCK=NONE;",
+          "",
+          "ALTER TABLE `fulltext` ADD `note` varchar(64) DEFAULT NULL, ALGORITHM=INPLACE, "
+              + "LOCK=SHARED;");
+      assertEquals(expected, got);
+    }
+
+    @Test
+    public void shouldSplitStatementsByAlgorithmWithHints() {
+      String oldSchema = "CREATE TABLE `sample` (\n"
+          + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+          + "  `title` varchar(16) NOT NULL,\n"
+          + "  PRIMARY KEY (`id`)\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+      String newSchema = "CREATE TABLE `sample` (\n"
+          + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+          + "  `title` text NOT NULL,\n"
+          + "  `note` varchar(64) DEFAULT NULL,\n"
+          + "  PRIMARY KEY (`id`),\n"
+          + "  KEY `note` (`note`)\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+      String diff = DiffExtractor.extractOnlineDdlDiff(
+          SchemaParser.parse(oldSchema), SchemaParser.parse(newSchema));
+      List<String> got = Arrays.asList(diff.split("\n"));
+      List<String> expected = Arrays.asList(
+          "ALTER TABLE `sample` ADD `note` varchar(64) DEFAULT NULL, ALGORITHM=INSTANT;",
+          "ALTER TABLE `sample` ADD INDEX `note` (`note`), ALGORITHM=INPLACE, LOCK=NONE;",
+          "ALTER TABLE `sample` MODIFY `title` text NOT NULL, ALGORITHM=COPY, LOCK=SHARED;");
+      assertEquals(expected, got);
+    }
+  }
+
+  public static class ForRebuildCost {
+    @Test
+    public void shouldOrderByEstimatedRebuildCost() {
+      String oldSchema = "CREATE TABLE `huge` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` varchar(16) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `large` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` varchar(16) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `tiny` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` varchar(16) NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+      String newSchema = "CREATE TABLE `huge` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` varchar(16) NOT NULL,\n"
+          + "  `note` varchar(16) DEFAULT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `large` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` text NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+          + "CREATE TABLE `tiny` (\n"
+          + "  `id` int(10) NOT NULL,\n"
+          + "  `title` text NOT NULL\n"
+          + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+      Map<String, TableStatistics> statistics = new HashMap<>();
+      statistics.put("huge", new TableStatistics("huge", 1000000, 1 << 30, 1 << 28));
+      statistics.put("large", new TableStatistics("large", 10000, 1 << 20, 1 << 18));
+      statistics.put("tiny", new TableStatistics("tiny", 10, 1 << 14, 0));
+
+      List<TableDiff> tableDiffs = DiffExtractor.orderByRebuildCost(
+          DiffExtractor.extractTableDiffs(
+              SchemaParser.parse(oldSchema), SchemaParser.parse(newSchema)),
+          statistics);
+
+      // adding a trailing column to `huge` is instant, so it costs nothing
+      List<String> got = tableDiffs.stream()
+          .map(TableDiff::getTableName)
+          .collect(Collectors.toList());
+      assertEquals(Arrays.asList("large", "tiny", "huge"), got);
+      assertEquals((1 << 20) + (1 << 18), tableDiffs.get(0).getEstimatedRebuildCost());
+      assertEquals(0, tableDiffs.get(2).getEstimatedRebuildCost());
+      assertTrue(tableDiffs.get(0).toSql().startsWith("-- estimated rebuild cost: 1310720 bytes"));
+    }
+  }
 }
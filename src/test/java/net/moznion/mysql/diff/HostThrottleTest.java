@@ -0,0 +1,236 @@
+package net.moznion.mysql.diff;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HostThrottleTest {
+  private static final MySqlConnectionInfo HOST1 =
+      MySqlConnectionInfo.builder().host("db1").build();
+  private static final MySqlConnectionInfo HOST2 =
+      MySqlConnectionInfo.builder().host("db2").build();
+
+  @Test
+  public void shouldLimitConcurrencyPerHost() throws Exception {
+    HostThrottle throttle =
+        new HostThrottle(HostThrottle.builder().maxConcurrencyPerHost(2), info -> 1);
+
+    HostThrottle.Permit permit1 = throttle.acquire(HOST1);
+    HostThrottle.Permit permit2 = throttle.acquire(HOST1);
+    CompletableFuture<HostThrottle.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+      try {
+        return throttle.acquire(HOST1);
+      } catch (SQLException | InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    // Other hosts are not affected
+    throttle.acquire(HOST2).close();
+
+    try {
+      waiting.get(200, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException e) {
+      // ok
+    }
+
+    permit1.close();
+    permit1.close(); // closing twice must not release another slot
+    waiting.get(5, TimeUnit.SECONDS).close();
+    permit2.close();
+  }
+
+  @Test
+  public void shouldBackOffWhileHostIsBusy() throws SQLException, InterruptedException {
+    AtomicInteger numOfProbes = new AtomicInteger();
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder()
+        .maxConcurrencyPerHost(4)
+        .threadsRunningThreshold(10)
+        .probeIntervalMillis(0)
+        .initialBackoffMillis(10),
+        info -> numOfProbes.incrementAndGet() <= 2 ? 100 : 1);
+
+    long startedAt = System.nanoTime();
+    throttle.acquire(HOST1).close();
+    assertEquals(3, numOfProbes.get());
+    assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(30));
+    assertEquals(2, throttle.getCurrentLimit(HOST1)); // 4 -> 2 -> 1 -> 2
+
+    throttle.acquire(HOST1).close();
+    assertEquals(3, throttle.getCurrentLimit(HOST1));
+    assertEquals(4, throttle.getCurrentLimit(HOST2));
+  }
+
+  @Test
+  public void shouldTreatSlowProbeAsOverload() throws SQLException, InterruptedException {
+    AtomicInteger numOfProbes = new AtomicInteger();
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder()
+        .maxConcurrencyPerHost(2)
+        .latencyThresholdMillis(50)
+        .probeIntervalMillis(0)
+        .initialBackoffMillis(1),
+        info -> {
+          if (numOfProbes.incrementAndGet() == 1) {
+            try {
+              TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+          return 0;
+        });
+
+    throttle.acquire(HOST1).close();
+    assertEquals(2, numOfProbes.get());
+  }
+
+  @Test
+  public void shouldTreatProbeTimeoutAsOverload() throws SQLException, InterruptedException {
+    AtomicInteger numOfProbes = new AtomicInteger();
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder()
+        .maxConcurrencyPerHost(2)
+        .probeIntervalMillis(0)
+        .initialBackoffMillis(1),
+        info -> {
+          if (numOfProbes.incrementAndGet() == 1) {
+            throw new SQLTimeoutException("timeout");
+          }
+          return 0;
+        });
+
+    throttle.acquire(HOST1).close();
+    assertEquals(2, numOfProbes.get());
+    assertEquals(2, throttle.getCurrentLimit(HOST1)); // 2 -> 1 -> 2
+  }
+
+  @Test
+  public void shouldReleaseWhileProbing() throws Exception {
+    CountDownLatch probing = new CountDownLatch(1);
+    CountDownLatch slowProbe = new CountDownLatch(1);
+    AtomicInteger numOfProbes = new AtomicInteger();
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder()
+        .maxConcurrencyPerHost(2)
+        .probeIntervalMillis(0),
+        info -> {
+          if (numOfProbes.incrementAndGet() == 2) {
+            probing.countDown();
+            try {
+              slowProbe.await();
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+          return 0;
+        });
+
+    HostThrottle.Permit permit = throttle.acquire(HOST1);
+    CompletableFuture<?> waiting = CompletableFuture.runAsync(() -> {
+      try {
+        throttle.acquire(HOST1).close();
+      } catch (SQLException | InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertTrue(probing.await(5, TimeUnit.SECONDS));
+
+    // A slow probe must not block a finishing dump
+    CompletableFuture.runAsync(permit::close).get(5, TimeUnit.SECONDS);
+    slowProbe.countDown();
+    waiting.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldReuseProbeInInterval() throws SQLException, InterruptedException {
+    AtomicInteger numOfProbes = new AtomicInteger();
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder().probeIntervalMillis(60_000),
+        info -> numOfProbes.incrementAndGet());
+
+    throttle.acquire(HOST1).close();
+    throttle.acquire(HOST1).close();
+    assertEquals(1, numOfProbes.get());
+  }
+
+  @Test
+  public void shouldReleaseSlotIfProbeFailed() throws Exception {
+    AtomicReference<SQLException> failure = new AtomicReference<>(new SQLException("down"));
+    HostThrottle throttle = new HostThrottle(HostThrottle.builder()
+        .maxConcurrencyPerHost(1)
+        .probeIntervalMillis(0),
+        info -> {
+          SQLException e = failure.getAndSet(null);
+          if (e != null) {
+            throw e;
+          }
+          return 0;
+        });
+
+    try {
+      throttle.acquire(HOST1);
+      fail();
+    } catch (SQLException e) {
+      assertEquals("down", e.getMessage());
+    }
+    CompletableFuture.runAsync(() -> {
+      try {
+        throttle.acquire(HOST1).close();
+      } catch (SQLException | InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }).get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldRejectInvalidArguments() {
+    for (HostThrottle.Builder builder : Arrays.asList(
+        HostThrottle.builder().maxConcurrencyPerHost(0),
+        HostThrottle.builder().latencyThresholdMillis(0),
+        HostThrottle.builder().threadsRunningThreshold(0),
+        HostThrottle.builder().initialBackoffMillis(100).maxBackoffMillis(10),
+        HostThrottle.builder().probeTimeoutMillis(0))) {
+      try {
+        builder.build();
+        fail();
+      } catch (IllegalArgumentException e) {
+        // ok
+      }
+    }
+  }
+
+  @Test
+  public void shouldWaitForRemoteDumpsByThrottle()
+      throws InterruptedException, ExecutionException, TimeoutException, SQLException {
+    HostThrottle throttle =
+        new HostThrottle(HostThrottle.builder().maxConcurrencyPerHost(1), info -> 0);
+    SchemaDumper schemaDumper = SchemaDumper.builder().hostThrottle(throttle).build();
+
+    HostThrottle.Permit permit = throttle.acquire(HOST1);
+    CompletableFuture<?> statistics = CompletableFuture.runAsync(() -> {
+      try {
+        schemaDumper.fetchTableStatisticsFromRemoteDb("unused", HOST1, Arrays.asList());
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    try {
+      statistics.get(200, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (TimeoutException e) {
+      // ok
+    }
+    permit.close();
+    statistics.get(5, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,174 @@
+package net.moznion.mysql.diff;
+
+import com.mysql.cj.jdbc.exceptions.CommunicationsException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import net.moznion.mysql.diff.model.TableDiff;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class MigrationApplierTest {
+  private static final String NEW_SCHEMA = "CREATE TABLE `comment` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `entry_id` int(10) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`),\n"
+      + "  KEY `entry_id` (`entry_id`),\n"
+      + "  CONSTRAINT `comment_ibfk_1` FOREIGN KEY (`entry_id`) REFERENCES `entry` (`id`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+      + "\n"
+      + "CREATE TABLE `entry` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `user_id` int(10) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`),\n"
+      + "  KEY `user_id` (`user_id`),\n"
+      + "  CONSTRAINT `entry_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+      + "\n"
+      + "CREATE TABLE `tag` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+      + "\n"
+      + "CREATE TABLE `user` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  private static List<TableDiff> getTableDiffs() {
+    return DiffExtractor.extractTableDiffs(Collections.emptyList(), SchemaParser.parse(NEW_SCHEMA));
+  }
+
+  private static MigrationApplier.Builder getBuilder() {
+    return MigrationApplier.builder()
+        .mysqlConnectionInfo(MySqlConnectionInfo.builder().build());
+  }
+
+  @Test
+  public void shouldApplyReferencedTablesFirst() throws SQLException, InterruptedException {
+    List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    MigrationApplier applier = new MigrationApplier(getBuilder().concurrency(4),
+        (dbName, tableName, statements) -> {
+          assertEquals("test_db", dbName);
+          assertEquals(1, statements.size());
+          assertTrue(statements.get(0).startsWith("CREATE TABLE `" + tableName + "`"));
+          applied.add(tableName);
+        });
+    applier.apply("test_db", getTableDiffs());
+
+    assertEquals(4, applied.size());
+    assertTrue(applied.indexOf("user") < applied.indexOf("entry"));
+    assertTrue(applied.indexOf("entry") < applied.indexOf("comment"));
+  }
+
+  @Test
+  public void shouldSkipTablesAfterFailure() throws InterruptedException {
+    List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+    MigrationApplier applier = new MigrationApplier(getBuilder()
+        .concurrency(1)
+        .progressListener(new MigrationApplier.ProgressListener() {
+          @Override
+          public void onSkipped(String tableName) {
+            skipped.add(tableName);
+          }
+        }), (dbName, tableName, statements) -> {
+          if (tableName.equals("user")) {
+            throw new SQLException("boom");
+          }
+          applied.add(tableName);
+        });
+
+    try {
+      applier.apply("test_db", getTableDiffs());
+      fail();
+    } catch (SQLException e) {
+      assertEquals("boom", e.getMessage());
+    }
+
+    assertTrue(skipped.contains("entry"));
+    assertTrue(skipped.contains("comment"));
+    assertTrue(!applied.contains("entry"));
+    assertTrue(!applied.contains("comment"));
+  }
+
+  @Test
+  public void shouldSplitStatementsOfTableForOnlineDdl()
+      throws SQLException, InterruptedException {
+    String oldSchema = "CREATE TABLE `tag` (\n"
+        + "  `id` int(10) NOT NULL,\n"
+        + "  `name` varchar(32) NOT NULL,\n"
+        + "  PRIMARY KEY (`id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+    String newSchema = "CREATE TABLE `tag` (\n"
+        + "  `id` int(10) NOT NULL,\n"
+        + "  `name` varchar(32) NOT NULL,\n"
+        + "  `note` varchar(32) NOT NULL,\n"
+        + "  PRIMARY KEY (`id`),\n"
+        + "  KEY `name` (`name`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+    List<TableDiff> tableDiffs = DiffExtractor.extractTableDiffs(
+        SchemaParser.parse(oldSchema), SchemaParser.parse(newSchema));
+
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    MigrationApplier applier = new MigrationApplier(getBuilder().onlineDdl(true),
+        (dbName, tableName, statements) -> executed.addAll(statements));
+    applier.apply("test_db", tableDiffs);
+
+    assertEquals(2, executed.size());
+    assertTrue(executed.get(0).endsWith("ALGORITHM=INSTANT"));
+    assertTrue(executed.get(1).endsWith("ALGORITHM=INPLACE, LOCK=NONE"));
+  }
+
+  @Test
+  public void shouldDryRunOnScratchServer() throws SQLException, InterruptedException {
+    MySqlConnectionInfo localMySqlConnectionInfo = MySqlConnectionInfo.builder().build();
+    try (Connection connection = DriverManager.getConnection(localMySqlConnectionInfo.getJdbcUrl(),
+        localMySqlConnectionInfo.getUser(), localMySqlConnectionInfo.getPass())) {
+      assertTrue(connection.isValid(1));
+    } catch (CommunicationsException e) {
+      assumeTrue("MySQL maybe not launched", false);
+    }
+
+    String newSchema = NEW_SCHEMA.replace("  `id` int(10) NOT NULL,\n  PRIMARY KEY (`id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n\nCREATE TABLE `user`",
+        "  `id` int(10) NOT NULL,\n  `name` varchar(32) NOT NULL,\n  PRIMARY KEY (`id`)\n"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n\nCREATE TABLE `user`");
+    List<TableDiff> tableDiffs = DiffExtractor.extractTableDiffs(
+        SchemaParser.parse(NEW_SCHEMA), SchemaParser.parse(newSchema));
+    assertEquals(1, tableDiffs.size());
+
+    // the target is never connected by dry run
+    MigrationApplier applier = MigrationApplier.builder()
+        .mysqlConnectionInfo(MySqlConnectionInfo.builder().host("target.invalid").build())
+        .scratchMySqlConnectionInfo(localMySqlConnectionInfo)
+        .scratchDatabasePool(ScratchDatabasePool.builder().build())
+        .build();
+    applier.dryRun(NEW_SCHEMA, tableDiffs);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectCircularForeignKeys() throws SQLException, InterruptedException {
+    String schema = "CREATE TABLE `a` (\n"
+        + "  `id` int(10) NOT NULL,\n"
+        + "  PRIMARY KEY (`id`),\n"
+        + "  CONSTRAINT `a_ibfk_1` FOREIGN KEY (`id`) REFERENCES `b` (`id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+        + "\n"
+        + "CREATE TABLE `b` (\n"
+        + "  `id` int(10) NOT NULL,\n"
+        + "  PRIMARY KEY (`id`),\n"
+        + "  CONSTRAINT `b_ibfk_1` FOREIGN KEY (`id`) REFERENCES `a` (`id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+    new MigrationApplier(getBuilder(), (dbName, tableName, statements) -> {})
+        .apply("test_db", DiffExtractor.extractTableDiffs(
+            Collections.emptyList(), SchemaParser.parse(schema)));
+  }
+}
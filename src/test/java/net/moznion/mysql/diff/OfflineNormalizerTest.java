@@ -0,0 +1,141 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+import net.moznion.mysql.diff.model.Table;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class OfflineNormalizerTest {
+  // *.expected.sql are written by hand in the format of SHOW CREATE TABLE of MySQL 5.7; they are
+  // not recorded from a server
+  private static final String[] FIXTURES = {"numbers", "users", "orders"};
+
+  private final OfflineNormalizer normalizer = OfflineNormalizer.builder().build();
+
+  @Test
+  public void shouldNormalizeAsSameAsExpected() {
+    for (String fixture : FIXTURES) {
+      String input = readFixture(fixture + ".input.sql");
+      String dumped = readFixture(fixture + ".expected.sql");
+      assertEquals(fixture, contentsOf(dumped), contentsOf(normalizer.normalize(input)));
+    }
+  }
+
+  @Test
+  public void shouldKeepDumpedSchemaAsIs() {
+    for (String fixture : FIXTURES) {
+      String dumped = readFixture(fixture + ".expected.sql");
+      assertEquals(fixture, contentsOf(dumped), contentsOf(normalizer.normalize(dumped)));
+    }
+  }
+
+  @Test
+  public void shouldOrderTablesByNameAndApplyDropTable() {
+    String sql = "CREATE TABLE b (id int);\n"
+        + "CREATE TABLE a (id int);\n"
+        + "CREATE TABLE c (id int);\n"
+        + "DROP TABLE IF EXISTS c, d;\n";
+    assertEquals("CREATE TABLE `a` (\n"
+        + "  `id` int(11) DEFAULT NULL\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=latin1;\n\n"
+        + "CREATE TABLE `b` (\n"
+        + "  `id` int(11) DEFAULT NULL\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=latin1;\n\n", normalizer.normalize(sql));
+  }
+
+  @Test
+  public void shouldApplyServerVariables() {
+    OfflineNormalizer customized = OfflineNormalizer.builder()
+        .defaultCharset("utf8mb4")
+        .defaultEngine("myisam")
+        .explicitDefaultsForTimestamp(true)
+        .build();
+    assertEquals("CREATE TABLE `t` (\n"
+        + "  `at` timestamp NULL DEFAULT NULL\n"
+        + ") ENGINE=MyISAM DEFAULT CHARSET=utf8mb4;\n\n",
+        customized.normalize("CREATE TABLE t (at timestamp)"));
+  }
+
+  @Test
+  public void shouldApplyAlterTable() {
+    String sql = "CREATE TABLE parent (id int PRIMARY KEY);\n"
+        + "CREATE TABLE child (id int NOT NULL, parent_id int, name varchar(10),\n"
+        + "  PRIMARY KEY (id), FOREIGN KEY (parent_id) REFERENCES parent (id))\n"
+        + "  COLLATE latin1_bin;\n"
+        + "ALTER TABLE child MODIFY name varchar(20) NOT NULL FIRST,\n"
+        + "  ALTER COLUMN parent_id SET DEFAULT 0, DROP FOREIGN KEY child_ibfk_1,\n"
+        + "  DROP PRIMARY KEY, DEFAULT CHARSET=utf8;\n"
+        + "CREATE UNIQUE INDEX uniq_name ON child (name);\n"
+        + "RENAME TABLE child TO kid;\n"
+        + "ALTER TABLE parent ADD COLUMN code char(4) AFTER id, RENAME TO mother;\n"
+        + "DROP INDEX `PRIMARY` ON mother;\n";
+    assertEquals("CREATE TABLE `kid` (\n"
+        + "  `name` varchar(20) NOT NULL,\n"
+        + "  `id` int(11) NOT NULL,\n"
+        + "  `parent_id` int(11) DEFAULT '0',\n"
+        + "  UNIQUE KEY `uniq_name` (`name`),\n"
+        + "  KEY `parent_id` (`parent_id`)\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n\n"
+        + "CREATE TABLE `mother` (\n"
+        + "  `id` int(11) NOT NULL,\n"
+        + "  `code` char(4) DEFAULT NULL\n"
+        + ") ENGINE=InnoDB DEFAULT CHARSET=latin1;\n\n", normalizer.normalize(sql));
+  }
+
+  @Test
+  public void shouldRejectUnsupportedStatements() {
+    String[] sqls = {
+        "CREATE TABLE t (id int); ALTER TABLE t CONVERT TO CHARACTER SET utf8;",
+        "CREATE TABLE t (id int); ALTER TABLE t DROP COLUMN id;",
+        "CREATE TABLE t (id int); ALTER TABLE t ADD COLUMN c int AFTER missing;",
+        "ALTER TABLE missing ADD COLUMN c int;",
+        "CREATE TABLE t (id int) PARTITION BY HASH(id) PARTITIONS 2;",
+        "CREATE TABLE t (id int, id int);",
+        "CREATE TABLE t (id int NULL PRIMARY KEY);",
+        "CREATE TABLE t (id int, KEY (missing));",
+        "CREATE TABLE t (id unknown_type);",
+        "CREATE TABLE t (id int"};
+    for (String sql : sqls) {
+      try {
+        normalizer.normalize(sql);
+        fail(sql);
+      } catch (IllegalArgumentException e) {
+        // ok
+      }
+    }
+  }
+
+  @Test
+  public void shouldDumpWithoutMysql() throws SQLException, IOException, InterruptedException {
+    SchemaDumper schemaDumper = SchemaDumper.builder()
+        .offlineNormalizer(normalizer)
+        .build();
+    String input = readFixture("orders.input.sql");
+    assertEquals(normalizer.normalize(input), schemaDumper.dump(input));
+  }
+
+  private static List<String> contentsOf(String schema) {
+    return SchemaParser.parse(schema).stream()
+        .map(Table::getContent)
+        .collect(Collectors.toList());
+  }
+
+  private static String readFixture(String name) {
+    try (InputStream in =
+        OfflineNormalizerTest.class.getResourceAsStream("/offline-normalizer/" + name)) {
+      try (Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+        return scanner.useDelimiter("\\A").next();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package net.moznion.mysql.diff;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.moznion.mysql.diff.OnlineSchemaChangeCommandGenerator.Tool;
+import net.moznion.mysql.diff.model.TableDiff;
+import net.moznion.mysql.diff.model.TableStatistics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OnlineSchemaChangeCommandGeneratorTest {
+  private static final String OLD_SCHEMA = "CREATE TABLE `big` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `title` varchar(16) NOT NULL\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+      + "CREATE TABLE `small` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `title` varchar(16) NOT NULL\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  private static final String NEW_SCHEMA = "CREATE TABLE `big` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `title` text NOT NULL,\n"
+      + "  `note` varchar(16) DEFAULT NULL\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n"
+      + "CREATE TABLE `small` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  `title` text NOT NULL\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  private static final MySqlConnectionInfo CONNECTION_INFO = MySqlConnectionInfo.builder()
+      .host("db.example.com")
+      .user("migrator")
+      .pass("secret")
+      .build();
+
+  private List<TableDiff> getTableDiffs() {
+    Map<String, TableStatistics> statistics = new HashMap<>();
+    statistics.put("big", new TableStatistics("big", 100000000, 10L << 30, 2L << 30));
+    statistics.put("small", new TableStatistics("small", 100, 1 << 16, 0));
+
+    return DiffExtractor.orderByRebuildCost(
+        DiffExtractor.extractTableDiffs(
+            SchemaParser.parse(OLD_SCHEMA), SchemaParser.parse(NEW_SCHEMA)),
+        statistics);
+  }
+
+  @Test
+  public void shouldGeneratePtOnlineSchemaChangeCommand() {
+    OnlineSchemaChangeCommandGenerator generator = OnlineSchemaChangeCommandGenerator.builder()
+        .build();
+    TableDiff big = getTableDiffs().get(0);
+
+    assertTrue(generator.isTarget(big));
+    assertEquals("pt-online-schema-change"
+        + " --alter 'MODIFY `title` text NOT NULL'"
+        + " --max-load 'Threads_running=25'"
+        + " --critical-load 'Threads_running=50'"
+        + " --max-lag 1"
+        + " --chunk-time 0.5"
+        + " --ask-pass"
+        + " --execute"
+        + " 'h=db.example.com,P=3306,u=migrator,D=app,t=big'",
+        generator.generateCommand("app", CONNECTION_INFO, big));
+  }
+
+  @Test
+  public void shouldGenerateGhostCommand() {
+    OnlineSchemaChangeCommandGenerator generator = OnlineSchemaChangeCommandGenerator.builder()
+        .tool(Tool.GH_OST)
+        .chunkSize(500)
+        .build();
+    TableDiff big = getTableDiffs().get(0);
+
+    assertEquals("gh-ost"
+        + " --host='db.example.com'"
+        + " --port=3306"
+        + " --user='migrator'"
+        + " --ask-pass"
+        + " --database='app'"
+        + " --table='big'"
+        + " --alter='MODIFY `title` text NOT NULL'"
+        + " --max-load='Threads_running=25'"
+        + " --critical-load='Threads_running=50'"
+        + " --max-lag-millis=1000"
+        + " --chunk-size=500"
+        + " --execute",
+        generator.generateCommand("app", CONNECTION_INFO, big));
+  }
+
+  @Test
+  public void shouldKeepPlainAlterForSmallTableAndInstantChanges() {
+    OnlineSchemaChangeCommandGenerator generator = OnlineSchemaChangeCommandGenerator.builder()
+        .build();
+    List<TableDiff> tableDiffs = getTableDiffs();
+    assertFalse(generator.isTarget(tableDiffs.get(1)));
+
+    String rendered = generator.render("app", CONNECTION_INFO, tableDiffs);
+    assertTrue(rendered.contains(
+        "ALTER TABLE `big` ADD `note` varchar(16) DEFAULT NULL, ALGORITHM=INSTANT;\n"));
+    assertTrue(rendered.contains("-- pt-online-schema-change --alter 'MODIFY `title` text"));
+    assertTrue(rendered.contains("ALTER TABLE `small` MODIFY `title` text NOT NULL;\n"));
+  }
+}
@@ -0,0 +1,66 @@
+package net.moznion.mysql.diff;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.moznion.mysql.diff.model.RedundantIndex;
+import net.moznion.mysql.diff.model.RedundantIndex.Reason;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedundantIndexAdvisorTest {
+  private static final String SCHEMA = "CREATE TABLE `sample` (\n"
+      + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+      + "  `user_id` int(10) NOT NULL,\n"
+      + "  `email` varchar(64) NOT NULL,\n"
+      + "  `name` varchar(64) NOT NULL,\n"
+      + "  `created_on` int(10) unsigned NOT NULL,\n"
+      + "  PRIMARY KEY (`id`,`user_id`),\n"
+      + "  UNIQUE KEY `email` (`email`),\n"
+      + "  UNIQUE KEY `email_name` (`email`,`name`),\n"
+      + "  KEY `id` (`id`),\n"
+      + "  KEY `email_2` (`email`),\n"
+      + "  KEY `name_created_on` (`name`,`created_on`),\n"
+      + "  KEY `name` (`name`),\n"
+      + "  KEY `name_2` (`name`(10)),\n"
+      + "  KEY `created_on` (`created_on`),\n"
+      + "  KEY `created_on_2` (`created_on`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  @Test
+  public void shouldFindRedundantIndexes() {
+    List<RedundantIndex> redundantIndexes =
+        RedundantIndexAdvisor.advise(SchemaParser.parse(SCHEMA));
+
+    List<String> got = redundantIndexes.stream()
+        .map(index -> String.join(" ",
+            index.getIndexName(), index.getReason().name(), index.getCoveringIndexName()))
+        .collect(Collectors.toList());
+    List<String> expected = Arrays.asList(
+        "id LEFT_PREFIX PRIMARY",
+        "email_2 DUPLICATE email",
+        "name LEFT_PREFIX name_created_on",
+        "created_on_2 DUPLICATE created_on");
+    assertEquals(expected, got);
+  }
+
+  @Test
+  public void shouldRenderDropIndexStatements() {
+    String sql = RedundantIndexAdvisor.adviseAsSql(SchemaParser.parse(SCHEMA));
+    assertEquals("ALTER TABLE `sample` DROP INDEX `id`; -- left-prefix of `PRIMARY`",
+        sql.split("\n")[0]);
+    assertEquals("ALTER TABLE `sample` DROP INDEX `email_2`; -- duplicate of `email`",
+        sql.split("\n")[1]);
+  }
+
+  @Test
+  public void shouldNotReportUniqueKeyAsLeftPrefix() {
+    List<RedundantIndex> redundantIndexes =
+        RedundantIndexAdvisor.advise(SchemaParser.parse(SCHEMA));
+    assertEquals(0, redundantIndexes.stream()
+        .filter(index -> index.getIndexName().equals("email"))
+        .count());
+    assertEquals(Reason.DUPLICATE, redundantIndexes.get(1).getReason());
+  }
+}
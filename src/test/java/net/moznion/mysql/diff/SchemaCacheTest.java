@@ -0,0 +1,83 @@
+package net.moznion.mysql.diff;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaCacheTest {
+  private static final String SCHEMA = "CREATE TABLE `sample` (\n"
+      + "  `id` int(10) NOT NULL AUTO_INCREMENT,\n"
+      + "  `name` varchar(32) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`),\n"
+      + "  UNIQUE KEY `name` (`name`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8;\n";
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("schema-cache").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    for (File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void shouldComputeKeyByAllOfParts() {
+    String key = SchemaCache.computeKey(SCHEMA, "8.0.36", "JDBC");
+    assertEquals(64, key.length());
+    assertEquals(key, SchemaCache.computeKey(SCHEMA, "8.0.36", "JDBC"));
+    assertNotEquals(key, SchemaCache.computeKey(SCHEMA, "8.0.37", "JDBC"));
+    assertNotEquals(key, SchemaCache.computeKey(SCHEMA, "8.0.36", "MYSQLDUMP"));
+    assertNotEquals(key, SchemaCache.computeKey(SCHEMA + " ", "8.0.36", "JDBC"));
+  }
+
+  @Test
+  public void shouldStoreSchema() throws IOException {
+    SchemaCache cache = SchemaCache.builder().directory(directory).build();
+    String key = SchemaCache.computeKey(SCHEMA, "8.0.36", "JDBC");
+    assertEquals(Optional.empty(), cache.getSchema(key));
+
+    cache.putSchema(key, SCHEMA);
+
+    assertEquals(SCHEMA, cache.getSchema(key).get());
+    assertEquals(SCHEMA, new String(Files.readAllBytes(directory.toPath().resolve(key + ".sql")),
+        StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntries() throws IOException {
+    SchemaCache cache = SchemaCache.builder()
+        .directory(directory)
+        .maxSizeBytes(SCHEMA.length() * 2)
+        .build();
+
+    cache.putSchema("old", SCHEMA);
+    cache.putSchema("used", SCHEMA);
+    Path dir = directory.toPath();
+    Files.setLastModifiedTime(dir.resolve("old.sql"), FileTime.fromMillis(1000));
+    Files.setLastModifiedTime(dir.resolve("used.sql"), FileTime.fromMillis(2000));
+    assertTrue(cache.getSchema("used").isPresent()); // touched
+
+    cache.putSchema("new", SCHEMA);
+    assertEquals(Optional.empty(), cache.getSchema("old"));
+    assertTrue(cache.getSchema("used").isPresent());
+    assertTrue(cache.getSchema("new").isPresent());
+  }
+}
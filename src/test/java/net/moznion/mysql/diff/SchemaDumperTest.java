@@ -11,12 +11,31 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.moznion.mysql.diff.model.SchemaFingerprint;
+import net.moznion.mysql.diff.model.Table;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 @RunWith(Enclosed.class)
@@ -191,7 +210,8 @@ public class SchemaDumperTest {
           stmt.executeUpdate("CREATE DATABASE " + tempDbName);
         }
         try (Statement stmt = connection.createStatement()) {
-          stmt.executeUpdate("USE " + tempDbName + "; " + SQL_FOR_TEST);
+          stmt.execute("USE " + tempDbName);
+          stmt.executeUpdate(SQL_FOR_TEST);
         }
 
         schemaDumper.dumpFromLocalDb(tempDbName);
@@ -226,7 +246,8 @@ public class SchemaDumperTest {
           stmt.executeUpdate("CREATE DATABASE " + tempDbName);
         }
         try (Statement stmt = connection.createStatement()) {
-          stmt.executeUpdate("USE " + tempDbName + "; " + SQL_FOR_TEST);
+          stmt.execute("USE " + tempDbName);
+          stmt.executeUpdate(SQL_FOR_TEST);
         }
         schemaDumper.dumpFromRemoteDb(tempDbName, connInfo);
       } catch (Exception e) {
@@ -243,4 +264,551 @@ public class SchemaDumperTest {
       assertTrue(true);
     }
   }
+
+  public static class ForJdbcFetchMode {
+    private SchemaDumper schemaDumper = SchemaDumper.builder()
+        .fetchMode(SchemaDumper.FetchMode.JDBC)
+        .build();
+
+    @Test
+    public void shouldDumpViaJdbc() throws SQLException, IOException, InterruptedException {
+      try {
+        String schema = schemaDumper.dump(SQL_FOR_TEST);
+        List<Table> tables = SchemaParser.parse(schema);
+        assertEquals(1, tables.size());
+        assertEquals("sample", tables.get(0).getTableName());
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+
+    @Test
+    public void shouldDumpSameSchemaAsMysqldump()
+        throws SQLException, IOException, InterruptedException {
+      try {
+        String diff = DiffExtractor.extractDiff(
+            SchemaParser.parse(new SchemaDumper().dump(SQL_FOR_TEST)),
+            SchemaParser.parse(schemaDumper.dump(SQL_FOR_TEST)));
+        assertEquals("", diff);
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+
+    @Test
+    public void shouldFetchInParallelInTableOrder()
+        throws SQLException, IOException, InterruptedException {
+      StringBuilder sqlBuilder = new StringBuilder();
+      for (int i = 9; i >= 0; i--) {
+        sqlBuilder.append(SQL_FOR_TEST.replace("sample", "sample_" + i));
+      }
+      String sql = sqlBuilder.toString();
+
+      try {
+        String parallel = SchemaDumper.builder()
+            .fetchMode(SchemaDumper.FetchMode.JDBC)
+            .fetchConcurrency(4)
+            .build()
+            .dump(sql);
+        assertEquals(schemaDumper.dump(sql), parallel);
+        assertEquals("sample_0", SchemaParser.parse(parallel).get(0).getTableName());
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRaiseIllegalArgumentExceptionByNullFetchMode() {
+      SchemaDumper.builder().fetchMode(null).build();
+    }
+  }
+
+  public static class ForConnectionPool {
+    @Test
+    public void shouldReuseConnectionAcrossDumps()
+        throws SQLException, IOException, InterruptedException {
+      try (SimpleConnectionPool pool = SimpleConnectionPool.builder()
+          .mysqlConnectionInfo(MySqlConnectionInfo.builder().build())
+          .maxPoolSize(1)
+          .build()) {
+        SchemaDumper schemaDumper = SchemaDumper.builder()
+            .localDataSource(pool)
+            .fetchMode(SchemaDumper.FetchMode.JDBC)
+            .build();
+        for (int i = 0; i < 3; i++) {
+          assertEquals(1, SchemaParser.parse(schemaDumper.dump(SQL_FOR_TEST)).size());
+        }
+        assertEquals(1, pool.getNumOfIdleConnections());
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+  }
+
+  public static class ForScratchDatabasePool {
+    @Test
+    public void shouldReuseScratchDatabase()
+        throws SQLException, IOException, InterruptedException {
+      ScratchDatabasePool scratchDatabasePool = ScratchDatabasePool.builder()
+          .maxIdle(1)
+          .build();
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .scratchDatabasePool(scratchDatabasePool)
+          .fetchMode(SchemaDumper.FetchMode.JDBC)
+          .build();
+      try {
+        for (int i = 0; i < 3; i++) {
+          assertEquals(1, SchemaParser.parse(schemaDumper.dump(SQL_FOR_TEST)).size());
+        }
+        schemaDumper.clearScratchDatabases();
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+
+    @Test
+    public void shouldSweepStaleScratchDatabase() throws SQLException {
+      MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder().build();
+      String staleDbName = "tmp_1000000000_0123456789abcdef";
+      try (Connection connection = DriverManager.getConnection(
+          connInfo.getJdbcUrl(), connInfo.getUser(), connInfo.getPass())) {
+        try (Statement stmt = connection.createStatement()) {
+          stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + staleDbName);
+        }
+
+        List<String> swept = ScratchDatabasePool.builder().build().sweep(connection);
+        assertTrue(swept.contains(staleDbName));
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      }
+    }
+  }
+
+  public static class ForStatementBatch {
+    @Test
+    public void shouldReportLineOfFailedStatement()
+        throws IOException, InterruptedException {
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .statementBatchSize(2)
+          .fetchMode(SchemaDumper.FetchMode.JDBC)
+          .build();
+      try {
+        schemaDumper.dump(SQL_FOR_TEST
+            + "DELIMITER //\n"
+            + "CREATE TABLE `second` (`id` int)//\n"
+            + "DELIMITER ;\n"
+            + "CREATE TABLE `broken` (;\n");
+        fail();
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      } catch (SQLException e) {
+        assertTrue(e.getMessage().startsWith("Failed to execute the statement at line 8: "));
+      }
+    }
+
+    @Test
+    public void shouldReportLineOfFailedStatementInDefaultBatch()
+        throws IOException, InterruptedException {
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .fetchMode(SchemaDumper.FetchMode.JDBC)
+          .build();
+      StringBuilder sql = new StringBuilder(SQL_FOR_TEST);
+      for (int i = 0; i < 6; i++) {
+        sql.append("CREATE TABLE `t").append(i).append("` (`id` int);\n");
+      }
+      sql.append("CREATE TABLE `broken` (;\n");
+      sql.append("CREATE TABLE `last` (`id` int);\n");
+      try {
+        schemaDumper.dump(sql.toString());
+        fail();
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      } catch (SQLException e) {
+        assertTrue(e.getMessage().startsWith("Failed to execute the statement at line 11: "));
+      }
+    }
+  }
+
+  public static class ForScratchServerBalancer {
+    @Test
+    public void shouldTakeUnreachableServersOutOfRotation()
+        throws IOException, InterruptedException {
+      ScratchServerBalancer balancer = ScratchServerBalancer.builder()
+          .servers(Arrays.asList(
+              MySqlConnectionInfo.builder().host("127.0.0.1").port(1).build(),
+              MySqlConnectionInfo.builder().host("127.0.0.1").port(2).build()))
+          .build();
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .scratchServerBalancer(balancer)
+          .fetchMode(SchemaDumper.FetchMode.JDBC)
+          .build();
+      try {
+        schemaDumper.dump(SQL_FOR_TEST);
+        fail();
+      } catch (SQLException e) {
+        assertEquals(1, e.getSuppressed().length);
+      }
+      assertEquals(Collections.emptyList(), balancer.getHealthyServers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotBeCombinedWithScratchDatabasePool() {
+      SchemaDumper.builder()
+          .scratchServerBalancer(ScratchServerBalancer.builder()
+              .servers(Collections.singletonList(MySqlConnectionInfo.builder().build()))
+              .build())
+          .scratchDatabasePool(ScratchDatabasePool.builder().build())
+          .build();
+    }
+  }
+
+  public static class ForBatchDump {
+    @Test
+    public void shouldReportFailuresPerInput() throws InterruptedException {
+      Map<String, String> sqls = new LinkedHashMap<>();
+      sqls.put("valid", SQL_FOR_TEST);
+      sqls.put("invalid", "CREATE TABLE `broken` (");
+      sqls.put("valid_too", SQL_FOR_TEST.replace("sample", "sample_too"));
+
+      BatchDumpResult<String> result = SchemaDumper.builder()
+          .batchConcurrency(2)
+          .fetchMode(SchemaDumper.FetchMode.JDBC)
+          .build()
+          .dumpAll(sqls);
+      assumeTrue("MySQL maybe not launched",
+          !(result.getFailures().get("valid") instanceof CommunicationsException));
+
+      assertTrue(!result.isSucceeded());
+      assertEquals(Arrays.asList("invalid"), new ArrayList<>(result.getFailures().keySet()));
+      assertEquals(Arrays.asList("valid", "valid_too"),
+          new ArrayList<>(result.getSchemas().keySet()));
+      assertTrue(result.getSchemas().get("valid_too").contains("CREATE TABLE `sample_too`"));
+    }
+  }
+
+  public static class ForMysqldumpProcess {
+    private static File createFakeMysqldump(String script) throws IOException {
+      assumeTrue("/bin/sh is not available", new File("/bin/sh").exists());
+
+      File fakeMysqldump = File.createTempFile("fake-mysqldump", ".sh");
+      fakeMysqldump.deleteOnExit();
+      try (BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(
+          new FileOutputStream(fakeMysqldump), Charset.forName("UTF-8")))) {
+        bufferedWriter.write("#!/bin/sh\n" + script);
+      }
+      assertTrue(fakeMysqldump.setExecutable(true));
+      return fakeMysqldump;
+    }
+
+    @Test
+    public void shouldDrainStderrConcurrently()
+        throws IOException, InterruptedException, SQLException {
+      // Larger than pipe buffer; this blocks if stderr is not drained
+      File fakeMysqldump = createFakeMysqldump(
+          "i=0; while [ $i -lt 2000 ]; do "
+              + "echo 'warning warning warning warning warning warning' >&2; i=$((i+1)); done\n"
+              + "printf '%s' \"" + SQL_FOR_TEST.replace("`", "\\`") + "\"\n");
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .mysqldumpPath(fakeMysqldump.getAbsolutePath())
+          .mysqldumpTimeoutMillis(10_000)
+          .build();
+      assertEquals(SQL_FOR_TEST, schemaDumper.dumpFromLocalDb("sample"));
+    }
+
+    @Test
+    public void shouldPassSocketPath() throws IOException, InterruptedException, SQLException {
+      File fakeMysqldump = createFakeMysqldump("printf '%s\\n' \"$@\"\n");
+      SchemaDumper schemaDumper = SchemaDumper.builder()
+          .localMySqlConnectionInfo(MySqlConnectionInfo.builder()
+              .socketPath("/var/run/mysqld/mysqld.sock")
+              .build())
+          .mysqldumpPath(fakeMysqldump.getAbsolutePath())
+          .build();
+      assertEquals(Arrays.asList("--no-data=true", "sample", "-uroot", "--protocol=SOCKET",
+          "--socket=/var/run/mysqld/mysqld.sock"),
+          Arrays.asList(schemaDumper.dumpFromLocalDb("sample").split("\n")));
+    }
+
+    @Test
+    public void shouldTimeOut() throws InterruptedException, SQLException {
+      SchemaDumper schemaDumper = null;
+      try {
+        schemaDumper = SchemaDumper.builder()
+            .mysqldumpPath(createFakeMysqldump("sleep 10\n").getAbsolutePath())
+            .mysqldumpTimeoutMillis(100)
+            .build();
+      } catch (IOException e) {
+        assertTrue(false);
+      }
+
+      try {
+        schemaDumper.dumpFromLocalDb("sample");
+        assertTrue(false);
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("timed out"));
+      }
+    }
+
+    @Test
+    public void shouldCancelDump() throws InterruptedException {
+      DumpHandle handle = SchemaDumper.builder()
+          .mysqldumpPath("sleep")
+          .build()
+          .dumpAsync(SQL_FOR_TEST);
+      try {
+        handle.get(200, TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+        assumeTrue("MySQL maybe not launched",
+            !(e.getCause() instanceof CommunicationsException));
+      } catch (TimeoutException e) {
+        // still running
+      }
+
+      if (!handle.isDone()) {
+        assertTrue(handle.cancel());
+        try {
+          handle.get();
+          assertTrue(false);
+        } catch (CancellationException | ExecutionException e) {
+          assertTrue(handle.isCancelled());
+        }
+      }
+    }
+  }
+
+  public static class ForIncrementalDump {
+    @Test
+    public void shouldDumpIncrementally() throws SQLException, IOException, InterruptedException {
+      MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder().build();
+      SchemaDumper schemaDumper = new SchemaDumper();
+
+      String tempDbName = new StringBuilder()
+          .append("tmp_")
+          .append(UUID.randomUUID().toString().replaceAll("-", ""))
+          .toString();
+      File snapshotFile = File.createTempFile("schema", ".snapshot");
+      snapshotFile.delete();
+
+      try (Connection connection = DriverManager.getConnection(
+          connInfo.getJdbcUrl(), connInfo.getUser(), connInfo.getPass())) {
+        try (Statement stmt = connection.createStatement()) {
+          stmt.executeUpdate("CREATE DATABASE " + tempDbName);
+        }
+        try {
+          try (Statement stmt = connection.createStatement()) {
+            stmt.execute("USE " + tempDbName);
+            stmt.executeUpdate(SQL_FOR_TEST);
+          }
+          String first =
+              schemaDumper.dumpFromRemoteDbIncrementally(tempDbName, connInfo, snapshotFile);
+          assertEquals(1, SchemaParser.parse(first).get(0).getColumns().size());
+
+          try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(
+                "ALTER TABLE " + tempDbName + ".sample ADD COLUMN name varchar(32)");
+          }
+          String second =
+              schemaDumper.dumpFromRemoteDbIncrementally(tempDbName, connInfo, snapshotFile);
+          assertEquals(2, SchemaParser.parse(second).get(0).getColumns().size());
+        } finally {
+          try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DROP DATABASE " + tempDbName);
+          }
+        }
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      } finally {
+        snapshotFile.delete();
+      }
+    }
+  }
+
+  public static class ForAsyncDump {
+    private final SchemaDumper schemaDumper = SchemaDumper.builder()
+        .offlineNormalizer(OfflineNormalizer.builder().build())
+        .build();
+
+    @Test
+    public void shouldDumpOnGivenExecutor()
+        throws SQLException, IOException, InterruptedException, ExecutionException {
+      AtomicInteger numOfTasks = new AtomicInteger();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        CompletableFuture<String> future = schemaDumper.dumpFuture(SQL_FOR_TEST, task -> {
+          numOfTasks.incrementAndGet();
+          executor.execute(task);
+        });
+        assertEquals(schemaDumper.dump(SQL_FOR_TEST), future.get());
+        assertEquals(1, numOfTasks.get());
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyByCauseOfFailure() throws InterruptedException {
+      ExecutorService executor = SchemaDumper.newDumpExecutor();
+      try {
+        schemaDumper.dumpFuture("CREATE TABLE broken (", executor).get();
+        assertTrue(false);
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+      } finally {
+        executor.shutdown();
+      }
+    }
+
+    @Test
+    public void shouldRunDumpsConcurrently() throws InterruptedException, ExecutionException {
+      ExecutorService executor = SchemaDumper.newDumpExecutor();
+      try {
+        CountDownLatch latch = new CountDownLatch(2);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+          futures.add(SchemaDumper.callAsync(() -> {
+            latch.countDown();
+            return latch.await(10, TimeUnit.SECONDS) && Thread.currentThread().isDaemon();
+          }, executor));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+          assertTrue(future.get());
+        }
+      } finally {
+        executor.shutdown();
+      }
+    }
+  }
+
+  public static class ForRemoteNormalization {
+    @Test
+    public void shouldCompareServerVersions() {
+      assertTrue(SchemaDumper.isSameServerVersion("5.7.44", "5.7.44-log"));
+      assertTrue(SchemaDumper.isSameServerVersion("8.0.36-0ubuntu0.22.04.1", "8.0.36"));
+      assertTrue(!SchemaDumper.isSameServerVersion("5.7.44", "5.7.43"));
+      assertTrue(!SchemaDumper.isSameServerVersion("8.0.36", "5.7.44"));
+      assertTrue(!SchemaDumper.isSameServerVersion("10.5.9-MariaDB", "10.5.9"));
+      assertTrue(!SchemaDumper.isSameServerVersion("unknown", "unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNullPolicy() {
+      SchemaDumper.builder().remoteNormalization(null).build();
+    }
+
+    @Test
+    @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+        value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
+    public void shouldSkipNormalizationOfSameServer()
+        throws SQLException, IOException, InterruptedException {
+      MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder().build();
+      String tempDbName = "tmp_" + UUID.randomUUID().toString().replaceAll("-", "");
+      String mysqlUrl = connInfo.getJdbcUrl();
+      String user = connInfo.getUser();
+      String pass = connInfo.getPass();
+
+      try (Connection connection = DriverManager.getConnection(mysqlUrl, user, pass)) {
+        try (Statement stmt = connection.createStatement()) {
+          stmt.executeUpdate("CREATE DATABASE " + tempDbName);
+        }
+        try (Statement stmt = connection.createStatement()) {
+          stmt.execute("USE " + tempDbName);
+          stmt.executeUpdate(SQL_FOR_TEST);
+        }
+
+        SchemaDumper normalizing = SchemaDumper.builder()
+            .remoteNormalization(SchemaDumper.RemoteNormalization.ALWAYS)
+            .build();
+        SchemaDumper skipping = SchemaDumper.builder().build();
+        assertEquals(contentsOf(normalizing.dumpFromRemoteDb(tempDbName, connInfo)),
+            contentsOf(skipping.dumpFromRemoteDb(tempDbName, connInfo)));
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      } finally {
+        try (Connection connectionToTeardown = DriverManager.getConnection(mysqlUrl, user, pass)) {
+          try (Statement stmt = connectionToTeardown.createStatement()) {
+            stmt.executeUpdate("DROP DATABASE IF EXISTS " + tempDbName);
+          }
+        } catch (CommunicationsException e) {
+          assumeTrue("MySQL maybe not launched", false);
+        }
+      }
+    }
+
+    private static List<String> contentsOf(String schema) {
+      List<String> contents = new ArrayList<>();
+      for (Table table : SchemaParser.parse(schema)) {
+        contents.add(table.getContent());
+      }
+      return contents;
+    }
+  }
+
+  public static class ForFingerprint {
+    private final SchemaDumper schemaDumper = SchemaDumper.builder()
+        .remoteNormalization(SchemaDumper.RemoteNormalization.NEVER)
+        .build();
+
+    @Test
+    @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+        value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
+    public void shouldDumpOnlyDifferentTables()
+        throws SQLException, IOException, InterruptedException {
+      MySqlConnectionInfo connInfo = MySqlConnectionInfo.builder().build();
+      String tempDbName1 = "tmp_" + UUID.randomUUID().toString().replaceAll("-", "");
+      String tempDbName2 = "tmp_" + UUID.randomUUID().toString().replaceAll("-", "");
+      String mysqlUrl = connInfo.getJdbcUrl();
+      String user = connInfo.getUser();
+      String pass = connInfo.getPass();
+
+      try (Connection connection = DriverManager.getConnection(mysqlUrl, user, pass)) {
+        for (String dbName : Arrays.asList(tempDbName1, tempDbName2)) {
+          try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE DATABASE " + dbName);
+          }
+          try (Statement stmt = connection.createStatement()) {
+            stmt.execute("USE " + dbName);
+            stmt.executeUpdate(SQL_FOR_TEST);
+            stmt.executeUpdate("CREATE TABLE `other` (`id` int(10) NOT NULL);");
+          }
+        }
+
+        SchemaFingerprint fingerprint1 =
+            schemaDumper.fetchFingerprintFromRemoteDb(tempDbName1, connInfo);
+        SchemaFingerprint fingerprint2 = schemaDumper.fetchFingerprintFromLocalDb(tempDbName2);
+        assertTrue(fingerprint1.matches(fingerprint2.getDigest()));
+
+        try (Statement stmt = connection.createStatement()) {
+          stmt.executeUpdate("ALTER TABLE " + tempDbName2 + ".other ADD `name` varchar(32)");
+        }
+        fingerprint2 = schemaDumper.fetchFingerprintFromRemoteDb(tempDbName2, connInfo);
+        List<String> differentTables = fingerprint1.findDifferentTables(fingerprint2);
+        assertEquals(Arrays.asList("other"), differentTables);
+
+        List<Table> tables = SchemaParser.parse(
+            schemaDumper.dumpTablesFromRemoteDb(tempDbName2, connInfo, differentTables));
+        assertEquals(1, tables.size());
+        assertEquals("other", tables.get(0).getTableName());
+      } catch (CommunicationsException e) {
+        assumeTrue("MySQL maybe not launched", false);
+      } finally {
+        try (Connection connectionToTeardown = DriverManager.getConnection(mysqlUrl, user, pass)) {
+          for (String dbName : Arrays.asList(tempDbName1, tempDbName2)) {
+            try (Statement stmt = connectionToTeardown.createStatement()) {
+              stmt.executeUpdate("DROP DATABASE IF EXISTS " + dbName);
+            }
+          }
+        } catch (CommunicationsException e) {
+          assumeTrue("MySQL maybe not launched", false);
+        }
+      }
+    }
+
+    @Test
+    public void shouldDumpNothingForNoTables()
+        throws SQLException, IOException, InterruptedException {
+      assertEquals("", schemaDumper.dumpTablesFromLocalDb("unused", Collections.emptyList()));
+      assertEquals("", schemaDumper.dumpTablesFromRemoteDb("unused",
+          MySqlConnectionInfo.builder().build(), Collections.emptyList()));
+    }
+  }
 }
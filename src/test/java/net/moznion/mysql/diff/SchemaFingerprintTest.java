@@ -0,0 +1,57 @@
+package net.moznion.mysql.diff;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.moznion.mysql.diff.model.SchemaFingerprint;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaFingerprintTest {
+  @Test
+  public void shouldComputeDigestRegardlessOfOrder() {
+    Map<String, String> checksums1 = new LinkedHashMap<>();
+    checksums1.put("a", "1");
+    checksums1.put("b", "2");
+    Map<String, String> checksums2 = new LinkedHashMap<>();
+    checksums2.put("b", "2");
+    checksums2.put("a", "1");
+
+    SchemaFingerprint fingerprint1 = new SchemaFingerprint(checksums1);
+    SchemaFingerprint fingerprint2 = new SchemaFingerprint(checksums2);
+    assertEquals(fingerprint1.getDigest(), fingerprint2.getDigest());
+    assertTrue(fingerprint1.matches(fingerprint2.getDigest()));
+    assertEquals(Collections.emptyList(), fingerprint1.findDifferentTables(fingerprint2));
+  }
+
+  @Test
+  public void shouldNotConfuseBoundaryOfNames() {
+    SchemaFingerprint fingerprint1 = new SchemaFingerprint(Collections.singletonMap("ab", "c"));
+    SchemaFingerprint fingerprint2 = new SchemaFingerprint(Collections.singletonMap("a", "bc"));
+    assertTrue(!fingerprint1.matches(fingerprint2.getDigest()));
+  }
+
+  @Test
+  public void shouldFindDifferentTables() {
+    Map<String, String> oldChecksums = new HashMap<>();
+    oldChecksums.put("changed", "1");
+    oldChecksums.put("dropped", "2");
+    oldChecksums.put("same", "3");
+    Map<String, String> newChecksums = new HashMap<>();
+    newChecksums.put("added", "4");
+    newChecksums.put("changed", "5");
+    newChecksums.put("same", "3");
+
+    SchemaFingerprint oldFingerprint = new SchemaFingerprint(oldChecksums);
+    SchemaFingerprint newFingerprint = new SchemaFingerprint(newChecksums);
+    assertTrue(!oldFingerprint.matches(newFingerprint.getDigest()));
+    assertEquals(Arrays.asList("added", "changed", "dropped"),
+        oldFingerprint.findDifferentTables(newFingerprint));
+    assertEquals(Arrays.asList("added", "changed", "dropped"),
+        newFingerprint.findDifferentTables(oldFingerprint));
+  }
+}
@@ -0,0 +1,101 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SchemaSnapshotTest {
+  private static final String CREATE_FOO = "CREATE TABLE `foo` (\n"
+      + "  `id` int(10) NOT NULL,\n"
+      + "  PRIMARY KEY (`id`)\n"
+      + ") ENGINE=InnoDB DEFAULT CHARSET=utf8";
+
+  private static final String CREATE_BAR = CREATE_FOO.replace("foo", "bar");
+
+  @Test
+  public void shouldFetchOnlyChangedTables() {
+    Map<String, String> signatures = new HashMap<>();
+    signatures.put("foo", "1");
+    signatures.put("bar", "1");
+
+    SchemaSnapshot empty = new SchemaSnapshot();
+    assertEquals(Arrays.asList("bar", "foo"), empty.findChangedTables(signatures));
+
+    Map<String, String> createTables = new HashMap<>();
+    createTables.put("foo", CREATE_FOO);
+    createTables.put("bar", CREATE_BAR);
+    SchemaSnapshot snapshot = empty.update(signatures, createTables);
+    assertEquals(Collections.emptyList(), snapshot.findChangedTables(signatures));
+
+    signatures.put("foo", "2");
+    signatures.put("baz", "1");
+    assertEquals(Arrays.asList("baz", "foo"), snapshot.findChangedTables(signatures));
+  }
+
+  @Test
+  public void shouldMergeFetchedTablesAndRemoveDroppedTables() {
+    Map<String, String> signatures = new HashMap<>();
+    signatures.put("foo", "1");
+    signatures.put("bar", "1");
+    Map<String, String> createTables = new HashMap<>();
+    createTables.put("foo", CREATE_FOO);
+    createTables.put("bar", CREATE_BAR);
+    SchemaSnapshot snapshot = new SchemaSnapshot().update(signatures, createTables);
+    assertEquals(CREATE_BAR + ";\n\n" + CREATE_FOO + ";\n\n", snapshot.toSchema());
+
+    signatures.remove("bar");
+    signatures.put("foo", "2");
+    String alteredFoo = CREATE_FOO.replace("`id` int(10)", "`id` bigint(20)");
+    SchemaSnapshot updated =
+        snapshot.update(signatures, Collections.singletonMap("foo", alteredFoo));
+    assertEquals(alteredFoo + ";\n\n", updated.toSchema());
+    assertEquals(1, SchemaParser.parse(updated.toSchema()).size());
+  }
+
+  @Test
+  public void shouldSaveAndLoad() throws IOException {
+    Path directory = Files.createTempDirectory("schema-snapshot");
+    Path file = directory.resolve("db.snapshot");
+    try {
+      assertEquals("", SchemaSnapshot.load(file).toSchema());
+
+      SchemaSnapshot snapshot = new SchemaSnapshot().update(
+          Collections.singletonMap("foo", "1"), Collections.singletonMap("foo", CREATE_FOO));
+      snapshot.save(file);
+
+      SchemaSnapshot loaded = SchemaSnapshot.load(file);
+      assertEquals(snapshot.toSchema(), loaded.toSchema());
+      assertEquals(Collections.singletonMap("foo", "1"), loaded.getSignatures());
+      assertEquals("-- Schema snapshot\n-- Table: 1 " + CREATE_FOO.length() + " foo\n"
+          + CREATE_FOO + ";\n\n",
+          new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+      // statements are kept as they are even if they contain the delimiter
+      String createWithComment = CREATE_FOO + " COMMENT='a;\n\n-- Table: 1 1 x\n'";
+      Map<String, String> signatures = new HashMap<>();
+      signatures.put("foo", "1");
+      signatures.put("b a r", "2");
+      Map<String, String> createTables = new HashMap<>();
+      createTables.put("foo", createWithComment);
+      createTables.put("b a r", CREATE_BAR);
+      new SchemaSnapshot().update(signatures, createTables).save(file);
+      loaded = SchemaSnapshot.load(file);
+      assertEquals(signatures, loaded.getSignatures());
+      assertEquals(CREATE_BAR + ";\n\n" + createWithComment + ";\n\n", loaded.toSchema());
+
+      Files.write(file, new byte[] {1, 2, 3});
+      assertEquals("", SchemaSnapshot.load(file).toSchema());
+    } finally {
+      Files.deleteIfExists(file);
+      Files.delete(directory);
+    }
+  }
+}
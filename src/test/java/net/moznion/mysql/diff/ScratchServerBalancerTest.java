@@ -0,0 +1,118 @@
+package net.moznion.mysql.diff;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ScratchServerBalancerTest {
+  private static final MySqlConnectionInfo SERVER1 =
+      MySqlConnectionInfo.builder().host("127.0.0.1").port(3307).build();
+  private static final MySqlConnectionInfo SERVER2 =
+      MySqlConnectionInfo.builder().host("127.0.0.1").port(3308).build();
+
+  @Test
+  public void shouldAssignToLeastLoadedServer() throws SQLException {
+    ScratchServerBalancer balancer = new ScratchServerBalancer(
+        ScratchServerBalancer.builder().servers(Arrays.asList(SERVER1, SERVER2)), info -> {});
+
+    ScratchServerBalancer.Lease lease1 = balancer.acquire();
+    ScratchServerBalancer.Lease lease2 = balancer.acquire();
+    assertSame(SERVER1, lease1.getMysqlConnectionInfo());
+    assertSame(SERVER2, lease2.getMysqlConnectionInfo());
+
+    lease1.close();
+    lease1.close(); // closing twice must not decrease the load again
+    ScratchServerBalancer.Lease lease3 = balancer.acquire();
+    assertSame(SERVER1, lease3.getMysqlConnectionInfo());
+
+    // Both have one dump in flight; SERVER2 is the least recently assigned one
+    ScratchServerBalancer.Lease lease4 = balancer.acquire();
+    assertSame(SERVER2, lease4.getMysqlConnectionInfo());
+
+    lease2.close();
+    lease3.close();
+    lease4.close();
+  }
+
+  @Test
+  public void shouldTakeFailedServerOutOfRotation() throws SQLException {
+    AtomicBoolean isHealthy = new AtomicBoolean(false);
+    ScratchServerBalancer balancer = new ScratchServerBalancer(ScratchServerBalancer.builder()
+        .servers(Arrays.asList(SERVER1, SERVER2))
+        .healthCheckIntervalMillis(0), info -> {
+          if (!isHealthy.get()) {
+            throw new SQLTransientConnectionException("down");
+          }
+        });
+
+    try (ScratchServerBalancer.Lease lease = balancer.acquire()) {
+      assertSame(SERVER1, lease.getMysqlConnectionInfo());
+      lease.markFailed();
+    }
+    assertEquals(Collections.singletonList(SERVER2), balancer.getHealthyServers());
+
+    // SERVER1 fails its health check, so it stays out of rotation
+    for (int i = 0; i < 2; i++) {
+      try (ScratchServerBalancer.Lease lease = balancer.acquire()) {
+        assertSame(SERVER2, lease.getMysqlConnectionInfo());
+      }
+    }
+
+    isHealthy.set(true);
+    try (ScratchServerBalancer.Lease lease = balancer.acquire()) {
+      assertSame(SERVER1, lease.getMysqlConnectionInfo());
+    }
+    assertEquals(Arrays.asList(SERVER1, SERVER2), balancer.getHealthyServers());
+  }
+
+  @Test
+  public void shouldNotCheckServerBeforeInterval() throws SQLException {
+    ScratchServerBalancer balancer = new ScratchServerBalancer(ScratchServerBalancer.builder()
+        .servers(Collections.singletonList(SERVER1))
+        .healthCheckIntervalMillis(60_000), info -> fail());
+
+    try (ScratchServerBalancer.Lease lease = balancer.acquire()) {
+      lease.markFailed();
+    }
+    try {
+      balancer.acquire();
+      fail();
+    } catch (SQLTransientConnectionException e) {
+      // ok
+    }
+  }
+
+  @Test
+  public void shouldThrowIllegalArgumentException() {
+    try {
+      ScratchServerBalancer.builder().build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+
+    try {
+      ScratchServerBalancer.builder().servers(Collections.emptyList()).build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+
+    try {
+      ScratchServerBalancer.builder()
+          .servers(Collections.singletonList(SERVER1))
+          .healthCheckIntervalMillis(-1)
+          .build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+  }
+}
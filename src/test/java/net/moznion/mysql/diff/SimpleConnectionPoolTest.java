@@ -0,0 +1,100 @@
+package net.moznion.mysql.diff;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SimpleConnectionPoolTest {
+  private final AtomicInteger numOfCreated = new AtomicInteger();
+  private final List<Connection> closedConnections = new ArrayList<>();
+
+  private Connection createFakeConnection() {
+    numOfCreated.incrementAndGet();
+    boolean[] closed = new boolean[1];
+    return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              closed[0] = true;
+              closedConnections.add((Connection) proxy);
+              return null;
+            case "isClosed":
+              return closed[0];
+            case "getAutoCommit":
+              return true;
+            default:
+              return null;
+          }
+        });
+  }
+
+  private SimpleConnectionPool createPool(SimpleConnectionPool.Builder builder) {
+    return new SimpleConnectionPool(
+        builder.mysqlConnectionInfo(MySqlConnectionInfo.builder().build()),
+        this::createFakeConnection);
+  }
+
+  @Test
+  public void shouldReuseReturnedConnection() throws SQLException {
+    try (SimpleConnectionPool pool = createPool(SimpleConnectionPool.builder())) {
+      Connection first = pool.getConnection();
+      first.close();
+      assertTrue(first.isClosed());
+      assertEquals(1, pool.getNumOfIdleConnections());
+
+      try (Connection second = pool.getConnection()) {
+        assertTrue(!second.isClosed());
+      }
+      assertEquals(1, numOfCreated.get());
+      assertEquals(0, closedConnections.size());
+    }
+    assertEquals(1, closedConnections.size());
+  }
+
+  @Test
+  public void shouldEvictIdleConnections() throws SQLException {
+    try (SimpleConnectionPool pool =
+        createPool(SimpleConnectionPool.builder().idleTimeoutMillis(0))) {
+      pool.getConnection().close();
+      assertEquals(0, pool.getNumOfIdleConnections());
+      assertEquals(1, closedConnections.size());
+
+      pool.getConnection().close();
+      assertEquals(2, numOfCreated.get());
+    }
+  }
+
+  @Test
+  public void shouldBlockMoreThanMaxPoolSize() throws SQLException {
+    try (SimpleConnectionPool pool = createPool(SimpleConnectionPool.builder()
+        .maxPoolSize(1)
+        .connectionTimeoutMillis(10))) {
+      try (Connection connection = pool.getConnection()) {
+        pool.getConnection();
+        fail();
+      } catch (SQLException e) {
+        assertTrue(e.getMessage().startsWith("Timed out"));
+      }
+
+      // permit is released by close
+      pool.getConnection().close();
+    }
+  }
+
+  @Test(expected = SQLException.class)
+  public void shouldRejectUseAfterReturn() throws SQLException {
+    try (SimpleConnectionPool pool = createPool(SimpleConnectionPool.builder())) {
+      Connection connection = pool.getConnection();
+      connection.close();
+      connection.createStatement();
+    }
+  }
+}
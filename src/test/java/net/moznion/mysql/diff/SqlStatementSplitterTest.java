@@ -0,0 +1,93 @@
+package net.moznion.mysql.diff;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SqlStatementSplitterTest {
+  private static List<SqlStatementSplitter.Statement> split(String sql) throws IOException {
+    SqlStatementSplitter splitter = new SqlStatementSplitter(new StringReader(sql));
+    List<SqlStatementSplitter.Statement> statements = new ArrayList<>();
+    SqlStatementSplitter.Statement statement;
+    while ((statement = splitter.next()) != null) {
+      statements.add(statement);
+    }
+    return statements;
+  }
+
+  private static List<String> splitSqls(String sql) throws IOException {
+    List<String> sqls = new ArrayList<>();
+    for (SqlStatementSplitter.Statement statement : split(sql)) {
+      sqls.add(statement.getSql());
+    }
+    return sqls;
+  }
+
+  @Test
+  public void shouldSplitStatementsWithLineNumbers() throws IOException {
+    List<SqlStatementSplitter.Statement> statements = split("-- header; not a statement\n"
+        + "/* block; comment */\n"
+        + "CREATE TABLE `a;b` (\n"
+        + "  `id` int COMMENT 'it''s; \\'quoted\\'' -- trailing; comment\n"
+        + ");\n"
+        + ";\n"
+        + "# another; comment\n"
+        + "/*!40101 SET NAMES 'utf8;' */;\n"
+        + "DROP TABLE \"x;y\"");
+
+    assertEquals(3, statements.size());
+    assertEquals("CREATE TABLE `a;b` (\n"
+        + "  `id` int COMMENT 'it''s; \\'quoted\\'' -- trailing; comment\n"
+        + ")", statements.get(0).getSql());
+    assertEquals(3, statements.get(0).getLineNumber());
+    assertEquals("/*!40101 SET NAMES 'utf8;' */", statements.get(1).getSql());
+    assertEquals(8, statements.get(1).getLineNumber());
+    assertEquals("DROP TABLE \"x;y\"", statements.get(2).getSql());
+    assertEquals(9, statements.get(2).getLineNumber());
+  }
+
+  @Test
+  public void shouldChangeDelimiter() throws IOException {
+    assertEquals(Arrays.asList(
+        "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET @x = 1; END",
+        "SELECT 1"), splitSqls("DELIMITER //\n"
+            + "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET @x = 1; END//\n"
+            + "delimiter ;\n"
+            + "SELECT 1;\n"));
+
+    // DELIMITER is a command only at the beginning of a statement
+    assertEquals(Collections.singletonList("CREATE TABLE a (\ndelimiter int\n)"),
+        splitSqls("CREATE TABLE a (\ndelimiter int\n);"));
+  }
+
+  @Test
+  public void shouldReadLongInputIncrementally() throws IOException {
+    StringBuilder sqlBuilder = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      sqlBuilder.append("CREATE TABLE t").append(i).append(" (id int);\n");
+    }
+    List<SqlStatementSplitter.Statement> statements = split(sqlBuilder.toString());
+    assertEquals(10000, statements.size());
+    assertEquals("CREATE TABLE t9999 (id int)", statements.get(9999).getSql());
+    assertEquals(10000, statements.get(9999).getLineNumber());
+  }
+
+  @Test
+  public void shouldThrowIllegalArgumentExceptionForMalformedSql() throws IOException {
+    for (String sql : Arrays.asList("SELECT 'abc;", "SELECT 1 /* abc;", "DELIMITER \nSELECT 1")) {
+      try {
+        split(sql);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // ok
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package net.moznion.mysql.diff;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TableFilterTest {
+  @Test
+  public void shouldAcceptTablesByGlobs() {
+    TableFilter tableFilter = TableFilter.builder()
+        .includes(Arrays.asList("user*", "order_?"))
+        .excludes(Collections.singletonList("*_archive_*"))
+        .build();
+
+    assertEquals(Arrays.asList("user", "users", "order_1"), tableFilter.filter(Arrays.asList(
+        "user", "users", "user_archive_2019", "order_1", "order_10", "orderx1", "User", "item")));
+    assertTrue(!tableFilter.acceptsAll());
+    assertTrue(TableFilter.builder().build().acceptsAll());
+    assertTrue(TableFilter.builder().build().accepts("anything"));
+  }
+
+  @Test
+  public void shouldBuildSqlCondition() {
+    TableFilter tableFilter = TableFilter.builder()
+        .includes(Arrays.asList("a*", "b?"))
+        .excludes(Collections.singletonList("_archive_*"))
+        .build();
+
+    String like = "CONVERT(t.TABLE_NAME USING utf8mb4) COLLATE utf8mb4_bin LIKE ? ESCAPE '|'";
+    assertEquals(" AND (" + like + " OR " + like + ") AND NOT (" + like + ")",
+        tableFilter.toSqlCondition("t.TABLE_NAME"));
+    assertEquals("", TableFilter.builder().build().toSqlCondition("TABLE_NAME"));
+
+    assertEquals("|_archive|_%", TableFilter.toLikePattern("_archive_*"));
+    assertEquals("a|%b_c||", TableFilter.toLikePattern("a%b?c|"));
+  }
+
+  @Test
+  public void shouldThrowIllegalArgumentException() {
+    try {
+      TableFilter.builder().includes(Collections.singletonList("")).build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+
+    try {
+      TableFilter.builder().excludes(null).build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // ok
+    }
+  }
+}
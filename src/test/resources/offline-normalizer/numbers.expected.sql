@@ -0,0 +1,18 @@
+-- Written by hand in the output format of MySQL 5.7; not recorded from a server.
+
+CREATE TABLE `numbers` (
+  `id` int(10) unsigned NOT NULL AUTO_INCREMENT,
+  `tiny` tinyint(4) DEFAULT NULL,
+  `small` smallint(5) unsigned DEFAULT '1',
+  `medium` mediumint(9) NOT NULL DEFAULT '7',
+  `big` bigint(20) NOT NULL,
+  `flag` tinyint(1) NOT NULL DEFAULT '1',
+  `price` decimal(8,0) DEFAULT '2',
+  `rate` decimal(10,2) NOT NULL DEFAULT '3.14',
+  `ratio` double DEFAULT NULL,
+  `score` double DEFAULT NULL,
+  `bits` bit(1) DEFAULT b'1',
+  `zf` int(10) unsigned zerofill DEFAULT NULL,
+  `y` year(4) DEFAULT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -0,0 +1,16 @@
+-- numeric types, aliases and default display widths
+CREATE TABLE numbers (
+  id INTEGER UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  tiny TINYINT,
+  small SMALLINT UNSIGNED DEFAULT 1,
+  medium MEDIUMINT NOT NULL DEFAULT '007',
+  big BIGINT NOT NULL,
+  flag BOOLEAN NOT NULL DEFAULT TRUE,
+  price DECIMAL(8) DEFAULT 1.5,
+  rate NUMERIC(10, 2) NOT NULL DEFAULT 3.14159,
+  ratio FLOAT(30),
+  score REAL,
+  bits BIT DEFAULT 1,
+  zf INT ZEROFILL,
+  y YEAR
+) ENGINE=innodb;
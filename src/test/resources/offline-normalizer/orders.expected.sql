@@ -0,0 +1,20 @@
+-- Written by hand in the output format of MySQL 5.7; not recorded from a server.
+
+CREATE TABLE `orders` (
+  `id` int(11) NOT NULL,
+  `user_id` bigint(20) unsigned NOT NULL,
+  `item_id` int(11) DEFAULT NULL,
+  `coupon` varchar(16) DEFAULT NULL,
+  `memo` text,
+  `serial_no` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `serial_no` (`serial_no`),
+  UNIQUE KEY `uniq_coupon` (`coupon`),
+  KEY `item_id` (`item_id`),
+  KEY `item_id_2` (`item_id`,`coupon`),
+  KEY `fk_user` (`user_id`),
+  FULLTEXT KEY `memo` (`memo`),
+  CONSTRAINT `fk_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `orders_ibfk_1` FOREIGN KEY (`item_id`) REFERENCES `items` (`id`) ON DELETE SET NULL,
+  CONSTRAINT `orders_ibfk_2` FOREIGN KEY (`coupon`) REFERENCES `coupons` (`code`) ON UPDATE NO ACTION
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,20 @@
+-- key naming and foreign keys
+SET FOREIGN_KEY_CHECKS=0;
+CREATE TABLE `orders` (
+  `id` int NOT NULL,
+  `user_id` bigint unsigned NOT NULL,
+  `item_id` int,
+  `coupon` varchar(16),
+  `memo` text,
+  `serial_no` serial,
+  FULLTEXT (`memo`),
+  KEY (`item_id`),
+  KEY (`item_id`, `coupon`),
+  UNIQUE KEY `uniq_coupon` (`coupon`),
+  CONSTRAINT `fk_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
+    ON DELETE CASCADE ON UPDATE RESTRICT,
+  FOREIGN KEY (`item_id`) REFERENCES `items` (`id`) ON DELETE SET NULL,
+  FOREIGN KEY (`coupon`) REFERENCES `coupons` (`code`) ON UPDATE NO ACTION,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+SET FOREIGN_KEY_CHECKS=1;
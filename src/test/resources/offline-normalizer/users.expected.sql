@@ -0,0 +1,21 @@
+-- Written by hand in the output format of MySQL 5.7; not recorded from a server.
+
+CREATE TABLE `users` (
+  `id` bigint(20) unsigned NOT NULL AUTO_INCREMENT,
+  `email` varchar(255) COLLATE utf8mb4_bin NOT NULL,
+  `name` varchar(64) CHARACTER SET utf8 NOT NULL DEFAULT '',
+  `code` char(1) COLLATE utf8mb4_bin DEFAULT NULL,
+  `bio` text COLLATE utf8mb4_unicode_ci,
+  `note` tinytext CHARACTER SET latin1,
+  `status` enum('active','it''s') COLLATE utf8mb4_unicode_ci NOT NULL DEFAULT 'active',
+  `tags` set('a','b') COLLATE utf8mb4_unicode_ci DEFAULT 'a,b',
+  `avatar` blob,
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  `updated_at` timestamp(3) NOT NULL DEFAULT '0000-00-00 00:00:00.000',
+  `deleted_at` timestamp NULL DEFAULT NULL,
+  `born_on` date DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `email` (`email`),
+  KEY `name` (`name`(10)),
+  KEY `idx_status` (`status`) USING BTREE COMMENT 'lookup'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Users';
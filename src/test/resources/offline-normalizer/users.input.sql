@@ -0,0 +1,20 @@
+/* strings, charsets, collations and timestamps */
+CREATE TABLE IF NOT EXISTS `users` (
+  `id` bigint unsigned NOT NULL AUTO_INCREMENT,
+  `email` varchar(255) COLLATE utf8mb4_bin NOT NULL,
+  `name` national varchar(64) NOT NULL DEFAULT '',
+  `code` char BINARY,
+  `bio` text(1000),
+  `note` tinytext CHARACTER SET latin1,
+  `status` enum('active', 'it\'s') NOT NULL DEFAULT "active",
+  `tags` set('a','b') DEFAULT 'a,b',
+  `avatar` blob,
+  `created_at` timestamp,
+  `updated_at` timestamp(3),
+  `deleted_at` timestamp NULL,
+  `born_on` date, # trailing comment
+  PRIMARY KEY (`id`),
+  UNIQUE (`email`),
+  KEY (`name`(10)),
+  INDEX `idx_status` USING BTREE (`status`) COMMENT 'lookup'
+) DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Users';